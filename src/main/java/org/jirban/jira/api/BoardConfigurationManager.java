@@ -16,9 +16,12 @@
 package org.jirban.jira.api;
 
 import java.util.List;
+import java.util.Set;
 
 import org.jboss.dmr.ModelNode;
 import org.jirban.jira.impl.config.BoardConfig;
+import org.jirban.jira.impl.config.CustomFieldConfig;
+import org.jirban.jira.impl.config.ParallelTaskCustomFieldConfig;
 
 import com.atlassian.jira.user.ApplicationUser;
 
@@ -87,6 +90,48 @@ public interface BoardConfigurationManager {
      */
     List<String> getBoardCodesForProjectCode(String projectCode);
 
+    /**
+     * Gets all the boards which have a given project as one of their linked projects
+     *
+     * @param linkedProjectCode the linked project code
+     * @return the board codes
+     */
+    List<String> getBoardCodesForLinkedProjectCode(String linkedProjectCode);
+
+    /**
+     * Gets the custom field configs for a Jira custom field on the boards set up for a project
+     *
+     * @param projectCode the project code
+     * @param jiraCustomFieldName the name of the custom field in Jira
+     * @return the custom field configs, or an empty set if there are none
+     */
+    Set<CustomFieldConfig> getCustomFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName);
+
+    /**
+     * Gets all the custom field configs on the boards set up for a project
+     *
+     * @param projectCode the project code
+     * @return the custom field configs
+     */
+    Set<CustomFieldConfig> getCustomFieldsForCreateEvent(String projectCode);
+
+    /**
+     * Gets the parallel task configs for a Jira custom field on the boards set up for a project
+     *
+     * @param projectCode the project code
+     * @param jiraCustomFieldName the name of the custom field in Jira
+     * @return the parallel task configs, or an empty set if there are none
+     */
+    Set<ParallelTaskCustomFieldConfig> getParallelTaskFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName);
+
+    /**
+     * Gets all the parallel task configs for a project on the boards set up for it
+     *
+     * @param projectCode the project code
+     * @return the parallel task configs
+     */
+    Set<ParallelTaskCustomFieldConfig> getParallelTaskFieldsForCreateEvent(String projectCode);
+
     /**
      * Saves the id of the custom field that Jira Agile uses for its 'Rank'.
      *
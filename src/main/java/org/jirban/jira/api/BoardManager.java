@@ -29,15 +29,18 @@ import com.atlassian.jira.user.ApplicationUser;
  */
 public interface BoardManager {
     /**
-     * Gets the json for a board populated with issues
+     * Gets a board populated with issues for sending to the client, unless the client already has the current view
+     * of it
      *
      * @param user the logged in user
      * @param backlog if {@true} we will include issues belonging to the backlog states
      * @param code the code of the board
-     * @return the board in json format
+     * @param cbor if {@code true} the board is encoded as CBOR, otherwise as utf-8 json
+     * @param ifNoneMatch the entity tags of the versions the client has. May be {@code null}
+     * @return the board, with no value if the client has it already
      * @throws SearchException
      */
-    String getBoardJson(ApplicationUser user, boolean backlog, String code) throws SearchException;
+    BoardPayload<byte[]> getBoardPayload(ApplicationUser user, boolean backlog, String code, boolean cbor, String ifNoneMatch) throws SearchException;
 
     /**
      * Deletes a board
@@ -54,6 +57,14 @@ public interface BoardManager {
      */
     boolean hasBoardsForProjectCode(String projectCode);
 
+    /**
+     * Checks whether there are any boards which has the passed in {@code projectCode} as one of the linked projects.
+     *
+     * @param projectCode the project code
+     * @return {@code true} if there are boards
+     */
+    boolean hasBoardsForLinkedProjectCode(String projectCode);
+
     /**
      * Handles an event from the underlying Jira instance to create, delete, update issues on the affected boards
      *
@@ -73,6 +84,31 @@ public interface BoardManager {
      */
     String getChangesJson(ApplicationUser user, boolean backlog, String code, int viewId) throws SearchException;
 
+    /**
+     * Gets the changes for a board like {@link #getChangesJson(ApplicationUser, boolean, String, int)} for
+     * sending to the client, unless the client already has them
+     *
+     * @param user the logged in user
+     * @param backlog if {@true} we will include changes to issues belonging to the backlog states
+     * @param code the board code
+     * @param viewId the view id of the client.
+     * @param cbor if {@code true} the changes are encoded as CBOR, otherwise as utf-8 json
+     * @param ifNoneMatch the entity tags of the versions the client has. May be {@code null}
+     * @return the changes, with no value if the client has them already
+     */
+    BoardPayload<byte[]> getChangesPayload(ApplicationUser user, boolean backlog, String code, int viewId, boolean cbor,
+                                           String ifNoneMatch) throws SearchException;
+
+    /**
+     * Gets the range of views for which the changes to a board are held, and how many changes have had to be
+     * compacted or evicted.
+     *
+     * @param user the logged in user
+     * @param code the board code
+     * @return the json containing the retention details, or an empty object if the board is not loaded
+     */
+    String getChangeRetentionJson(ApplicationUser user, String code);
+
     /**
      * If one or more boards for the project is set up to use the custom field, we return the custom field configs.
      * If none of the projects are configured to use the custom field, we return an empty set.
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.api;
+
+/**
+ * A board or the changes to a board, along with the entity tag identifying the view of the board it was created
+ * from. If the client already had that view, there is no value and the client should use what it has.
+ *
+ * @author Kabir Khan
+ */
+public class BoardPayload<T> {
+    private final String entityTag;
+    private final T value;
+
+    private BoardPayload(String entityTag, T value) {
+        this.entityTag = entityTag;
+        this.value = value;
+    }
+
+    public static <T> BoardPayload<T> modified(String entityTag, T value) {
+        return new BoardPayload<>(entityTag, value);
+    }
+
+    public static <T> BoardPayload<T> notModified(String entityTag) {
+        return new BoardPayload<>(entityTag, null);
+    }
+
+    /**
+     * Gets the entity tag. It is a weak one, since the same view of the board may be sent compressed or not.
+     *
+     * @return the entity tag
+     */
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public boolean isModified() {
+        return value != null;
+    }
+
+    /**
+     * Gets the payload
+     *
+     * @return the payload, or {@code null} if the client already has it
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Checks whether an entity tag is one of the ones in an {@code If-None-Match} header
+     *
+     * @param ifNoneMatch the value of the header. May be {@code null}
+     * @param entityTag the entity tag
+     * @return {@code true} if the tag matches
+     */
+    public static boolean matches(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        //If-None-Match uses the weak comparison, so ignore the weak prefixes
+        final String opaqueTag = stripWeakPrefix(entityTag);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || stripWeakPrefix(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -54,14 +54,18 @@ public interface JiraFacade
     String getBoardsForDisplay(ApplicationUser user);
 
     /**
-     * Gets a board for displaying to the user
-     * @param user the user
+     * Gets a board populated with issues for sending to the client, unless the client already has the current view
+     * of it
+     *
+     * @param user the logged in user
      * @param backlog if {@true} we will include issues belonging to the backlog states
-     * @param code the board code
-     * @return the board's json
+     * @param code the code of the board
+     * @param cbor if {@code true} the board is encoded as CBOR, otherwise as utf-8 json
+     * @param ifNoneMatch the entity tags of the versions the client has. May be {@code null}
+     * @return the board, with no value if the client has it already
      * @throws SearchException
      */
-    String getBoardJson(ApplicationUser user, boolean backlog, String code) throws SearchException;
+    BoardPayload<byte[]> getBoardPayload(ApplicationUser user, boolean backlog, String code, boolean cbor, String ifNoneMatch) throws SearchException;
 
     /**
      * Gets the changes for a board. The client passes in their view id, and the delta is passed back to the client in
@@ -75,6 +79,31 @@ public interface JiraFacade
      */
     String getChangesJson(ApplicationUser user, boolean backlog, String code, int viewId) throws SearchException;
 
+    /**
+     * Gets the changes for a board like {@link #getChangesJson(ApplicationUser, boolean, String, int)} for
+     * sending to the client, unless the client already has them
+     *
+     * @param user the logged in user
+     * @param backlog if {@true} we will include changes to issues belonging to the backlog states
+     * @param code the board code
+     * @param viewId the view id of the client.
+     * @param cbor if {@code true} the changes are encoded as CBOR, otherwise as utf-8 json
+     * @param ifNoneMatch the entity tags of the versions the client has. May be {@code null}
+     * @return the changes, with no value if the client has them already
+     */
+    BoardPayload<byte[]> getChangesPayload(ApplicationUser user, boolean backlog, String code, int viewId, boolean cbor,
+                                           String ifNoneMatch) throws SearchException;
+
+    /**
+     * Gets the range of views for which the changes to a board are held, and how many changes have had to be
+     * compacted or evicted.
+     *
+     * @param user the logged in user
+     * @param code the board code
+     * @return the json containing the retention details
+     */
+    String getChangeRetentionJson(ApplicationUser user, String code);
+
     /**
      * Saves the id of the custom field that Jira Agile uses for its 'Rank'.
      *
@@ -29,13 +29,23 @@ import com.atlassian.jira.user.ApplicationUser;
  */
 public interface NextRankedIssueUtil {
     /**
-     * Finds the next issue after the {@code issueKey} in the current ranking
+     * Finds the first issue ranked after {@code rank} in the current ranking
      *
      *
      * @param projectConfig the project config of the project containing the issue
-     * @param issueKey the issue key to determine the rank of
-     * @return the issue key appearing after {@code issueKey} or {@code null} if this is the last issue
+     * @param rank the formatted rank, as returned by {@link #getRank(ApplicationUser, String)}
+     * @return the key of the issue appearing after {@code rank} or {@code null} if there is none
      */
-    String findNextRankedIssue(BoardProjectConfig projectConfig, ApplicationUser boardOwner, String issueKey) throws SearchException;
+    String findNextRankedIssue(BoardProjectConfig projectConfig, ApplicationUser boardOwner, String rank) throws SearchException;
+
+    /**
+     * Gets the current rank of an issue. If the board knows the ranks of all its issues, this is used to find the
+     * next issue without searching. Otherwise it is passed in to {@link #findNextRankedIssue}.
+     *
+     * @param boardOwner the board owner
+     * @param issueKey the issue key
+     * @return the formatted rank, or {@code null} if it is not known
+     */
+    String getRank(ApplicationUser boardOwner, String issueKey);
 
 }
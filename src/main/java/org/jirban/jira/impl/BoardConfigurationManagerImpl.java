@@ -24,7 +24,6 @@ import static org.jirban.jira.impl.Constants.PROJECTS;
 import static org.jirban.jira.impl.Constants.RANK_CUSTOM_FIELD;
 import static org.jirban.jira.impl.Constants.RANK_CUSTOM_FIELD_ID;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,15 +40,13 @@ import org.jirban.jira.api.BoardConfigurationManager;
 import org.jirban.jira.impl.activeobjects.BoardCfg;
 import org.jirban.jira.impl.activeobjects.Setting;
 import org.jirban.jira.impl.config.BoardConfig;
+import org.jirban.jira.impl.config.BoardConfigIndex;
 import org.jirban.jira.impl.config.BoardProjectConfig;
+import org.jirban.jira.impl.config.CustomFieldConfig;
+import org.jirban.jira.impl.config.ParallelTaskCustomFieldConfig;
 
 import com.atlassian.activeobjects.external.ActiveObjects;
-import com.atlassian.jira.permission.GlobalPermissionKey;
 import com.atlassian.jira.permission.ProjectPermissions;
-import com.atlassian.jira.project.Project;
-import com.atlassian.jira.project.ProjectManager;
-import com.atlassian.jira.security.GlobalPermissionManager;
-import com.atlassian.jira.security.PermissionManager;
 import com.atlassian.jira.security.plugin.ProjectPermissionKey;
 import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.sal.api.transaction.TransactionCallback;
@@ -65,6 +62,9 @@ public class BoardConfigurationManagerImpl implements BoardConfigurationManager
 
     private volatile Map<String, BoardConfig> boardConfigs = new ConcurrentHashMap<>();
 
+    //Looks up the configs by project for the Jira issue events. Created again whenever boardConfigs changes
+    private volatile BoardConfigIndex configIndex = BoardConfigIndex.EMPTY;
+
     private final JiraInjectables jiraInjectables;
 
     /** The 'Rank' custom field id */
@@ -159,6 +159,8 @@ public class BoardConfigurationManagerImpl implements BoardConfigurationManager
                 BoardConfig old = boardConfigs.putIfAbsent(code, boardConfig);
                 if (old != null) {
                     boardConfig = old;
+                } else {
+                    updateConfigIndex();
                 }
             }
         }
@@ -216,6 +218,7 @@ public class BoardConfigurationManagerImpl implements BoardConfigurationManager
                 }
                 if (id >= 0) {
                     boardConfigs.remove(code);
+                    updateConfigIndex();
                 }
                 return null;
             }
@@ -246,20 +249,44 @@ public class BoardConfigurationManagerImpl implements BoardConfigurationManager
         });
         if (code != null) {
             boardConfigs.remove(code);
+            updateConfigIndex();
         }
         return code;
     }
 
     @Override
     public List<String> getBoardCodesForProjectCode(String projectCode) {
-        //For now just iterate
-        List<String> boardCodes = new ArrayList<>();
-        for (Map.Entry<String, BoardConfig> entry : boardConfigs.entrySet()) {
-            if (entry.getValue().getBoardProject(projectCode) != null) {
-                boardCodes.add(entry.getKey());
-            }
-        }
-        return boardCodes;
+        return configIndex.getBoardCodes(projectCode);
+    }
+
+    @Override
+    public List<String> getBoardCodesForLinkedProjectCode(String linkedProjectCode) {
+        return configIndex.getBoardCodesForLinkedProject(linkedProjectCode);
+    }
+
+    @Override
+    public Set<CustomFieldConfig> getCustomFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName) {
+        return configIndex.getCustomFieldsForUpdateEvent(projectCode, jiraCustomFieldName);
+    }
+
+    @Override
+    public Set<CustomFieldConfig> getCustomFieldsForCreateEvent(String projectCode) {
+        return configIndex.getCustomFieldsForCreateEvent(projectCode);
+    }
+
+    @Override
+    public Set<ParallelTaskCustomFieldConfig> getParallelTaskFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName) {
+        return configIndex.getParallelTaskFieldsForUpdateEvent(projectCode, jiraCustomFieldName);
+    }
+
+    @Override
+    public Set<ParallelTaskCustomFieldConfig> getParallelTaskFieldsForCreateEvent(String projectCode) {
+        return configIndex.getParallelTaskFieldsForCreateEvent(projectCode);
+    }
+
+    private synchronized void updateConfigIndex() {
+        //Synchronized so that the last index created is from the last change to the configs
+        configIndex = BoardConfigIndex.create(boardConfigs.values());
     }
 
     @Override
@@ -401,12 +428,9 @@ public class BoardConfigurationManagerImpl implements BoardConfigurationManager
         if (isJiraAdministrator(user)) {
             return true;
         }
-        final ProjectManager projectManager = jiraInjectables.getProjectManager();
-        final PermissionManager permissionManager = jiraInjectables.getPermissionManager();
-
-        Project project = projectManager.getProjectByCurrentKey(projectCode);
+        final PermissionCache permissionCache = jiraInjectables.getPermissionCache();
         for (ProjectPermissionKey permission : permissions) {
-            if (!permissionManager.hasPermission(permission, project, user)) {
+            if (!permissionCache.hasPermission(user, projectCode, permission)) {
                 return false;
             }
         }
@@ -414,8 +438,6 @@ public class BoardConfigurationManagerImpl implements BoardConfigurationManager
     }
 
     private boolean isJiraAdministrator(ApplicationUser user) {
-        final GlobalPermissionManager globalPermissionManager = jiraInjectables.getGlobalPermissionManager();
-
-        return globalPermissionManager.hasPermission(GlobalPermissionKey.ADMINISTER, user);
+        return jiraInjectables.getPermissionCache().isJiraAdministrator(user);
     }
 }
@@ -15,19 +15,31 @@
  */
 package org.jirban.jira.impl;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiFunction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -37,6 +49,7 @@ import org.jirban.jira.JirbanLogger;
 import org.jirban.jira.JirbanValidationException;
 import org.jirban.jira.api.BoardConfigurationManager;
 import org.jirban.jira.api.BoardManager;
+import org.jirban.jira.api.BoardPayload;
 import org.jirban.jira.api.NextRankedIssueUtil;
 import org.jirban.jira.api.ProjectParallelTaskOptionsLoader;
 import org.jirban.jira.impl.board.Board;
@@ -45,7 +58,6 @@ import org.jirban.jira.impl.board.BoardProject;
 import org.jirban.jira.impl.board.CustomFieldValue;
 import org.jirban.jira.impl.board.SortedParallelTaskFieldOptions;
 import org.jirban.jira.impl.config.BoardConfig;
-import org.jirban.jira.impl.config.BoardProjectConfig;
 import org.jirban.jira.impl.config.CustomFieldConfig;
 import org.jirban.jira.impl.config.ParallelTaskConfig;
 import org.jirban.jira.impl.config.ParallelTaskCustomFieldConfig;
@@ -69,33 +81,118 @@ import com.atlassian.jira.user.ApplicationUser;
 @Named("jirbanBoardManager")
 public class BoardManagerImpl implements BoardManager, InitializingBean, DisposableBean {
 
-    private static final int REFRESH_TIMEOUT_SECONDS = 5 * 60;
+    //The linked issues are kept up to date from the issue events, so the full reload of the boards is only there to
+    //pick up what we get no events for, e.g. linked issues moved between projects, or changes to the Jira config
+    private static final int REFRESH_TIMEOUT_SECONDS = Integer.getInteger("jirban.board.refresh.minutes", 30) * 60;
+
+    //If true, expired boards are rebuilt in the background while the old board keeps serving requests. If false,
+    //expired boards are dropped, and the next request for the board does the full load.
+    private static final boolean BACKGROUND_REFRESH =
+            Boolean.parseBoolean(System.getProperty("jirban.board.refresh.background", "true"));
+
+    //The maximum number of boards being rebuilt in the background at the same time
+    private static final int MAX_CONCURRENT_REFRESHES =
+            Math.max(1, Integer.getInteger("jirban.board.refresh.max.concurrent", 2));
+
+    //The number of threads used to load the projects of a board in parallel. If 1 or less, the projects of a board
+    //are loaded one after another by the thread loading the board.
+    private static final int PROJECT_LOAD_THREADS = Integer.getInteger("jirban.board.load.threads", 4);
+
+    //The maximum number of issue batches bulk loaded at the same time, each over a separate connection. This is for
+    //all the boards being loaded, so it also caps the connections the board loads take from Jira's pool
+    private static final int MAX_CONCURRENT_BATCHES = Integer.getInteger("jirban.bulk.load.max.concurrent.batches", 4);
+
+    //The number of threads applying Jira's events to the boards. Each board has its events applied by one thread at a
+    //time, in the order they came in, so this is how many boards can be updated at the same time. A board which is
+    //still loading does not hold one of them, but an event which is slow to apply to its board does until it is done
+    private static final int EVENT_THREADS = Math.max(1, Integer.getInteger("jirban.board.events.threads", 4));
+
+    //The maximum number of events waiting to be applied to a board. If a board falls this far behind, we throw it
+    //away so that the next read does a full load instead
+    private static final int MAX_QUEUED_EVENTS = Math.max(1, Integer.getInteger("jirban.board.events.max.queued", 1000));
+
+    //How long to let the events for a board build up before applying them. Bulk edits and workflow post functions
+    //send several events for an issue within a few milliseconds, and the ones for the same issue get merged into
+    //one new view of the board
+    private static final int EVENT_COALESCE_MS = Integer.getInteger("jirban.board.events.coalesce.ms", 10);
+
+    //How long a board may keep applying its events before letting the other boards waiting for the executor have a go
+    private static final int EVENT_SLICE_MS = Integer.getInteger("jirban.board.events.slice.ms", 500);
+
+    //Applying an event to a board taking longer than this gets logged
+    private static final int SLOW_EVENT_MS = Integer.getInteger("jirban.board.events.slow.ms", 1000);
+
+    //The json as utf-8, for writing to the client without encoding the whole board again
+    private static final PayloadFormat<byte[]> JSON = new PayloadFormat<byte[]>("json") {
+        @Override
+        byte[] board(Board board, JiraInjectables jiraInjectables, boolean backlog, ApplicationUser user) {
+            return board.serializeToJsonBytes(jiraInjectables, backlog, user);
+        }
+
+        @Override
+        byte[] changes(BoardChangeRegistry registry, boolean backlog, int viewId) throws BoardChangeRegistry.FullRefreshNeededException {
+            return registry.getChangesJsonSince(backlog, viewId).getBytes(StandardCharsets.UTF_8);
+        }
+    };
+
+    private static final PayloadFormat<byte[]> CBOR = new PayloadFormat<byte[]>("cbor") {
+        @Override
+        byte[] board(Board board, JiraInjectables jiraInjectables, boolean backlog, ApplicationUser user) {
+            return board.serializeToCbor(jiraInjectables, backlog, user);
+        }
+
+        @Override
+        byte[] changes(BoardChangeRegistry registry, boolean backlog, int viewId) throws BoardChangeRegistry.FullRefreshNeededException {
+            return registry.getChangesCborSince(backlog, viewId);
+        }
+    };
 
     private final JiraInjectables jiraInjectables;
 
-    //Guarded by this
-    private Map<String, Board> boards = new HashMap<>();
-    //Guarded by this
-    private Map<String, BoardChangeRegistry> boardChangeRegistries = new HashMap<>();
+    //The loaded (or loading) boards. Each board is loaded by the first request for it, and concurrent requests for
+    //the same board wait for that load, while loads of other boards can happen in parallel
+    private final ConcurrentMap<String, BoardHolder> boards = new ConcurrentHashMap<>();
 
     private final BoardConfigurationManager boardConfigurationManager;
 
     private final ProjectParallelTaskOptionsLoader projectParallelTaskOptionsLoader;
 
-    private final ExecutorService boardRefreshExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService boardRefreshExecutor = JirbanExecutors.newFixedThreadPool("board-refresh", 1);
+
+    private final ExecutorService boardRebuildExecutor =
+            JirbanExecutors.newFixedThreadPool("board-rebuild", MAX_CONCURRENT_REFRESHES);
+
+    private final ExecutorService projectLoadExecutor =
+            PROJECT_LOAD_THREADS > 1 ? JirbanExecutors.newFixedThreadPool("project-load", PROJECT_LOAD_THREADS) : null;
+
+    private final ExecutorService batchLoadExecutor =
+            MAX_CONCURRENT_BATCHES > 1 ? JirbanExecutors.newFixedThreadPool("bulk-load", MAX_CONCURRENT_BATCHES) : null;
 
     private final Queue<RefreshEntry> boardRefreshQueue = new LinkedBlockingQueue<>();
 
-    //Guarded by this
-    private final Map<String, RefreshEntry> refreshEntries = new HashMap<>();
+    //Applies the events to the boards, so that Jira's event thread does not wait for us
+    private final ScheduledExecutorService boardEventExecutor;
+    private final int eventCoalesceMs;
 
     @Inject
     public BoardManagerImpl(JiraInjectables jiraInjectables,
                             BoardConfigurationManager boardConfigurationManager,
                             ProjectParallelTaskOptionsLoader projectParallelTaskOptionsLoader) {
+        this(jiraInjectables, boardConfigurationManager, projectParallelTaskOptionsLoader,
+                JirbanExecutors.newScheduledThreadPool("board-events", EVENT_THREADS), EVENT_COALESCE_MS);
+    }
+
+    //The tests pass in an executor running the events on the calling thread, where there is no point waiting for
+    //more events to merge
+    BoardManagerImpl(JiraInjectables jiraInjectables,
+                     BoardConfigurationManager boardConfigurationManager,
+                     ProjectParallelTaskOptionsLoader projectParallelTaskOptionsLoader,
+                     ScheduledExecutorService boardEventExecutor, int eventCoalesceMs) {
         this.jiraInjectables = jiraInjectables;
         this.boardConfigurationManager = boardConfigurationManager;
         this.projectParallelTaskOptionsLoader = projectParallelTaskOptionsLoader;
+        this.boardEventExecutor = boardEventExecutor;
+        this.eventCoalesceMs = eventCoalesceMs;
     }
 
     @Override
@@ -184,41 +281,39 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
     }
 
     @Override
-    public String getBoardJson(ApplicationUser user, boolean backlog, String code) throws SearchException {
+    public BoardPayload<byte[]> getBoardPayload(ApplicationUser user, boolean backlog, String code, boolean cbor,
+                                                String ifNoneMatch) throws SearchException {
+        return getBoardPayload(user, backlog, code, cbor ? CBOR : JSON, ifNoneMatch);
+    }
+
+    private <T> BoardPayload<T> getBoardPayload(ApplicationUser user, boolean backlog, String code, PayloadFormat<T> format,
+                                                String ifNoneMatch) throws SearchException {
         Board board = getBoard(user, code);
-        return board.serialize(jiraInjectables, backlog, user).toJSONString(true);
+        final String entityTag = board.getEntityTag(jiraInjectables, backlog, user, format.name);
+        if (BoardPayload.matches(ifNoneMatch, entityTag)) {
+            return BoardPayload.notModified(entityTag);
+        }
+        return BoardPayload.modified(entityTag, format.board(board, jiraInjectables, backlog, user));
     }
 
     private Board getBoard(ApplicationUser user, String code) throws SearchException {
-        Board board = boards.get(code);
-        if (board == null) {
-            synchronized (this) {
-                board = boards.get(code);
-                if (board == null) {
+        return getBoardHolder(user, code).getBoard();
+    }
 
-                    //Use the logged in user to check if we are allowed to view the board
-                    final BoardConfig boardConfig = boardConfigurationManager.getBoardConfigForBoardDisplay(user, code);
-                    /*
-                    Use the board owner to load the board data. The board is only loaded once, and shared amongst all
-                    users.
-                    Since I was not 100% sure which permission to use to determine if a user can view the board in the
-                    check done by getBoardConfigForBoardDisplay(), it feels less error-prone to use the user who created
-                    the board (who needs the project admin permission) to load this data.
-                    This user is only used to load board data; all changes will be done using the logged in user.
-                    */
-
-                    final ApplicationUser boardOwner = jiraInjectables.getJiraUserManager().getUserByKey(boardConfig.getOwningUserKey());
-                    board = Board.builder(jiraInjectables, projectParallelTaskOptionsLoader, boardConfig, boardOwner).load().build();
-                    JirbanLogger.LOGGER.debug("Full refresh of board {}", code);
-                    boards.put(code, board);
-                    boardChangeRegistries.put(code, new BoardChangeRegistry(this, board));
-                    final RefreshEntry refreshEntry = new RefreshEntry(code, REFRESH_TIMEOUT_SECONDS);
-                    boardRefreshQueue.add(refreshEntry);
-                    refreshEntries.put(code, refreshEntry);
-                }
+    private BoardHolder getBoardHolder(ApplicationUser user, String code) {
+        BoardHolder holder = boards.get(code);
+        if (holder == null) {
+            //Use the logged in user to check if we are allowed to view the board
+            final BoardConfig boardConfig = boardConfigurationManager.getBoardConfigForBoardDisplay(user, code);
+            final BoardHolder newHolder = new BoardHolder(code, boardConfig);
+            holder = boards.putIfAbsent(code, newHolder);
+            if (holder == null) {
+                //We won the race, so do the load. Other requests for this board will wait for the load to complete
+                holder = newHolder;
+                holder.load();
             }
         }
-        return board;
+        return holder;
     }
 
     @Override
@@ -226,36 +321,50 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
         deleteBoard(code);
     }
 
+    /**
+     * Reloads a board on the calling thread, and sends the clients the differences from the board they have as
+     * changes. The reloaded board is swapped in by the task applying the board's events. If the board is still being
+     * loaded, or is already being reloaded, it is dropped instead so that the next request loads it with everything.
+     *
+     * @param code the board code
+     */
     public void forceRefresh(String code) {
-        deleteBoard(code);
+        final BoardHolder holder = boards.get(code);
+        if (holder == null) {
+            return;
+        }
+        if (BACKGROUND_REFRESH && holder.getLoadedChangeRegistry() != null && holder.startBackgroundRefresh()) {
+            holder.refresh();
+        } else {
+            deleteBoard(code);
+        }
     }
 
     private void deleteBoard(String code) {
-        synchronized (this) {
-            boards.remove(code);
-            BoardChangeRegistry registry = boardChangeRegistries.remove(code);
-            if (registry != null) {
-                registry.invalidate();
-            }
-            RefreshEntry refreshEntry = refreshEntries.remove(code);
-            if (refreshEntry != null) {
-                refreshEntry.invalidate();
-            }
+        BoardHolder holder = boards.remove(code);
+        if (holder != null) {
+            holder.invalidate();
         }
     }
 
     @Override
     public boolean hasBoardsForProjectCode(String projectCode) {
-        List<String> boardCodes = boardConfigurationManager.getBoardCodesForProjectCode(projectCode);
+        return hasBoards(boardConfigurationManager.getBoardCodesForProjectCode(projectCode));
+    }
+
+    @Override
+    public boolean hasBoardsForLinkedProjectCode(String projectCode) {
+        return hasBoards(boardConfigurationManager.getBoardCodesForLinkedProjectCode(projectCode));
+    }
+
+    private boolean hasBoards(List<String> boardCodes) {
         if (boardCodes.size() == 0) {
             return false;
         }
-        synchronized (this) {
-            for (String boardCode : boardCodes) {
-                //There might be a config, but no board. So check if there is a board first.
-                if (boards.get(boardCode) != null) {
-                    return true;
-                }
+        for (String boardCode : boardCodes) {
+            //There might be a config, but no board. So check if there is a board first.
+            if (boards.get(boardCode) != null) {
+                return true;
             }
         }
         return false;
@@ -263,190 +372,93 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
 
     @Override
     public Set<CustomFieldConfig> getCustomFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName) {
-        return processBoardConfigs(
-                projectCode,
-                //Don't use a lamba here, it breaks Jira
-                new BiFunction<BoardConfig, Set<CustomFieldConfig>, Set<CustomFieldConfig>>() {
-                    @Override
-                    public Set<CustomFieldConfig> apply(BoardConfig boardConfig, Set<CustomFieldConfig> result) {
-                        CustomFieldConfig config = boardConfig.getCustomFieldObjectForJiraName(jiraCustomFieldName);
-                        if (config != null) {
-                            if (result == null) {
-                                result = new HashSet<>();
-                            }
-                            result.add(config);
-                        }
-                        return result;
-                    }
-                });
+        return boardConfigurationManager.getCustomFieldsForUpdateEvent(projectCode, jiraCustomFieldName);
     }
 
     @Override
     public Set<CustomFieldConfig> getCustomFieldsForCreateEvent(String projectCode) {
-        return processBoardConfigs(
-                projectCode,
-                //Don't use a lamba here, it breaks Jira
-                new BiFunction<BoardConfig, Set<CustomFieldConfig>, Set<CustomFieldConfig>>() {
-                    @Override
-                    public Set<CustomFieldConfig> apply(BoardConfig boardConfig, Set<CustomFieldConfig> result) {
-                        Set<CustomFieldConfig> configs = boardConfig.getCustomFieldConfigs();
-                        if (configs.size() > 0) {
-                            if (result == null) {
-                                result = new HashSet<>();
-                            }
-                            result.addAll(configs);
-                        }
-                        return result;
-                    }
-                });
+        return boardConfigurationManager.getCustomFieldsForCreateEvent(projectCode);
     }
 
+    @Override
     public Set<ParallelTaskCustomFieldConfig> getParallelTaskFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName) {
-        return processBoardConfigs(
-                projectCode,
-                new BiFunction<BoardConfig, Set<ParallelTaskCustomFieldConfig>, Set<ParallelTaskCustomFieldConfig>>() {
-                    @Override
-                    public Set<ParallelTaskCustomFieldConfig> apply(BoardConfig boardConfig, Set<ParallelTaskCustomFieldConfig> result) {
-                        BoardProjectConfig projectConfig = boardConfig.getBoardProject(projectCode);
-                        if (projectConfig != null && projectConfig.getParallelTaskConfig() != null) {
-                            ParallelTaskConfig parallelTaskConfig = projectConfig.getParallelTaskConfig();
-                            if (parallelTaskConfig != null) {
-                                ParallelTaskCustomFieldConfig config = parallelTaskConfig.getCustomFieldObjectForJiraName(jiraCustomFieldName);
-                                if (config != null) {
-                                    if (result == null) {
-                                        result = new HashSet<>();
-                                    }
-                                    result.add(config);
-                                }
-                            }
-                        }
-                        return result;
-                    }
-                });
+        return boardConfigurationManager.getParallelTaskFieldsForUpdateEvent(projectCode, jiraCustomFieldName);
     }
 
-
+    @Override
     public Set<ParallelTaskCustomFieldConfig> getParallelTaskFieldsForCreateEvent(String projectCode) {
-        return processBoardConfigs(
-                projectCode,
-                new BiFunction<BoardConfig, Set<ParallelTaskCustomFieldConfig>, Set<ParallelTaskCustomFieldConfig>>() {
-                    @Override
-                    public Set<ParallelTaskCustomFieldConfig> apply(BoardConfig boardConfig, Set<ParallelTaskCustomFieldConfig> result) {
-                        BoardProjectConfig projectConfig = boardConfig.getBoardProject(projectCode);
-                        if (projectConfig != null && projectConfig.getParallelTaskConfig() != null) {
-                            ParallelTaskConfig parallelTaskConfig = projectConfig.getParallelTaskConfig();
-                            if (parallelTaskConfig != null) {
-                                Collection<ParallelTaskCustomFieldConfig> configs = parallelTaskConfig.getConfigs().values();
-                                if (configs.size() > 0) {
-                                    if (result == null) {
-                                        result = new HashSet<>();
-                                    }
-                                    result.addAll(configs);
-                                }
-                            }
-                        }
-                        return result;
-                    }
-                });
-    }
-
-    private <T> Set<T> processBoardConfigs(String projectCode, BiFunction<BoardConfig, Set<T>, Set<T>> function) {
-        List<String> boardCodes = boardConfigurationManager.getBoardCodesForProjectCode(projectCode);
-        if (boardCodes.size() == 0) {
-            return Collections.emptySet();
-        }
-        Set<String> activeBoards = new HashSet<>();
-        synchronized (this) {
-            for (String boardCode : boardCodes) {
-                //There might be a config, but no board. So check if there is a board first.
-                //There is a slight chance that a new board might pop up so we will miss this update, but it isn't a big
-                //deal. It will come in during the next periodic full refresh.
-                if (boards.get(boardCode) != null) {
-                    activeBoards.add(boardCode);
-                }
-            }
-        }
-        Set<T> result = null;
-        for (String boardCode : boardCodes) {
-            BoardConfig boardConfig = null;
-            try {
-                boardConfig = boardConfigurationManager.getBoardConfig(boardCode);
-                if (boardConfig != null) {
-                    result = function.apply(boardConfig, result);
-                }
-            } catch (JirbanValidationException e) {
-                JirbanLogger.LOGGER.error("Error loading custom fields {} {}", boardCode, e.getMessage());
-            }
-        }
-        return result != null ? result : Collections.emptySet();
+        return boardConfigurationManager.getParallelTaskFieldsForCreateEvent(projectCode);
     }
 
     @Override
     public void handleEvent(JirbanIssueEvent event, NextRankedIssueUtil nextRankedIssueUtil) {
-        //Jira seems to only handle one event at a time, which is good
-
-        List<String> boardCodes = boardConfigurationManager.getBoardCodesForProjectCode(event.getProjectCode());
+        //This is called on Jira's event thread, so only queue the event for each board here. The boards are updated
+        //by the board event executor
+        List<String> boardCodes = event.isLinkedIssueEvent() ?
+                boardConfigurationManager.getBoardCodesForLinkedProjectCode(event.getProjectCode()) :
+                boardConfigurationManager.getBoardCodesForProjectCode(event.getProjectCode());
         for (String boardCode : boardCodes) {
-            final Board board;
-            final BoardChangeRegistry changeRegistry;
-            synchronized (this) {
-                board = boards.get(boardCode);
-                if (board == null) {
-                    continue;
-                }
-                changeRegistry = boardChangeRegistries.get(boardCode);
-            }
-            final ApplicationUser boardOwner = jiraInjectables.getJiraUserManager().getUserByKey(board.getConfig().getOwningUserKey());
-            try {
-                JirbanLogger.LOGGER.debug("BoardManagerImpl.handleEvent - Handling event on board {}", board.getConfig().getCode());
-                Board newBoard = board.handleEvent(jiraInjectables, nextRankedIssueUtil, boardOwner, event, changeRegistry);
-                if (newBoard == null) {
-                    //The changes in the issue were not relevant
-                    return;
-                }
-                synchronized (this) {
-                    //An event ending up in forceRefresh() might have deleted the board and the change registry
-                    //with the intent of forcing the next read to perform a full refresh
-                    //We have the new board returned, but check if we need to recreate the registry
-                    if (changeRegistry.isValid()) {
-                        changeRegistry.setBoard(newBoard);
-                        boards.put(boardCode, newBoard);
-                    }
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                //Last parameter is the exception (it does not match a {} entry)
-                JirbanLogger.LOGGER.error("BoardManagerImpl.handleEvent - Error handling event {} - {}", event.getIssueKey(), e.getMessage());
-
-                //Last parameter is the exception (it does not match a {} entry)
-                JirbanLogger.LOGGER.debug("BoardManagerImpl.handleEvent - Error handling event {}", event.getIssueKey(), e);
+            final BoardHolder holder = boards.get(boardCode);
+            if (holder != null) {
+                holder.queueEvent(new PendingEvent(event, nextRankedIssueUtil));
             }
         }
     }
 
     @Override
     public String getChangesJson(ApplicationUser user, boolean backlog, String code, int viewId) throws SearchException {
+        return new String(getChangesPayload(user, backlog, code, viewId, JSON, null).getValue(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public BoardPayload<byte[]> getChangesPayload(ApplicationUser user, boolean backlog, String code, int viewId, boolean cbor,
+                                                  String ifNoneMatch) throws SearchException {
+        return getChangesPayload(user, backlog, code, viewId, cbor ? CBOR : JSON, ifNoneMatch);
+    }
+
+    private <T> BoardPayload<T> getChangesPayload(ApplicationUser user, boolean backlog, String code, int viewId,
+                                                  PayloadFormat<T> format, String ifNoneMatch) throws SearchException {
         //Check we are allowed to view the board
         boardConfigurationManager.getBoardConfigForBoardDisplay(user, code);
 
-        BoardChangeRegistry boardChangeRegistry;
-        synchronized (this) {
-            boardChangeRegistry = boardChangeRegistries.get(code);
-        }
+        final BoardChangeRegistry boardChangeRegistry = getLoadedChangeRegistry(code);
 
         if (boardChangeRegistry == null) {
             //There is config but no board, so do a full refresh
-            return getBoardJson(user, backlog, code);
+            return getBoardPayload(user, backlog, code, format, ifNoneMatch);
         }
 
-        final ModelNode changes;
+        final String entityTag = boardChangeRegistry.getChangesEntityTag(backlog, format.name);
+        if (BoardPayload.matches(ifNoneMatch, entityTag)) {
+            //The client still needs to count as polling from its view
+            boardChangeRegistry.recordPoll(viewId);
+            return BoardPayload.notModified(entityTag);
+        }
         try {
-            changes = boardChangeRegistry.getChangesSince(backlog, viewId);
+            return BoardPayload.modified(entityTag, format.changes(boardChangeRegistry, backlog, viewId));
         } catch (BoardChangeRegistry.FullRefreshNeededException e) {
-            return getBoardJson(user, backlog, code);
+            return getBoardPayload(user, backlog, code, format, ifNoneMatch);
+        }
+    }
+
+    @Override
+    public String getChangeRetentionJson(ApplicationUser user, String code) {
+        //Check we are allowed to view the board
+        boardConfigurationManager.getBoardConfigForBoardDisplay(user, code);
+
+        final BoardHolder holder = boards.get(code);
+        final BoardChangeRegistry boardChangeRegistry = holder != null ? holder.getLoadedChangeRegistry() : null;
+        if (boardChangeRegistry == null) {
+            return "{}";
         }
+        final ModelNode retention = boardChangeRegistry.getRetention();
+        holder.serializeEventStats(retention.get("events"));
+        return retention.toJSONString(true);
+    }
 
-        return changes.toJSONString(true);
+    private BoardChangeRegistry getLoadedChangeRegistry(String code) {
+        final BoardHolder holder = boards.get(code);
+        return holder != null ? holder.getLoadedChangeRegistry() : null;
     }
 
     @Override
@@ -458,23 +470,32 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
                     try {
                         Thread.sleep(10000);
 
-                        //Throw out all the 'expired' boards so that they are refreshed again
-                        synchronized (BoardManagerImpl.this) {
-                            RefreshEntry entry = boardRefreshQueue.peek();
-                            while (entry != null && System.currentTimeMillis() > entry.endTime) {
-                                //Remove the entry we peeked at
-                                entry = boardRefreshQueue.poll();
-
-                                if (entry.isValid()) {
-                                    JirbanLogger.LOGGER.debug("Periodic task deleting board " + entry.boardCode);
-                                    //Remove the board, an attempt to read it will result in a new instance being fully loaded
-                                    //and created
-                                    boardChangeRegistries.remove(entry.boardCode);
-                                    boards.remove(entry.boardCode);
-                                    //When an attempt is made to get the board again, a new entry will be added to the  queue
+                        //Rebuild or throw out all the 'expired' boards so that they are refreshed again
+                        RefreshEntry entry = boardRefreshQueue.peek();
+                        while (entry != null && System.currentTimeMillis() > entry.endTime) {
+                            //Remove the entry we peeked at
+                            entry = boardRefreshQueue.poll();
+
+                            if (entry.isValid()) {
+                                final BoardHolder holder = boards.get(entry.boardCode);
+                                if (holder != null && holder.refreshEntry == entry) {
+                                    if (BACKGROUND_REFRESH) {
+                                        //Keep serving the current board until the new one has been loaded
+                                        if (holder.refreshInBackground()) {
+                                            JirbanLogger.LOGGER.debug("Periodic task refreshing board " + entry.boardCode);
+                                        }
+                                    } else {
+                                        JirbanLogger.LOGGER.debug("Periodic task deleting board " + entry.boardCode);
+                                        //Remove the board, an attempt to read it will result in a new instance being fully loaded
+                                        //and created
+                                        //When an attempt is made to get the board again, a new entry will be added to the  queue
+                                        if (boards.remove(entry.boardCode, holder)) {
+                                            holder.invalidate();
+                                        }
+                                    }
                                 }
-                                entry = boardRefreshQueue.peek();
                             }
+                            entry = boardRefreshQueue.peek();
                         }
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -487,8 +508,571 @@ public class BoardManagerImpl implements BoardManager, InitializingBean, Disposa
 
     @Override
     public void destroy() throws Exception {
+        boardEventExecutor.shutdownNow();
         boardRefreshExecutor.shutdownNow();
+        boardRebuildExecutor.shutdownNow();
+        if (projectLoadExecutor != null) {
+            projectLoadExecutor.shutdownNow();
+        }
+        if (batchLoadExecutor != null) {
+            batchLoadExecutor.shutdownNow();
+        }
         boardRefreshExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        boardRebuildExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        if (projectLoadExecutor != null) {
+            projectLoadExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        if (batchLoadExecutor != null) {
+            batchLoadExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Holds the state of a board. The first request for the board creates the holder and loads the board, while any
+     * concurrent requests for the same board wait for that load to complete.
+     */
+    private class BoardHolder {
+        private final String code;
+        private final FutureTask<Board> loadTask;
+
+        //Set when the load completes. After that they are only updated by the event task
+        private volatile Board board;
+        private volatile BoardChangeRegistry changeRegistry;
+        private volatile RefreshEntry refreshEntry;
+
+        //Whether the board is being rebuilt in the background
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        //Events applied while the board is being rebuilt, which need applying to the new board as well.
+        //Only used by the event task
+        private List<PendingEvent> eventsDuringRefresh;
+
+        //Events waiting to be applied to the board, in the order Jira sent them
+        private final BlockingQueue<PendingEvent> eventQueue = new LinkedBlockingQueue<>(MAX_QUEUED_EVENTS);
+        //Other updates of the board, run by the event task so that they don't get mixed up with the events
+        private final Queue<Runnable> boardTasks = new ConcurrentLinkedQueue<>();
+        //Whether a task applying the queued events has been handed to the executor. There is only ever one, so that
+        //the events are applied in order
+        private final AtomicBoolean eventsScheduled = new AtomicBoolean();
+        private final AtomicLong eventsApplied = new AtomicLong();
+        //The number of events which did not need applying separately, since they were merged into an earlier event
+        //for the same issue
+        private final AtomicLong eventsCoalesced = new AtomicLong();
+        private final AtomicLong eventOverflows = new AtomicLong();
+        //How long the last event applied, and the slowest one, waited in the queue
+        private volatile long lastEventLagMs;
+        private volatile long maxEventLagMs;
+        //How long applying the events to the board took
+        private volatile long lastEventApplyMs;
+        private volatile long maxEventApplyMs;
+        private final AtomicLong totalEventApplyMs = new AtomicLong();
+
+        //The coalesced events left over when the event task used up its time slice
+        private volatile Deque<PendingEvent> unappliedEvents;
+        //The board owner, looked up once for each run of the event task rather than for each event.
+        //Only used by the event task
+        private String boardOwnerKey;
+        private ApplicationUser boardOwner;
+
+        BoardHolder(String code, BoardConfig boardConfig) {
+            this.code = code;
+            this.loadTask = new FutureTask<>(new Callable<Board>() {
+                @Override
+                public Board call() throws Exception {
+                    return loadBoard(boardConfig);
+                }
+            });
+        }
+
+        void load() {
+            loadTask.run();
+            //The event task leaves the events queued while the board is loading, so get it to apply them now
+            if (!eventQueue.isEmpty()) {
+                scheduleEvents();
+            }
+        }
+
+        private Board loadBoard(BoardConfig boardConfig) throws SearchException {
+            final Board board = buildBoard(boardConfig);
+            final RefreshEntry refreshEntry = new RefreshEntry(code, REFRESH_TIMEOUT_SECONDS);
+            //The event task waits for the load to complete before it touches these
+            this.board = board;
+            this.changeRegistry = new BoardChangeRegistry(board);
+            this.refreshEntry = refreshEntry;
+            boardRefreshQueue.add(refreshEntry);
+            return board;
+        }
+
+        private Board buildBoard(BoardConfig boardConfig) throws SearchException {
+            /*
+            Use the board owner to load the board data. The board is only loaded once, and shared amongst all
+            users.
+            Since I was not 100% sure which permission to use to determine if a user can view the board in the
+            check done by getBoardConfigForBoardDisplay(), it feels less error-prone to use the user who created
+            the board (who needs the project admin permission) to load this data.
+            This user is only used to load board data; all changes will be done using the logged in user.
+            */
+            final ApplicationUser boardOwner = jiraInjectables.getJiraUserManager().getUserByKey(boardConfig.getOwningUserKey());
+            final Board board = Board.builder(jiraInjectables, projectParallelTaskOptionsLoader, boardConfig, boardOwner)
+                    .load(projectLoadExecutor, batchLoadExecutor)
+                    .build();
+            JirbanLogger.LOGGER.debug("Full refresh of board {}", code);
+            return board;
+        }
+
+        /**
+         * Marks the board as being rebuilt in the background
+         *
+         * @return {@code true} if we should rebuild, {@code false} if a rebuild is already in progress
+         */
+        boolean startBackgroundRefresh() {
+            return refreshing.compareAndSet(false, true);
+        }
+
+        /**
+         * Starts rebuilding the board in the background, unless a rebuild is already in progress
+         *
+         * @return {@code true} if we started the rebuild
+         */
+        boolean refreshInBackground() {
+            if (!startBackgroundRefresh()) {
+                return false;
+            }
+            try {
+                boardRebuildExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        refresh();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                //We are shutting down
+                refreshing.set(false);
+                return false;
+            }
+            return true;
+        }
+
+        private void recordEventIfRefreshing(PendingEvent pending) {
+            if (refreshing.get()) {
+                if (eventsDuringRefresh == null) {
+                    eventsDuringRefresh = new ArrayList<>();
+                }
+                eventsDuringRefresh.add(pending);
+            }
+        }
+
+        /**
+         * Runs an update of the board on the event task, after the events it is applying at the moment
+         *
+         * @param task the update
+         */
+        private void runOnEventTask(Runnable task) {
+            boardTasks.add(task);
+            scheduleEvents();
+        }
+
+        void queueEvent(PendingEvent pending) {
+            if (!eventQueue.offer(pending)) {
+                //We can't keep up, so drop the queued events and reload the board, which picks up their changes. The
+                //clients get the differences from the reload as changes. If a reload is already in progress it might
+                //have missed some of the dropped events, so throw the board away and let the next read load it
+                JirbanLogger.LOGGER.warn("BoardManagerImpl - More than {} events queued for board {}, reloading it",
+                        MAX_QUEUED_EVENTS, code);
+                eventOverflows.incrementAndGet();
+                eventQueue.clear();
+                if (!BACKGROUND_REFRESH || getLoadedChangeRegistry() == null || !refreshInBackground()) {
+                    if (boards.remove(code, this)) {
+                        invalidate();
+                    }
+                }
+                return;
+            }
+            scheduleEvents();
+        }
+
+        private void scheduleEvents() {
+            if (eventsScheduled.compareAndSet(false, true)) {
+                final Runnable task = new Runnable() {
+                    @Override
+                    public void run() {
+                        applyQueuedEvents();
+                    }
+                };
+                try {
+                    if (eventCoalesceMs > 0 && unappliedEvents == null) {
+                        //Let the events build up for a bit, without tying up one of the threads while we wait
+                        boardEventExecutor.schedule(task, eventCoalesceMs, TimeUnit.MILLISECONDS);
+                    } else {
+                        //Carry on with the events left over from the last slice
+                        boardEventExecutor.execute(task);
+                    }
+                } catch (RejectedExecutionException e) {
+                    //We are shutting down
+                    eventsScheduled.set(false);
+                }
+            }
+        }
+
+        private void applyQueuedEvents() {
+            final long start = System.currentTimeMillis();
+            try {
+                if (!loadTask.isDone()) {
+                    //Don't tie up one of the threads waiting for the load, which schedules us again once it is done
+                    return;
+                }
+                if (board == null) {
+                    //The load failed, and the next attempt to read the board loads it again with everything
+                    eventQueue.clear();
+                    return;
+                }
+                boardOwnerKey = null;
+                while (true) {
+                    Runnable boardTask;
+                    while ((boardTask = boardTasks.poll()) != null) {
+                        boardTask.run();
+                    }
+                    Deque<PendingEvent> unapplied = unappliedEvents;
+                    if (unapplied == null) {
+                        final List<PendingEvent> drained = new ArrayList<>();
+                        if (eventQueue.drainTo(drained) == 0) {
+                            break;
+                        }
+                        final List<PendingEvent> coalesced = coalesce(drained);
+                        eventsCoalesced.addAndGet(drained.size() - coalesced.size());
+                        if (coalesced.isEmpty()) {
+                            continue;
+                        }
+                        unapplied = new ArrayDeque<>(coalesced);
+                    }
+                    applyTimedEvent(unapplied.poll());
+                    unappliedEvents = unapplied.isEmpty() ? null : unapplied;
+                    if (System.currentTimeMillis() - start > EVENT_SLICE_MS) {
+                        //Let the other boards have a go, we get scheduled again below
+                        break;
+                    }
+                }
+            } finally {
+                eventsScheduled.set(false);
+            }
+            //An event might have been queued after we found the queue empty, but before we cleared the flag. The load
+            //might also have completed after we found it still running, but before we cleared the flag
+            if (loadTask.isDone() && (unappliedEvents != null || !eventQueue.isEmpty() || !boardTasks.isEmpty())) {
+                scheduleEvents();
+            }
+        }
+
+        private void applyTimedEvent(PendingEvent pending) {
+            final long start = System.currentTimeMillis();
+            final long lag = start - pending.queuedTime;
+            lastEventLagMs = lag;
+            if (lag > maxEventLagMs) {
+                maxEventLagMs = lag;
+            }
+            applyEvent(pending);
+            eventsApplied.incrementAndGet();
+
+            final long time = System.currentTimeMillis() - start;
+            lastEventApplyMs = time;
+            if (time > maxEventApplyMs) {
+                maxEventApplyMs = time;
+            }
+            totalEventApplyMs.addAndGet(time);
+            if (time > SLOW_EVENT_MS) {
+                JirbanLogger.LOGGER.warn("BoardManagerImpl - Applying event {} to board {} took {}ms",
+                        pending.event.getIssueKey(), code, time);
+            }
+        }
+
+        private ApplicationUser getBoardOwner(Board board) {
+            final String ownerKey = board.getConfig().getOwningUserKey();
+            if (!ownerKey.equals(boardOwnerKey)) {
+                boardOwner = jiraInjectables.getJiraUserManager().getUserByKey(ownerKey);
+                boardOwnerKey = ownerKey;
+            }
+            return boardOwner;
+        }
+
+        private void applyEvent(PendingEvent pending) {
+            final JirbanIssueEvent event = pending.event;
+            //Only the event task updates the board, so the changes the event registers don't get mixed up with the ones
+            //registered by a reload of the board
+            try {
+                final Board board = this.board;
+                final BoardChangeRegistry changeRegistry = this.changeRegistry;
+                //If the board is being rebuilt, the event needs to be applied to the new board as well
+                recordEventIfRefreshing(pending);
+                final ApplicationUser boardOwner = getBoardOwner(board);
+                JirbanLogger.LOGGER.debug("BoardManagerImpl.handleEvent - Handling event on board {}", board.getConfig().getCode());
+                Board newBoard = board.handleEvent(jiraInjectables, pending.nextRankedIssueUtil, boardOwner, event, changeRegistry);
+                if (newBoard == null) {
+                    //The changes in the issue were not relevant
+                    return;
+                }
+                //The board might have been deleted, invalidating the change registry, with the intent of
+                //forcing the next read to perform a full refresh
+                setBoard(changeRegistry, newBoard);
+            } catch (Exception e) {
+                //Last parameter is the exception (it does not match a {} entry)
+                JirbanLogger.LOGGER.error("BoardManagerImpl.handleEvent - Error handling event {} - {}", event.getIssueKey(), e.getMessage());
+
+                //Last parameter is the exception (it does not match a {} entry)
+                JirbanLogger.LOGGER.debug("BoardManagerImpl.handleEvent - Error handling event {}", event.getIssueKey(), e);
+            }
+        }
+
+        void serializeEventStats(ModelNode eventsNode) {
+            final Deque<PendingEvent> unapplied = unappliedEvents;
+            eventsNode.get("queued").set(eventQueue.size() + (unapplied != null ? unapplied.size() : 0));
+            eventsNode.get("applied").set(eventsApplied.get());
+            eventsNode.get("coalesced").set(eventsCoalesced.get());
+            eventsNode.get("overflows").set(eventOverflows.get());
+            eventsNode.get("last-lag-ms").set(lastEventLagMs);
+            eventsNode.get("max-lag-ms").set(maxEventLagMs);
+            eventsNode.get("last-apply-ms").set(lastEventApplyMs);
+            eventsNode.get("max-apply-ms").set(maxEventApplyMs);
+            eventsNode.get("total-apply-ms").set(totalEventApplyMs.get());
+        }
+
+        /**
+         * Rebuilds the board, and hands it to the event task to swap it in. Until the swap, the existing board and
+         * change registry keep serving requests. The rebuild happens without holding anything up, so that Jira's
+         * event thread can carry on queueing events and the event task can carry on applying them to the existing
+         * board.
+         */
+        void refresh() {
+            try {
+                final BoardConfig boardConfig = boardConfigurationManager.getBoardConfig(code);
+                if (boardConfig == null) {
+                    //The board was deleted
+                    if (boards.remove(code, this)) {
+                        invalidate();
+                    }
+                    runOnEventTask(new Runnable() {
+                        @Override
+                        public void run() {
+                            endRefresh();
+                        }
+                    });
+                    return;
+                }
+                final Board newBoard = buildBoard(boardConfig);
+                runOnEventTask(new Runnable() {
+                    @Override
+                    public void run() {
+                        swapInRefreshedBoard(newBoard);
+                    }
+                });
+            } catch (Exception e) {
+                //Last parameter is the exception (it does not match a {} entry)
+                JirbanLogger.LOGGER.error("BoardManagerImpl - Error refreshing board {}", code, e);
+                //Drop the board so that the next request does a full load
+                if (boards.remove(code, this)) {
+                    invalidate();
+                }
+                runOnEventTask(new Runnable() {
+                    @Override
+                    public void run() {
+                        endRefresh();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Swaps in a rebuilt board. Called by the event task, so no events get applied to the existing board while we
+         * do this. The events applied since the rebuild started are applied to the new board as well. The
+         * differences between the existing board and the new one are registered as changes in the existing change
+         * registry, so that the clients can carry on polling for changes rather than doing a full refresh.
+         *
+         * @param newBoard the rebuilt board
+         */
+        private void swapInRefreshedBoard(Board newBoard) {
+            try {
+                if (boards.get(code) != this || !changeRegistry.isValid()) {
+                    //The board was deleted or force refreshed while we were loading
+                    return;
+                }
+                final BoardChangeRegistry newRegistry = new BoardChangeRegistry(newBoard);
+                if (eventsDuringRefresh != null) {
+                    final ApplicationUser boardOwner = getBoardOwner(newBoard);
+                    for (PendingEvent pending : eventsDuringRefresh) {
+                        try {
+                            Board updated = newBoard.handleEvent(jiraInjectables, pending.nextRankedIssueUtil, boardOwner, pending.event, newRegistry);
+                            if (updated != null) {
+                                newBoard = updated;
+                                newRegistry.setBoard(newBoard);
+                            }
+                        } catch (Exception e) {
+                            JirbanLogger.LOGGER.error("BoardManagerImpl - Error applying event {} to refreshed board {} - {}",
+                                    pending.event.getIssueKey(), code, e.getMessage());
+                        }
+                    }
+                }
+                if (boards.get(code) != this || !newRegistry.isValid()) {
+                    //One of the events forced a full refresh
+                    return;
+                }
+                final Board diffedBoard = board.registerReloadChanges(newBoard, changeRegistry);
+                if (diffedBoard != null) {
+                    if (diffedBoard != board) {
+                        changeRegistry.setBoard(diffedBoard);
+                        this.board = diffedBoard;
+                    }
+                    JirbanLogger.LOGGER.debug("Registered the changes from refreshing board {} up to view {}",
+                            code, diffedBoard.getCurrentView());
+                } else {
+                    //The clients need a full refresh
+                    final BoardChangeRegistry oldRegistry = changeRegistry;
+                    this.board = newBoard;
+                    this.changeRegistry = newRegistry;
+                    oldRegistry.invalidate();
+                }
+                final RefreshEntry newRefreshEntry = new RefreshEntry(code, REFRESH_TIMEOUT_SECONDS);
+                this.refreshEntry = newRefreshEntry;
+                boardRefreshQueue.add(newRefreshEntry);
+                JirbanLogger.LOGGER.debug("Swapped in refreshed board {}", code);
+            } catch (Exception e) {
+                //Last parameter is the exception (it does not match a {} entry)
+                JirbanLogger.LOGGER.error("BoardManagerImpl - Error refreshing board {}", code, e);
+                //Drop the board so that the next request does a full load
+                if (boards.remove(code, this)) {
+                    invalidate();
+                }
+            } finally {
+                endRefresh();
+            }
+        }
+
+        /**
+         * Called by the event task once a rebuild of the board is done with, so that another one can start
+         */
+        private void endRefresh() {
+            eventsDuringRefresh = null;
+            refreshing.set(false);
+        }
+
+        /**
+         * Gets the current board, waiting for the load to complete if needed
+         */
+        Board getBoard() throws SearchException {
+            try {
+                loadTask.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                //Remove the failed holder so that the next attempt tries again
+                boards.remove(code, this);
+                final Throwable cause = e.getCause();
+                if (cause instanceof SearchException) {
+                    throw (SearchException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+            return board;
+        }
+
+        /**
+         * Gets the change registry if the board has been loaded
+         */
+        BoardChangeRegistry getLoadedChangeRegistry() {
+            return loadTask.isDone() ? changeRegistry : null;
+        }
+
+        private void setBoard(BoardChangeRegistry changeRegistry, Board board) {
+            if (changeRegistry.isValid() && changeRegistry == this.changeRegistry) {
+                changeRegistry.setBoard(board);
+                this.board = board;
+            }
+        }
+
+        void invalidate() {
+            if (changeRegistry != null) {
+                changeRegistry.invalidate();
+            }
+            if (refreshEntry != null) {
+                refreshEntry.invalidate();
+            }
+        }
+    }
+
+    //How the board and the changes to it are rendered for the client
+    private abstract static class PayloadFormat<T> {
+        //Goes in the entity tags, since the different formats of the same view are different entities
+        private final String name;
+
+        PayloadFormat(String name) {
+            this.name = name;
+        }
+
+        abstract T board(Board board, JiraInjectables jiraInjectables, boolean backlog, ApplicationUser user);
+
+        abstract T changes(BoardChangeRegistry registry, boolean backlog, int viewId) throws BoardChangeRegistry.FullRefreshNeededException;
+    }
+
+    /**
+     * Merges the events for the same issue, so that a burst of events for an issue results in one new view of the
+     * board rather than one for each event. The merged event is applied where the first of the events was.
+     *
+     * @param events the events in the order they were received
+     * @return the events to apply
+     */
+    private static List<PendingEvent> coalesce(List<PendingEvent> events) {
+        final List<PendingEvent> coalesced = new ArrayList<>(events.size());
+        //The index in coalesced of the event the next event for each issue can be merged into
+        final Map<String, Integer> mergeIndices = new HashMap<>();
+        boolean removed = false;
+        for (PendingEvent pending : events) {
+            final String issueKey = pending.event.getIssueKey();
+            final Integer index = mergeIndices.get(issueKey);
+            if (index != null) {
+                final PendingEvent earlier = coalesced.get(index);
+                if (earlier.event.canMerge(pending.event)) {
+                    final JirbanIssueEvent merged = earlier.event.merge(pending.event);
+                    if (merged == null) {
+                        //The issue was created and deleted
+                        coalesced.set(index, null);
+                        mergeIndices.remove(issueKey);
+                        removed = true;
+                    } else {
+                        coalesced.set(index, new PendingEvent(merged, pending.nextRankedIssueUtil, earlier.queuedTime));
+                    }
+                    continue;
+                }
+            }
+            mergeIndices.put(issueKey, coalesced.size());
+            coalesced.add(pending);
+        }
+        if (removed) {
+            for (Iterator<PendingEvent> it = coalesced.iterator(); it.hasNext() ; ) {
+                if (it.next() == null) {
+                    it.remove();
+                }
+            }
+        }
+        return coalesced;
+    }
+
+    private static class PendingEvent {
+        private final JirbanIssueEvent event;
+        private final NextRankedIssueUtil nextRankedIssueUtil;
+        private final long queuedTime;
+
+        PendingEvent(JirbanIssueEvent event, NextRankedIssueUtil nextRankedIssueUtil) {
+            this(event, nextRankedIssueUtil, System.currentTimeMillis());
+        }
+
+        PendingEvent(JirbanIssueEvent event, NextRankedIssueUtil nextRankedIssueUtil, long queuedTime) {
+            this.event = event;
+            this.nextRankedIssueUtil = nextRankedIssueUtil;
+            this.queuedTime = queuedTime;
+        }
     }
 
     private static class RefreshEntry {
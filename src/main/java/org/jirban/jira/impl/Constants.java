@@ -77,6 +77,7 @@ public class Constants {
     public static final String RANK_CUSTOM_FIELD = "rank-custom-field";
     public static final String RANK_CUSTOM_FIELD_ID = "rank-custom-field-id";
     public static final String REMOVED_ISSUES = "removed-issues";
+    public static final String RETENTION = "retention";
     public static final String STATE = "state";
     public static final String STATE_LINKS = "state-links";
     public static final String STATES = "states";
@@ -26,6 +26,7 @@ import org.jboss.dmr.ModelNode;
 import org.jirban.jira.JirbanLogger;
 import org.jirban.jira.api.BoardConfigurationManager;
 import org.jirban.jira.api.BoardManager;
+import org.jirban.jira.api.BoardPayload;
 import org.jirban.jira.api.JiraFacade;
 import org.jirban.jira.api.UserAccessManager;
 import org.jirban.jira.impl.config.BoardConfig;
@@ -95,9 +96,10 @@ public class JiraFacadeImpl implements JiraFacade, InitializingBean, DisposableB
     }
 
     @Override
-    public String getBoardJson(ApplicationUser user, boolean backlog, String code) throws SearchException {
+    public BoardPayload<byte[]> getBoardPayload(ApplicationUser user, boolean backlog, String code, boolean cbor,
+                                                String ifNoneMatch) throws SearchException {
         try {
-            return boardManager.getBoardJson(user, backlog, code);
+            return boardManager.getBoardPayload(user, backlog, code, cbor, ifNoneMatch);
         } catch (Exception e) {
             //Last parameter is the exception (it does not match a {} entry)
             JirbanLogger.LOGGER.debug("BoardManagerImpl.handleEvent - Error loading board {}", code, e);
@@ -118,6 +120,17 @@ public class JiraFacadeImpl implements JiraFacade, InitializingBean, DisposableB
         return boardManager.getChangesJson(user, backlog, code, viewId);
     }
 
+    @Override
+    public BoardPayload<byte[]> getChangesPayload(ApplicationUser user, boolean backlog, String code, int viewId, boolean cbor,
+                                                  String ifNoneMatch) throws SearchException {
+        return boardManager.getChangesPayload(user, backlog, code, viewId, cbor, ifNoneMatch);
+    }
+
+    @Override
+    public String getChangeRetentionJson(ApplicationUser user, String code) {
+        return boardManager.getChangeRetentionJson(user, code);
+    }
+
     @Override
     public void saveCustomFieldId(ApplicationUser user, ModelNode idNode) {
         boardConfigurationManager.saveRankCustomFieldId(user, idNode);
@@ -96,6 +96,8 @@ public class JiraInjectables {
     //Jira does not like injecting this one, so use the ComponentAccessor
     private volatile UserManager jiraUserManager;
 
+    private final PermissionCache permissionCache;
+
 
     @Inject
     public JiraInjectables(final ActiveObjects activeObjects, final ApplicationProperties applicationProperties,
@@ -124,6 +126,7 @@ public class JiraInjectables {
         this.searchService = searchService;
         this.userService = userService;
         this.versionManager = versionManager;
+        this.permissionCache = new PermissionCache(globalPermissionManager, permissionManager, projectManager);
     }
 
     public ActiveObjects getActiveObjects() {
@@ -166,6 +169,10 @@ public class JiraInjectables {
         return permissionManager;
     }
 
+    public PermissionCache getPermissionCache() {
+        return permissionCache;
+    }
+
     public ProjectManager getProjectManager() {
         return projectManager;
     }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+
+/**
+ * Creates the thread pools used to load the boards and apply the events to them. Jira keeps things like the
+ * database connection and the authentication context in thread locals, and expects code running outside of a
+ * request to set these up and clean them up again with {@link JiraThreadLocalUtil}. Otherwise a pooled thread
+ * keeps hold of the connection and the state of whichever task it ran last. So every task run by these pools is
+ * wrapped in {@link JiraThreadLocalUtil#preCall()} and {@link JiraThreadLocalUtil#postCall(Logger)}.
+ *
+ * The threads are named after the pool, so they can be told apart in a thread dump.
+ *
+ * @author Kabir Khan
+ */
+class JirbanExecutors {
+
+    private static final Logger LOG = Logger.getLogger(JirbanExecutors.class);
+
+    private JirbanExecutors() {
+    }
+
+    /**
+     * Creates a pool with a fixed number of threads
+     *
+     * @param name the name of the pool, used for the names of the threads
+     * @param threads the number of threads
+     * @return the pool
+     */
+    static ExecutorService newFixedThreadPool(String name, int threads) {
+        return new JiraThreadPoolExecutor(threads, new NamedThreadFactory(name));
+    }
+
+    /**
+     * Creates a pool with a fixed number of threads, which can also run tasks after a delay
+     *
+     * @param name the name of the pool, used for the names of the threads
+     * @param threads the number of threads
+     * @return the pool
+     */
+    static ScheduledExecutorService newScheduledThreadPool(String name, int threads) {
+        return new JiraScheduledThreadPoolExecutor(threads, new NamedThreadFactory(name));
+    }
+
+    private static JiraThreadLocalUtil getJiraThreadLocalUtil() {
+        //This is not available in the unit tests
+        return ComponentAccessor.getComponent(JiraThreadLocalUtil.class);
+    }
+
+    private static void preCall() {
+        final JiraThreadLocalUtil util = getJiraThreadLocalUtil();
+        if (util != null) {
+            util.preCall();
+        }
+    }
+
+    private static void postCall() {
+        final JiraThreadLocalUtil util = getJiraThreadLocalUtil();
+        if (util != null) {
+            util.postCall(LOG);
+        }
+    }
+
+    private static class JiraThreadPoolExecutor extends ThreadPoolExecutor {
+        JiraThreadPoolExecutor(int threads, ThreadFactory threadFactory) {
+            super(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            super.beforeExecute(t, r);
+            preCall();
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            try {
+                postCall();
+            } finally {
+                super.afterExecute(r, t);
+            }
+        }
+    }
+
+    private static class JiraScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor {
+        JiraScheduledThreadPoolExecutor(int threads, ThreadFactory threadFactory) {
+            super(threads, threadFactory);
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            super.beforeExecute(t, r);
+            preCall();
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            try {
+                postCall();
+            } finally {
+                super.afterExecute(r, t);
+            }
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.prefix = "jirban-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            //Don't hold up Jira shutting down if a pool did not get shut down
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
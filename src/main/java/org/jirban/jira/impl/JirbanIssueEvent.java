@@ -17,6 +17,7 @@ package org.jirban.jira.impl;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import com.atlassian.crowd.embedded.api.User;
@@ -33,12 +34,19 @@ public class JirbanIssueEvent {
     private final String issueKey;
     private final String projectCode;
     private final Detail detail;
+    //For the link events, the key of the issue linking to the issue in issueKey
+    private final String linkingIssueKey;
 
     private JirbanIssueEvent(Type type, String issueKey, String projectCode, Detail detail) {
+        this(type, issueKey, projectCode, detail, null);
+    }
+
+    private JirbanIssueEvent(Type type, String issueKey, String projectCode, Detail detail, String linkingIssueKey) {
         this.type = type;
         this.issueKey = issueKey;
         this.projectCode = projectCode;
         this.detail = detail;
+        this.linkingIssueKey = linkingIssueKey;
     }
 
     public Type getType() {
@@ -53,10 +61,34 @@ public class JirbanIssueEvent {
         return projectCode;
     }
 
+    /**
+     * Gets the key of the issue linking to the linked issue for {@link Type#LINK_CREATE} and
+     * {@link Type#LINK_DELETE} events
+     *
+     * @return the key of the linking issue, or {@code null} for the other events
+     */
+    public String getLinkingIssueKey() {
+        return linkingIssueKey;
+    }
+
+    /**
+     * Checks whether this event is for an issue in one of the boards' linked projects rather than for an issue in
+     * one of the board projects. For these events {@link #getIssueKey()} and {@link #getProjectCode()} are the
+     * linked issue's.
+     *
+     * @return {@code true} if this is an event for a linked issue
+     */
+    public boolean isLinkedIssueEvent() {
+        return type.linked;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("JirbanIssueEvent{type="
                 + type + ";key=" + issueKey + ";project=" + projectCode);
+        if (linkingIssueKey != null) {
+            sb.append(";linkingIssue=" + linkingIssueKey);
+        }
         if (detail != null) {
             sb.append("Detail{");
             sb.append("issueType=" + detail.issueType);
@@ -88,11 +120,11 @@ public class JirbanIssueEvent {
         return new JirbanIssueEvent(Type.DELETE, issueKey, projectCode, null);
     }
 
-    public static JirbanIssueEvent createCreateEvent(String issueKey, String projectCode, String issueType, String priority,
+    public static JirbanIssueEvent createCreateEvent(String issueKey, Long issueId, String projectCode, String issueType, String priority,
                                                      String summary, ApplicationUser assignee, Collection<ProjectComponent> components,
                                                      Collection<Label> labels, Collection<Version> fixVersions,
                                                      String state, Map<Long, String> customFieldValues) {
-        Detail detail = new Detail(issueType, priority, summary, assignee, components, labels, fixVersions,
+        Detail detail = new Detail(issueId, issueType, priority, summary, assignee, components, labels, fixVersions,
                 null, state, true, customFieldValues);
         return new JirbanIssueEvent(Type.CREATE, issueKey, projectCode, detail);
     }
@@ -102,11 +134,35 @@ public class JirbanIssueEvent {
                                                      Collection<Label> labels, Collection<Version> fixVersions,
                                                      String currentState, String state, boolean reranked,
                                                      Map<Long, String> customFieldValues) {
-        Detail detail = new Detail(issueType, priority, summary, assignee, components, labels, fixVersions,
+        Detail detail = new Detail(null, issueType, priority, summary, assignee, components, labels, fixVersions,
                 currentState, state, reranked, customFieldValues);
         return new JirbanIssueEvent(Type.UPDATE, issueKey, projectCode, detail);
     }
 
+    public static JirbanIssueEvent createLinkedIssueUpdateEvent(String linkedIssueKey, String linkedProjectCode,
+                                                                String summary, String state) {
+        Detail detail = new Detail(null, null, null, summary, null, null, null, null, null, state, false, null);
+        return new JirbanIssueEvent(Type.LINKED_ISSUE_UPDATE, linkedIssueKey, linkedProjectCode, detail);
+    }
+
+    public static JirbanIssueEvent createLinkedIssueDeleteEvent(String linkedIssueKey, String linkedProjectCode) {
+        return new JirbanIssueEvent(Type.LINKED_ISSUE_DELETE, linkedIssueKey, linkedProjectCode, null);
+    }
+
+    public static JirbanIssueEvent createLinkCreateEvent(String issueKey, String linkedIssueKey, String linkedProjectCode,
+                                                         String summary, String state) {
+        Detail detail = new Detail(null, null, null, summary, null, null, null, null, null, state, false, null);
+        return new JirbanIssueEvent(Type.LINK_CREATE, linkedIssueKey, linkedProjectCode, detail, issueKey);
+    }
+
+    public static JirbanIssueEvent createLinkDeleteEvent(String issueKey, String linkedIssueKey, String linkedProjectCode) {
+        return new JirbanIssueEvent(Type.LINK_DELETE, linkedIssueKey, linkedProjectCode, null, issueKey);
+    }
+
+    public static JirbanIssueEvent createResyncEvent(String issueKey, String projectCode) {
+        return new JirbanIssueEvent(Type.RESYNC, issueKey, projectCode, null);
+    }
+
     public boolean isRecalculateState() {
         if (type == Type.DELETE) {
             return false;
@@ -129,7 +185,68 @@ public class JirbanIssueEvent {
         return false;
     }
 
+    /**
+     * Checks whether a later event can be merged into this one with {@link #merge(JirbanIssueEvent)}
+     *
+     * @param later the later event
+     * @return {@code true} if the events can be merged
+     */
+    boolean canMerge(JirbanIssueEvent later) {
+        if (type.linked || later.type.linked) {
+            //Only the latest state of a linked issue matters, but the link events are for a pair of issues
+            return type == Type.LINKED_ISSUE_UPDATE
+                    && (later.type == Type.LINKED_ISSUE_UPDATE || later.type == Type.LINKED_ISSUE_DELETE)
+                    && issueKey.equals(later.issueKey) && projectCode.equals(later.projectCode);
+        }
+        //Once the issue is deleted, a later event is for something else
+        return issueKey.equals(later.issueKey) && projectCode.equals(later.projectCode)
+                && type != Type.DELETE && later.type != Type.CREATE;
+    }
+
+    /**
+     * Merges a later event for the same issue into this one, following the same rules as
+     * {@code BoardChangeRegistry.IssueChange} uses to merge the changes for an issue. The fields changed by the later
+     * event replace the ones in this event.
+     *
+     * @param later the later event. {@link #canMerge(JirbanIssueEvent)} must be {@code true} for it
+     * @return the merged event, or {@code null} if the issue was both created and deleted
+     */
+    JirbanIssueEvent merge(JirbanIssueEvent later) {
+        if (type.linked) {
+            //The linked issue events contain the full summary and state
+            return later;
+        }
+        if (later.type == Type.DELETE) {
+            //Something created and then deleted never needs to make it to the board
+            return type == Type.CREATE ? null : later;
+        }
+        final Detail laterDetail = later.detail;
+        final Map<Long, String> customFieldValues;
+        if (laterDetail.customFieldValues.isEmpty()) {
+            customFieldValues = detail.customFieldValues;
+        } else {
+            customFieldValues = new HashMap<>(detail.customFieldValues);
+            customFieldValues.putAll(laterDetail.customFieldValues);
+        }
+        final Detail merged = new Detail(
+                detail.issueId,
+                laterDetail.issueType != null ? laterDetail.issueType : detail.issueType,
+                laterDetail.priority != null ? laterDetail.priority : detail.priority,
+                laterDetail.summary != null ? laterDetail.summary : detail.summary,
+                laterDetail.assignee != null ? laterDetail.assignee : detail.assignee,
+                laterDetail.components != null ? laterDetail.components : detail.components,
+                laterDetail.labels != null ? laterDetail.labels : detail.labels,
+                laterDetail.fixVersions != null ? laterDetail.fixVersions : detail.fixVersions,
+                //The old state is the one the board has the issue in
+                detail.oldState,
+                laterDetail.state != null ? laterDetail.state : detail.state,
+                detail.reranked || laterDetail.reranked,
+                customFieldValues);
+        return new JirbanIssueEvent(type, issueKey, projectCode, merged);
+    }
+
     public static class Detail {
+        private final Long issueId;
         private final String issueType;
         private final String priority;
         private final String summary;
@@ -142,9 +259,10 @@ public class JirbanIssueEvent {
         private final boolean reranked;
         private final Map<Long, String> customFieldValues;
 
-        private Detail(String issueType, String priority, String summary, ApplicationUser assignee,
+        private Detail(Long issueId, String issueType, String priority, String summary, ApplicationUser assignee,
                        Collection<ProjectComponent> components, Collection<Label> labels, Collection<Version> fixVersions,
                        String oldState, String state, boolean reranked, Map<Long, String> customFieldValues) {
+            this.issueId = issueId;
             this.summary = summary;
             this.assignee = assignee;
             this.components = components;
@@ -158,6 +276,16 @@ public class JirbanIssueEvent {
             this.customFieldValues = customFieldValues != null ? customFieldValues : Collections.emptyMap();
         }
 
+        /**
+         * Gets Jira's id for the issue, which is used to load the links of a created issue. It is only set for
+         * {@link Type#CREATE}.
+         *
+         * @return the id
+         */
+        public Long getIssueId() {
+            return issueId;
+        }
+
         public String getIssueType() {
             return issueType;
         }
@@ -205,11 +333,30 @@ public class JirbanIssueEvent {
 
     public enum Type {
         /** The issue was created */
-        CREATE,
+        CREATE(false),
         /** The issue was updated */
-        UPDATE,
+        UPDATE(false),
         /** The issue was deleted */
-        DELETE
+        DELETE(false),
+        /** The summary or state of an issue in a linked project was changed */
+        LINKED_ISSUE_UPDATE(true),
+        /** An issue in a linked project was deleted or moved */
+        LINKED_ISSUE_DELETE(true),
+        /** A link from an issue to an issue in a linked project was created */
+        LINK_CREATE(true),
+        /** A link from an issue to an issue in a linked project was deleted */
+        LINK_DELETE(true),
+        /**
+         * The issue changed in a way which can't be sent to the clients as an update, so the clients get it with its
+         * current data instead. Only used for the changes registered by the board, not for the events from Jira.
+         */
+        RESYNC(false);
+
+        private final boolean linked;
+
+        Type(boolean linked) {
+            this.linked = linked;
+        }
     }
 
     /**
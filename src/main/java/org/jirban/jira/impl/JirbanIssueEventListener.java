@@ -48,11 +48,14 @@ import com.atlassian.greenhopper.service.lexorank.balance.LexoRankChangeEvent;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.event.JiraEvent;
 import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.jira.event.issue.link.IssueLinkCreatedEvent;
+import com.atlassian.jira.event.issue.link.IssueLinkDeletedEvent;
 import com.atlassian.jira.event.type.EventType;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.index.IndexException;
 import com.atlassian.jira.issue.index.ReindexIssuesCompletedEvent;
 import com.atlassian.jira.issue.label.Label;
+import com.atlassian.jira.issue.link.IssueLink;
 import com.atlassian.jira.project.Project;
 import com.atlassian.jira.project.ProjectManager;
 import com.atlassian.jira.project.version.Version;
@@ -206,8 +209,8 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
         long eventTypeId = issueEvent.getEventTypeId();
         // if it's an event we're interested in, log it
 
-        //There are no events for when updating linked issues. Instead we invalidate the boards every five minutes in
-        //BoardManagerImpl which forces a full refresh of the board which will bring in linked issues
+        //Changes to the issues in the linked projects are passed on to the boards linking to them as well. The links
+        //themselves are handled by onIssueLinkCreated() and onIssueLinkDeleted()
 
         //CREATED, DELETED and MOVED do not have a worklog
         if (eventTypeId == EventType.ISSUE_CREATED_ID) {
@@ -248,6 +251,54 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
         }
     }
 
+    /**
+     * Receives the {@code IssueLinkCreatedEvent}s sent by Jira. The board issues load both their inward and
+     * outward links, so we check both ends of the link.
+     *
+     * @param event the event passed to us
+     */
+    @EventListener
+    public void onIssueLinkCreated(IssueLinkCreatedEvent event) {
+        final IssueLink link = event.getIssueLink();
+        JirbanLogger.LOGGER.debug("IssueLinkCreatedEvent {} on thread {}", link, Thread.currentThread().getName());
+        onLinkCreated(link.getSourceObject(), link.getDestinationObject());
+        onLinkCreated(link.getDestinationObject(), link.getSourceObject());
+    }
+
+    /**
+     * Receives the {@code IssueLinkDeletedEvent}s sent by Jira. The board issues load both their inward and
+     * outward links, so we check both ends of the link.
+     *
+     * @param event the event passed to us
+     */
+    @EventListener
+    public void onIssueLinkDeleted(IssueLinkDeletedEvent event) {
+        final IssueLink link = event.getIssueLink();
+        JirbanLogger.LOGGER.debug("IssueLinkDeletedEvent {} on thread {}", link, Thread.currentThread().getName());
+        onLinkDeleted(link.getSourceObject(), link.getDestinationObject());
+        onLinkDeleted(link.getDestinationObject(), link.getSourceObject());
+    }
+
+    private void onLinkCreated(Issue issue, Issue linkedIssue) {
+        final String linkedProjectCode = linkedIssue.getProjectObject().getKey();
+        if (!isAffectedLinkedProject(linkedProjectCode)) {
+            return;
+        }
+        final JirbanIssueEvent event = JirbanIssueEvent.createLinkCreateEvent(issue.getKey(), linkedIssue.getKey(),
+                linkedProjectCode, linkedIssue.getSummary(), linkedIssue.getStatusObject().getName());
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+    }
+
+    private void onLinkDeleted(Issue issue, Issue linkedIssue) {
+        final String linkedProjectCode = linkedIssue.getProjectObject().getKey();
+        if (!isAffectedLinkedProject(linkedProjectCode)) {
+            return;
+        }
+        final JirbanIssueEvent event =
+                JirbanIssueEvent.createLinkDeleteEvent(issue.getKey(), linkedIssue.getKey(), linkedProjectCode);
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+    }
+
     private void onCreateEvent(IssueEvent issueEvent) throws IndexException {
         final Issue issue = issueEvent.getIssue();
         if (!isAffectedProject(issue.getProjectObject().getKey())) {
@@ -284,18 +335,23 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
             }
         }
 
-        final JirbanIssueEvent event = JirbanIssueEvent.createCreateEvent(issue.getKey(), issue.getProjectObject().getKey(),
+        final JirbanIssueEvent event = JirbanIssueEvent.createCreateEvent(issue.getKey(), issue.getId(), issue.getProjectObject().getKey(),
                 issue.getIssueTypeObject().getName(), issue.getPriorityObject().getName(), issue.getSummary(),
                 issue.getAssignee(), issue.getComponentObjects(), issue.getLabels(), issue.getFixVersions(),
                 issue.getStatusObject().getName(), values);
 
+        //The boards load the links of the created issue, since Jira sends the events for any links created with it
+        //before this one
         passEventToBoardManagerOrDelay(event);
-
-        //TODO there could be linked issues
     }
 
     private void onDeleteEvent(IssueEvent issueEvent) throws IndexException {
         final Issue issue = issueEvent.getIssue();
+        if (isAffectedLinkedProject(issue.getProjectObject().getKey())) {
+            boardManager.handleEvent(
+                    JirbanIssueEvent.createLinkedIssueDeleteEvent(issue.getKey(), issue.getProjectObject().getKey()),
+                    nextRankedIssueUtil);
+        }
         if (!isAffectedProject(issue.getProjectObject().getKey())) {
             return;
         }
@@ -306,7 +362,18 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
 
     private void onWorklogEvent(IssueEvent issueEvent) throws IndexException {
         final Issue issue = issueEvent.getIssue();
-        if (!isAffectedProject(issue.getProjectObject().getKey())) {
+        final boolean affectedProject = isAffectedProject(issue.getProjectObject().getKey());
+        final boolean affectedLinkedProject = isAffectedLinkedProject(issue.getProjectObject().getKey());
+        if (!affectedProject && !affectedLinkedProject) {
+            delayedEvents.remove();
+            return;
+        }
+
+        List<GenericValue> changeItems = getWorkLog(issueEvent);
+        if (affectedLinkedProject) {
+            onLinkedIssueWorklogEvent(issue, changeItems);
+        }
+        if (!affectedProject) {
             delayedEvents.remove();
             return;
         }
@@ -325,7 +392,6 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
         boolean reranked = false;
         Map<Long, String> customFieldValues = null;
 
-        List<GenericValue> changeItems = getWorkLog(issueEvent);
         for (GenericValue change : changeItems) {
             final String field = change.getString(CHANGE_LOG_FIELD);
             if (field.equals(CHANGE_LOG_ISSUETYPE)) {
@@ -385,6 +451,19 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
         passEventToBoardManagerOrDelay(event);
     }
 
+    private void onLinkedIssueWorklogEvent(Issue issue, List<GenericValue> changeItems) {
+        //The linked issues only show the summary and the state
+        for (GenericValue change : changeItems) {
+            final String field = change.getString(CHANGE_LOG_FIELD);
+            if (field.equals(CHANGE_LOG_SUMMARY) || field.equals(CHANGE_LOG_STATUS)) {
+                final JirbanIssueEvent event = JirbanIssueEvent.createLinkedIssueUpdateEvent(issue.getKey(),
+                        issue.getProjectObject().getKey(), issue.getSummary(), issue.getStatusObject().getName());
+                boardManager.handleEvent(event, nextRankedIssueUtil);
+                return;
+            }
+        }
+    }
+
     private void onMoveEvent(IssueEvent issueEvent) throws IndexException {
         //This is kind of the same as the 'onWorklogEvent' but we also need to take into account the old value of the project
         //and remove from there if it is a board project. Also, if the new value is a board project we need to add it there.
@@ -412,6 +491,12 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
             final JirbanIssueEvent event = JirbanIssueEvent.createDeleteEvent(oldIssueKey, oldProjectCode);
             passEventToBoardManagerOrDelay(event);
         }
+        if (isAffectedLinkedProject(oldProjectCode)) {
+            //The issue is gone from the old project. If its new project is a linked project as well the issue will
+            //come back as a linked issue on the next full reload of the boards
+            boardManager.handleEvent(
+                    JirbanIssueEvent.createLinkedIssueDeleteEvent(oldIssueKey, oldProjectCode), nextRankedIssueUtil);
+        }
 
         //2) Then we can do a create on the project with the issue in the event
         final Issue issue = issueEvent.getIssue();
@@ -423,7 +508,7 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
         //if it was updated
         newState = newState == null ? issue.getStatusObject().getName() : newState;
 
-        final JirbanIssueEvent event = JirbanIssueEvent.createCreateEvent(issue.getKey(), issue.getProjectObject().getKey(),
+        final JirbanIssueEvent event = JirbanIssueEvent.createCreateEvent(issue.getKey(), issue.getId(), issue.getProjectObject().getKey(),
                 issue.getIssueTypeObject().getName(), issue.getPriorityObject().getName(), issue.getSummary(),
                 issue.getAssignee(), issue.getComponentObjects(), issue.getLabels(), issue.getFixVersions(),
                 newState, Collections.emptyMap());
@@ -481,6 +566,10 @@ public class JirbanIssueEventListener implements InitializingBean, DisposableBea
         return boardManager.hasBoardsForProjectCode(projectCode);
     }
 
+    private boolean isAffectedLinkedProject(String projectCode) {
+        return boardManager.hasBoardsForLinkedProjectCode(projectCode);
+    }
+
     /**
      * Alternative thread local implementation to avoid possible memory leaks on undeploy
      *
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl;
+
+import javax.inject.Named;
+
+import org.jirban.jira.JirbanLogger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.event.permission.GlobalPermissionAddedEvent;
+import com.atlassian.jira.event.permission.GlobalPermissionDeletedEvent;
+import com.atlassian.jira.event.permission.PermissionAddedEvent;
+import com.atlassian.jira.event.permission.PermissionDeletedEvent;
+import com.atlassian.jira.event.permission.PermissionSchemeAddedToProjectEvent;
+import com.atlassian.jira.event.permission.PermissionSchemeRemovedFromProjectEvent;
+import com.atlassian.jira.event.role.ProjectRoleUpdatedEvent;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+
+/**
+ * Clears the cached permission decisions when the permissions change. We don't try to work out which decisions are
+ * affected, since permissions change rarely.
+ *
+ * @author Kabir Khan
+ */
+@Named("jirbanPermissionEventListener")
+public class JirbanPermissionEventListener implements InitializingBean, DisposableBean {
+
+    @ComponentImport
+    private final EventPublisher eventPublisher;
+
+    private final JiraInjectables jiraInjectables;
+
+    @Autowired
+    public JirbanPermissionEventListener(EventPublisher eventPublisher, JiraInjectables jiraInjectables) {
+        this.eventPublisher = eventPublisher;
+        this.jiraInjectables = jiraInjectables;
+    }
+
+    public void afterPropertiesSet() throws Exception {
+        eventPublisher.register(this);
+    }
+
+    public void destroy() throws Exception {
+        eventPublisher.unregister(this);
+    }
+
+    @EventListener
+    public void onPermissionAdded(PermissionAddedEvent event) {
+        invalidate(event);
+    }
+
+    @EventListener
+    public void onPermissionDeleted(PermissionDeletedEvent event) {
+        invalidate(event);
+    }
+
+    @EventListener
+    public void onPermissionSchemeAddedToProject(PermissionSchemeAddedToProjectEvent event) {
+        invalidate(event);
+    }
+
+    @EventListener
+    public void onPermissionSchemeRemovedFromProject(PermissionSchemeRemovedFromProjectEvent event) {
+        invalidate(event);
+    }
+
+    @EventListener
+    public void onGlobalPermissionAdded(GlobalPermissionAddedEvent event) {
+        invalidate(event);
+    }
+
+    @EventListener
+    public void onGlobalPermissionDeleted(GlobalPermissionDeletedEvent event) {
+        invalidate(event);
+    }
+
+    @EventListener
+    public void onProjectRoleUpdated(ProjectRoleUpdatedEvent event) {
+        invalidate(event);
+    }
+
+    private void invalidate(Object event) {
+        JirbanLogger.LOGGER.debug("Permissions changed by {}", event);
+        jiraInjectables.getPermissionCache().invalidate();
+    }
+}
@@ -55,13 +55,8 @@ public class NextRankedIssueUtilImpl implements NextRankedIssueUtil {
     }
 
     @Override
-    public String findNextRankedIssue(BoardProjectConfig projectConfig, ApplicationUser boardOwner, String issueKey) throws SearchException {
+    public String findNextRankedIssue(BoardProjectConfig projectConfig, ApplicationUser boardOwner, String rankValue) throws SearchException {
         long rankCustomFieldId = boardConfigurationManager.getRankCustomFieldId();
-        CustomFieldManager customFieldManager = jiraInjectables.getCustomFieldManager();
-        CustomField customField = customFieldManager.getCustomFieldObject(rankCustomFieldId);
-        Issue issue = jiraInjectables.getIssueService().getIssue(boardOwner, issueKey).getIssue();
-        LexoRank lexoRank = (LexoRank) issue.getCustomFieldValue(customField);
-        String rankValue = lexoRank.format();
 
         SearchService searchService = jiraInjectables.getSearchService();
         Query query = BoardProject.initialiseQuery(projectConfig, boardOwner, searchService,
@@ -80,4 +75,13 @@ public class NextRankedIssueUtilImpl implements NextRankedIssueUtil {
         }
         return null;
     }
+
+    @Override
+    public String getRank(ApplicationUser boardOwner, String issueKey) {
+        CustomFieldManager customFieldManager = jiraInjectables.getCustomFieldManager();
+        CustomField customField = customFieldManager.getCustomFieldObject(boardConfigurationManager.getRankCustomFieldId());
+        Issue issue = jiraInjectables.getIssueService().getIssue(boardOwner, issueKey).getIssue();
+        LexoRank lexoRank = (LexoRank) issue.getCustomFieldValue(customField);
+        return lexoRank != null ? lexoRank.format() : null;
+    }
 }
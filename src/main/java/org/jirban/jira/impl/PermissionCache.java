@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import org.jirban.jira.JirbanLogger;
+
+import com.atlassian.jira.permission.GlobalPermissionKey;
+import com.atlassian.jira.project.Project;
+import com.atlassian.jira.project.ProjectManager;
+import com.atlassian.jira.security.GlobalPermissionManager;
+import com.atlassian.jira.security.PermissionManager;
+import com.atlassian.jira.security.plugin.ProjectPermissionKey;
+import com.atlassian.jira.user.ApplicationUser;
+
+/**
+ * Remembers the permission decisions for a user for a short while. Every read of a board and every poll for changes
+ * checks the user's permissions for each of the board projects, and clients poll often, so most of these checks are
+ * for a user we have just checked. The cache is cleared when the permission schemes or project roles change, so the
+ * time to live is only there to pick up the changes we get no events for, such as group membership changes.
+ *
+ * @author Kabir Khan
+ */
+public class PermissionCache {
+
+    private static final long TTL_MS =
+            TimeUnit.SECONDS.toMillis(Integer.getInteger("jirban.permission.cache.seconds", 30));
+
+    //Start again if we get this many entries, rather than keeping track of which entries are the oldest
+    private static final int MAX_ENTRIES = Integer.getInteger("jirban.permission.cache.max", 10000);
+
+    private final GlobalPermissionManager globalPermissionManager;
+    private final PermissionManager permissionManager;
+    private final ProjectManager projectManager;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final ConcurrentMap<DecisionKey, Decision> decisions = new ConcurrentHashMap<>();
+    //Incremented when the cache is cleared, so that a decision made from the old permissions does not get cached
+    private final AtomicLong generation = new AtomicLong();
+
+    PermissionCache(GlobalPermissionManager globalPermissionManager, PermissionManager permissionManager,
+                    ProjectManager projectManager) {
+        this(globalPermissionManager, permissionManager, projectManager, TTL_MS, MAX_ENTRIES, System::currentTimeMillis);
+    }
+
+    //Lets the tests pick the limits and control the time
+    PermissionCache(GlobalPermissionManager globalPermissionManager, PermissionManager permissionManager,
+                    ProjectManager projectManager, long ttlMs, int maxEntries, LongSupplier clock) {
+        this.globalPermissionManager = globalPermissionManager;
+        this.permissionManager = permissionManager;
+        this.projectManager = projectManager;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Checks whether a user has a permission in a project
+     *
+     * @param user the user
+     * @param projectCode the project code
+     * @param permission the permission
+     * @return {@code true} if the user has the permission
+     */
+    public boolean hasPermission(ApplicationUser user, String projectCode, ProjectPermissionKey permission) {
+        return getDecision(user, projectCode, permission, () -> {
+            final Project project = projectManager.getProjectByCurrentKey(projectCode);
+            return permissionManager.hasPermission(permission, project, user);
+        });
+    }
+
+    /**
+     * Checks whether a user is a Jira administrator
+     *
+     * @param user the user
+     * @return {@code true} if the user is an administrator
+     */
+    public boolean isJiraAdministrator(ApplicationUser user) {
+        return getDecision(user, null, GlobalPermissionKey.ADMINISTER,
+                () -> globalPermissionManager.hasPermission(GlobalPermissionKey.ADMINISTER, user));
+    }
+
+    /**
+     * Forgets all the decisions, since the permissions have changed
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        decisions.clear();
+        JirbanLogger.LOGGER.debug("Cleared the permission cache");
+    }
+
+    private boolean getDecision(ApplicationUser user, String projectCode, Object permission, BooleanSupplier check) {
+        if (user == null || ttlMs <= 0) {
+            return check.getAsBoolean();
+        }
+        final DecisionKey key = new DecisionKey(user.getKey(), projectCode, permission);
+        final long now = clock.getAsLong();
+        final long generation = this.generation.get();
+        final Decision decision = decisions.get(key);
+        if (decision != null && decision.generation == generation && decision.expiry > now) {
+            return decision.allowed;
+        }
+
+        final boolean allowed = check.getAsBoolean();
+        if (decisions.size() >= maxEntries) {
+            decisions.clear();
+        }
+        decisions.put(key, new Decision(allowed, now + ttlMs, generation));
+        return allowed;
+    }
+
+    private static class DecisionKey {
+        private final String userKey;
+        private final String projectCode;
+        private final Object permission;
+
+        DecisionKey(String userKey, String projectCode, Object permission) {
+            this.userKey = userKey;
+            this.projectCode = projectCode;
+            this.permission = permission;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            DecisionKey that = (DecisionKey) o;
+
+            return userKey.equals(that.userKey)
+                    && Objects.equals(projectCode, that.projectCode)
+                    && permission.equals(that.permission);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = userKey.hashCode();
+            result = 31 * result + Objects.hashCode(projectCode);
+            result = 31 * result + permission.hashCode();
+            return result;
+        }
+    }
+
+    private static class Decision {
+        private final boolean allowed;
+        private final long expiry;
+        //The generation of the cache when we started checking the permission
+        private final long generation;
+
+        Decision(boolean allowed, long expiry, long generation) {
+            this.allowed = allowed;
+            this.expiry = expiry;
+            this.generation = generation;
+        }
+    }
+}
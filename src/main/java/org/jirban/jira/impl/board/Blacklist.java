@@ -19,13 +19,12 @@ import static org.jirban.jira.impl.Constants.ISSUE_TYPES;
 import static org.jirban.jira.impl.Constants.PRIORITIES;
 import static org.jirban.jira.impl.Constants.STATES;
 
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
 import org.jboss.dmr.ModelNode;
 import org.jirban.jira.impl.Constants;
+import org.jirban.jira.impl.util.PersistentHashSet;
 
 /**
  * Keeps track of states, issue types and priorities that affected issues belong to, but have not been
@@ -38,24 +37,25 @@ public class Blacklist {
     /**
      * The missing states from the configuration
      */
-    private final Set<String> missingStates;
+    private final PersistentHashSet<String> missingStates;
 
     /**
      * The missing issueTypes from the configuration
      */
-    private final Set<String> missingIssueTypes;
+    private final PersistentHashSet<String> missingIssueTypes;
 
     /**
      * The missing priorities from the configuration
      */
-    private final Set<String> missingPriorities;
+    private final PersistentHashSet<String> missingPriorities;
 
     /**
      * The issues that have been blacklisted
      */
-    private final Set<String> issues;
+    private final PersistentHashSet<String> issues;
 
-    private Blacklist(Set<String> missingStates, Set<String> missingIssueTypes, Set<String> missingPriorities, Set<String> issues) {
+    private Blacklist(PersistentHashSet<String> missingStates, PersistentHashSet<String> missingIssueTypes,
+                      PersistentHashSet<String> missingPriorities, PersistentHashSet<String> issues) {
         this.missingStates = missingStates;
         this.missingIssueTypes = missingIssueTypes;
         this.missingPriorities = missingPriorities;
@@ -77,13 +77,30 @@ public class Blacklist {
         if (set.isEmpty()) {
             return;
         }
-        set.forEach(value -> blacklist.get(key).add(value));
+        //The sets are unordered, so sort the values for the output
+        new TreeSet<>(set).forEach(value -> blacklist.get(key).add(value));
     }
 
     public boolean isBlacklisted(String issueKey) {
         return issues.contains(issueKey);
     }
 
+    Set<String> getMissingStates() {
+        return missingStates;
+    }
+
+    Set<String> getMissingIssueTypes() {
+        return missingIssueTypes;
+    }
+
+    Set<String> getMissingPriorities() {
+        return missingPriorities;
+    }
+
+    Set<String> getIssues() {
+        return issues;
+    }
+
     abstract static class Accessor {
         abstract void addMissingState(String issueKey, String state);
         abstract void addMissingIssueType(String issueKey, String issueType);
@@ -94,6 +111,7 @@ public class Blacklist {
         public abstract boolean isBlackListed(String issueKey);
     }
 
+    //The methods are synchronized since the board projects might be loaded in parallel
     static class Builder extends Accessor {
         private Set<String> missingStates;
         private Set<String> missingIssueTypes;
@@ -102,7 +120,7 @@ public class Blacklist {
 
 
         @Override
-        void addMissingState(String issueKey, String state) {
+        synchronized void addMissingState(String issueKey, String state) {
             if (missingStates == null) {
                 missingStates = new TreeSet<>();
             }
@@ -111,7 +129,7 @@ public class Blacklist {
         }
 
         @Override
-        void addMissingIssueType(String issueKey, String issueType) {
+        synchronized void addMissingIssueType(String issueKey, String issueType) {
             if (missingIssueTypes == null) {
                 missingIssueTypes = new TreeSet<>();
             }
@@ -120,7 +138,7 @@ public class Blacklist {
         }
 
         @Override
-        void addMissingPriority(String issueKey, String priority) {
+        synchronized void addMissingPriority(String issueKey, String priority) {
             if (missingPriorities == null) {
                 missingPriorities = new TreeSet<>();
             }
@@ -129,7 +147,7 @@ public class Blacklist {
         }
 
         @Override
-        public boolean isBlackListed(String issueKey) {
+        public synchronized boolean isBlackListed(String issueKey) {
             if (issues == null) {
                 return false;
             }
@@ -137,7 +155,7 @@ public class Blacklist {
         }
 
         @Override
-        boolean isUpdated() {
+        synchronized boolean isUpdated() {
             return issues != null;
         }
 
@@ -154,63 +172,68 @@ public class Blacklist {
             issues.add(issueKey);
         }
 
-        Blacklist build() {
+        synchronized Blacklist build() {
             return new Blacklist(
-                missingStates == null ? Collections.emptySet() : Collections.unmodifiableSet(missingStates),
-                missingIssueTypes == null ? Collections.emptySet() : Collections.unmodifiableSet(missingIssueTypes),
-                missingPriorities == null ? Collections.emptySet() : Collections.unmodifiableSet(missingPriorities),
-                issues == null ? Collections.emptySet() : Collections.unmodifiableSet(issues));
+                missingStates == null ? PersistentHashSet.empty() : PersistentHashSet.copyOf(missingStates),
+                missingIssueTypes == null ? PersistentHashSet.empty() : PersistentHashSet.copyOf(missingIssueTypes),
+                missingPriorities == null ? PersistentHashSet.empty() : PersistentHashSet.copyOf(missingPriorities),
+                issues == null ? PersistentHashSet.empty() : PersistentHashSet.copyOf(issues));
         }
     }
 
     static class Updater extends Accessor {
         private final Blacklist original;
         private boolean updated;
-        private Set<String> missingStates;
-        private Set<String> missingIssueTypes;
-        private Set<String> missingPriorities;
-        private Set<String> issues;
+        private PersistentHashSet<String> missingStates;
+        private PersistentHashSet<String> missingIssueTypes;
+        private PersistentHashSet<String> missingPriorities;
+        private PersistentHashSet<String> issues;
+        private String addedState;
+        private String addedIssueType;
+        private String addedPriority;
+        private String addedIssue;
         private String deletedIssue;
 
         public Updater(Blacklist original) {
             this.original = original;
+            this.missingStates = original.missingStates;
+            this.missingIssueTypes = original.missingIssueTypes;
+            this.missingPriorities = original.missingPriorities;
+            this.issues = original.issues;
         }
 
         @Override
         void addMissingState(String issueKey, String state) {
-            if (missingStates == null) {
-                missingStates = new TreeSet<>(original.missingStates);
+            if (!missingStates.contains(state)) {
+                missingStates = missingStates.plus(state);
+                addedState = state;
             }
-            missingStates.add(state);
             blacklistIssue(issueKey);
             updated = true;
         }
 
         @Override
         void addMissingIssueType(String issueKey, String issueType) {
-            if (missingIssueTypes == null) {
-                missingIssueTypes = new TreeSet<>(original.missingIssueTypes);
+            if (!missingIssueTypes.contains(issueType)) {
+                missingIssueTypes = missingIssueTypes.plus(issueType);
+                addedIssueType = issueType;
             }
-            missingIssueTypes.add(issueType);
             blacklistIssue(issueKey);
             updated = true;
         }
 
         @Override
         void addMissingPriority(String issueKey, String priority) {
-            if (missingPriorities == null) {
-                missingPriorities = new TreeSet<>(original.missingPriorities);
+            if (!missingPriorities.contains(priority)) {
+                missingPriorities = missingPriorities.plus(priority);
+                addedPriority = priority;
             }
-            missingPriorities.add(priority);
             blacklistIssue(issueKey);
             updated = true;
         }
 
         @Override
         public boolean isBlackListed(String issueKey) {
-            if (issues == null) {
-                return original.isBlacklisted(issueKey);
-            }
             return issues.contains(issueKey);
         }
 
@@ -221,10 +244,7 @@ public class Blacklist {
 
         @Override
         public void deleteIssue(String issueKey) {
-            if (issues == null) {
-                issues = new TreeSet<>(original.issues);
-            }
-            issues.remove(issueKey);
+            issues = issues.minus(issueKey);
             deletedIssue = issueKey;
             updated = true;
         }
@@ -234,53 +254,33 @@ public class Blacklist {
         }
 
         private void blacklistIssue(String issueKey) {
-            if (issues == null) {
-                issues = new TreeSet<>(original.issues);
+            if (!issues.contains(issueKey)) {
+                issues = issues.plus(issueKey);
+                addedIssue = issueKey;
             }
-            issues.add(issueKey);
         }
 
         Blacklist build() {
             if (!updated) {
                 return original;
             }
-
-            return new Blacklist(
-                missingStates == null ? original.missingStates : Collections.unmodifiableSet(missingStates),
-                missingIssueTypes == null ? original.missingIssueTypes : Collections.unmodifiableSet(missingIssueTypes),
-                missingPriorities == null ? original.missingPriorities : Collections.unmodifiableSet(missingPriorities),
-                issues == null ? original.issues : Collections.unmodifiableSet(issues));
+            return new Blacklist(missingStates, missingIssueTypes, missingPriorities, issues);
         }
 
         String getAddedState() {
-            return getAddition(original.missingStates, missingStates);
+            return addedState;
         }
 
         String getAddedIssueType() {
-            return getAddition(original.missingIssueTypes, missingIssueTypes);
+            return addedIssueType;
         }
 
         String getAddedPriority() {
-            return getAddition(original.missingPriorities, missingPriorities);
+            return addedPriority;
         }
 
         String getAddedIssue() {
-            return getAddition(original.issues, issues);
-
-        }
-
-        private String getAddition(Set<String> original, Set<String> current) {
-            if (current == null) {
-                return null;
-            }
-            Set<String> tmp = new HashSet<>(current);
-            tmp.removeAll(original);
-            if (tmp.size() == 0) {
-                //Should not really be the case, but just in case
-                return null;
-            }
-            //Can only be one atm
-            return tmp.iterator().next();
+            return addedIssue;
         }
     }
 }
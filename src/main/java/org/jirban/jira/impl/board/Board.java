@@ -32,11 +32,19 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -53,7 +61,12 @@ import org.jirban.jira.impl.config.BoardConfig;
 import org.jirban.jira.impl.config.BoardProjectConfig;
 import org.jirban.jira.impl.config.CustomFieldConfig;
 import org.jirban.jira.impl.config.LinkedProjectConfig;
+import org.jirban.jira.impl.util.CborStreamWriter;
+import org.jirban.jira.impl.util.ExactSizeByteArray;
 import org.jirban.jira.impl.util.IndexedMap;
+import org.jirban.jira.impl.util.JsonStreamWriter;
+import org.jirban.jira.impl.util.ObjectStreamWriter;
+import org.jirban.jira.impl.util.PersistentHashMap;
 
 import com.atlassian.jira.avatar.Avatar;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
@@ -70,6 +83,8 @@ import com.atlassian.jira.user.ApplicationUser;
 public class Board {
     //This is incremented every time a change is made to the board
     final int currentView;
+    //When the board was loaded. The views start again from zero when a board is reloaded, so this tells them apart
+    private final long loadTime;
 
     private final BoardConfig boardConfig;
 
@@ -78,22 +93,35 @@ public class Board {
     private final IndexedMap<String, Component> sortedComponents;
     private final IndexedMap<String, Label> sortedLabels;
     private final IndexedMap<String, FixVersion> sortedFixVersions;
-    private final Map<String, Issue> allIssues;
+    //Persistent so that an issue event does not need to copy all the issues
+    private final PersistentHashMap<String, Issue> allIssues;
+    //The keys of the issues linking to each linked issue, so that a change to a linked issue only touches those
+    private final PersistentHashMap<String, Set<String>> linkedIssueReferences;
     private final Map<String, BoardProject> projects;
     private final Map<String, SortedCustomFieldValues> sortedCustomFieldValues;
 
     private final Blacklist blacklist;
 
+    //The rendered json for this board. The board is immutable, so the only things that vary between requests are the
+    //backlog flag and the per-user permissions. Most users share the same permissions, so there should be few entries.
+    //Each entry is as big as the board, but it is built once per view and then written to every request as it is.
+    //The json is held as utf-8, which is what gets sent to the client anyway and takes half the space of a String.
+    private final ConcurrentMap<SerializationKey, byte[]> serializedJson = new ConcurrentHashMap<>();
+    //The same for clients who asked for the board in CBOR
+    private final ConcurrentMap<SerializationKey, byte[]> serializedCbor = new ConcurrentHashMap<>();
+
     private Board(Board old, BoardConfig boardConfig,
                     IndexedMap<String, Assignee> sortedAssignees,
                     IndexedMap<String, Component> sortedComponents,
                     IndexedMap<String, Label> sortedLabels,
                     IndexedMap<String, FixVersion> sortedFixVersions,
-                    Map<String, Issue> allIssues,
+                    PersistentHashMap<String, Issue> allIssues,
+                    PersistentHashMap<String, Set<String>> linkedIssueReferences,
                     Map<String, BoardProject> projects,
                     Map<String, SortedCustomFieldValues> sortedCustomFieldValues,
                     Blacklist blacklist) {
         this.currentView = old == null ? 0 : old.currentView + 1;
+        this.loadTime = old == null ? System.currentTimeMillis() : old.loadTime;
         this.boardConfig = boardConfig;
 
         this.sortedAssignees = sortedAssignees;
@@ -103,6 +131,7 @@ public class Board {
         this.sortedFixVersions = sortedFixVersions;
 
         this.allIssues = allIssues;
+        this.linkedIssueReferences = linkedIssueReferences;
         this.projects = projects;
         this.sortedCustomFieldValues = sortedCustomFieldValues;
         this.blacklist = blacklist;
@@ -121,8 +150,95 @@ public class Board {
         return boardUpdater.handleEvent(event, nextRankedIssueUtil);
     }
 
+    /**
+     * Gets the json for the full board as utf-8. The result is shared between all users with the same rank permissions
+     * for the board projects, so for a given view of the board it is only rendered once per permission combination.
+     *
+     * @param jiraInjectables the jira injectables
+     * @param backlog whether to include the backlog issues
+     * @param user the user requesting the board
+     * @return the utf-8 json bytes
+     */
+    public byte[] serializeToJsonBytes(JiraInjectables jiraInjectables, boolean backlog, ApplicationUser user) {
+        return getJsonBytes(new SerializationKey(backlog, getRankableProjects(jiraInjectables, user)));
+    }
+
+    private byte[] getJsonBytes(SerializationKey key) {
+        byte[] json = serializedJson.get(key);
+        if (json == null) {
+            json = serializedJson.computeIfAbsent(key, k -> ExactSizeByteArray.write(
+                    out -> writeBoard(new JsonStreamWriter(out), k.backlog, k.rankableProjects)));
+        } else {
+            JirbanLogger.LOGGER.trace("Using cached json for board {}, view {}", boardConfig.getCode(), currentView);
+        }
+        return json;
+    }
+
+    /**
+     * Gets the full board encoded as CBOR. The result is shared in the same way as for
+     * {@link #serializeToJsonBytes(JiraInjectables, boolean, ApplicationUser)}.
+     *
+     * @param jiraInjectables the jira injectables
+     * @param backlog whether to include the backlog issues
+     * @param user the user requesting the board
+     * @return the CBOR bytes
+     */
+    public byte[] serializeToCbor(JiraInjectables jiraInjectables, boolean backlog, ApplicationUser user) {
+        final SerializationKey key = new SerializationKey(backlog, getRankableProjects(jiraInjectables, user));
+        byte[] cbor = serializedCbor.get(key);
+        if (cbor == null) {
+            cbor = serializedCbor.computeIfAbsent(key, k -> ExactSizeByteArray.write(
+                    out -> writeBoard(new CborStreamWriter(out), k.backlog, k.rankableProjects)));
+        } else {
+            JirbanLogger.LOGGER.trace("Using cached CBOR for board {}, view {}", boardConfig.getCode(), currentView);
+        }
+        return cbor;
+    }
+
     public ModelNode serialize(JiraInjectables jiraInjectables, boolean backlog, ApplicationUser user) {
+        return serialize(backlog, getRankableProjects(jiraInjectables, user));
+    }
+
+    private Set<String> getRankableProjects(JiraInjectables jiraInjectables, ApplicationUser user) {
+        final Set<String> rankableProjects = new TreeSet<>();
+        for (BoardProject project : projects.values()) {
+            if (project.hasRankPermission(user, jiraInjectables.getPermissionCache())) {
+                rankableProjects.add(project.getCode());
+            }
+        }
+        return rankableProjects;
+    }
+
+    private ModelNode serialize(boolean backlog, Set<String> rankableProjects) {
         ModelNode outputNode = new ModelNode();
+        serializeLookups(outputNode);
+
+        ModelNode allIssues = outputNode.get(ISSUES);
+        this.allIssues.forEach((code, issue) -> {
+            boolean relevant = true;
+            if (!backlog) {
+                relevant = !getBoardProject(issue.getProjectCode()).isBacklogState(issue.getState());
+            }
+            if (relevant) {
+                allIssues.get(code).set(issue.getModelNodeForFullRefresh(this));
+            }
+        });
+
+        ModelNode mainProjectsParent = outputNode.get(PROJECTS, MAIN);
+
+        for (Map.Entry<String, BoardProject> projectEntry : projects.entrySet()) {
+            final String projectCode = projectEntry.getKey();
+            ModelNode project = mainProjectsParent.get(projectCode);
+            projectEntry.getValue().serialize(this, project, rankableProjects.contains(projectCode), backlog);
+        }
+
+        blacklist.serialize(outputNode);
+
+        return outputNode;
+    }
+
+    //The parts of the board the issues refer to by index, and the configuration
+    private void serializeLookups(ModelNode outputNode) {
         //Sort the assignees by name
         outputNode.get(VIEW).set(currentView);
 
@@ -148,29 +264,61 @@ public class Board {
         }
 
         boardConfig.serializeModelNodeForBoard(outputNode);
+    }
 
-        ModelNode allIssues = outputNode.get(ISSUES);
-        this.allIssues.forEach((code, issue) -> {
-            boolean relevant = true;
-            if (!backlog) {
-                relevant = !getBoardProject(issue.getProjectCode()).isBacklogState(issue.getState());
-            }
-            if (relevant) {
-                allIssues.get(code).set(issue.getModelNodeForFullRefresh(this));
-            }
-        });
+    /**
+     * Writes the same data as {@link #serialize(boolean, Set)}, but one issue and one project at a time so that the
+     * model for the whole board never exists in memory. Only the parts whose size does not depend on the number of
+     * issues are built up front.
+     */
+    private void writeBoard(ObjectStreamWriter streamWriter, boolean backlog, Set<String> rankableProjects) {
+        ModelNode outputNode = new ModelNode();
+        serializeLookups(outputNode);
+        blacklist.serialize(outputNode);
 
-        ModelNode mainProjectsParent = outputNode.get(PROJECTS, MAIN);
+        //The project configurations get merged with the project issues, so write them separately
+        final ModelNode projectsNode = outputNode.remove(PROJECTS);
+        final ModelNode mainProjectsNode = projectsNode.remove(MAIN);
 
-        for (Map.Entry<String, BoardProject> projectEntry : projects.entrySet()) {
-            final String projectCode = projectEntry.getKey();
-            ModelNode project = mainProjectsParent.get(projectCode);
-            projectEntry.getValue().serialize(jiraInjectables, this, project, user, backlog);
+        //Some formats need the number of issues before the issues
+        int issueCount = 0;
+        for (Issue issue : this.allIssues.values()) {
+            if (isIssueVisible(issue, backlog)) {
+                issueCount++;
+            }
         }
 
-        blacklist.serialize(outputNode);
+        try (ObjectStreamWriter writer = streamWriter) {
+            writer.startObject(outputNode.keys().size() + 2);
+            writer.writeFields(outputNode);
 
-        return outputNode;
+            writer.startObject(ISSUES, issueCount);
+            this.allIssues.forEach((code, issue) -> {
+                if (isIssueVisible(issue, backlog)) {
+                    writer.writeField(code, issue.getModelNodeForFullRefresh(this));
+                }
+            });
+            writer.endObject();
+
+            writer.startObject(PROJECTS, projectsNode.keys().size() + 1);
+            writer.writeFields(projectsNode);
+            writer.startObject(MAIN, projects.size());
+            for (Map.Entry<String, BoardProject> projectEntry : projects.entrySet()) {
+                final String projectCode = projectEntry.getKey();
+                final ModelNode project = mainProjectsNode.get(projectCode);
+                projectEntry.getValue().serialize(this, project, rankableProjects.contains(projectCode), backlog);
+                writer.writeField(projectCode, project);
+                mainProjectsNode.remove(projectCode);
+            }
+            writer.endObject();
+            writer.endObject();
+
+            writer.endObject();
+        }
+    }
+
+    private boolean isIssueVisible(Issue issue, boolean backlog) {
+        return backlog || !getBoardProject(issue.getProjectCode()).isBacklogState(issue.getState());
     }
 
     public Issue getIssue(String key) {
@@ -213,6 +361,44 @@ public class Board {
         projects.values().forEach(project -> project.setBoard(this));
     }
 
+    private static PersistentHashMap<String, Set<String>> updateLinkedIssueReferences(
+            PersistentHashMap<String, Set<String>> references, Issue oldIssue, Issue newIssue) {
+        final List<String> oldKeys = oldIssue == null ? Collections.emptyList() : oldIssue.getLinkedIssueKeys();
+        final List<String> newKeys = newIssue == null ? Collections.emptyList() : newIssue.getLinkedIssueKeys();
+        if (oldKeys.equals(newKeys)) {
+            return references;
+        }
+        final String issueKey = newIssue != null ? newIssue.getKey() : oldIssue.getKey();
+        for (String linkedIssueKey : oldKeys) {
+            if (!newKeys.contains(linkedIssueKey)) {
+                final Set<String> issueKeys = references.get(linkedIssueKey);
+                if (issueKeys == null || !issueKeys.contains(issueKey)) {
+                    continue;
+                }
+                if (issueKeys.size() == 1) {
+                    references = references.minus(linkedIssueKey);
+                } else {
+                    final Set<String> issueKeysCopy = new HashSet<>(issueKeys);
+                    issueKeysCopy.remove(issueKey);
+                    references = references.plus(linkedIssueKey, Collections.unmodifiableSet(issueKeysCopy));
+                }
+            }
+        }
+        for (String linkedIssueKey : newKeys) {
+            if (!oldKeys.contains(linkedIssueKey)) {
+                final Set<String> issueKeys = references.get(linkedIssueKey);
+                if (issueKeys == null) {
+                    references = references.plus(linkedIssueKey, Collections.singleton(issueKey));
+                } else if (!issueKeys.contains(issueKey)) {
+                    final Set<String> issueKeysCopy = new HashSet<>(issueKeys);
+                    issueKeysCopy.add(issueKey);
+                    references = references.plus(linkedIssueKey, Collections.unmodifiableSet(issueKeysCopy));
+                }
+            }
+        }
+        return references;
+    }
+
     private static Assignee createAssignee(JiraInjectables jiraInjectables, ApplicationUser boardOwner, ApplicationUser assigneeUser) {
         URI avatarUrl = jiraInjectables.getAvatarService().getAvatarURL(boardOwner, assigneeUser, Avatar.Size.NORMAL);
         Assignee assignee = Assignee.create(assigneeUser, avatarUrl.toString());
@@ -223,6 +409,38 @@ public class Board {
         return currentView;
     }
 
+    /**
+     * Gets the entity tag for the json or CBOR of the full board. It identifies this view of the board and what
+     * affects its output for the user, so it can be worked out without rendering the board.
+     *
+     * @param jiraInjectables the jira injectables
+     * @param backlog whether to include the backlog issues
+     * @param user the user requesting the board
+     * @param format the format of the payload
+     * @return the entity tag
+     */
+    public String getEntityTag(JiraInjectables jiraInjectables, boolean backlog, ApplicationUser user, String format) {
+        final Set<String> rankableProjects = getRankableProjects(jiraInjectables, user);
+        return createEntityTag(backlog, format, "rank=" + String.join(".", rankableProjects));
+    }
+
+    /**
+     * Gets the entity tag for the changes up to this view of the board. The view the client is getting the changes
+     * from is part of the request, so it is not included.
+     *
+     * @param backlog whether to include the changes to backlog issues
+     * @param format the format of the payload
+     * @return the entity tag
+     */
+    public String getChangesEntityTag(boolean backlog, String format) {
+        return createEntityTag(backlog, format, "changes");
+    }
+
+    private String createEntityTag(boolean backlog, String format, String contents) {
+        return "W/\"" + boardConfig.getCode() + "-" + Long.toHexString(loadTime) + "-" + currentView +
+                (backlog ? "-backlog-" : "-") + contents + "-" + format + "\"";
+    }
+
     BoardChangeRegistry.IssueChange createCreateIssueChange(BoardChangeRegistry registry, String issueKey) {
         Issue issue = allIssues.get(issueKey);
         return issue.convertToCreateIssueChange(registry, getConfig());
@@ -237,6 +455,266 @@ public class Board {
         return false;
     }
 
+    /**
+     * Registers the differences between this board and a reload of it as changes in this board's change registry, so
+     * that the clients polling the registry catch up with the reloaded board from a small set of changes rather than
+     * a full refresh. The issues which were added, removed or changed are resynced, i.e. sent with their current data,
+     * and the issues which only moved are reranked.
+     *
+     * @param reloaded the reloaded board
+     * @param changeRegistry the change registry for this board
+     * @return the reloaded board with its views following on from this board's, this board if nothing changed, or
+     *          {@code null} if the differences cannot be sent as changes since the config changed
+     */
+    public Board registerReloadChanges(Board reloaded, BoardChangeRegistry changeRegistry) {
+        if (reloaded.boardConfig != boardConfig || !reloaded.projects.keySet().equals(projects.keySet())) {
+            return null;
+        }
+
+        //The issues which were added, removed or changed, mapped to their project codes
+        final Map<String, String> resyncedIssues = new TreeMap<>();
+        allIssues.forEach((issueKey, issue) -> {
+            final Issue reloadedIssue = reloaded.allIssues.get(issueKey);
+            if (reloadedIssue == null || !issue.hasSameData(reloadedIssue)) {
+                resyncedIssues.put(issueKey, issue.getProjectCode());
+            }
+        });
+        reloaded.allIssues.forEach((issueKey, issue) -> {
+            if (!allIssues.containsKey(issueKey)) {
+                resyncedIssues.put(issueKey, issue.getProjectCode());
+            }
+        });
+
+        //The issues which only changed their rank, mapped to their project codes
+        final Map<String, String> rerankedIssues = new TreeMap<>();
+        for (Map.Entry<String, BoardProject> entry : reloaded.projects.entrySet()) {
+            final Set<String> moved = getMovedIssueKeys(
+                    projects.get(entry.getKey()).getRankedIssueKeys(), entry.getValue().getRankedIssueKeys(),
+                    resyncedIssues.keySet());
+            moved.forEach(issueKey -> rerankedIssues.put(issueKey, entry.getKey()));
+        }
+
+        final ReloadReferences references = new ReloadReferences(this);
+        Board boardCopy = this;
+        //Each issue gets its own view, since the changes for a view are registered for one issue
+        for (Map.Entry<String, String> entry : resyncedIssues.entrySet()) {
+            boardCopy = reloaded.copyWithNextView(boardCopy);
+            final BoardChange.Builder changeBuilder = changeRegistry.addChange(boardCopy.currentView,
+                    JirbanIssueEvent.createResyncEvent(entry.getKey(), entry.getValue()));
+            final Issue issue = reloaded.allIssues.get(entry.getKey());
+            if (issue != null) {
+                references.addNewReferences(changeBuilder, issue);
+            }
+            changeBuilder.buildAndRegister();
+        }
+        for (Map.Entry<String, String> entry : rerankedIssues.entrySet()) {
+            boardCopy = reloaded.copyWithNextView(boardCopy);
+            final Issue issue = reloaded.allIssues.get(entry.getKey());
+            //Register the change as an update of the issue which only reranks it
+            final JirbanIssueEvent issueEvent = JirbanIssueEvent.createUpdateEvent(entry.getKey(), entry.getValue(),
+                    null, null, null, null, null, null, null, issue.getState(), null, true, null);
+            changeRegistry.addChange(boardCopy.currentView, issueEvent)
+                    .setFromBacklogState(reloaded.projects.get(entry.getValue()).isBacklogState(issue.getState()))
+                    .buildAndRegister();
+        }
+        boardCopy = registerBlacklistChanges(reloaded, changeRegistry, boardCopy);
+
+        if (boardCopy == this) {
+            return this;
+        }
+        boardCopy.updateBoardInProjects();
+        return boardCopy;
+    }
+
+    private Board registerBlacklistChanges(Board reloaded, BoardChangeRegistry changeRegistry, Board boardCopy) {
+        final Iterator<String> addedIssues = added(blacklist.getIssues(), reloaded.blacklist.getIssues());
+        final Iterator<String> addedStates = added(blacklist.getMissingStates(), reloaded.blacklist.getMissingStates());
+        final Iterator<String> addedIssueTypes =
+                added(blacklist.getMissingIssueTypes(), reloaded.blacklist.getMissingIssueTypes());
+        final Iterator<String> addedPriorities =
+                added(blacklist.getMissingPriorities(), reloaded.blacklist.getMissingPriorities());
+        //The clients only pick up a blacklist change along with an issue. Missing states, issue types and priorities
+        //with no newly blacklisted issue come from issues they already have blacklisted, so send one of those again
+        final String anyBlacklistedIssue = reloaded.blacklist.getIssues().isEmpty() ?
+                null : reloaded.blacklist.getIssues().iterator().next();
+        while (addedIssues.hasNext() ||
+                (anyBlacklistedIssue != null &&
+                        (addedStates.hasNext() || addedIssueTypes.hasNext() || addedPriorities.hasNext()))) {
+            final String issueKey = addedIssues.hasNext() ? addedIssues.next() : anyBlacklistedIssue;
+            boardCopy = reloaded.copyWithNextView(boardCopy);
+            changeRegistry.addChange(boardCopy.currentView, createBlacklistEvent(issueKey))
+                    .addBlacklist(
+                            addedStates.hasNext() ? addedStates.next() : null,
+                            addedIssueTypes.hasNext() ? addedIssueTypes.next() : null,
+                            addedPriorities.hasNext() ? addedPriorities.next() : null,
+                            issueKey)
+                    .buildAndRegister();
+        }
+        //The clients can't remove missing states, issue types and priorities, but these only go away if the
+        //config changes, in which case we don't get here
+        for (Iterator<String> it = added(reloaded.blacklist.getIssues(), blacklist.getIssues()) ; it.hasNext() ; ) {
+            final String issueKey = it.next();
+            boardCopy = reloaded.copyWithNextView(boardCopy);
+            changeRegistry.addChange(boardCopy.currentView, createBlacklistEvent(issueKey))
+                    .deleteBlacklist(issueKey)
+                    .buildAndRegister();
+        }
+        return boardCopy;
+    }
+
+    private static Iterator<String> added(Set<String> original, Set<String> reloaded) {
+        final Set<String> added = new TreeSet<>(reloaded);
+        added.removeAll(original);
+        return added.iterator();
+    }
+
+    private static JirbanIssueEvent createBlacklistEvent(String issueKey) {
+        //We only have the issue key for the blacklisted issues, but that contains the project code
+        return JirbanIssueEvent.createResyncEvent(issueKey, issueKey.substring(0, issueKey.lastIndexOf('-')));
+    }
+
+    private Board copyWithNextView(Board previous) {
+        return new Board(previous, boardConfig,
+                sortedAssignees,
+                sortedComponents,
+                sortedLabels,
+                sortedFixVersions,
+                allIssues,
+                linkedIssueReferences,
+                projects,
+                sortedCustomFieldValues,
+                blacklist);
+    }
+
+    /**
+     * Works out which issues need to be moved to turn one ranking of a project's issues into the other. These are
+     * the ones which are not part of the longest run of issues which are in the same order in both.
+     *
+     * @param rankedIssueKeys the ranked issue keys the clients have
+     * @param reloadedRankedIssueKeys the ranked issue keys from the reloaded board
+     * @param resyncedIssueKeys the keys of the issues being resynced, which get ranked anyway
+     * @return the keys of the moved issues
+     */
+    private static Set<String> getMovedIssueKeys(List<String> rankedIssueKeys, List<String> reloadedRankedIssueKeys,
+                                         Set<String> resyncedIssueKeys) {
+        final Set<String> moved = new HashSet<>();
+        final List<String> keys = new ArrayList<>(reloadedRankedIssueKeys.size());
+        final int[] indices = new int[reloadedRankedIssueKeys.size()];
+        for (String issueKey : reloadedRankedIssueKeys) {
+            if (resyncedIssueKeys.contains(issueKey)) {
+                continue;
+            }
+            final int index = rankedIssueKeys.indexOf(issueKey);
+            if (index < 0) {
+                moved.add(issueKey);
+            } else {
+                indices[keys.size()] = index;
+                keys.add(issueKey);
+            }
+        }
+
+        //Find the longest run of keys whose old indices are increasing. tails[i] is the position in keys of the
+        //smallest last index of the runs of length i + 1, and previous[i] is the position of the key before keys[i]
+        //in the run ending with it
+        final int[] tails = new int[keys.size()];
+        final int[] previous = new int[keys.size()];
+        int length = 0;
+        for (int i = 0 ; i < keys.size() ; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (indices[tails[mid]] < indices[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        final Set<String> inOrder = new HashSet<>();
+        for (int i = length > 0 ? tails[length - 1] : -1 ; i >= 0 ; i = previous[i]) {
+            inOrder.add(keys.get(i));
+        }
+        for (String issueKey : keys) {
+            if (!inOrder.contains(issueKey)) {
+                moved.add(issueKey);
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Tracks the assignees, components, labels, fix versions and custom field values the reloaded board brings in,
+     * so that each one is sent to the clients once along with the first issue using it
+     */
+    private static class ReloadReferences {
+        private final Board board;
+        private final Set<String> assignees = new HashSet<>();
+        private final Set<String> components = new HashSet<>();
+        private final Set<String> labels = new HashSet<>();
+        private final Set<String> fixVersions = new HashSet<>();
+        private final Map<String, Set<String>> customFieldValues = new HashMap<>();
+
+        ReloadReferences(Board board) {
+            this.board = board;
+        }
+
+        void addNewReferences(BoardChange.Builder changeBuilder, Issue issue) {
+            final Assignee assignee = issue.getAssignee();
+            if (assignee != null && assignee.getKey() != null &&
+                    board.sortedAssignees.get(assignee.getKey()) == null && assignees.add(assignee.getKey())) {
+                changeBuilder.addNewAssignee(assignee);
+            }
+            final Set<Component> newComponents = getNew(issue.getComponents(), board.sortedComponents, components);
+            if (newComponents != null) {
+                changeBuilder.addNewComponents(newComponents);
+            }
+            final Set<Label> newLabels = getNew(issue.getLabels(), board.sortedLabels, labels);
+            if (newLabels != null) {
+                changeBuilder.addNewLabels(newLabels);
+            }
+            final Set<FixVersion> newFixVersions = getNew(issue.getFixVersions(), board.sortedFixVersions, fixVersions);
+            if (newFixVersions != null) {
+                changeBuilder.addNewFixVersions(newFixVersions);
+            }
+
+            final Map<String, CustomFieldValue> newCustomFieldValues = new HashMap<>();
+            issue.getCustomFieldValues().forEach((fieldName, value) -> {
+                final SortedCustomFieldValues existing = board.sortedCustomFieldValues.get(fieldName);
+                if ((existing == null || existing.getCustomFieldValue(value.getKey()) == null) &&
+                        customFieldValues.computeIfAbsent(fieldName, name -> new HashSet<>()).add(value.getKey())) {
+                    newCustomFieldValues.put(fieldName, value);
+                }
+            });
+            if (newCustomFieldValues.size() > 0) {
+                changeBuilder.addCustomFieldValues(board.sortedCustomFieldValues, newCustomFieldValues);
+            }
+        }
+
+        private static <T extends MultiSelectNameOnlyValue> Set<T> getNew(Set<T> values, IndexedMap<String, T> existing,
+                                                                          Set<String> added) {
+            if (values == null) {
+                return null;
+            }
+            Set<T> newValues = null;
+            for (T value : values) {
+                if (existing.get(value.getName()) == null && added.add(value.getName())) {
+                    if (newValues == null) {
+                        newValues = new HashSet<>();
+                    }
+                    newValues.add(value);
+                }
+            }
+            return newValues;
+        }
+    }
+
     static abstract class Accessor {
         protected final JiraInjectables jiraInjectables;
         protected final BoardConfig boardConfig;
@@ -322,7 +800,9 @@ public class Board {
 
     private static <T> Map<String, T> sortMapValues(Map<String, T> unsorted, Function<T, String> displayNameExtractor, Function<T, String> keyExtractor) {
         List<T> values = new ArrayList<T>(unsorted.values());
-        Comparator<T> comparator = Comparator.comparing(displayNameExtractor, String.CASE_INSENSITIVE_ORDER);
+        //Use the key to break ties, so that the order does not depend on the order the values were added in
+        Comparator<T> comparator = Comparator.comparing(displayNameExtractor, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(keyExtractor);
         Collections.sort(values, comparator);
         LinkedHashMap<String, T> result = new LinkedHashMap<>();
         values.forEach(value -> result.put(keyExtractor.apply(value), value));
@@ -334,14 +814,16 @@ public class Board {
      */
     public static class Builder extends Accessor {
         private final ProjectParallelTaskOptionsLoader projectParallelTaskOptionsLoader;
-        private final Map<String, Assignee> assignees = new HashMap<>();
-        private final Map<String, Component> components = new HashMap<>();
-        private final Map<String, Label> labels = new HashMap<>();
-        private final Map<String, FixVersion> fixVersions = new HashMap<>();
-        private final Map<String, Issue> allIssues = new HashMap<>();
-        private final Map<String, BoardProject.Builder> projects = new HashMap<>();
+        //These are concurrent since the projects might be loaded in parallel
+        private final Map<String, Assignee> assignees = new ConcurrentHashMap<>();
+        private final Map<String, Component> components = new ConcurrentHashMap<>();
+        private final Map<String, Label> labels = new ConcurrentHashMap<>();
+        private final Map<String, FixVersion> fixVersions = new ConcurrentHashMap<>();
+        private final Map<String, Issue> allIssues = new ConcurrentHashMap<>();
         private final Blacklist.Builder blacklist = new Blacklist.Builder();
-        private final Map<Long, SortedCustomFieldValues.Builder> customFieldBuilders = new HashMap();
+        private final Map<Long, SortedCustomFieldValues.Builder> customFieldBuilders = new ConcurrentHashMap<>();
+        //Only accessed by the thread calling load() and build()
+        private final Map<String, BoardProject.Builder> projects = new HashMap<>();
 
         public Builder(JiraInjectables jiraInjectables,
                        ProjectParallelTaskOptionsLoader projectParallelTaskOptionsLoader,
@@ -351,15 +833,76 @@ public class Board {
         }
 
         public Builder load() throws SearchException {
-            for (BoardProjectConfig boardProjectConfig : boardConfig.getBoardProjects()) {
-                BoardProjectConfig project = boardConfig.getBoardProject(boardProjectConfig.getCode());
-                BoardProject.Builder projectBuilder = BoardProject.builder(jiraInjectables, projectParallelTaskOptionsLoader, this, project, boardOwner);
-                projectBuilder.load();
-                projects.put(projectBuilder.getCode(), projectBuilder);
+            return load(null, null);
+        }
+
+        /**
+         * Loads the board projects. If an executor is passed in, each project is loaded in a separate task, so the
+         * total time is roughly that of the slowest project. The values shared between the projects are merged
+         * in this builder, and the result is the same as for a serial load.
+         *
+         * @param executor the executor to load the projects, or {@code null} to load them one after another
+         * @param batchExecutor the executor to bulk load the issues' custom fields and links in batches, or
+         *                      {@code null} to load the batches one after another
+         * @return this builder
+         * @throws SearchException if an error happened searching for the issues
+         */
+        public Builder load(ExecutorService executor, ExecutorService batchExecutor) throws SearchException {
+            final Collection<BoardProjectConfig> projectConfigs = boardConfig.getBoardProjects();
+            if (executor == null || projectConfigs.size() < 2) {
+                for (BoardProjectConfig boardProjectConfig : projectConfigs) {
+                    BoardProject.Builder projectBuilder = loadProject(boardProjectConfig, batchExecutor);
+                    projects.put(projectBuilder.getCode(), projectBuilder);
+                }
+                return this;
+            }
+
+            final List<Future<BoardProject.Builder>> futures = new ArrayList<>();
+            try {
+                for (BoardProjectConfig boardProjectConfig : projectConfigs) {
+                    futures.add(executor.submit(() -> loadProject(boardProjectConfig, batchExecutor)));
+                }
+                //Add the projects in the same order as the serial load
+                for (Future<BoardProject.Builder> future : futures) {
+                    BoardProject.Builder projectBuilder = getLoadedProject(future);
+                    projects.put(projectBuilder.getCode(), projectBuilder);
+                }
+            } finally {
+                //If one of the loads failed, don't bother with the rest
+                futures.forEach(future -> future.cancel(true));
             }
             return this;
         }
 
+        private BoardProject.Builder loadProject(BoardProjectConfig boardProjectConfig, ExecutorService batchExecutor)
+                throws SearchException {
+            BoardProjectConfig project = boardConfig.getBoardProject(boardProjectConfig.getCode());
+            BoardProject.Builder projectBuilder = BoardProject.builder(jiraInjectables, projectParallelTaskOptionsLoader, this, project, boardOwner);
+            projectBuilder.load(batchExecutor);
+            return projectBuilder;
+        }
+
+        private BoardProject.Builder getLoadedProject(Future<BoardProject.Builder> future) throws SearchException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof SearchException) {
+                    throw (SearchException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+
         @Override
         public Accessor addIssue(Issue issue) {
             allIssues.put(issue.getKey(), issue);
@@ -372,13 +915,8 @@ public class Board {
                 //Unassigned issue
                 return null;
             }
-            Assignee assignee = assignees.get(assigneeUser.getName());
-            if (assignee != null) {
-                return assignee;
-            }
-            assignee = createAssignee(jiraInjectables, boardOwner, assigneeUser);
-            assignees.put(assigneeUser.getName(), assignee);
-            return assignee;
+            return assignees.computeIfAbsent(assigneeUser.getName(),
+                    name -> createAssignee(jiraInjectables, boardOwner, assigneeUser));
         }
 
         @Override
@@ -414,12 +952,7 @@ public class Board {
             final Set<R> ret = new LinkedHashSet<R>(issueJiraObjects.size());
             for (T issueJiraObject : issueJiraObjects) {
                 final String name = nameGetter.apply(issueJiraObject);
-                R value = builderMap.get(name);
-                if (value == null) {
-                    value = valueFactory.apply(name);
-                    builderMap.put(name, value);
-                }
-                ret.add(value);
+                ret.add(builderMap.computeIfAbsent(name, valueFactory));
             }
             return ret;
         }
@@ -474,13 +1007,21 @@ public class Board {
                 sortedCustomFieldValues.put(fieldValues.getFieldName(), fieldValues);
             });
 
+            //Index the linked issues here rather than as they are loaded, since only the issues making it onto the
+            //board matter
+            final Map<String, Set<String>> linkedIssueReferences = new HashMap<>();
+            allIssues.values().forEach(issue -> issue.getLinkedIssueKeys().forEach(
+                    linkedIssueKey -> linkedIssueReferences.computeIfAbsent(linkedIssueKey, k -> new HashSet<>()).add(issue.getKey())));
+            linkedIssueReferences.replaceAll((linkedIssueKey, issueKeys) -> Collections.unmodifiableSet(issueKeys));
+
             Board board = new Board(
                     null, boardConfig,
                     new IndexedMap<>(sortAssignees(assignees)),
                     new IndexedMap<>(sortMultiSelectNameOnlyValueMap(components)),
                     new IndexedMap<>(sortMultiSelectNameOnlyValueMap(labels)),
                     new IndexedMap<>(sortMultiSelectNameOnlyValueMap(fixVersions)),
-                    Collections.unmodifiableMap(allIssues),
+                    PersistentHashMap.copyOf(allIssues),
+                    PersistentHashMap.copyOf(linkedIssueReferences),
                     Collections.unmodifiableMap(projects),
                     Collections.unmodifiableMap(sortedCustomFieldValues),
                     blacklist.build());
@@ -506,7 +1047,7 @@ public class Board {
         //Will only be populated if new fixVersions are brought in
         private Map<String, FixVersion> fixVersionsCopy;
 
-        Map<String, Issue> allIssuesCopy;
+        PersistentHashMap<String, Issue> allIssuesCopy;
 
         private Assignee newAssignee;
         private Set<Component> newComponents;
@@ -530,6 +1071,11 @@ public class Board {
                     return handleCreateOrUpdateIssue(event, nextRankedIssueUtil, true);
                 case UPDATE:
                     return handleCreateOrUpdateIssue(event, nextRankedIssueUtil, false);
+                case LINKED_ISSUE_UPDATE:
+                case LINKED_ISSUE_DELETE:
+                case LINK_CREATE:
+                case LINK_DELETE:
+                    return handleLinkedIssueEvent(event);
                 default:
                     throw new IllegalArgumentException("Unknown event type " + event.getType());
             }
@@ -544,13 +1090,15 @@ public class Board {
             }
 
             final Map<String, BoardProject> projectsCopy;
-            final Map<String, Issue> allIssuesCopy;
+            final PersistentHashMap<String, Issue> allIssuesCopy;
+            final PersistentHashMap<String, Set<String>> linkedIssueReferencesCopy;
             if (board.blacklist.isBlacklisted(event.getIssueKey())) {
                 JirbanLogger.LOGGER.debug("Board.Updater.handleDeleteEvent - Handling delete event for blacklisted issue {}", event.getIssueKey());
                 //For a delete of an issue that has been blacklisted we simply remove the issue from the blacklist.
                 //It is not part of any of the issue tables so just use the old projects
                 projectsCopy = board.projects;
                 allIssuesCopy = board.allIssues;
+                linkedIssueReferencesCopy = board.linkedIssueReferences;
 
                 //We still need to update the board somewhat though to include the new blacklist (we only remove the
                 // issue and not the bad state/issue-type/priority)
@@ -564,10 +1112,8 @@ public class Board {
                 }
                 final BoardProject projectCopy = project.copyAndDeleteIssue(issue);
                 projectsCopy = copyAndPut(board.projects, event.getProjectCode(), projectCopy, HashMap::new);
-
-                Map<String, Issue> allIssues = new HashMap<>(board.allIssues);
-                allIssues.remove(issue.getKey());
-                allIssuesCopy = Collections.unmodifiableMap(allIssues);
+                allIssuesCopy = board.allIssues.minus(issue.getKey());
+                linkedIssueReferencesCopy = updateLinkedIssueReferences(board.linkedIssueReferences, issue, null);
             }
 
             Board boardCopy = new Board(board, board.boardConfig,
@@ -575,7 +1121,8 @@ public class Board {
                     board.sortedComponents,
                     board.sortedLabels,
                     board.sortedFixVersions,
-                    Collections.unmodifiableMap(allIssuesCopy),
+                    allIssuesCopy,
+                    linkedIssueReferencesCopy,
                     projectsCopy,
                     SortedCustomFieldValues.Updater.merge(customFieldUpdaters, board.sortedCustomFieldValues),
                     blacklist.build());
@@ -590,6 +1137,73 @@ public class Board {
             return boardCopy;
         }
 
+        private Board handleLinkedIssueEvent(JirbanIssueEvent event) {
+            JirbanLogger.LOGGER.debug("Board.Updater.handleLinkedIssueEvent - Handling {} event for {}", event.getType(), event.getIssueKey());
+            final LinkedProjectConfig linkedProjectConfig = board.boardConfig.getLinkedProjectConfig(event.getProjectCode());
+            if (linkedProjectConfig == null) {
+                throw new IllegalArgumentException("Can't find linked project " + event.getProjectCode() +
+                        " in board " + board.boardConfig.getId());
+            }
+
+            final Set<String> issueKeys;
+            if (event.getLinkingIssueKey() != null) {
+                issueKeys = Collections.singleton(event.getLinkingIssueKey());
+            } else {
+                issueKeys = board.linkedIssueReferences.get(event.getIssueKey());
+                if (issueKeys == null) {
+                    JirbanLogger.LOGGER.debug("Board.Updater.handleLinkedIssueEvent - No issues link to {} - returning null board", event.getIssueKey());
+                    return null;
+                }
+            }
+
+            final boolean linked = event.getType() == JirbanIssueEvent.Type.LINKED_ISSUE_UPDATE ||
+                    event.getType() == JirbanIssueEvent.Type.LINK_CREATE;
+            Board boardCopy = board;
+            for (String issueKey : issueKeys) {
+                //The issue may not be on the board, e.g. if it is in a 'done' state
+                final Issue existingIssue = boardCopy.allIssues.get(issueKey);
+                if (existingIssue == null) {
+                    continue;
+                }
+                final Issue newIssue = linked ?
+                        Issue.copyWithLinkedIssue(existingIssue, linkedProjectConfig, event.getIssueKey(),
+                                event.getDetails().getState(), event.getDetails().getSummary()) :
+                        Issue.copyWithoutLinkedIssue(existingIssue, event.getIssueKey());
+                if (newIssue == null) {
+                    continue;
+                }
+
+                //Each issue gets its own view, since the changes for a view are registered for one issue
+                boardCopy = new Board(boardCopy, boardCopy.boardConfig,
+                        boardCopy.sortedAssignees,
+                        boardCopy.sortedComponents,
+                        boardCopy.sortedLabels,
+                        boardCopy.sortedFixVersions,
+                        boardCopy.allIssues.plus(issueKey, newIssue),
+                        updateLinkedIssueReferences(boardCopy.linkedIssueReferences, existingIssue, newIssue),
+                        boardCopy.projects,
+                        boardCopy.sortedCustomFieldValues,
+                        boardCopy.blacklist);
+
+                //Register the change as an update of the board issue which only touches its linked issues
+                final JirbanIssueEvent issueEvent = JirbanIssueEvent.createUpdateEvent(issueKey, newIssue.getProjectCode(),
+                        null, null, null, null, null, null, null, newIssue.getState(), null, false, null);
+                final boolean backlogState = boardCopy.projects.get(newIssue.getProjectCode()).isBacklogState(newIssue.getState());
+                changeRegistry.addChange(boardCopy.currentView, issueEvent)
+                        .setFromBacklogState(backlogState)
+                        .setBacklogState(backlogState)
+                        .setLinkedIssues(newIssue.getLinkedIssuesModelNode())
+                        .buildAndRegister();
+            }
+
+            if (boardCopy == board) {
+                JirbanLogger.LOGGER.debug("Board.Updater.handleLinkedIssueEvent - No issues changed - returning null board");
+                return null;
+            }
+            boardCopy.updateBoardInProjects();
+            return boardCopy;
+        }
+
         Board handleCreateOrUpdateIssue(JirbanIssueEvent event, NextRankedIssueUtil nextRankedIssueUtil, boolean create) throws SearchException {
 
             JirbanLogger.LOGGER.debug("Board.Updater.handleCreateOrUpdateIssue - Handling create or update event for {}; create: {}", event.getIssueKey(), create);
@@ -664,7 +1278,7 @@ public class Board {
                 newIssue = projectUpdater.createIssue(event.getIssueKey(), evtDetail.getIssueType(),
                         evtDetail.getPriority(), evtDetail.getSummary(), issueAssignee,
                         issueComponents, issueLabels, issueFixVersions,
-                        evtDetail.getState(), customFieldValues, parallelTaskValues);
+                        evtDetail.getState(), customFieldValues, parallelTaskValues, evtDetail.getIssueId());
             } else {
                 existingIssue = board.allIssues.get(event.getIssueKey());
                 if (existingIssue == null) {
@@ -692,7 +1306,7 @@ public class Board {
 
             //This will replace the old issue
             allIssuesCopy = newIssue != null ?
-                    copyAndPut(board.allIssues, event.getIssueKey(), newIssue, HashMap::new) :
+                    board.allIssues.plus(event.getIssueKey(), newIssue) :
                     board.allIssues;
 
             JirbanLogger.LOGGER.debug("Board.Updater.handleCreateOrUpdateIssue - newIssue {}; updatedBlacklist {}; changedRankOrState {}",
@@ -711,6 +1325,9 @@ public class Board {
                         labelsCopy == null ? board.sortedLabels : new IndexedMap<>(sortMultiSelectNameOnlyValueMap(labelsCopy)),
                         fixVersionsCopy == null ? board.sortedFixVersions : new IndexedMap<>(sortMultiSelectNameOnlyValueMap(fixVersionsCopy)),
                         allIssuesCopy,
+                        newIssue != null ?
+                                updateLinkedIssueReferences(board.linkedIssueReferences, existingIssue, newIssue) :
+                                board.linkedIssueReferences,
                         Collections.unmodifiableMap(projectsCopy),
                         SortedCustomFieldValues.Updater.merge(customFieldUpdaters, board.sortedCustomFieldValues),
                         blacklist.build());
@@ -718,55 +1335,62 @@ public class Board {
                 //Register the event
                 boardCopy.updateBoardInProjects();
 
+                final BoardChange.Builder changeBuilder;
                 if (moveFromDone) {
                     //We are making an issue visible again by moving it from a done state to a non-done state
-                    //In this case invalidate. While it could be done, the change set becomes quite hard to keep
-                    //track of if we think of moving to a done state as a delete, and moving out of a done state to
-                    //a non-done state as a (re)create for e.g. the following scenarios:
+                    //We can't send this as an update, since the change set becomes quite hard to keep track of if we
+                    //think of moving to a done state as a delete, and moving out of a done state to a non-done state
+                    //as a (re)create for e.g. the following scenarios:
                     //  non-done state -> done state (delete) == we have this now, and it becomes a delete
                     //  done state -> non-done state == a create
                     //  non-done state -> done state (delete) -> non-done state (recreate) == a noop (if no data changed), or an update
                     //  done state -> non-done state (create) -> done state == a noop
                     //
-                    //To simplify things make moving an issue from a 'done' state to a normal state force a full board
-                    //refresh for the clients. Issues being moved to 'done' is the norm. Issues being moved out from
-                    //'done' to a prior state is not.
-                    changeRegistry.forceRefresh();
+                    //So resync the issue instead, which sends the clients a delete followed by a create with the
+                    //issue's current data
+                    changeBuilder = changeRegistry.addChange(boardCopy.currentView,
+                            JirbanIssueEvent.createResyncEvent(event.getIssueKey(), event.getProjectCode()));
                 } else {
-                    BoardChange.Builder changeBuilder = changeRegistry.addChange(boardCopy.currentView, event);
+                    changeBuilder = changeRegistry.addChange(boardCopy.currentView, event);
+                }
 
-                    if (newAssignee != null) {
-                        changeBuilder.addNewAssignee(newAssignee);
-                    }
-                    if (newComponents != null) {
-                        changeBuilder.addNewComponents(newComponents);
-                    }
-                    if (newLabels != null) {
-                        changeBuilder.addNewLabels(newLabels);
-                    }
-                    if (newFixVersions != null) {
-                        changeBuilder.addNewFixVersions(newFixVersions);
-                    }
-                    if (blacklist.isUpdated()) {
-                        changeBuilder.addBlacklist(blacklist.getAddedState(), blacklist.getAddedIssueType(),
-                                blacklist.getAddedPriority(), blacklist.getAddedIssue());
-                    }
-                    if (customFieldValues.size() > 0) {
-                        changeBuilder.addCustomFieldValues(board.sortedCustomFieldValues, customFieldValues);
-                    }
+                if (newAssignee != null) {
+                    changeBuilder.addNewAssignee(newAssignee);
+                }
+                if (newComponents != null) {
+                    changeBuilder.addNewComponents(newComponents);
+                }
+                if (newLabels != null) {
+                    changeBuilder.addNewLabels(newLabels);
+                }
+                if (newFixVersions != null) {
+                    changeBuilder.addNewFixVersions(newFixVersions);
+                }
+                if (blacklist.isUpdated()) {
+                    changeBuilder.addBlacklist(blacklist.getAddedState(), blacklist.getAddedIssueType(),
+                            blacklist.getAddedPriority(), blacklist.getAddedIssue());
+                }
+                if (moveFromDone) {
+                    //The loaded issue might bring in custom field values which were not in the event
+                    changeBuilder.addCustomFieldValues(board.sortedCustomFieldValues, newIssue.getCustomFieldValues());
+                } else if (customFieldValues.size() > 0) {
+                    changeBuilder.addCustomFieldValues(board.sortedCustomFieldValues, customFieldValues);
+                }
 
-                    if (existingIssue != null) {
-                        changeBuilder.setFromBacklogState(project.isBacklogState(existingIssue.getState()));
-                    }
-                    if (newIssue != null) {
-                        changeBuilder.setBacklogState(project.isBacklogState(newIssue.getState()));
-                    }
-                    if (parallelTaskValues.size() > 0) {
-                        changeBuilder.setParallelTaskValues(parallelTaskValues);
-                    }
-                    JirbanLogger.LOGGER.debug("Board.Updater.handleCreateOrUpdateIssue - Registering change");
-                    changeBuilder.buildAndRegister();
+                if (existingIssue != null) {
+                    changeBuilder.setFromBacklogState(project.isBacklogState(existingIssue.getState()));
+                }
+                if (newIssue != null) {
+                    changeBuilder.setBacklogState(project.isBacklogState(newIssue.getState()));
+                }
+                if (parallelTaskValues.size() > 0) {
+                    changeBuilder.setParallelTaskValues(parallelTaskValues);
+                }
+                if (create && newIssue != null && newIssue.hasLinkedIssues()) {
+                    changeBuilder.setLinkedIssues(newIssue.getLinkedIssuesModelNode());
                 }
+                JirbanLogger.LOGGER.debug("Board.Updater.handleCreateOrUpdateIssue - Registering change");
+                changeBuilder.buildAndRegister();
 
                 return boardCopy;
             }
@@ -970,4 +1594,27 @@ public class Board {
             return Collections.unmodifiableMap(copy);
         }
     }
+
+    private static class SerializationKey {
+        private final boolean backlog;
+        private final Set<String> rankableProjects;
+
+        SerializationKey(boolean backlog, Set<String> rankableProjects) {
+            this.backlog = backlog;
+            this.rankableProjects = rankableProjects;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SerializationKey that = (SerializationKey) o;
+            return backlog == that.backlog && rankableProjects.equals(that.rankableProjects);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (backlog ? 1 : 0) + rankableProjects.hashCode();
+        }
+    }
 }
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import org.jboss.dmr.ModelNode;
 import org.jirban.jira.impl.JirbanIssueEvent;
 import org.jirban.jira.impl.board.MultiSelectNameOnlyValue.Component;
 import org.jirban.jira.impl.board.MultiSelectNameOnlyValue.FixVersion;
@@ -64,6 +65,8 @@ public class BoardChange {
     private final Map<String, CustomFieldValue> newCustomFieldValues;
     private final Map<Integer, Integer> parallelTaskValues;
     private final Boolean fromBacklogState;
+    //The issue's linked issues, if they were changed
+    private final ModelNode linkedIssues;
 
 
     private BoardChange(int view, JirbanIssueEvent event, Assignee newAssignee,
@@ -74,7 +77,8 @@ public class BoardChange {
                         Boolean fromBacklogState, Boolean backlogState,
                         Map<String, CustomFieldValue> customFieldValues,
                         Map<String, CustomFieldValue> newCustomFieldValues,
-                        Map<Integer, Integer> parallelTaskValues) {
+                        Map<Integer, Integer> parallelTaskValues,
+                        ModelNode linkedIssues) {
         this.view = view;
         this.event = event;
         this.newAssignee = newAssignee;
@@ -91,6 +95,7 @@ public class BoardChange {
         this.customFieldValues = customFieldValues;
         this.newCustomFieldValues = newCustomFieldValues;
         this.parallelTaskValues = parallelTaskValues;
+        this.linkedIssues = linkedIssues;
     }
 
     long getTime() {
@@ -165,6 +170,10 @@ public class BoardChange {
         return parallelTaskValues;
     }
 
+    public ModelNode getLinkedIssues() {
+        return linkedIssues;
+    }
+
     public static class Builder {
         private final BoardChangeRegistry registry;
         private final int view;
@@ -192,6 +201,7 @@ public class BoardChange {
         private Boolean backlogState;
         private Map<String, CustomFieldValue> customFieldValues;
         private Map<Integer, Integer> parallelTaskValues;
+        private ModelNode linkedIssues;
 
         Builder(BoardChangeRegistry registry, int view, JirbanIssueEvent event) {
             this.registry = registry;
@@ -269,14 +279,23 @@ public class BoardChange {
             return this;
         }
 
+        public Builder setLinkedIssues(ModelNode linkedIssues) {
+            this.linkedIssues = linkedIssues.clone();
+            this.linkedIssues.protect();
+            return this;
+        }
+
 
         public void buildAndRegister() {
-            BoardChange change = new BoardChange(
+            registry.registerChange(build());
+        }
+
+        BoardChange build() {
+            return new BoardChange(
                     view, event, newAssignee, newComponents, newLabels, newFixVersions, addedBlacklistState,
                     addedBlacklistPriority, addedBlacklistIssueType, addedBlacklistIssue, deletedBlacklistIssue,
                     fromBacklogState, backlogState, customFieldValues, newCustomFieldValues,
-                    parallelTaskValues);
-            registry.registerChange(change);
+                    parallelTaskValues, linkedIssues);
         }
 
     }
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.board;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded ring buffer of the changes to a board, in view order. Appending and dropping the oldest changes is done
+ * by one thread at a time, while readers do not lock at all. Readers find the first change they need with a binary
+ * search by view, and detect if the changes they were reading have been dropped or overwritten in the meantime.
+ * <p/>
+ * Each change gets a sequence number, which is mapped onto a slot in the buffer. {@code head} is the sequence number
+ * of the oldest change held and {@code tail} the one the next change will get.
+ * <p/>
+ * Changes are dropped in chunks, which are handed to a compactor before they are removed from the log. This way a
+ * reader who finds that the changes it needs have been dropped will find them in the compacted form instead.
+ *
+ * @author Kabir Khan
+ */
+class BoardChangeLog {
+
+    private final AtomicReferenceArray<BoardChange> buffer;
+    private final int mask;
+    private final int chunkSize;
+    private final Consumer<List<BoardChange>> compactor;
+    private final Object writeLock = new Object();
+
+    private volatile long head;
+    private volatile long tail;
+
+    //The view of the last change dropped from the log, or of the board if nothing has been dropped yet. A client
+    //who has seen this view can be sent the changes held in the log
+    private volatile int startView;
+    //The view of the last change added
+    private volatile int endView;
+
+    /**
+     * Constructor
+     *
+     * @param capacity the maximum number of changes to hold. It will be rounded up to a power of two
+     * @param chunkSize the number of changes to drop at a time. It will be capped at half the capacity
+     * @param view the current view of the board
+     * @param compactor called with each chunk of changes before they are dropped
+     */
+    BoardChangeLog(int capacity, int chunkSize, int view, Consumer<List<BoardChange>> compactor) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.chunkSize = Math.max(1, Math.min(chunkSize, size / 2));
+        this.compactor = compactor;
+        this.startView = view;
+        this.endView = view;
+    }
+
+    int getStartView() {
+        return startView;
+    }
+
+    int getEndView() {
+        return endView;
+    }
+
+    int size() {
+        return (int) (tail - head);
+    }
+
+    /**
+     * Adds a change, dropping the oldest chunk of changes if the log is full
+     *
+     * @param change the change. Its view must be higher than the last one added
+     */
+    void append(BoardChange change) {
+        synchronized (writeLock) {
+            final long t = tail;
+            if (t - head == buffer.length()) {
+                dropOldestChunk();
+            }
+            buffer.set(slot(t), change);
+            endView = change.getView();
+            //Publish the change
+            tail = t + 1;
+        }
+    }
+
+    /**
+     * Drops the chunks of changes which were all made before the expiry time, and which have been seen by all the
+     * clients. Changes which do not make up a whole chunk are kept until there are enough of them.
+     *
+     * @param expiryTime the expiry time
+     * @param watermark the oldest view a client still needs the changes from
+     */
+    void expire(long expiryTime, int watermark) {
+        synchronized (writeLock) {
+            while (tail - head >= chunkSize) {
+                final BoardChange last = buffer.get(slot(head + chunkSize - 1));
+                if (last.getTime() >= expiryTime || last.getView() > watermark) {
+                    break;
+                }
+                dropOldestChunk();
+            }
+        }
+    }
+
+    private void dropOldestChunk() {
+        final long h = head;
+        final List<BoardChange> chunk = new ArrayList<>(chunkSize);
+        for (long seq = h ; seq < h + chunkSize ; seq++) {
+            chunk.add(buffer.get(slot(seq)));
+        }
+        //Compact the chunk before dropping it, so that readers will find the changes in one place or the other
+        compactor.accept(chunk);
+
+        startView = chunk.get(chunkSize - 1).getView();
+        for (long seq = h ; seq < h + chunkSize ; seq++) {
+            buffer.set(slot(seq), null);
+        }
+        head = h + chunkSize;
+    }
+
+    /**
+     * Gets the changes with a higher view than the one passed in
+     *
+     * @param sinceView the view the client has
+     * @return the changes in view order, or {@code null} if some of the changes the client needs have been dropped
+     */
+    List<BoardChange> getChangesSince(int sinceView) {
+        //Read tail before head, so all the slots between them have been published
+        final long t = tail;
+        final long h = head;
+
+        //Find the first change with a higher view
+        long low = h;
+        long high = t;
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            final BoardChange change = buffer.get(slot(mid));
+            if (change == null || change.getView() <= sinceView) {
+                //A change which has been dropped since we read head is older than the ones still held
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == t) {
+            return sinceView < startView ? null : Collections.emptyList();
+        }
+
+        final List<BoardChange> changes = new ArrayList<>((int) (t - low));
+        for (long seq = low ; seq < t ; seq++) {
+            final BoardChange change = buffer.get(slot(seq));
+            if (change == null) {
+                return null;
+            }
+            //A slot overwritten while searching can make us start too early, so skip what the client already has
+            if (change.getView() > sinceView) {
+                changes.add(change);
+            }
+        }
+        //If the writer got past where we started reading, we might have read some overwritten slots, and if the
+        //client is older than the oldest change it needs a full refresh
+        if (head > low || sinceView < startView) {
+            return null;
+        }
+        return changes;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq & mask);
+    }
+}
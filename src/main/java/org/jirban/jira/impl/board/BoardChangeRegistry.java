@@ -30,6 +30,7 @@ import static org.jirban.jira.impl.Constants.ISSUES;
 import static org.jirban.jira.impl.Constants.ISSUE_TYPES;
 import static org.jirban.jira.impl.Constants.KEY;
 import static org.jirban.jira.impl.Constants.LABELS;
+import static org.jirban.jira.impl.Constants.LINKED_ISSUES;
 import static org.jirban.jira.impl.Constants.NEW;
 import static org.jirban.jira.impl.Constants.PARALLEL_TASKS;
 import static org.jirban.jira.impl.Constants.PRIORITIES;
@@ -44,25 +45,32 @@ import static org.jirban.jira.impl.Constants.UNASSIGNED;
 import static org.jirban.jira.impl.Constants.VIEW;
 import static org.jirban.jira.impl.JirbanIssueEvent.Type.CREATE;
 import static org.jirban.jira.impl.JirbanIssueEvent.Type.DELETE;
+import static org.jirban.jira.impl.JirbanIssueEvent.Type.RESYNC;
 import static org.jirban.jira.impl.JirbanIssueEvent.Type.UPDATE;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import org.jboss.dmr.ModelNode;
-import org.jirban.jira.JirbanLogger;
-import org.jirban.jira.impl.BoardManagerImpl;
 import org.jirban.jira.impl.Constants;
 import org.jirban.jira.impl.JirbanIssueEvent;
 import org.jirban.jira.impl.JirbanIssueEvent.Type;
 import org.jirban.jira.impl.board.MultiSelectNameOnlyValue.Component;
 import org.jirban.jira.impl.board.MultiSelectNameOnlyValue.FixVersion;
 import org.jirban.jira.impl.board.MultiSelectNameOnlyValue.Label;
+import org.jirban.jira.impl.util.CborEncoder;
+import org.jirban.jira.impl.util.RankIndex;
 
 
 /**
@@ -78,26 +86,65 @@ public class BoardChangeRegistry {
     //Look for items to clean up every 15 seconds
     private static final int CLEANUP_TICK_MS = 15000;
 
-    //Delete items older than 90 seconds
-    private static final int CLEANUP_AGE_SECONDS = 90000;
+    //Keep changes for at least this long, so that clients who have loaded the board but not polled yet get them
+    private static final long MIN_CHANGE_AGE_MS =
+            TimeUnit.SECONDS.toMillis(Integer.getInteger("jirban.board.changes.min.age.seconds", 90));
+
+    //Clients who have not polled for this long no longer hold on to the changes they have not seen
+    private static final long POLLER_TIMEOUT_MS =
+            TimeUnit.SECONDS.toMillis(Integer.getInteger("jirban.board.poller.timeout.seconds", 120));
+
+    //The maximum number of changes to keep. Changes older than the minimum age are kept until all the clients who are
+    //polling have seen them, but no more than this. When it is exceeded, the oldest changes are compacted into
+    //checkpoints
+    private static final int MAX_CHANGES = Integer.getInteger("jirban.board.changes.max", 8192);
+
+    //The number of changes to compact into each checkpoint when they are dropped from the log of changes
+    private static final int CHECKPOINT_SIZE = Integer.getInteger("jirban.board.changes.checkpoint.size", 256);
+
+    //The maximum number of checkpoints to keep. Clients who are further behind than the oldest checkpoint will get a
+    //full refresh
+    private static final int MAX_CHECKPOINTS = Integer.getInteger("jirban.board.changes.checkpoints.max", 32);
+
+    //The number of times to try to put together the changes for a client, if the ones it needs keep getting compacted
+    //while we are reading them
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    //The maximum number of serialized deltas to cache between changes
+    private static final int MAX_CACHED_DELTAS = 256;
 
-    private final BoardManagerImpl boardManager;
     private volatile Board board;
     private volatile boolean valid = true;
 
     //The time for the next cleanup
     private volatile long nextCleanup;
 
-    private volatile List<BoardChange> changes = new ArrayList<>();
+    private final BoardChangeLog changes;
+
+    //The compacted changes which have been dropped from the log, oldest first. Replaced rather than modified, and
+    //only by the log's compactor callback. Both registering a change and the cleanup run by pollers can drop
+    //changes, so it is the log's write lock, held around the callback, which stops them losing each other's updates
+    private volatile List<ChangeCheckpoint> checkpoints = Collections.emptyList();
+
+    //The views clients have polled with, and the last time each one was polled with. The oldest view polled with
+    //recently is the watermark for dropping changes from the log
+    private final ConcurrentMap<Integer, Long> polledViews = new ConcurrentHashMap<>();
 
-    private volatile int startView;
-    private volatile int endView;
+    //Statistics about the changes we have had to drop
+    private final AtomicLong compactedChanges = new AtomicLong();
+    private final AtomicLong evictedCheckpoints = new AtomicLong();
+    private final AtomicLong fullRefreshes = new AtomicLong();
 
-    public BoardChangeRegistry(BoardManagerImpl boardManager, Board board) {
-        this.boardManager = boardManager;
+    //The serialized deltas from the views clients have polled with, to the current view. Replaced rather than
+    //cleared when the board or the changes are updated, so a poll which read the old state can only add its delta
+    //to the old cache
+    private volatile ConcurrentMap<DeltaKey, String> deltaCache = new ConcurrentHashMap<>();
+    //The same for clients polling for CBOR
+    private volatile ConcurrentMap<DeltaKey, byte[]> cborDeltaCache = new ConcurrentHashMap<>();
+
+    public BoardChangeRegistry(Board board) {
         this.board = board;
-        this.startView = board.getCurrentView();
-        this.endView = startView;
+        this.changes = new BoardChangeLog(MAX_CHANGES, CHECKPOINT_SIZE, board.getCurrentView(), this::addCheckpoint);
         incrementNextCleanup();
     }
 
@@ -107,78 +154,223 @@ public class BoardChangeRegistry {
 
     //This gets called by the board change builder
     void registerChange(BoardChange boardChange) {
-        //Do the cleanup here if needed, but....
-        getChangesListCleaningUpIfNeeded();
-        synchronized (this) {
-            //....make sure we work on the instance variable when adding
-            changes.add(boardChange);
-            endView = boardChange.getView();
-        }
+        cleanUpIfNeeded();
+        changes.append(boardChange);
+        clearDeltaCaches();
     }
 
     //This gets called by the board manager after the board has been built
     public void setBoard(Board board) {
         this.board = board;
+        clearDeltaCaches();
+    }
+
+    private void clearDeltaCaches() {
+        deltaCache = new ConcurrentHashMap<>();
+        cborDeltaCache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the entity tag for the changes to the current view of the board. Get this before getting the changes, so
+     * that if the board changes in between the tag is for an older view than the changes. That way the client can
+     * only end up with a tag which will never match again, rather than a tag which matches changes it does not have.
+     *
+     * @param backlog whether the backlog should be included
+     * @param format the format of the changes
+     * @return the entity tag
+     */
+    public String getChangesEntityTag(boolean backlog, String format) {
+        return board.getChangesEntityTag(backlog, format);
+    }
+
+    /**
+     * Gets the json of the changes since the view passed in. Clients polling from the same view share the result
+     * until the board changes.
+     *
+     * @param backlog whether the backlog should be included
+     * @param sinceView the view the client has
+     * @return the json
+     * @throws FullRefreshNeededException if the client needs a full refresh of the board instead
+     */
+    public String getChangesJsonSince(boolean backlog, int sinceView) throws FullRefreshNeededException {
+        return getCachedChangesSince(deltaCache, backlog, sinceView, changes -> changes.toJSONString(true));
+    }
+
+    /**
+     * Gets the changes since the view passed in encoded as CBOR, otherwise the same as
+     * {@link #getChangesJsonSince(boolean, int)}.
+     *
+     * @param backlog whether the backlog should be included
+     * @param sinceView the view the client has
+     * @return the CBOR bytes
+     * @throws FullRefreshNeededException if the client needs a full refresh of the board instead
+     */
+    public byte[] getChangesCborSince(boolean backlog, int sinceView) throws FullRefreshNeededException {
+        return getCachedChangesSince(cborDeltaCache, backlog, sinceView, CborEncoder::encode);
+    }
+
+    private <T> T getCachedChangesSince(ConcurrentMap<DeltaKey, T> deltaCache, boolean backlog, int sinceView,
+                                        Function<ModelNode, T> encoder) throws FullRefreshNeededException {
+        recordPoll(sinceView);
+        final DeltaKey key = new DeltaKey(backlog, sinceView);
+        T encoded = deltaCache.get(key);
+        if (encoded == null) {
+            encoded = encoder.apply(collectChangesSince(backlog, sinceView));
+            if (deltaCache.size() < MAX_CACHED_DELTAS) {
+                final T existing = deltaCache.putIfAbsent(key, encoded);
+                if (existing != null) {
+                    encoded = existing;
+                }
+            }
+        }
+        return encoded;
     }
 
 
     public ModelNode getChangesSince(boolean backlog, int sinceView) throws FullRefreshNeededException {
-        //Get a snapshot of the changes
-        if (sinceView > endView) {
+        recordPoll(sinceView);
+        return collectChangesSince(backlog, sinceView);
+    }
+
+    /**
+     * Records that a client has polled for changes from a view, so that the changes it needs are kept. Getting the
+     * changes does this already, so this is only needed when the client is answered some other way.
+     *
+     * @param sinceView the view the client has
+     */
+    public void recordPoll(int sinceView) {
+        polledViews.put(sinceView, System.currentTimeMillis());
+    }
+
+    private ModelNode collectChangesSince(boolean backlog, int sinceView) throws FullRefreshNeededException {
+        if (sinceView > changes.getEndView()) {
             //Our board was probably reset since we last connected, so we need to send a full refresh instead
             throw new FullRefreshNeededException();
         }
-        if (sinceView < startView) {
-            //The client has taken too long to ask for changes
-            throw new FullRefreshNeededException();
-        }
 
         final Board board = this.board;
-        final List<BoardChange> changes = getChangesListCleaningUpIfNeeded();
-        final ChangeSetCollector collector = new ChangeSetCollector(backlog, board.getCurrentView());
-        for (BoardChange change : changes) {
-            if (change.getView() <= sinceView) {
-                continue;
+        cleanUpIfNeeded();
+        for (int i = 0 ; i < MAX_READ_ATTEMPTS ; i++) {
+            final ChangeSetCollector collector = new ChangeSetCollector(backlog, board.getCurrentView());
+            List<BoardChange> changes = this.changes.getChangesSince(sinceView);
+            if (changes == null) {
+                //The changes the client needs have been dropped from the log, so start with the checkpoints
+                final int checkpointedView = addCheckpointedChanges(collector, sinceView);
+                if (checkpointedView < 0) {
+                    //The client has taken too long to ask for changes
+                    fullRefreshes.incrementAndGet();
+                    throw new FullRefreshNeededException();
+                }
+                changes = this.changes.getChangesSince(checkpointedView);
+                if (changes == null) {
+                    //More changes were compacted since we read the checkpoints
+                    continue;
+                }
             }
-            collector.addChange(change);
-            if (change.getView() > board.getCurrentView()) {
-                break;
+            for (BoardChange change : changes) {
+                collector.addChange(change);
+                if (change.getView() > board.getCurrentView()) {
+                    break;
+                }
+            }
+            return collector.serialize(board);
+        }
+        fullRefreshes.incrementAndGet();
+        throw new FullRefreshNeededException();
+    }
+
+    /**
+     * Adds the checkpoints containing changes the client has not seen to the collector
+     *
+     * @param collector the collector
+     * @param sinceView the view the client has
+     * @return the view of the last checkpoint added, or {@code -1} if the client is older than the oldest checkpoint
+     */
+    private int addCheckpointedChanges(ChangeSetCollector collector, int sinceView) {
+        final List<ChangeCheckpoint> checkpoints = this.checkpoints;
+        if (checkpoints.isEmpty() || sinceView < checkpoints.get(0).fromView) {
+            return -1;
+        }
+        int view = sinceView;
+        for (ChangeCheckpoint checkpoint : checkpoints) {
+            if (checkpoint.toView > sinceView) {
+                checkpoint.addChanges(collector, sinceView);
+                view = checkpoint.toView;
             }
         }
+        return view;
+    }
 
-        return collector.serialize(board);
+    //Called by the change log with a chunk of changes it is about to drop
+    private void addCheckpoint(List<BoardChange> chunk) {
+        final int fromView = changes.getStartView();
+        final List<ChangeCheckpoint> checkpoints = new ArrayList<>(this.checkpoints);
+        checkpoints.add(new ChangeCheckpoint(fromView, chunk));
+        compactedChanges.addAndGet(chunk.size());
+        if (checkpoints.size() > MAX_CHECKPOINTS) {
+            checkpoints.remove(0);
+            evictedCheckpoints.incrementAndGet();
+        }
+        this.checkpoints = Collections.unmodifiableList(checkpoints);
     }
 
-    private List<BoardChange> getChangesListCleaningUpIfNeeded() {
+    private void cleanUpIfNeeded() {
         final long current = System.currentTimeMillis();
         if (current < nextCleanup) {
-            return changes;
+            return;
         }
-        final long expiryTime = current - CLEANUP_AGE_SECONDS;
-        synchronized (this) {
-            if (current < nextCleanup) {
-                return changes;
-            }
+        incrementNextCleanup();
+        changes.expire(current - MIN_CHANGE_AGE_MS, getWatermark(current - POLLER_TIMEOUT_MS));
+    }
 
-            int firstView = 0;
-            if (changes.size() > 0 && changes.get(0).getTime() < expiryTime) {
-                final List<BoardChange> changesCopy = new ArrayList<>();
-                for (BoardChange change : changes) {
-                    if (change.getTime() < expiryTime) {
-                        continue;
-                    }
-                    if (firstView == 0) {
-                        firstView = change.getView();
-                    }
-                    changesCopy.add(change);
-                    endView = change.getView();
-                }
-                startView = firstView;
-                changes = new CopyOnWriteArrayList<>(changesCopy);
+    /**
+     * Gets the oldest view clients have polled with since the cutoff time, forgetting the ones polled with before it
+     *
+     * @param cutoffTime the cutoff time
+     * @return the oldest view, or {@code Integer.MAX_VALUE} if nobody has polled since the cutoff
+     */
+    private int getWatermark(long cutoffTime) {
+        int watermark = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, Long> entry : polledViews.entrySet()) {
+            if (entry.getValue() < cutoffTime) {
+                polledViews.remove(entry.getKey(), entry.getValue());
+            } else if (entry.getKey() < watermark) {
+                watermark = entry.getKey();
             }
-            incrementNextCleanup();
         }
-        return changes;
+        return watermark;
+    }
+
+    /**
+     * Gets the range of views held, and how many changes have been compacted or evicted, for monitoring the retention
+     * of changes
+     *
+     * @return the retention details
+     */
+    public ModelNode getRetention() {
+        final ModelNode retention = new ModelNode();
+        retention.get("view").set(board.getCurrentView());
+        retention.get("log", "start-view").set(changes.getStartView());
+        retention.get("log", "end-view").set(changes.getEndView());
+        retention.get("log", "size").set(changes.size());
+        retention.get("log", "max-size").set(MAX_CHANGES);
+
+        final List<ChangeCheckpoint> checkpoints = this.checkpoints;
+        retention.get("checkpoints", "count").set(checkpoints.size());
+        retention.get("checkpoints", "max-count").set(MAX_CHECKPOINTS);
+        if (checkpoints.size() > 0) {
+            retention.get("checkpoints", "start-view").set(checkpoints.get(0).fromView);
+        }
+
+        final int watermark = getWatermark(System.currentTimeMillis() - POLLER_TIMEOUT_MS);
+        if (watermark != Integer.MAX_VALUE) {
+            retention.get("watermark").set(watermark);
+        }
+        retention.get("polled-views").set(polledViews.size());
+        retention.get("compacted-changes").set(compactedChanges.get());
+        retention.get("evicted-checkpoints").set(evictedCheckpoints.get());
+        retention.get("full-refreshes").set(fullRefreshes.get());
+        return retention;
     }
 
     private void incrementNextCleanup() {
@@ -186,7 +378,8 @@ public class BoardChangeRegistry {
     }
 
     //Callback for the BoardIssue to convert itself to an IssueChange
-    IssueChange createCreateIssueChange(Issue issue, Assignee assignee, String issueType, String priority, Set<Component> components, Set<Label> labels, Set<FixVersion> fixVersions) {
+    IssueChange createCreateIssueChange(Issue issue, Assignee assignee, String issueType, String priority, Set<Component> components, Set<Label> labels, Set<FixVersion> fixVersions,
+                                        Map<String, CustomFieldValue> customFieldValues, List<Integer> parallelTaskValues) {
         IssueChange change = new IssueChange(issue.getProjectCode(), issue.getKey(), null);
         change.type = CREATE;
         change.state = issue.getState();
@@ -207,14 +400,21 @@ public class BoardChangeRegistry {
             change.fixVersions = new HashSet<>();
             fixVersions.forEach(fixVersion -> change.fixVersions.add(fixVersion.getName()));
         }
+        if (customFieldValues != null && customFieldValues.size() > 0) {
+            change.customFieldValues = new HashMap<>(customFieldValues);
+        }
+        if (parallelTaskValues != null) {
+            change.parallelTaskValues = new HashMap<>();
+            for (int i = 0 ; i < parallelTaskValues.size() ; i++) {
+                change.parallelTaskValues.put(i, parallelTaskValues.get(i));
+            }
+        }
+        if (issue.hasLinkedIssues()) {
+            change.linkedIssues = issue.getLinkedIssuesModelNode();
+        }
         return change;
     }
 
-    public void forceRefresh() {
-        JirbanLogger.LOGGER.debug("Forcing refresh");
-        boardManager.forceRefresh(board.getConfig().getCode());
-    }
-
     public void invalidate() {
         valid = false;
     }
@@ -253,6 +453,35 @@ public class BoardChangeRegistry {
             });
         }
 
+        void addNewReferences(BoardChange boardChange) {
+            if (boardChange.getNewAssignee() != null) {
+                addNewAssignee(boardChange.getNewAssignee());
+            }
+            if (boardChange.getNewComponents() != null) {
+                addNewComponents(boardChange.getNewComponents());
+            }
+            if (boardChange.getNewLabels() != null) {
+                addNewLabels(boardChange.getNewLabels());
+            }
+            if (boardChange.getNewFixVersions() != null) {
+                addNewFixVersions(boardChange.getNewFixVersions());
+            }
+            if (boardChange.getNewCustomFieldValues() != null) {
+                addNewCustomFieldValues(boardChange.getNewCustomFieldValues());
+            }
+        }
+
+        void addAll(NewReferenceCollector other) {
+            newAssignees.putAll(other.newAssignees);
+            newComponents.putAll(other.newComponents);
+            newLabels.putAll(other.newLabels);
+            newFixVersions.putAll(other.newFixVersions);
+            other.newCustomFieldValues.forEach((key, values) -> {
+                List<CustomFieldValue> list = this.newCustomFieldValues.computeIfAbsent(key, k -> new ArrayList<CustomFieldValue>());
+                list.addAll(values);
+            });
+        }
+
         Map<String, Assignee> getNewAssignees() {
             return newAssignees;
         }
@@ -281,6 +510,11 @@ public class BoardChangeRegistry {
         private final Map<String, IssueChange> issueChanges = new HashMap<>();
         private final BlacklistChange blacklistChange = new BlacklistChange();
         private NewReferenceCollector newReferenceCollector = new NewReferenceCollector();
+        //The keys of the issue changes taken from checkpoints. These are shared, so must not be merged into
+        private final Set<String> checkpointedIssues = new HashSet<>();
+        //The issues we cannot work out the changes for, mapped to their project code. These are sent with their
+        //current data
+        private final Map<String, String> resyncedIssues = new HashMap<>();
 
         public ChangeSetCollector(boolean backlog, int endView) {
             this.backlog = backlog;
@@ -292,7 +526,13 @@ public class BoardChangeRegistry {
 
             if (!boardChange.isBlacklistEvent()) {
                 IssueChange issueChange = issueChanges.get(issueKey);
-                if (issueChange == null) {
+                if (resyncedIssues.containsKey(issueKey)) {
+                    //The issue will be sent with its current data anyway, which might use what this change brought in
+                    newReferenceCollector.addNewReferences(boardChange);
+                } else if (checkpointedIssues.contains(issueKey) || boardChange.getEvent().getType() == RESYNC) {
+                    resyncIssue(issueKey, boardChange.getEvent().getProjectCode());
+                    newReferenceCollector.addNewReferences(boardChange);
+                } else if (issueChange == null) {
                     issueChange = IssueChange.create(newReferenceCollector, boardChange);
                     issueChanges.put(issueKey, issueChange);
                 } else {
@@ -311,6 +551,31 @@ public class BoardChangeRegistry {
             }
         }
 
+        void addCheckpointedChange(IssueChange issueChange) {
+            issueChanges.put(issueChange.issueKey, issueChange);
+            checkpointedIssues.add(issueChange.issueKey);
+        }
+
+        void resyncIssue(String issueKey, String projectCode) {
+            issueChanges.remove(issueKey);
+            checkpointedIssues.remove(issueKey);
+            resyncedIssues.put(issueKey, projectCode);
+        }
+
+        boolean hasIssueChange(String issueKey) {
+            return issueChanges.containsKey(issueKey) || resyncedIssues.containsKey(issueKey);
+        }
+
+        void addNewReferences(NewReferenceCollector newReferences) {
+            newReferenceCollector.addAll(newReferences);
+        }
+
+        void addView(int view) {
+            if (view > this.view) {
+                this.view = view;
+            }
+        }
+
         ModelNode serialize(Board board) {
             ModelNode output = new ModelNode();
             ModelNode changes = output.get(CHANGES);
@@ -341,19 +606,25 @@ public class BoardChangeRegistry {
 
                     final Set<String> rerankedIssues = projectEntry.getValue();
                     final BoardProject project = board.getBoardProject(projectEntry.getKey());
-                    final List<String> rankedIssueKeys = project.getRankedIssueKeys();
-
-                    for (int i = 0; i < rankedIssueKeys.size() ; i++) {
-                        final String issueKey = rankedIssueKeys.get(i);
+                    final RankIndex<String> rankedIssueKeys = project.getRankedIssueKeys();
+
+                    //Look up the index of each reranked issue rather than scanning the whole list, and output them in
+                    //rank order
+                    final TreeMap<Integer, String> rerankedByIndex = new TreeMap<>();
+                    for (String issueKey : rerankedIssues) {
+                        final int index = rankedIssueKeys.indexOf(issueKey);
+                        if (index >= 0) {
+                            rerankedByIndex.put(index, issueKey);
+                        }
+                    }
 
-                        if (rerankedIssues.contains(issueKey)) {
-                            final ModelNode ranked = changes.get(RANK, projectEntry.getKey());
+                    for (Map.Entry<Integer, String> entry : rerankedByIndex.entrySet()) {
+                        final ModelNode ranked = changes.get(RANK, projectEntry.getKey());
 
-                            ModelNode rankEntry = new ModelNode();
-                            rankEntry.get(INDEX).set(i);
-                            rankEntry.get(KEY).set(issueKey);
-                            ranked.add(rankEntry);
-                        }
+                        ModelNode rankEntry = new ModelNode();
+                        rankEntry.get(INDEX).set(entry.getKey());
+                        rankEntry.get(KEY).set(entry.getValue());
+                        ranked.add(rankEntry);
                     }
                 }
             }
@@ -436,6 +707,22 @@ public class BoardChangeRegistry {
                     rerankedIssues.add(change.issueKey);
                 }
             }
+
+            for (Map.Entry<String, String> entry : resyncedIssues.entrySet()) {
+                //We don't know if the client has the issue, so delete it and add it again with its current data if
+                //it is still on the client's board. The client applies the deletes before the adds.
+                final String issueKey = entry.getKey();
+                IssueChange delete = new IssueChange(entry.getValue(), issueKey, null);
+                delete.type = DELETE;
+                deletedIssues.add(delete);
+
+                final Issue issue = board.getIssue(issueKey);
+                if (issue != null &&
+                        (backlog || !board.getBoardProject(entry.getValue()).isBacklogState(issue.getState()))) {
+                    newIssues.add(board.createCreateIssueChange(BoardChangeRegistry.this, issueKey));
+                    rerankedIssuesByProject.computeIfAbsent(entry.getValue(), k -> new HashSet<String>()).add(issueKey);
+                }
+            }
         }
 
         private void serializeBlacklist(ModelNode changes) {
@@ -471,6 +758,8 @@ public class BoardChangeRegistry {
 
         private Map<String, CustomFieldValue> customFieldValues;
         private Map<Integer, Integer> parallelTaskValues;
+        //The full list of linked issues, since they are only sent when they changed
+        private ModelNode linkedIssues;
 
         private IssueChange(String projectCode, String issueKey, Boolean backlogState) {
             this.projectCode = projectCode;
@@ -620,6 +909,9 @@ public class BoardChangeRegistry {
                 }
                 parallelTaskValues.putAll(boardChange.getParallelTaskValues());
             }
+            if (boardChange.getLinkedIssues() != null) {
+                linkedIssues = boardChange.getLinkedIssues();
+            }
         }
 
         void mergeType(JirbanIssueEvent event) {
@@ -673,6 +965,9 @@ public class BoardChangeRegistry {
                             output.get(PARALLEL_TASKS).add(parallelTaskValues.get(i));
                         }
                     }
+                    if (linkedIssues != null) {
+                        output.get(LINKED_ISSUES).set(linkedIssues);
+                    }
                     output.get(STATE).set(state);
                     break;
                 case UPDATE:
@@ -707,6 +1002,9 @@ public class BoardChangeRegistry {
                     if (parallelTaskValues != null) {
                         parallelTaskValues.forEach((key, value) -> output.get(PARALLEL_TASKS, key.toString()).set(value));
                     }
+                    if (linkedIssues != null) {
+                        output.get(LINKED_ISSUES).set(linkedIssues);
+                    }
                     if (state != null) {
                         output.get(STATE).set(state);
                     }
@@ -732,6 +1030,99 @@ public class BoardChangeRegistry {
         }
     }
 
+    /**
+     * The changes for a range of views, compacted into one merged change per issue. Once created a checkpoint is not
+     * modified, so it can be shared by the clients reading it.
+     */
+    private static class ChangeCheckpoint {
+        //The view the changes were made on top of
+        private final int fromView;
+        //The view of the last change
+        private final int toView;
+        private final Map<String, CheckpointedIssue> issues = new HashMap<>();
+        private final NewReferenceCollector newReferences = new NewReferenceCollector();
+        //Blacklist changes are rare, so they are kept as they are
+        private final List<BoardChange> blacklistChanges = new ArrayList<>();
+
+        ChangeCheckpoint(int fromView, List<BoardChange> changes) {
+            this.fromView = fromView;
+            this.toView = changes.get(changes.size() - 1).getView();
+            for (BoardChange boardChange : changes) {
+                if (boardChange.isBlacklistEvent()) {
+                    blacklistChanges.add(boardChange);
+                    continue;
+                }
+                final String issueKey = boardChange.getEvent().getIssueKey();
+                CheckpointedIssue issue = issues.get(issueKey);
+                if (issue == null) {
+                    issues.put(issueKey, new CheckpointedIssue(newReferences, boardChange));
+                } else {
+                    issue.merge(newReferences, boardChange);
+                }
+            }
+        }
+
+        void addChanges(ChangeSetCollector collector, int sinceView) {
+            for (Map.Entry<String, CheckpointedIssue> entry : issues.entrySet()) {
+                final CheckpointedIssue issue = entry.getValue();
+                if (issue.lastView <= sinceView) {
+                    //The client has all the changes
+                    continue;
+                }
+                if (issue.resync || issue.firstView <= sinceView || collector.hasIssueChange(entry.getKey())) {
+                    //The issue has to be sent with its current data, or the client has some of the changes merged in
+                    //here, or there are changes from an earlier checkpoint, so we cannot use the merged change
+                    collector.resyncIssue(entry.getKey(), issue.projectCode);
+                } else if (issue.change != null) {
+                    collector.addCheckpointedChange(issue.change);
+                }
+            }
+            for (BoardChange boardChange : blacklistChanges) {
+                if (boardChange.getView() > sinceView) {
+                    collector.addChange(boardChange);
+                }
+            }
+            collector.addNewReferences(newReferences);
+            collector.addView(toView);
+        }
+    }
+
+    private static class CheckpointedIssue {
+        private final String projectCode;
+        private final int firstView;
+        private int lastView;
+        //Will be null if the issue was both created and deleted, or if it needs resyncing
+        private IssueChange change;
+        //Whether one of the changes was a resync, in which case the issue is sent with its current data
+        private boolean resync;
+
+        CheckpointedIssue(NewReferenceCollector newReferences, BoardChange boardChange) {
+            this.projectCode = boardChange.getEvent().getProjectCode();
+            this.firstView = boardChange.getView();
+            this.lastView = boardChange.getView();
+            if (boardChange.getEvent().getType() == RESYNC) {
+                resync = true;
+                newReferences.addNewReferences(boardChange);
+            } else {
+                this.change = IssueChange.create(newReferences, boardChange);
+            }
+        }
+
+        void merge(NewReferenceCollector newReferences, BoardChange boardChange) {
+            lastView = boardChange.getView();
+            if (resync || boardChange.getEvent().getType() == RESYNC) {
+                resync = true;
+                change = null;
+                newReferences.addNewReferences(boardChange);
+            } else if (change != null) {
+                change.merge(newReferences, boardChange);
+                if (change.type == null) {
+                    change = null;
+                }
+            }
+        }
+    }
+
     private static class BlacklistChange {
         Set<String> states;
         Set<String> issueTypes;
@@ -804,4 +1195,31 @@ public class BoardChangeRegistry {
     public static class FullRefreshNeededException extends Exception {
 
     }
+
+    private static class DeltaKey {
+        private final boolean backlog;
+        private final int sinceView;
+
+        DeltaKey(boolean backlog, int sinceView) {
+            this.backlog = backlog;
+            this.sinceView = sinceView;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DeltaKey deltaKey = (DeltaKey) o;
+            return backlog == deltaKey.backlog && sinceView == deltaKey.sinceView;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sinceView + (backlog ? 1 : 0);
+        }
+    }
 }
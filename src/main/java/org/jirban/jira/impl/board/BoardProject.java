@@ -26,31 +26,34 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.jboss.dmr.ModelNode;
 import org.jirban.jira.JirbanLogger;
 import org.jirban.jira.api.NextRankedIssueUtil;
 import org.jirban.jira.api.ProjectParallelTaskOptionsLoader;
 import org.jirban.jira.impl.JiraInjectables;
+import org.jirban.jira.impl.PermissionCache;
 import org.jirban.jira.impl.board.MultiSelectNameOnlyValue.Component;
 import org.jirban.jira.impl.board.MultiSelectNameOnlyValue.FixVersion;
 import org.jirban.jira.impl.board.MultiSelectNameOnlyValue.Label;
 import org.jirban.jira.impl.config.BoardProjectConfig;
 import org.jirban.jira.impl.config.CustomFieldConfig;
 import org.jirban.jira.impl.config.LinkedProjectConfig;
+import org.jirban.jira.impl.util.LexoRankIndex;
+import org.jirban.jira.impl.util.RankIndex;
 
+import com.atlassian.greenhopper.model.lexorank.LexoRank;
 import com.atlassian.jira.bc.issue.search.SearchService;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.issue.CustomFieldManager;
+import com.atlassian.jira.issue.fields.CustomField;
 import com.atlassian.jira.issue.link.IssueLinkManager;
 import com.atlassian.jira.issue.search.SearchException;
 import com.atlassian.jira.issue.search.SearchResults;
 import com.atlassian.jira.jql.builder.JqlQueryBuilder;
 import com.atlassian.jira.permission.ProjectPermissions;
-import com.atlassian.jira.project.Project;
-import com.atlassian.jira.project.ProjectManager;
 import com.atlassian.jira.project.version.Version;
-import com.atlassian.jira.security.PermissionManager;
 import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.jira.util.Consumer;
 import com.atlassian.jira.web.bean.PagerFilter;
@@ -67,12 +70,17 @@ public class BoardProject {
 
     private volatile Board board;
     private final BoardProjectConfig projectConfig;
-    private final List<String> rankedIssueKeys;
+    private final RankIndex<String> rankedIssueKeys;
+    //The Jira ranks of the ranked issues, used to find where a reranked issue goes without searching. If we don't
+    //know the ranks of all of them, we have to search
+    private final LexoRankIndex<String> issueRanks;
     private final Map<String, SortedParallelTaskFieldOptions> parallelTaskValues;
 
-    private BoardProject(BoardProjectConfig projectConfig, List<String> rankedIssueKeys, Map<String, SortedParallelTaskFieldOptions> parallelTaskValues) {
+    private BoardProject(BoardProjectConfig projectConfig, RankIndex<String> rankedIssueKeys,
+                         LexoRankIndex<String> issueRanks, Map<String, SortedParallelTaskFieldOptions> parallelTaskValues) {
         this.projectConfig = projectConfig;
         this.rankedIssueKeys = rankedIssueKeys;
+        this.issueRanks = issueRanks;
         this.parallelTaskValues = parallelTaskValues;
     }
 
@@ -100,13 +108,13 @@ public class BoardProject {
         return board.getCustomFieldIndex(customFieldValue);
     }
 
-    public List<String> getRankedIssueKeys() {
+    public RankIndex<String> getRankedIssueKeys() {
         return rankedIssueKeys;
     }
 
-    void serialize(JiraInjectables jiraInjectables, Board board, ModelNode parent, ApplicationUser user, boolean backlog) {
+    void serialize(Board board, ModelNode parent, boolean rankPermission, boolean backlog) {
         //Whether the user can rank issues or not
-        parent.get(RANK).set(hasRankPermission(user, jiraInjectables.getProjectManager(), jiraInjectables.getPermissionManager()));
+        parent.get(RANK).set(rankPermission);
 
         ModelNode ranked = new ModelNode();
         ranked.setEmptyList();
@@ -169,12 +177,8 @@ public class BoardProject {
         return parallelTaskValues;
     }
 
-    private boolean hasRankPermission(ApplicationUser user, ProjectManager projectManager, PermissionManager permissionManager) {
-        Project project = projectManager.getProjectByCurrentKey(projectConfig.getCode());
-        if (!permissionManager.hasPermission(ProjectPermissions.SCHEDULE_ISSUES, project, user)) {
-            return false;
-        }
-        return true;
+    boolean hasRankPermission(ApplicationUser user, PermissionCache permissionCache) {
+        return permissionCache.hasPermission(user, projectConfig.getCode(), ProjectPermissions.SCHEDULE_ISSUES);
     }
 
     public static Query initialiseQuery(BoardProjectConfig projectConfig, ApplicationUser boardOwner,
@@ -264,6 +268,10 @@ public class BoardProject {
             return jiraInjectables.getCustomFieldManager();
         }
 
+        CustomField getRankField() {
+            return getCustomFieldManager().getCustomFieldObject(board.getConfig().getRankCustomFieldId());
+        }
+
         public String getCode() {
             return projectConfig.getCode();
         }
@@ -309,6 +317,7 @@ public class BoardProject {
      */
     public static class Builder extends Accessor {
         private final List<String> rankedIssueKeys = new ArrayList<>();
+        private LexoRankIndex<String> issueRanks = LexoRankIndex.empty();
         private final Map<String, List<String>> issueKeysByState = new HashMap<>();
         private final Map<String, SortedParallelTaskFieldOptions> parallelTaskValues;
 
@@ -330,14 +339,15 @@ public class BoardProject {
             return parallelTaskValues;
         }
 
-        void load() throws SearchException {
+        void load(ExecutorService batchExecutor) throws SearchException {
             final SearchService searchService = jiraInjectables.getSearchService();
             final Query query = initialiseQuery(projectConfig, boardOwner, searchService, null);
 
             SearchResults searchResults =
                         searchService.search(boardOwner, query, PagerFilter.getUnlimitedFilter());
 
-            final BulkIssueLoadStrategy issueLoadStrategy = BulkIssueLoadStrategy.create(this);
+            final BulkIssueLoadStrategy issueLoadStrategy = BulkIssueLoadStrategy.create(this, batchExecutor);
+            final CustomField rankField = getRankField();
             List<Issue.Builder> issueBuilders = new ArrayList<>();
             for (com.atlassian.jira.issue.Issue jiraIssue : searchResults.getIssues()) {
                 Issue.Builder issueBuilder = Issue.builder(this, issueLoadStrategy);
@@ -345,6 +355,12 @@ public class BoardProject {
                 issueBuilders.add(issueBuilder);
                 if (!board.getBlacklist().isBlackListed(jiraIssue.getKey())) {
                     rankedIssueKeys.add(jiraIssue.getKey());
+                    if (rankField != null) {
+                        final Object rank = jiraIssue.getCustomFieldValue(rankField);
+                        if (rank instanceof LexoRank) {
+                            issueRanks = issueRanks.with(jiraIssue.getKey(), ((LexoRank) rank).format());
+                        }
+                    }
                 }
             }
             issueBuilders.forEach(issueBuilder -> {
@@ -357,7 +373,8 @@ public class BoardProject {
         BoardProject build() {
             return new BoardProject(
                     projectConfig,
-                    Collections.unmodifiableList(rankedIssueKeys),
+                    RankIndex.copyOf(rankedIssueKeys),
+                    issueRanks,
                     Collections.unmodifiableMap(parallelTaskValues));
         }
 
@@ -373,7 +390,8 @@ public class BoardProject {
         private final BoardProject project;
         private final NextRankedIssueUtil nextRankedIssueUtil;
         private Issue newIssue;
-        private List<String> rankedIssueKeys;
+        private RankIndex<String> rankedIssueKeys;
+        private LexoRankIndex<String> issueRanks;
 
 
         Updater(JiraInjectables jiraInjectables, NextRankedIssueUtil nextRankedIssueUtil, Board.Accessor board, BoardProject project,
@@ -387,11 +405,12 @@ public class BoardProject {
         Issue createIssue(String issueKey, String issueType, String priority, String summary,
                           Assignee assignee, Set<Component> issueComponents,
                           Set<Label> labels, Set<FixVersion> fixVersions, String state,
-                          Map<String, CustomFieldValue> customFieldValues, Map<Integer, Integer> parallelTaskValues) throws SearchException {
+                          Map<String, CustomFieldValue> customFieldValues, Map<Integer, Integer> parallelTaskValues,
+                          Long issueId) throws SearchException {
             JirbanLogger.LOGGER.debug("BoardProject.Updater.createIssue - {}", issueKey);
             newIssue = Issue.createForCreateEvent(
                     this, issueKey, state, summary, issueType, priority,
-                    assignee, issueComponents, labels, fixVersions, customFieldValues, parallelTaskValues);
+                    assignee, issueComponents, labels, fixVersions, customFieldValues, parallelTaskValues, issueId);
             JirbanLogger.LOGGER.debug("BoardProject.Updater.createIssue - created {}", newIssue);
 
             if (newIssue != null) {
@@ -417,8 +436,8 @@ public class BoardProject {
         }
 
         void deleteIssue(Issue issue) {
-            rankedIssueKeys = new ArrayList<>(project.rankedIssueKeys);
-            rankedIssueKeys.remove(issue.getKey());
+            rankedIssueKeys = project.rankedIssueKeys.without(issue.getKey());
+            issueRanks = project.issueRanks.without(issue.getKey());
         }
 
         public Map<String, SortedParallelTaskFieldOptions> getParallelTaskValues() {
@@ -426,35 +445,36 @@ public class BoardProject {
         }
 
 
-        List<String> rankIssues(String issueKey) throws SearchException {
-            String nextIssueKey = nextRankedIssueUtil.findNextRankedIssue(this.projectConfig, boardOwner, issueKey);
-            //If the next issue is blacklisted, keep searching until we find the next valid one
-            while (nextIssueKey != null && board.getBlacklist().isBlackListed(nextIssueKey)) {
-                nextIssueKey = nextRankedIssueUtil.findNextRankedIssue(this.projectConfig, boardOwner, nextIssueKey);
+        RankIndex<String> rankIssues(String issueKey) throws SearchException {
+            final LexoRankIndex<String> otherRanks = project.issueRanks.without(issueKey);
+            issueRanks = otherRanks;
+            final String rank = nextRankedIssueUtil.getRank(boardOwner, issueKey);
+            if (rank == null) {
+                //The issue has no rank, so we have nowhere to put it
+                return project.rankedIssueKeys.without(issueKey);
             }
-            final List<String> newRankedKeys = new ArrayList<>();
-            if (nextIssueKey == null) {
-                //Add it at the end
-                project.rankedIssueKeys.forEach(key -> {
-                    if (!key.equals(issueKey)) {
-                        //Don't copy the one we are moving to the end
-                        newRankedKeys.add(key);
-                    }
-                });
-                newRankedKeys.add(issueKey);
+            final int otherRankedIssues =
+                    project.rankedIssueKeys.size() - (project.rankedIssueKeys.contains(issueKey) ? 1 : 0);
+            String nextIssueKey;
+            if (otherRanks.size() == otherRankedIssues && otherRanks.isSameBucket(rank)) {
+                //We know the ranks of all the other ranked issues, none of which are blacklisted, so the next one is
+                //the first with a higher rank
+                nextIssueKey = otherRanks.higher(rank);
             } else {
-                final String nextKey = nextIssueKey;
-                //Remove it from the middle and add it at the end
-                project.rankedIssueKeys.forEach(key -> {
-                    if (key.equals(nextKey)) {
-                        newRankedKeys.add(issueKey);
-                    }
-                    if (!key.equals(issueKey)) {
-                        newRankedKeys.add(key);
-                    }
-                });
+                nextIssueKey = nextRankedIssueUtil.findNextRankedIssue(this.projectConfig, boardOwner, rank);
+                //If the next issue is blacklisted, keep searching until we find the next valid one
+                while (nextIssueKey != null && board.getBlacklist().isBlackListed(nextIssueKey)) {
+                    final String nextRank = nextRankedIssueUtil.getRank(boardOwner, nextIssueKey);
+                    nextIssueKey = nextRank == null ?
+                            null : nextRankedIssueUtil.findNextRankedIssue(this.projectConfig, boardOwner, nextRank);
+                }
+                if (nextIssueKey != null && !project.rankedIssueKeys.contains(nextIssueKey)) {
+                    //We don't know where the next issue is, so the issue can't be ranked
+                    return project.rankedIssueKeys.without(issueKey);
+                }
             }
-            return new ArrayList<>(newRankedKeys);
+            issueRanks = otherRanks.with(issueKey, rank);
+            return project.rankedIssueKeys.moveBefore(issueKey, nextIssueKey);
         }
 
         Issue loadSingleIssue(String issueKey) throws SearchException {
@@ -483,11 +503,11 @@ public class BoardProject {
         BoardProject build() throws SearchException {
 
             //Update the ranked issue list if a rerank was done
-            List<String> rankedIssueKeys =
-                    this.rankedIssueKeys != null ?
-                            Collections.unmodifiableList(this.rankedIssueKeys) : project.rankedIssueKeys;
+            RankIndex<String> rankedIssueKeys =
+                    this.rankedIssueKeys != null ? this.rankedIssueKeys : project.rankedIssueKeys;
+            LexoRankIndex<String> issueRanks = this.issueRanks != null ? this.issueRanks : project.issueRanks;
 
-            return new BoardProject(projectConfig, rankedIssueKeys, project.parallelTaskValues);
+            return new BoardProject(projectConfig, rankedIssueKeys, issueRanks, project.parallelTaskValues);
         }
     }
 
@@ -17,10 +17,14 @@
 package org.jirban.jira.impl.board;
 
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.jirban.jira.JirbanLogger;
 import org.jirban.jira.impl.config.CustomFieldConfig;
@@ -31,11 +35,12 @@ import org.ofbiz.core.entity.jdbc.SQLProcessor;
 import org.osgi.framework.BundleReference;
 
 /**
- * <p>Bulk loads up things like custom fields using a direct sql query.</p>
+ * <p>Bulk loads up things like custom fields and linked issues using direct sql queries.</p>
  * <p>Normally if using the Jira provided classes, this is done lazily for each issue, and is
  * fine when we are handling events to create or update entities.</p>
  * <p>But is not suitable for loading the full board, since the lazy loading results in an extra sql
- * query behind the scenes for every single custom field, for every single issue. So, when loading the full board
+ * query behind the scenes for every single custom field, for every single issue. Similarly, each linked issue
+ * results in lookups of the issue, its project and its status. So, when loading the full board
  * we instead do a bulk load to avoid this performance overhead.</p>
  * <p>For unit tests we currently use the lazy loading mechanism to load the custom fields, this is mainly
  * to avoid having to set up the mocks at present.</p>
@@ -49,15 +54,20 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
 
     private static final String dataSourceName = "defaultDS";
     private final BoardProject.Builder project;
+    //Shared by all the board loads, so that its size caps the number of connections used to fetch the batches
+    private final ExecutorService batchExecutor;
     private final Map<Long, BulkLoadContext<?>> customFieldContexts = new HashMap<>();
-    private final Map<Long, ParallelTaskCustomFieldConfig> parallelTaskFields = new HashMap();
+    private final Map<Long, ParallelTaskCustomFieldConfig> parallelTaskFields = new HashMap<>();
+    private final List<Long> customFieldIds = new ArrayList<>();
+    private final List<String> linkedProjectCodes = new ArrayList<>();
     private final List<Long> ids = new ArrayList<>();
     private final Map<Long, String> issues = new HashMap<>();
     private final Map<Long, Issue.Builder> builders = new HashMap<>();
     private boolean finished = false;
 
-    public BulkIssueLoadStrategy(BoardProject.Builder project) {
+    public BulkIssueLoadStrategy(BoardProject.Builder project, ExecutorService batchExecutor) {
         this.project = project;
+        this.batchExecutor = batchExecutor;
         for (String cfName : project.getConfig().getCustomFieldNames()) {
             //These do not have the values loaded on project load. Rather values referenced by issues are what is used to
             // populate the 'lookup table'. To avoid repeatedly querying Jira for what the ids represent, use the caching
@@ -78,16 +88,20 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
             registry.values().forEach(parallelTaskCustomFieldConfig ->
                     parallelTaskFields.put(parallelTaskCustomFieldConfig.getId(), parallelTaskCustomFieldConfig));
         }
+        customFieldIds.addAll(customFieldContexts.keySet());
+        customFieldIds.addAll(parallelTaskFields.keySet());
+        linkedProjectCodes.addAll(project.getBoard().getConfig().getLinkedProjectCodes());
     }
 
-    static BulkIssueLoadStrategy create(BoardProject.Builder project) {
-        if (project.getConfig().getCustomFieldNames().size() == 0 || project.getConfig().getParallelTaskConfig() == null) {
-            //There are no custom fields or parallel tasks so we are not needed
+    static BulkIssueLoadStrategy create(BoardProject.Builder project, ExecutorService batchExecutor) {
+        if (project.getConfig().getCustomFieldNames().size() == 0 && project.getConfig().getParallelTaskConfig() == null
+                && project.getBoard().getConfig().getLinkedProjectCodes().size() == 0) {
+            //There are no custom fields, parallel tasks or linked projects so we are not needed
             return null;
         }
         final ClassLoader cl = RawSqlLoader.class.getClassLoader();
         if (cl instanceof BundleReference) {
-            return new BulkIssueLoadStrategy(project);
+            return new BulkIssueLoadStrategy(project, batchExecutor);
         }
         //We are running in a unit test, so we don't use this strategy (see class javadoc)
         return null;
@@ -107,37 +121,57 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
             return;
         }
         finished = true;
-        final SQLProcessor sqlProcessor = new SQLProcessor(dataSourceName);
-        try {
-            bulkLoadData(sqlProcessor);
-        } finally {
-            try {
-                sqlProcessor.close();
-            } catch (Exception ignore) {
+        if (ids.size() == 0) {
+            return;
+        }
+        final List<List<Long>> batches = new ArrayList<>();
+        for (int i = 0 ; i < ids.size() ; i += BATCH_SIZE) {
+            batches.add(ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())));
+        }
+        if (batches.size() == 1 || batchExecutor == null) {
+            for (List<Long> idBatch : batches) {
+                processBatch(loadBatch(idBatch));
+            }
+            return;
+        }
 
+        //Fetch the batches concurrently, each over its own connection. The rows are applied to the issue builders
+        //on this thread, in batch order, while the remaining batches are still being fetched
+        final List<Future<Batch>> futures = new ArrayList<>();
+        try {
+            for (List<Long> idBatch : batches) {
+                futures.add(batchExecutor.submit(() -> loadBatch(idBatch)));
             }
+            for (Future<Batch> future : futures) {
+                processBatch(getBatch(future));
+            }
+        } finally {
+            //If one of the batches failed, don't bother with the rest
+            futures.forEach(future -> future.cancel(true));
         }
     }
 
-    private void bulkLoadData(SQLProcessor sqlProcessor) {
-        final List<Long> idBatch = new ArrayList<>();
-        for (int i = 0 ; i < ids.size() ; i++) {
-            idBatch.add(ids.get(i));
-            if (idBatch.size() == BATCH_SIZE) {
-                loadDataForBatch(sqlProcessor, idBatch);
-                idBatch.clear();
+    private Batch getBatch(Future<Batch> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-        }
-        if (idBatch.size() > 0) {
-            loadDataForBatch(sqlProcessor, idBatch);
+            throw new RuntimeException(cause);
         }
     }
 
-    private void loadDataForBatch(SQLProcessor sqlProcessor, List<Long> idBatch) {
-        final String sql = createSql(idBatch);
-
-        try (final ResultSet rs = sqlProcessor.executeQuery(sql)){
-            while (rs.next()) {
+    private Batch loadBatch(List<Long> idBatch) {
+        final Batch batch = new Batch();
+        if (customFieldIds.size() > 0) {
+            final List<Long> params = new ArrayList<>(customFieldIds);
+            params.addAll(idBatch);
+            executeQuery(createCustomFieldSql(idBatch.size()), params, rs -> {
                 Long issueId = rs.getLong(1);
                 Long customFieldId = rs.getLong(2);
                 String stringValue = rs.getString(3);
@@ -145,11 +179,62 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
                 if (rs.wasNull()) {
                     numValue = null;
                 }
+                batch.customFieldRows.add(new CustomFieldRow(issueId, customFieldId, stringValue, numValue));
+            });
+        }
+        if (linkedProjectCodes.size() > 0) {
+            //The outward and inward links are selected by the same query, so the parameters are needed twice
+            final List<Object> params = new ArrayList<>();
+            for (int i = 0 ; i < 2 ; i++) {
+                params.addAll(linkedProjectCodes);
+                params.addAll(idBatch);
+            }
+            executeQuery(createLinkedIssueSql(idBatch.size()), params, rs -> {
+                Long issueId = rs.getLong(1);
+                String linkedProjectCode = rs.getString(2);
+                String linkedIssueKey = linkedProjectCode + "-" + rs.getLong(3);
+                String stateName = rs.getString(4);
+                String summary = rs.getString(5);
+                batch.linkedIssueRows.add(
+                        new LinkedIssueRow(issueId, linkedProjectCode, linkedIssueKey, stateName, summary));
+            });
+        }
+        return batch;
+    }
 
-                processCustomFieldValue(issueId, customFieldId, stringValue, numValue);
+    private void executeQuery(String sql, List<?> params, RowReader rowReader) {
+        final SQLProcessor sqlProcessor = new SQLProcessor(dataSourceName);
+        try {
+            sqlProcessor.prepareStatement(sql);
+            for (Object param : params) {
+                if (param instanceof Long) {
+                    sqlProcessor.setValue((Long) param);
+                } else {
+                    sqlProcessor.setValue((String) param);
+                }
+            }
+            try (final ResultSet rs = sqlProcessor.executeQuery()) {
+                while (rs.next()) {
+                    rowReader.read(rs);
+                }
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            try {
+                sqlProcessor.close();
+            } catch (Exception ignore) {
+
+            }
+        }
+    }
+
+    private void processBatch(Batch batch) {
+        for (CustomFieldRow row : batch.customFieldRows) {
+            processCustomFieldValue(row.issueId, row.customFieldId, row.stringValue, row.numValue);
+        }
+        for (LinkedIssueRow row : batch.linkedIssueRows) {
+            processLinkedIssue(row.issueId, row.linkedProjectCode, row.linkedIssueKey, row.stateName, row.summary);
         }
     }
 
@@ -187,45 +272,26 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
         }
     }
 
-    private String createSql(List<Long> idBatch) {
-        StringBuilder sb = new StringBuilder()
-                .append("select j.id, cv.customfield, cv.stringvalue, cv.numbervalue ")
-                .append("from project p, jiraissue j, customfieldvalue cv ")
-                .append("where ")
-                .append("p.id=j.project and j.id=cv.issue and ")
-                .append("p.pkey='" + project.getCode() + "' and ")
-                .append("customfield in (");
-
-        boolean first = true;
-        for (Long cfId : customFieldContexts.keySet()) {
-            if (first) {
-                first = false;
-            } else {
-                sb.append(", ");
-            }
-            sb.append(cfId.toString());
-        }
-        if (parallelTaskFields.size() > 0) {
-            for (Long cfId : parallelTaskFields.keySet()) {
-                if (first) {
-                    first = false;
-                } else {
-                    sb.append(", ");
-                }
-                sb.append(cfId.toString());
-            }
-        }
-        sb.append(") and ");
-        sb.append("j.id in (");
-        first = true;
-        for (Long issueId : ids) {
-            if (first) {
-                first = false;
-            } else {
-                sb.append(", ");
-            }
-            sb.append(issueId.toString());
+    private void processLinkedIssue(Long issueId, String linkedProjectCode, String linkedIssueKey,
+                                    String stateName, String summary) {
+        JirbanLogger.LOGGER.trace("Processing bulk issue {}. linkedIssue:{}, state:{}",
+                issueId, linkedIssueKey, stateName);
+        final BoardProject.LinkedProjectContext linkedProjectContext =
+                project.getLinkedProjectContext(linkedProjectCode);
+        if (linkedProjectContext == null) {
+            return;
         }
+        builders.get(issueId).addLinkedIssue(linkedProjectContext, linkedIssueKey, stateName, summary);
+    }
+
+    private String createCustomFieldSql(int batchSize) {
+        StringBuilder sb = new StringBuilder()
+                .append("select cv.issue, cv.customfield, cv.stringvalue, cv.numbervalue ")
+                .append("from customfieldvalue cv ")
+                .append("where cv.customfield in (");
+        appendParameters(sb, customFieldIds.size());
+        sb.append(") and cv.issue in (");
+        appendParameters(sb, batchSize);
         sb.append(")");
 
         final String sql = sb.toString();
@@ -233,4 +299,73 @@ class BulkIssueLoadStrategy implements IssueLoadStrategy {
         return sql;
     }
 
+    private String createLinkedIssueSql(int batchSize) {
+        StringBuilder sb = new StringBuilder();
+        appendLinkedIssueSelect(sb, batchSize, "source", "destination");
+        sb.append(" union all ");
+        appendLinkedIssueSelect(sb, batchSize, "destination", "source");
+
+        final String sql = sb.toString();
+        JirbanLogger.LOGGER.debug("SQL query: {}", sql);
+        return sql;
+    }
+
+    private void appendLinkedIssueSelect(StringBuilder sb, int batchSize, String boardIssueColumn, String linkedIssueColumn) {
+        sb.append("select l.").append(boardIssueColumn).append(", p.pkey, j.issuenum, s.pname, j.summary ")
+                .append("from issuelink l, jiraissue j, project p, issuestatus s ")
+                .append("where j.id=l.").append(linkedIssueColumn).append(" and p.id=j.project and s.id=j.issuestatus and ")
+                .append("p.pkey in (");
+        appendParameters(sb, linkedProjectCodes.size());
+        sb.append(") and l.").append(boardIssueColumn).append(" in (");
+        appendParameters(sb, batchSize);
+        sb.append(")");
+    }
+
+    private static void appendParameters(StringBuilder sb, int count) {
+        for (int i = 0 ; i < count ; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("?");
+        }
+    }
+
+    private interface RowReader {
+        void read(ResultSet rs) throws SQLException;
+    }
+
+    private static class Batch {
+        private final List<CustomFieldRow> customFieldRows = new ArrayList<>();
+        private final List<LinkedIssueRow> linkedIssueRows = new ArrayList<>();
+    }
+
+    private static class CustomFieldRow {
+        private final Long issueId;
+        private final Long customFieldId;
+        private final String stringValue;
+        private final Long numValue;
+
+        CustomFieldRow(Long issueId, Long customFieldId, String stringValue, Long numValue) {
+            this.issueId = issueId;
+            this.customFieldId = customFieldId;
+            this.stringValue = stringValue;
+            this.numValue = numValue;
+        }
+    }
+
+    private static class LinkedIssueRow {
+        private final Long issueId;
+        private final String linkedProjectCode;
+        private final String linkedIssueKey;
+        private final String stateName;
+        private final String summary;
+
+        LinkedIssueRow(Long issueId, String linkedProjectCode, String linkedIssueKey, String stateName, String summary) {
+            this.issueId = issueId;
+            this.linkedProjectCode = linkedProjectCode;
+            this.linkedIssueKey = linkedIssueKey;
+            this.stateName = stateName;
+            this.summary = summary;
+        }
+    }
 }
@@ -45,7 +45,9 @@ public abstract class CustomFieldUtil {
 
     public Map<String, CustomFieldValue> sortFields(Map<String, CustomFieldValue> fields) {
         List<CustomFieldValue> fieldValues = new ArrayList<>(fields.values());
-        Collections.sort(fieldValues, Comparator.comparing(CustomFieldValue::getValueForComparator, String.CASE_INSENSITIVE_ORDER));
+        //Use the key to break ties, so that the order does not depend on the order the values were added in
+        Collections.sort(fieldValues, Comparator.comparing(CustomFieldValue::getValueForComparator, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(CustomFieldValue::getKey));
         LinkedHashMap<String, CustomFieldValue> result = new LinkedHashMap<>();
         for (CustomFieldValue field : fieldValues) {
             result.put(field.getKey(), field);
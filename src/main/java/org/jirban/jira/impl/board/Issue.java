@@ -32,6 +32,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -91,6 +92,10 @@ public abstract class Issue {
         return stateIndex;
     }
 
+    ProjectConfig getProject() {
+        return project;
+    }
+
     boolean hasLinkedIssues() {
         return false;
     }
@@ -99,12 +104,64 @@ public abstract class Issue {
         return () -> Collections.<LinkedIssue>emptySet().iterator();
     }
 
+    /**
+     * Gets the keys of the linked issues
+     *
+     * @return the keys
+     */
+    List<String> getLinkedIssueKeys() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Gets the linked issues in the format used for the changes sent to the clients
+     *
+     * @return the linked issues node. It is an empty list if there are no linked issues
+     */
+    ModelNode getLinkedIssuesModelNode() {
+        return new ModelNode().setEmptyList();
+    }
+
+    Assignee getAssignee() {
+        return null;
+    }
+
+    Set<Component> getComponents() {
+        return null;
+    }
+
+    Set<Label> getLabels() {
+        return null;
+    }
+
+    Set<FixVersion> getFixVersions() {
+        return null;
+    }
+
+    Map<String, CustomFieldValue> getCustomFieldValues() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Checks whether another copy of this issue, e.g. from a reload of the board, has the same data as this one
+     *
+     * @param other the other copy of the issue
+     * @return {@code true} if the clients would see the same data for both
+     */
+    boolean hasSameData(Issue other) {
+        return getClass() == other.getClass()
+                && key.equals(other.key)
+                && project.getCode().equals(other.project.getCode())
+                && Objects.equals(state, other.state)
+                && Objects.equals(summary, other.summary);
+    }
+
     ModelNode getModelNodeForFullRefresh(Board board) {
         ModelNode issueNode = getBaseModelNode();
         return issueNode;
     }
 
-    private ModelNode getBaseModelNode() {
+    ModelNode getBaseModelNode() {
         ModelNode issueNode = new ModelNode();
         issueNode.get(KEY).set(key);
         issueNode.get(STATE).set(project.getStateIndex(state));
@@ -138,13 +195,14 @@ public abstract class Issue {
      * @param fixVersions the fix versions
      * @param customFieldValues the custom field values
      * @param parallelTaskValues the parallel task values
+     * @param issueId Jira's id for the issue, used to load its linked issues. If {@code null} they are not loaded
      * @return the issue
      */
     static Issue createForCreateEvent(BoardProject.Accessor project, String issueKey, String state,
                                       String summary, String issueType, String priority, Assignee assignee,
                                       Set<Component> components, Set<Label> labels, Set<FixVersion> fixVersions,
                                       Map<String, CustomFieldValue> customFieldValues,
-                                      Map<Integer, Integer> parallelTaskValues) {
+                                      Map<Integer, Integer> parallelTaskValues, Long issueId) {
         Builder builder = new Builder(project, issueKey);
         builder.setState(state);
         builder.setSummary(summary);
@@ -159,7 +217,11 @@ public abstract class Issue {
 
         //TODO parallel task values
 
-        //TODO linked issues
+        //The events for links created along with the issue reach the board before this one, when the issue is not
+        //on the board yet, so get them from Jira
+        if (issueId != null) {
+            builder.loadLinkedIssues(issueId);
+        }
         return builder.build();
     }
 
@@ -273,6 +335,76 @@ public abstract class Issue {
         return null;
     }
 
+    /**
+     * Creates a new issue based on an {@code existing} one, where a linked issue has been added or has had its
+     * summary or state changed. If the linked issue's state is not one configured for the linked project, it is
+     * removed from the issue instead until the next full load of the board works out what to do with it.
+     *
+     * @param existing the issue to update
+     * @param linkedProjectConfig the config of the linked issue's project
+     * @param linkedIssueKey the key of the linked issue
+     * @param state the state of the linked issue
+     * @param summary the summary of the linked issue
+     * @return the new issue, or {@code null} if nothing changed
+     */
+    static Issue copyWithLinkedIssue(Issue existing, LinkedProjectConfig linkedProjectConfig, String linkedIssueKey,
+                                     String state, String summary) {
+        if (existing instanceof BoardIssue == false) {
+            return null;
+        }
+        final Integer stateIndex = linkedProjectConfig.getStateIndex(state);
+        if (stateIndex == null) {
+            return copyWithoutLinkedIssue(existing, linkedIssueKey);
+        }
+        final BoardIssue boardIssue = (BoardIssue) existing;
+        final TreeSet<LinkedIssue> linkedIssues = createLinkedIssueSet();
+        for (LinkedIssue linkedIssue : boardIssue.linkedIssues) {
+            if (linkedIssue.getKey().equals(linkedIssueKey)) {
+                if (linkedIssue.getState().equals(state) && linkedIssue.getSummary().equals(summary)) {
+                    return null;
+                }
+            } else {
+                linkedIssues.add(linkedIssue);
+            }
+        }
+        linkedIssues.add(new LinkedIssue(linkedProjectConfig, linkedIssueKey, state, stateIndex, summary));
+        return new BoardIssue(boardIssue, Collections.unmodifiableList(new ArrayList<>(linkedIssues)));
+    }
+
+    /**
+     * Creates a new issue based on an {@code existing} one, where a linked issue has been removed
+     *
+     * @param existing the issue to update
+     * @param linkedIssueKey the key of the linked issue
+     * @return the new issue, or {@code null} if the issue did not have the linked issue
+     */
+    static Issue copyWithoutLinkedIssue(Issue existing, String linkedIssueKey) {
+        if (existing instanceof BoardIssue == false) {
+            return null;
+        }
+        final BoardIssue boardIssue = (BoardIssue) existing;
+        final List<LinkedIssue> linkedIssues = new ArrayList<>(boardIssue.linkedIssues.size());
+        for (LinkedIssue linkedIssue : boardIssue.linkedIssues) {
+            if (!linkedIssue.getKey().equals(linkedIssueKey)) {
+                linkedIssues.add(linkedIssue);
+            }
+        }
+        if (linkedIssues.size() == boardIssue.linkedIssues.size()) {
+            return null;
+        }
+        return new BoardIssue(boardIssue,
+                linkedIssues.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(linkedIssues));
+    }
+
+    private static TreeSet<LinkedIssue> createLinkedIssueSet() {
+        return new TreeSet<>(new Comparator<LinkedIssue>() {
+            @Override
+            public int compare(LinkedIssue o1, LinkedIssue o2) {
+                return o1.getKey().compareTo(o2.getKey());
+            }
+        });
+    }
+
     abstract BoardChangeRegistry.IssueChange convertToCreateIssueChange(BoardChangeRegistry registry, BoardConfig boardConfig);
 
     private static class BoardIssue extends Issue {
@@ -305,6 +437,15 @@ public abstract class Issue {
             this.parallelTaskFieldValues = parallelTaskFieldValues;
         }
 
+        private BoardIssue(BoardIssue existing, List<LinkedIssue> linkedIssues) {
+            this((BoardProjectConfig) existing.getProject(), existing.getKey(), existing.getState(),
+                    existing.getStateIndex(), existing.getSummary(),
+                    existing.issueTypeIndex, existing.priorityIndex, existing.assignee,
+                    existing.components, existing.labels, existing.fixVersions,
+                    linkedIssues,
+                    existing.customFieldValues, existing.parallelTaskFieldValues);
+        }
+
         boolean hasLinkedIssues() {
             return linkedIssues.size() > 0;
         }
@@ -313,6 +454,81 @@ public abstract class Issue {
             return linkedIssues::iterator;
         }
 
+        @Override
+        List<String> getLinkedIssueKeys() {
+            if (linkedIssues.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<String> keys = new ArrayList<>(linkedIssues.size());
+            linkedIssues.forEach(linkedIssue -> keys.add(linkedIssue.getKey()));
+            return keys;
+        }
+
+        @Override
+        ModelNode getLinkedIssuesModelNode() {
+            final ModelNode linkedIssuesNode = new ModelNode().setEmptyList();
+            linkedIssues.forEach(linkedIssue -> linkedIssuesNode.add(linkedIssue.getBaseModelNode()));
+            return linkedIssuesNode;
+        }
+
+        @Override
+        Assignee getAssignee() {
+            return assignee;
+        }
+
+        @Override
+        Set<Component> getComponents() {
+            return components;
+        }
+
+        @Override
+        Set<Label> getLabels() {
+            return labels;
+        }
+
+        @Override
+        Set<FixVersion> getFixVersions() {
+            return fixVersions;
+        }
+
+        @Override
+        Map<String, CustomFieldValue> getCustomFieldValues() {
+            return customFieldValues;
+        }
+
+        @Override
+        boolean hasSameData(Issue other) {
+            if (!super.hasSameData(other)) {
+                return false;
+            }
+            final BoardIssue otherIssue = (BoardIssue) other;
+            if (!Objects.equals(issueTypeIndex, otherIssue.issueTypeIndex)
+                    || !Objects.equals(priorityIndex, otherIssue.priorityIndex)
+                    || !Objects.equals(assignee == null ? null : assignee.getKey(),
+                            otherIssue.assignee == null ? null : otherIssue.assignee.getKey())
+                    || !Objects.equals(components, otherIssue.components)
+                    || !Objects.equals(labels, otherIssue.labels)
+                    || !Objects.equals(fixVersions, otherIssue.fixVersions)
+                    || !Objects.equals(parallelTaskFieldValues, otherIssue.parallelTaskFieldValues)
+                    || customFieldValues.size() != otherIssue.customFieldValues.size()
+                    || linkedIssues.size() != otherIssue.linkedIssues.size()) {
+                return false;
+            }
+            for (Map.Entry<String, CustomFieldValue> entry : customFieldValues.entrySet()) {
+                final CustomFieldValue otherValue = otherIssue.customFieldValues.get(entry.getKey());
+                if (otherValue == null || !entry.getValue().getKey().equals(otherValue.getKey())) {
+                    return false;
+                }
+            }
+            //The linked issues are sorted, so they are in the same order if they are the same
+            for (int i = 0 ; i < linkedIssues.size() ; i++) {
+                if (!linkedIssues.get(i).hasSameData(otherIssue.linkedIssues.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         @Override
         ModelNode getModelNodeForFullRefresh(Board board) {
             final BoardProject boardProject = board.getBoardProject(getProjectCode());
@@ -354,7 +570,8 @@ public abstract class Issue {
         BoardChangeRegistry.IssueChange convertToCreateIssueChange(BoardChangeRegistry registry, BoardConfig boardConfig) {
             String issueType = boardConfig.getIssueTypeName(issueTypeIndex);
             String priority = boardConfig.getPriorityName(priorityIndex);
-            return registry.createCreateIssueChange(this, assignee, issueType, priority, components, labels, fixVersions);
+            return registry.createCreateIssueChange(this, assignee, issueType, priority, components, labels, fixVersions,
+                    customFieldValues, parallelTaskFieldValues);
         }
     }
 
@@ -444,12 +661,8 @@ public abstract class Issue {
             setPriority(issue.getPriorityObject().getName());
             setState(issue.getStatusObject().getName());
 
-            //Load the custom fields
+            //Load the custom fields, parallel tasks and linked issues
             issueLoadStrategy.handle(issue, this);
-
-            final IssueLinkManager issueLinkManager = project.getIssueLinkManager();
-            addLinkedIssues(issueLinkManager.getOutwardLinks(issue.getId()), true);
-            addLinkedIssues(issueLinkManager.getInwardLinks(issue.getId()), false);
         }
 
 
@@ -507,6 +720,12 @@ public abstract class Issue {
             return this;
         }
 
+        private void loadLinkedIssues(Long issueId) {
+            final IssueLinkManager issueLinkManager = project.getIssueLinkManager();
+            addLinkedIssues(issueLinkManager.getOutwardLinks(issueId), true);
+            addLinkedIssues(issueLinkManager.getInwardLinks(issueId), false);
+        }
+
         private void addLinkedIssues(List<IssueLink> links, boolean outbound) {
             if (links == null) {
                 return;
@@ -522,25 +741,21 @@ public abstract class Issue {
                     //This was not set up as one of the linked projects we are interested in
                     continue;
                 }
-                String stateName = linkedIssue.getStatusObject().getName();
-                Integer stateIndex = linkedProjectContext.getStateIndexRecordingMissing(linkedProjectContext.getCode(), linkedIssue.getKey(), stateName);
-                if (stateIndex != null) {
-                    if (linkedIssues == null) {
-                        linkedIssues = createLinkedIssueSet();
-                    }
-                    linkedIssues.add(new LinkedIssue(linkedProjectContext.getConfig(), linkedIssue.getKey(),
-                            stateName, stateIndex, linkedIssue.getSummary()));
-                }
+                addLinkedIssue(linkedProjectContext, linkedIssue.getKey(),
+                        linkedIssue.getStatusObject().getName(), linkedIssue.getSummary());
             }
         }
 
-        private TreeSet<LinkedIssue> createLinkedIssueSet() {
-            return new TreeSet<>(new Comparator<LinkedIssue>() {
-                @Override
-                public int compare(LinkedIssue o1, LinkedIssue o2) {
-                    return o1.getKey().compareTo(o2.getKey());
+        void addLinkedIssue(BoardProject.LinkedProjectContext linkedProjectContext, String linkedIssueKey,
+                            String stateName, String summary) {
+            Integer stateIndex = linkedProjectContext.getStateIndexRecordingMissing(linkedProjectContext.getCode(), linkedIssueKey, stateName);
+            if (stateIndex != null) {
+                if (linkedIssues == null) {
+                    linkedIssues = createLinkedIssueSet();
                 }
-            });
+                linkedIssues.add(new LinkedIssue(linkedProjectContext.getConfig(), linkedIssueKey,
+                        stateName, stateIndex, summary));
+            }
         }
 
         Issue build() {
@@ -676,6 +891,7 @@ public abstract class Issue {
         public void handle(com.atlassian.jira.issue.Issue issue, Builder builder) {
             builder.setCustomFieldValues(CustomFieldValue.loadCustomFieldValues(project, issue));
             CustomFieldValue.loadParallelTaskValues(project, issue, builder);
+            builder.loadLinkedIssues(issue.getId());
         }
 
         @Override
@@ -17,7 +17,7 @@
 package org.jirban.jira.impl.board;
 
 /**
- * Strategy for how to load things like custom fields
+ * Strategy for how to load things like custom fields and linked issues
  *
  * @author Kabir Khan
  */
@@ -83,16 +83,17 @@ public class SortedCustomFieldValues {
             super(config, new HashMap<>());
         }
 
-        CustomFieldValue getCustomFieldValue(Object customFieldValue) {
+        //The methods are synchronized since the board projects might be loaded in parallel
+        synchronized CustomFieldValue getCustomFieldValue(Object customFieldValue) {
             return fields.computeIfAbsent(
                     getUtil().getKey(customFieldValue), s -> getUtil().loadCustomField(config, customFieldValue));
         }
 
-        void addBulkLoadedCustomFieldValue(CustomFieldValue customFieldValue) {
+        synchronized void addBulkLoadedCustomFieldValue(CustomFieldValue customFieldValue) {
             fields.put(customFieldValue.getKey(), customFieldValue);
         }
 
-        SortedCustomFieldValues build() {
+        synchronized SortedCustomFieldValues build() {
             final Map<String, CustomFieldValue> sortedFields;
             sortedFields = getUtil().sortFields(fields);
             return new SortedCustomFieldValues(config, new IndexedMap<>(sortedFields));
@@ -252,6 +252,10 @@ public class BoardConfig {
         return owningUserKey;
     }
 
+    public long getRankCustomFieldId() {
+        return rankCustomFieldId;
+    }
+
     public String getName() {
         return name;
     }
@@ -268,6 +272,10 @@ public class BoardConfig {
         return linkedProjects.get(linkedProjectCode);
     }
 
+    public Set<String> getLinkedProjectCodes() {
+        return linkedProjects.keySet();
+    }
+
     public CustomFieldConfig getCustomFieldObjectForJiraName(String jiraCustomFieldName) {
         return customFields.getForJiraName(jiraCustomFieldName);
     }
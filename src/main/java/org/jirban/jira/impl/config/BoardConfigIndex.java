@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable index of the board configs by the projects they contain, so that working out what a Jira issue
+ * event means to us does not need to look at every board config. A new index is created when the board configs
+ * change.
+ *
+ * @author Kabir Khan
+ */
+public final class BoardConfigIndex {
+
+    public static final BoardConfigIndex EMPTY = new BoardConfigIndex(Collections.emptyMap());
+
+    private final Map<String, ProjectEntry> projects;
+
+    private BoardConfigIndex(Map<String, ProjectEntry> projects) {
+        this.projects = projects;
+    }
+
+    public static BoardConfigIndex create(Collection<BoardConfig> boardConfigs) {
+        final Map<String, ProjectEntry.Builder> builders = new HashMap<>();
+        for (BoardConfig boardConfig : boardConfigs) {
+            final Set<CustomFieldConfig> customFields = boardConfig.getCustomFieldConfigs();
+            for (BoardProjectConfig projectConfig : boardConfig.getBoardProjects()) {
+                final ProjectEntry.Builder builder =
+                        builders.computeIfAbsent(projectConfig.getCode(), code -> new ProjectEntry.Builder());
+                builder.boardCodes.add(boardConfig.getCode());
+                for (CustomFieldConfig customField : customFields) {
+                    builder.customFields.add(customField);
+                    builder.customFieldsByJiraName
+                            .computeIfAbsent(customField.getJiraCustomField().getName(), name -> new HashSet<>())
+                            .add(customField);
+                }
+                final ParallelTaskConfig parallelTaskConfig = projectConfig.getParallelTaskConfig();
+                if (parallelTaskConfig != null) {
+                    for (ParallelTaskCustomFieldConfig parallelTask : parallelTaskConfig.getConfigs().values()) {
+                        builder.parallelTaskFields.add(parallelTask);
+                        builder.parallelTaskFieldsByJiraName
+                                .computeIfAbsent(parallelTask.getJiraCustomField().getName(), name -> new HashSet<>())
+                                .add(parallelTask);
+                    }
+                }
+            }
+            for (String linkedProjectCode : boardConfig.getLinkedProjectCodes()) {
+                builders.computeIfAbsent(linkedProjectCode, code -> new ProjectEntry.Builder())
+                        .linkedBoardCodes.add(boardConfig.getCode());
+            }
+        }
+        if (builders.isEmpty()) {
+            return EMPTY;
+        }
+        final Map<String, ProjectEntry> projects = new HashMap<>();
+        builders.forEach((code, builder) -> projects.put(code, builder.build()));
+        return new BoardConfigIndex(Collections.unmodifiableMap(projects));
+    }
+
+    /**
+     * Gets the codes of the boards containing a project
+     *
+     * @param projectCode the project code
+     * @return the board codes
+     */
+    public List<String> getBoardCodes(String projectCode) {
+        final ProjectEntry entry = projects.get(projectCode);
+        return entry == null ? Collections.emptyList() : entry.boardCodes;
+    }
+
+    /**
+     * Gets the codes of the boards which have a project as one of their linked projects
+     *
+     * @param linkedProjectCode the linked project code
+     * @return the board codes
+     */
+    public List<String> getBoardCodesForLinkedProject(String linkedProjectCode) {
+        final ProjectEntry entry = projects.get(linkedProjectCode);
+        return entry == null ? Collections.emptyList() : entry.linkedBoardCodes;
+    }
+
+    public Set<CustomFieldConfig> getCustomFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName) {
+        final ProjectEntry entry = projects.get(projectCode);
+        return entry == null ? Collections.emptySet() : get(entry.customFieldsByJiraName, jiraCustomFieldName);
+    }
+
+    public Set<CustomFieldConfig> getCustomFieldsForCreateEvent(String projectCode) {
+        final ProjectEntry entry = projects.get(projectCode);
+        return entry == null ? Collections.emptySet() : entry.customFields;
+    }
+
+    public Set<ParallelTaskCustomFieldConfig> getParallelTaskFieldsForUpdateEvent(String projectCode, String jiraCustomFieldName) {
+        final ProjectEntry entry = projects.get(projectCode);
+        return entry == null ? Collections.emptySet() : get(entry.parallelTaskFieldsByJiraName, jiraCustomFieldName);
+    }
+
+    public Set<ParallelTaskCustomFieldConfig> getParallelTaskFieldsForCreateEvent(String projectCode) {
+        final ProjectEntry entry = projects.get(projectCode);
+        return entry == null ? Collections.emptySet() : entry.parallelTaskFields;
+    }
+
+    private static <T> Set<T> get(Map<String, Set<T>> map, String jiraCustomFieldName) {
+        final Set<T> configs = map.get(jiraCustomFieldName);
+        return configs == null ? Collections.emptySet() : configs;
+    }
+
+    private static class ProjectEntry {
+        private final List<String> boardCodes;
+        private final List<String> linkedBoardCodes;
+        private final Set<CustomFieldConfig> customFields;
+        private final Map<String, Set<CustomFieldConfig>> customFieldsByJiraName;
+        private final Set<ParallelTaskCustomFieldConfig> parallelTaskFields;
+        private final Map<String, Set<ParallelTaskCustomFieldConfig>> parallelTaskFieldsByJiraName;
+
+        private ProjectEntry(Builder builder) {
+            this.boardCodes = Collections.unmodifiableList(builder.boardCodes);
+            this.linkedBoardCodes = Collections.unmodifiableList(builder.linkedBoardCodes);
+            this.customFields = Collections.unmodifiableSet(builder.customFields);
+            this.customFieldsByJiraName = unmodifiable(builder.customFieldsByJiraName);
+            this.parallelTaskFields = Collections.unmodifiableSet(builder.parallelTaskFields);
+            this.parallelTaskFieldsByJiraName = unmodifiable(builder.parallelTaskFieldsByJiraName);
+        }
+
+        private static <T> Map<String, Set<T>> unmodifiable(Map<String, Set<T>> map) {
+            map.replaceAll((name, configs) -> Collections.unmodifiableSet(configs));
+            return Collections.unmodifiableMap(map);
+        }
+
+        private static class Builder {
+            private final List<String> boardCodes = new ArrayList<>();
+            private final List<String> linkedBoardCodes = new ArrayList<>();
+            private final Set<CustomFieldConfig> customFields = new HashSet<>();
+            private final Map<String, Set<CustomFieldConfig>> customFieldsByJiraName = new HashMap<>();
+            private final Set<ParallelTaskCustomFieldConfig> parallelTaskFields = new HashSet<>();
+            private final Map<String, Set<ParallelTaskCustomFieldConfig>> parallelTaskFieldsByJiraName = new HashMap<>();
+
+            ProjectEntry build() {
+                return new ProjectEntry(this);
+            }
+        }
+    }
+}
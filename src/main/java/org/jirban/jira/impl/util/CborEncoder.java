@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+
+/**
+ * Encodes a model node as CBOR (RFC 7049), which is a lot more compact than the json for the same data. The mapping
+ * is the same as for {@link ModelNode#toJSONString(boolean)}, so the client ends up with the same object whichever
+ * format it asked for. All the lengths are known up front, so only definite length items are written.
+ * <p/>
+ * The encoded bytes are buffered and written to a stream, which lets {@link CborStreamWriter} write a document a
+ * piece at a time.
+ *
+ * @author Kabir Khan
+ */
+public class CborEncoder {
+
+    public static final String MEDIA_TYPE = "application/cbor";
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1 << 5;
+    private static final int MAJOR_BYTES = 2 << 5;
+    private static final int MAJOR_TEXT = 3 << 5;
+    private static final int MAJOR_ARRAY = 4 << 5;
+    private static final int MAJOR_MAP = 5 << 5;
+
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int DOUBLE = 0xfb;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int size;
+
+    CborEncoder(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Encodes a model node
+     *
+     * @param node the model node
+     * @return the CBOR bytes
+     */
+    public static byte[] encode(ModelNode node) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        CborEncoder encoder = new CborEncoder(out);
+        encoder.write(node);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    void write(ModelNode node) {
+        switch (node.getType()) {
+            case OBJECT: {
+                final Set<String> keys = node.keys();
+                writeHeader(MAJOR_MAP, keys.size());
+                for (String key : keys) {
+                    writeText(key);
+                    write(node.get(key));
+                }
+                break;
+            }
+            case LIST: {
+                final List<ModelNode> list = node.asList();
+                writeHeader(MAJOR_ARRAY, list.size());
+                for (ModelNode element : list) {
+                    write(element);
+                }
+                break;
+            }
+            case PROPERTY: {
+                //The json for a property is an object with one entry
+                final Property property = node.asProperty();
+                writeHeader(MAJOR_MAP, 1);
+                writeText(property.getName());
+                write(property.getValue());
+                break;
+            }
+            case INT:
+            case LONG:
+                writeLong(node.asLong());
+                break;
+            case DOUBLE:
+            case BIG_DECIMAL:
+            case BIG_INTEGER:
+                writeDouble(node.asDouble());
+                break;
+            case BOOLEAN:
+                writeByte(node.asBoolean() ? TRUE : FALSE);
+                break;
+            case BYTES: {
+                final byte[] bytes = node.asBytes();
+                writeHeader(MAJOR_BYTES, bytes.length);
+                writeBytes(bytes);
+                break;
+            }
+            case UNDEFINED:
+                writeByte(NULL);
+                break;
+            default:
+                //STRING, EXPRESSION and TYPE are all written as text
+                writeText(node.asString());
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value >= 0) {
+            writeHeader(MAJOR_UNSIGNED, value);
+        } else {
+            writeHeader(MAJOR_NEGATIVE, -1 - value);
+        }
+    }
+
+    private void writeDouble(double value) {
+        ensureCapacity(9);
+        buffer[size++] = (byte) DOUBLE;
+        writeRaw(Double.doubleToLongBits(value), 8);
+    }
+
+    void writeMapHeader(int size) {
+        writeHeader(MAJOR_MAP, size);
+    }
+
+    void writeText(String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeHeader(MAJOR_TEXT, bytes.length);
+        writeBytes(bytes);
+    }
+
+    private void writeHeader(int major, long length) {
+        ensureCapacity(9);
+        if (length < 24) {
+            buffer[size++] = (byte) (major | length);
+        } else if (length < 0x100) {
+            buffer[size++] = (byte) (major | 24);
+            writeRaw(length, 1);
+        } else if (length < 0x10000) {
+            buffer[size++] = (byte) (major | 25);
+            writeRaw(length, 2);
+        } else if (length < 0x100000000L) {
+            buffer[size++] = (byte) (major | 26);
+            writeRaw(length, 4);
+        } else {
+            buffer[size++] = (byte) (major | 27);
+            writeRaw(length, 8);
+        }
+    }
+
+    //Big endian, the caller must have ensured the capacity
+    private void writeRaw(long value, int bytes) {
+        for (int shift = (bytes - 1) * 8 ; shift >= 0 ; shift -= 8) {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        if (bytes.length > buffer.length) {
+            //Too big to be worth buffering
+            flush();
+            writeToStream(bytes, bytes.length);
+            return;
+        }
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes what has been buffered to the stream
+     *
+     * @throws UncheckedIOException if writing to the stream failed
+     */
+    void flush() {
+        if (size > 0) {
+            writeToStream(buffer, size);
+            size = 0;
+        }
+    }
+
+    private void writeToStream(byte[] bytes, int length) {
+        try {
+            out.write(bytes, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Writes CBOR to a stream a piece at a time, in the same way as {@link JsonStreamWriter} does for json. The objects
+ * are written as definite length maps, so the number of fields passed in when starting an object must be exact.
+ *
+ * @author Kabir Khan
+ */
+public class CborStreamWriter implements ObjectStreamWriter {
+
+    private final OutputStream out;
+    private final CborEncoder encoder;
+    //The number of fields still to be written for the object at each level of nesting
+    private final Deque<Integer> remainingFields = new ArrayDeque<>();
+
+    public CborStreamWriter(OutputStream out) {
+        this.out = out;
+        this.encoder = new CborEncoder(out);
+    }
+
+    @Override
+    public CborStreamWriter startObject(int size) {
+        encoder.writeMapHeader(size);
+        remainingFields.push(size);
+        return this;
+    }
+
+    @Override
+    public CborStreamWriter startObject(String name, int size) {
+        writeName(name);
+        return startObject(size);
+    }
+
+    @Override
+    public CborStreamWriter endObject() {
+        final int remaining = remainingFields.pop();
+        if (remaining != 0) {
+            //The map header has the wrong size, so the client would not be able to read what we have written
+            throw new IllegalStateException("Object ended with " + remaining + " fields still to be written");
+        }
+        return this;
+    }
+
+    @Override
+    public CborStreamWriter writeField(String name, ModelNode value) {
+        writeName(name);
+        encoder.write(value);
+        return this;
+    }
+
+    @Override
+    public CborStreamWriter writeFields(ModelNode object) {
+        for (String name : object.keys()) {
+            writeField(name, object.get(name));
+        }
+        return this;
+    }
+
+    private void writeName(String name) {
+        final int remaining = remainingFields.pop();
+        if (remaining == 0) {
+            throw new IllegalStateException("More fields written than the object was started with");
+        }
+        remainingFields.push(remaining - 1);
+        encoder.writeText(name);
+    }
+
+    @Override
+    public void close() {
+        encoder.flush();
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * Writes something into a byte array of exactly its size. The content is written twice, first only counting the bytes
+ * and then into the array. Unlike with a {@link java.io.ByteArrayOutputStream}, there is no growing buffer, and no
+ * copy of it, on the heap next to the result.
+ *
+ * @author Kabir Khan
+ */
+public final class ExactSizeByteArray {
+
+    private ExactSizeByteArray() {
+    }
+
+    /**
+     * Writes the content into a byte array
+     *
+     * @param content writes the content to the stream it is passed. It must write the same bytes each time
+     * @return the bytes
+     */
+    public static byte[] write(Consumer<OutputStream> content) {
+        final CountingOutputStream counter = new CountingOutputStream();
+        content.accept(counter);
+        if (counter.count > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many bytes for an array: " + counter.count);
+        }
+        final ArrayOutputStream out = new ArrayOutputStream(new byte[(int) counter.count]);
+        content.accept(out);
+        if (out.position != out.bytes.length) {
+            throw new IllegalStateException("Wrote " + out.position + " bytes, but counted " + out.bytes.length);
+        }
+        return out.bytes;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    private static class ArrayOutputStream extends OutputStream {
+        private final byte[] bytes;
+        private int position;
+
+        ArrayOutputStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureRoom(1);
+            bytes[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureRoom(len);
+            System.arraycopy(b, off, bytes, position, len);
+            position += len;
+        }
+
+        private void ensureRoom(int len) {
+            if (len > bytes.length - position) {
+                throw new IllegalStateException("Wrote more than the " + bytes.length + " bytes counted");
+            }
+        }
+    }
+}
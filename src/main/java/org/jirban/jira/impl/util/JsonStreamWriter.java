@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Writes compact utf-8 json to a stream a piece at a time. The structure of the document is written by hand, while
+ * the values are small model nodes which only need to exist while they are being written. This way the model for a
+ * whole board never needs to be built in memory to output it. Json does not need the sizes of the objects.
+ *
+ * @author Kabir Khan
+ */
+public class JsonStreamWriter implements ObjectStreamWriter {
+
+    private final PrintWriter writer;
+    //Whether the object at each level of nesting has had any fields written yet
+    private final Deque<Boolean> hasFields = new ArrayDeque<>();
+
+    public JsonStreamWriter(OutputStream out) {
+        this.writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public JsonStreamWriter startObject(int size) {
+        writer.write('{');
+        hasFields.push(Boolean.FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonStreamWriter startObject(String name, int size) {
+        writeName(name);
+        return startObject(size);
+    }
+
+    @Override
+    public JsonStreamWriter endObject() {
+        hasFields.pop();
+        writer.write('}');
+        return this;
+    }
+
+    @Override
+    public JsonStreamWriter writeField(String name, ModelNode value) {
+        writeName(name);
+        value.writeJSONString(writer, true);
+        return this;
+    }
+
+    @Override
+    public JsonStreamWriter writeFields(ModelNode object) {
+        for (String name : object.keys()) {
+            writeField(name, object.get(name));
+        }
+        return this;
+    }
+
+    private void writeName(String name) {
+        if (hasFields.peek()) {
+            writer.write(',');
+        } else {
+            hasFields.pop();
+            hasFields.push(Boolean.TRUE);
+        }
+        writeString(name);
+        writer.write(':');
+    }
+
+    private void writeString(String value) {
+        writer.write('"');
+        for (int i = 0 ; i < value.length() ; i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+        //The print writer swallows the exceptions, so check if there were any
+        if (writer.checkError()) {
+            throw new UncheckedIOException(new IOException("Error writing the json"));
+        }
+    }
+}
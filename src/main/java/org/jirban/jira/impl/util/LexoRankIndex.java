@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.util.Map;
+
+/**
+ * An immutable index of keys sorted by their formatted Jira Agile rank, so that the key following a rank can be found
+ * in O(log n). Updates return a new instance sharing most of its structure with the original.
+ * <p/>
+ * The formatted ranks sort in the same order as Jira sorts them. They are held in a {@link PersistentTreeMap}, and the
+ * rank of each key is kept in a persistent map so that a key can be removed by its rank.
+ *
+ * @author Kabir Khan
+ */
+public final class LexoRankIndex<K> {
+
+    @SuppressWarnings("rawtypes")
+    private static final LexoRankIndex EMPTY = new LexoRankIndex(PersistentTreeMap.empty(), PersistentHashMap.empty());
+
+    private final PersistentTreeMap<String, K> byRank;
+    private final PersistentHashMap<K, String> ranks;
+
+    private LexoRankIndex(PersistentTreeMap<String, K> byRank, PersistentHashMap<K, String> ranks) {
+        this.byRank = byRank;
+        this.ranks = ranks;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K> LexoRankIndex<K> empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return ranks.size();
+    }
+
+    public boolean contains(K key) {
+        return ranks.containsKey(key);
+    }
+
+    /**
+     * Gets the rank of a key
+     *
+     * @param key the key
+     * @return the rank, or {@code null} if the key is not in the index
+     */
+    public String getRank(K key) {
+        return ranks.get(key);
+    }
+
+    /**
+     * Gets an index where the key has the passed in rank
+     *
+     * @param key the key to add or move
+     * @param rank the formatted rank of the key
+     * @return the new index
+     */
+    public LexoRankIndex<K> with(K key, String rank) {
+        LexoRankIndex<K> removed = without(key);
+        final K existing = removed.byRank.get(rank);
+        if (existing != null) {
+            //Jira's ranks are unique, so the rank we have for the other key is out of date. Drop it, which leaves
+            //the index incomplete
+            removed = removed.without(existing);
+        }
+        return new LexoRankIndex<>(removed.byRank.plus(rank, key), removed.ranks.plus(key, rank));
+    }
+
+    /**
+     * Gets an index without the passed in key
+     *
+     * @param key the key to remove
+     * @return the new index, or this one if the key was not there
+     */
+    public LexoRankIndex<K> without(K key) {
+        final String rank = ranks.get(key);
+        if (rank == null) {
+            return this;
+        }
+        return new LexoRankIndex<>(byRank.minus(rank), ranks.minus(key));
+    }
+
+    /**
+     * Finds the key with the lowest rank above the passed in one
+     *
+     * @param rank the formatted rank
+     * @return the key, or {@code null} if there is nothing ranked after {@code rank}
+     */
+    public K higher(String rank) {
+        final Map.Entry<String, K> higher = byRank.higherEntry(rank);
+        return higher == null ? null : higher.getValue();
+    }
+
+    /**
+     * Checks whether the passed in rank is in the same bucket as all the ranks in the index. Jira moves the ranks to
+     * a new bucket when it rebalances them, without telling us about the new ranks, so until we have loaded all the
+     * ranks again we can't compare a rank from the new bucket with the ones we have.
+     *
+     * @param rank the formatted rank
+     * @return {@code true} if the rank can be compared with the ones in the index
+     */
+    public boolean isSameBucket(String rank) {
+        if (byRank.isEmpty()) {
+            return true;
+        }
+        final String bucket = bucket(rank);
+        return bucket.equals(bucket(byRank.firstEntry().getKey()))
+                && bucket.equals(bucket(byRank.lastEntry().getKey()));
+    }
+
+    private static String bucket(String rank) {
+        final int index = rank.indexOf('|');
+        return index < 0 ? "" : rank.substring(0, index);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.io.UncheckedIOException;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Writes a document of nested objects to a stream a piece at a time, so that the same code can output the board in
+ * any of the formats we support. The structure of the document is written by hand, while the values are small model
+ * nodes which only need to exist while they are being written.
+ * <p/>
+ * Formats like CBOR write the number of fields of an object before the fields, so this has to be passed in when
+ * starting an object.
+ *
+ * @author Kabir Khan
+ */
+public interface ObjectStreamWriter extends AutoCloseable {
+
+    /**
+     * Starts the top level object
+     *
+     * @param size the number of fields the object will have
+     * @return this writer
+     */
+    ObjectStreamWriter startObject(int size);
+
+    /**
+     * Starts an object as a field of the current object
+     *
+     * @param name the name of the field
+     * @param size the number of fields the object will have
+     * @return this writer
+     */
+    ObjectStreamWriter startObject(String name, int size);
+
+    /**
+     * Ends the current object
+     *
+     * @return this writer
+     */
+    ObjectStreamWriter endObject();
+
+    /**
+     * Writes a field of the current object
+     *
+     * @param name the name of the field
+     * @param value the value of the field
+     * @return this writer
+     */
+    ObjectStreamWriter writeField(String name, ModelNode value);
+
+    /**
+     * Writes all the fields of an object model node as fields of the current object
+     *
+     * @param object the object model node
+     * @return this writer
+     */
+    ObjectStreamWriter writeFields(ModelNode object);
+
+    /**
+     * Flushes what has been written to the underlying stream, and closes it
+     *
+     * @throws UncheckedIOException if writing to the stream failed at any point
+     */
+    @Override
+    void close();
+}
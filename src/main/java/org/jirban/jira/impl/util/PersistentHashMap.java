@@ -0,0 +1,439 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash array mapped trie. {@link #plus(Object, Object)} and {@link #minus(Object)} return a new map
+ * sharing all the untouched parts of the trie with this one, so an edit only copies the nodes on the path to the
+ * changed key rather than the whole map. The standard {@link Map} mutators throw
+ * {@link UnsupportedOperationException}, like for {@link java.util.Collections#unmodifiableMap(Map)}.
+ * Null keys are not supported.
+ *
+ * @author Kabir Khan
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object NOT_FOUND = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) {
+            return (PersistentHashMap<K, V>) map;
+        }
+        PersistentHashMap<K, V> result = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Gets a map containing the entries of this map with the addition of the passed in entry. If the key is already
+     * mapped, its value is replaced.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the new map, or this map if the key was already mapped to the value
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        final boolean[] added = new boolean[1];
+        final Node start = root == null ? BitmapIndexedNode.EMPTY : root;
+        final Node newRoot = start.assoc(0, hash(key), key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Gets a map containing the entries of this map without the passed in key.
+     *
+     * @param key the key
+     * @return the new map, or this map if the key was not there
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        final Node newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null || key == null) {
+            return null;
+        }
+        Object value = root.find(0, hash(key), key);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (root == null || key == null) {
+            return false;
+        }
+        return root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static Object[] cloneAndSet(Object[] array, int i, Object value) {
+        Object[] clone = array.clone();
+        clone[i] = value;
+        return clone;
+    }
+
+    private static Object[] removePair(Object[] array, int pair) {
+        Object[] result = new Object[array.length - 2];
+        System.arraycopy(array, 0, result, 0, 2 * pair);
+        System.arraycopy(array, 2 * (pair + 1), result, 2 * pair, result.length - 2 * pair);
+        return result;
+    }
+
+    private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+        final int hash1 = hash(key1);
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+        }
+        final boolean[] added = new boolean[1];
+        return BitmapIndexedNode.EMPTY
+                .assoc(shift, hash1, key1, value1, added)
+                .assoc(shift, hash2, key2, value2, added);
+    }
+
+    private abstract static class Node {
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+        //Returns null if the node becomes empty
+        abstract Node without(int shift, int hash, Object key);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+
+        //Entries are stored as key/value pairs. For a BitmapIndexedNode a null key means that the value is a sub-node
+        abstract Object[] array();
+    }
+
+    private static final class BitmapIndexedNode extends Node {
+        static final BitmapIndexedNode EMPTY = new BitmapIndexedNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        BitmapIndexedNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            final int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            final int idx = index(bit);
+            final Object keyOrNull = array[2 * idx];
+            final Object valueOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                return ((Node) valueOrNode).find(shift + BITS, hash, key);
+            }
+            return key.equals(keyOrNull) ? valueOrNode : NOT_FOUND;
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            final int bit = bitpos(hash, shift);
+            final int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                final Object keyOrNull = array[2 * idx];
+                final Object valueOrNode = array[2 * idx + 1];
+                if (keyOrNull == null) {
+                    final Node node = ((Node) valueOrNode).assoc(shift + BITS, hash, key, value, added);
+                    if (node == valueOrNode) {
+                        return this;
+                    }
+                    return new BitmapIndexedNode(bitmap, cloneAndSet(array, 2 * idx + 1, node));
+                }
+                if (key.equals(keyOrNull)) {
+                    if (value == valueOrNode) {
+                        return this;
+                    }
+                    return new BitmapIndexedNode(bitmap, cloneAndSet(array, 2 * idx + 1, value));
+                }
+                added[0] = true;
+                final Object[] newArray = cloneAndSet(array, 2 * idx, null);
+                newArray[2 * idx + 1] = createNode(shift + BITS, keyOrNull, valueOrNode, hash, key, value);
+                return new BitmapIndexedNode(bitmap, newArray);
+            }
+            added[0] = true;
+            final Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, 2 * idx);
+            newArray[2 * idx] = key;
+            newArray[2 * idx + 1] = value;
+            System.arraycopy(array, 2 * idx, newArray, 2 * (idx + 1), array.length - 2 * idx);
+            return new BitmapIndexedNode(bitmap | bit, newArray);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            final int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            final int idx = index(bit);
+            final Object keyOrNull = array[2 * idx];
+            final Object valueOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                final Node node = ((Node) valueOrNode).without(shift + BITS, hash, key);
+                if (node == valueOrNode) {
+                    return this;
+                }
+                if (node != null) {
+                    return new BitmapIndexedNode(bitmap, cloneAndSet(array, 2 * idx + 1, node));
+                }
+            } else if (!key.equals(keyOrNull)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            return new BitmapIndexedNode(bitmap ^ bit, removePair(array, idx));
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int findIndex(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            final int idx = findIndex(key);
+            return idx < 0 ? NOT_FOUND : array[idx + 1];
+        }
+
+        @Override
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash == this.hash) {
+                final int idx = findIndex(key);
+                if (idx >= 0) {
+                    if (array[idx + 1] == value) {
+                        return this;
+                    }
+                    return new CollisionNode(hash, cloneAndSet(array, idx + 1, value));
+                }
+                added[0] = true;
+                final Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, array.length);
+                newArray[array.length] = key;
+                newArray[array.length + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            //Different hash, so push this node down a level
+            return new BitmapIndexedNode(bitpos(this.hash, shift), new Object[]{null, this})
+                    .assoc(shift, hash, key, value, added);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            final int idx = findIndex(key);
+            if (idx < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            return new CollisionNode(hash, removePair(array, idx / 2));
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        //32 bit hashes are consumed 5 bits at a time, plus one level for any collision node
+        private final Object[][] arrays = new Object[8][];
+        private final int[] positions = new int[8];
+        private int depth = -1;
+        private Map.Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                push(root);
+                advance();
+            }
+        }
+
+        private void push(Node node) {
+            depth++;
+            arrays[depth] = node.array();
+            positions[depth] = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                final Object[] array = arrays[depth];
+                final int pos = positions[depth];
+                if (pos >= array.length) {
+                    arrays[depth] = null;
+                    depth--;
+                    continue;
+                }
+                positions[depth] = pos + 2;
+                if (array[pos] == null) {
+                    push((Node) array[pos + 1]);
+                } else {
+                    next = new SimpleImmutableEntry<>((K) array[pos], (V) array[pos + 1]);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<K, V> current = next;
+            advance();
+            return current;
+        }
+    }
+}
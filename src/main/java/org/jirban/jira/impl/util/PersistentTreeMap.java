@@ -0,0 +1,418 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable sorted map held in an AVL tree. {@link #plus(Comparable, Object)} and {@link #minus(Object)} return a
+ * new map sharing all the untouched parts of the tree with this one, so an edit only copies the nodes on the path to
+ * the changed key. Each node knows the size of its subtree, so the entries can also be looked up by their index in
+ * O(log n). The standard {@link Map} mutators throw {@link UnsupportedOperationException}, like for
+ * {@link java.util.Collections#unmodifiableMap(Map)}. Null keys are not supported.
+ *
+ * @author Kabir Khan
+ */
+public final class PersistentTreeMap<K extends Comparable<? super K>, V> extends AbstractMap<K, V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentTreeMap EMPTY = new PersistentTreeMap(null);
+
+    private final Node<K, V> root;
+
+    private PersistentTreeMap(Node<K, V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> PersistentTreeMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a map from keys which are already sorted, without having to rebalance the tree along the way
+     *
+     * @param keys the keys, in ascending order without duplicates
+     * @param values the value for each key
+     * @return the map
+     */
+    public static <K extends Comparable<? super K>, V> PersistentTreeMap<K, V> ofSorted(List<K> keys, List<V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException(keys.size() + " keys, but " + values.size() + " values");
+        }
+        for (int i = 1; i < keys.size(); i++) {
+            if (keys.get(i - 1).compareTo(keys.get(i)) >= 0) {
+                throw new IllegalArgumentException("Keys not sorted at " + keys.get(i));
+            }
+        }
+        if (keys.isEmpty()) {
+            return empty();
+        }
+        return new PersistentTreeMap<>(buildBalanced(keys, values, 0, keys.size()));
+    }
+
+    /**
+     * Gets a map where the key has the passed in value
+     *
+     * @param key the key
+     * @param value the value
+     * @return the new map, or this one if the key already had the value
+     */
+    public PersistentTreeMap<K, V> plus(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("Null keys are not supported");
+        }
+        final Node<K, V> existing = find(key);
+        if (existing != null && existing.value == value) {
+            return this;
+        }
+        return new PersistentTreeMap<>(insert(root, key, value));
+    }
+
+    /**
+     * Gets a map without the passed in key
+     *
+     * @param key the key to remove
+     * @return the new map, or this one if the key was not there
+     */
+    public PersistentTreeMap<K, V> minus(Object key) {
+        if (find(key) == null) {
+            return this;
+        }
+        final Node<K, V> removed = delete(root, key);
+        return removed == null ? empty() : new PersistentTreeMap<>(removed);
+    }
+
+    @Override
+    public V get(Object key) {
+        final Node<K, V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * @return the entry with the lowest key, or {@code null} if the map is empty
+     */
+    public Map.Entry<K, V> firstEntry() {
+        Node<K, V> node = root;
+        while (node != null && node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    /**
+     * @return the entry with the highest key, or {@code null} if the map is empty
+     */
+    public Map.Entry<K, V> lastEntry() {
+        Node<K, V> node = root;
+        while (node != null && node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Finds the entry with the lowest key above the passed in one
+     *
+     * @param key the key
+     * @return the entry, or {@code null} if there is no key above {@code key}
+     */
+    public Map.Entry<K, V> higherEntry(K key) {
+        Node<K, V> node = root;
+        Node<K, V> found = null;
+        while (node != null) {
+            if (node.key.compareTo(key) > 0) {
+                found = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the entry at an index in the key order
+     *
+     * @param index the index
+     * @return the entry
+     * @throws IndexOutOfBoundsException if the index is not in the map
+     */
+    public Map.Entry<K, V> entryAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node<K, V> node = root;
+        while (true) {
+            final int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Gets the index of a key in the key order
+     *
+     * @param key the key
+     * @return the index, or {@code -1} if the key is not in the map
+     */
+    public int indexOfKey(K key) {
+        Node<K, V> node = root;
+        int count = 0;
+        while (node != null) {
+            final int compare = key.compareTo(node.key);
+            if (compare < 0) {
+                node = node.left;
+            } else if (compare > 0) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return count + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return PersistentTreeMap.this.size();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V> find(Object key) {
+        if (key == null) {
+            return null;
+        }
+        final K k = (K) key;
+        Node<K, V> node = root;
+        while (node != null) {
+            final int compare = k.compareTo(node.key);
+            if (compare == 0) {
+                return node;
+            }
+            node = compare < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> buildBalanced(List<K> keys, List<V> values,
+                                                                               int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        final int mid = (from + to) >>> 1;
+        return new Node<>(keys.get(mid), values.get(mid),
+                buildBalanced(keys, values, from, mid), buildBalanced(keys, values, mid + 1, to));
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> balance(K key, V value,
+                                                                         Node<K, V> left, Node<K, V> right) {
+        final int hl = height(left);
+        final int hr = height(right);
+        if (hl > hr + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            final Node<K, V> lr = left.right;
+            return new Node<>(lr.key, lr.value,
+                    new Node<>(left.key, left.value, left.left, lr.left),
+                    new Node<>(key, value, lr.right, right));
+        }
+        if (hr > hl + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            final Node<K, V> rl = right.left;
+            return new Node<>(rl.key, rl.value,
+                    new Node<>(key, value, left, rl.left),
+                    new Node<>(right.key, right.value, rl.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> insert(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        final int compare = key.compareTo(node.key);
+        if (compare < 0) {
+            return balance(node.key, node.value, insert(node.left, key, value), node.right);
+        }
+        if (compare > 0) {
+            return balance(node.key, node.value, node.left, insert(node.right, key, value));
+        }
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    //The key must be in the tree
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<? super K>, V> Node<K, V> delete(Node<K, V> node, Object key) {
+        final int compare = ((K) key).compareTo(node.key);
+        if (compare < 0) {
+            return balance(node.key, node.value, delete(node.left, key), node.right);
+        }
+        if (compare > 0) {
+            return balance(node.key, node.value, node.left, delete(node.right, key));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<K, V> min = node.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(min.key, min.value, node.left, deleteMin(node.right));
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> deleteMin(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, deleteMin(node.left), node.right);
+    }
+
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final Node<K, V> left;
+        private final Node<K, V> right;
+        private final int height;
+        private final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return key.equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Node<K, V>> stack = new ArrayDeque<>();
+
+        EntryIterator(Node<K, V> root) {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node<K, V> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            final Node<K, V> node = stack.pop();
+            pushLeft(node.right);
+            return node;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An immutable ranked list of unique keys, where moving, inserting, removing and looking up the index of a key
+ * are all O(log n). Updates return a new instance sharing most of its structure with the original.
+ * <p/>
+ * Each key is given an ordinal which is spaced out from its neighbours, and the keys are held in a
+ * {@link PersistentTreeMap} sorted by ordinal. A moved key gets an ordinal halfway between its new neighbours, and if
+ * there is no room left between them all the ordinals are spaced out again.
+ *
+ * @author Kabir Khan
+ */
+public final class RankIndex<K> extends AbstractList<K> {
+
+    private static final long GAP = 1L << 32;
+
+    @SuppressWarnings("rawtypes")
+    private static final RankIndex EMPTY = new RankIndex(PersistentTreeMap.empty(), PersistentHashMap.empty());
+
+    private final PersistentTreeMap<Long, K> byOrdinal;
+    private final PersistentHashMap<K, Long> ordinals;
+
+    private RankIndex(PersistentTreeMap<Long, K> byOrdinal, PersistentHashMap<K, Long> ordinals) {
+        this.byOrdinal = byOrdinal;
+        this.ordinals = ordinals;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K> RankIndex<K> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a rank index with the keys in the order of the passed in list
+     *
+     * @param keys the keys. They must be unique
+     * @return the rank index
+     */
+    public static <K> RankIndex<K> copyOf(List<K> keys) {
+        if (keys instanceof RankIndex) {
+            return (RankIndex<K>) keys;
+        }
+        if (keys.isEmpty()) {
+            return empty();
+        }
+        @SuppressWarnings("unchecked")
+        final K[] array = (K[]) keys.toArray();
+        final List<Long> spaced = new ArrayList<>(array.length);
+        PersistentHashMap<K, Long> ordinals = PersistentHashMap.empty();
+        for (int i = 0; i < array.length; i++) {
+            spaced.add(i * GAP);
+            ordinals = ordinals.plus(array[i], i * GAP);
+        }
+        if (ordinals.size() != array.length) {
+            throw new IllegalArgumentException("Duplicate keys in " + keys);
+        }
+        return new RankIndex<>(PersistentTreeMap.ofSorted(spaced, Arrays.asList(array)), ordinals);
+    }
+
+    @Override
+    public K get(int index) {
+        return byOrdinal.entryAt(index).getValue();
+    }
+
+    @Override
+    public int size() {
+        return byOrdinal.size();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return ordinals.containsKey(key);
+    }
+
+    @Override
+    public int indexOf(Object key) {
+        final Long ordinal = ordinals.get(key);
+        if (ordinal == null) {
+            return -1;
+        }
+        return byOrdinal.indexOfKey(ordinal);
+    }
+
+    @Override
+    public int lastIndexOf(Object key) {
+        //Keys are unique
+        return indexOf(key);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return byOrdinal.values().iterator();
+    }
+
+    /**
+     * Gets a rank index without the passed in key.
+     *
+     * @param key the key to remove
+     * @return the new rank index, or this one if the key was not there
+     */
+    public RankIndex<K> without(K key) {
+        final Long ordinal = ordinals.get(key);
+        if (ordinal == null) {
+            return this;
+        }
+        return new RankIndex<>(byOrdinal.minus(ordinal), ordinals.minus(key));
+    }
+
+    /**
+     * Gets a rank index where the key has been (re)inserted immediately before {@code beforeKey}. If the key is
+     * already in the index it is moved.
+     *
+     * @param key the key to move or insert
+     * @param beforeKey the key which should come after the moved key. If {@code null} the key is added at the end.
+     *                  Must be in the index if not {@code null}.
+     * @return the new rank index
+     */
+    public RankIndex<K> moveBefore(K key, K beforeKey) {
+        if (key.equals(beforeKey)) {
+            throw new IllegalArgumentException("Can't move " + key + " before itself");
+        }
+        RankIndex<K> removed = without(key);
+        if (beforeKey != null && !removed.contains(beforeKey)) {
+            throw new IllegalArgumentException("Could not find " + beforeKey);
+        }
+        Long ordinal = removed.ordinalBefore(beforeKey);
+        if (ordinal == null) {
+            //No room left, so space the ordinals out again and retry
+            removed = copyOf(new ArrayList<>(removed));
+            ordinal = removed.ordinalBefore(beforeKey);
+        }
+        return new RankIndex<>(removed.byOrdinal.plus(ordinal, key), removed.ordinals.plus(key, ordinal));
+    }
+
+    //Returns null if there is no room for a new ordinal in front of beforeKey
+    private Long ordinalBefore(K beforeKey) {
+        if (byOrdinal.isEmpty()) {
+            return 0L;
+        }
+        if (beforeKey == null) {
+            final long last = byOrdinal.lastEntry().getKey();
+            return last > Long.MAX_VALUE - GAP ? null : last + GAP;
+        }
+        final long next = ordinals.get(beforeKey);
+        final int index = byOrdinal.indexOfKey(next);
+        if (index == 0) {
+            return next < Long.MIN_VALUE + GAP ? null : next - GAP;
+        }
+        final long previous = byOrdinal.entryAt(index - 1).getKey();
+        if (next - previous < 2) {
+            return null;
+        }
+        return previous + (next - previous) / 2;
+    }
+}
@@ -49,13 +49,9 @@ public class CacheHeaderFilter implements Filter {
         HttpServletResponse resp = (HttpServletResponse)response;
         if (!req.getRequestURI().contains("index.html")) {
             String ifNoneMatch = req.getHeader("if-none-match");
-            if (ifNoneMatch != null) {
-                //If this header is there, it means the browser has it cached. Webpack gives all the js and other files
-                //a unique hash
-                if (!etagHex.equals(ifNoneMatch)) {
-                    //The etag is different so update it for the client (not really necessary).
-                    resp.addHeader("ETag", etagHex);
-                }
+            if (ifNoneMatch != null && etagHex.equals(ifNoneMatch)) {
+                //The browser has it cached since we were started. Webpack gives all the js and other files a unique
+                //hash, but the other resources might have changed if the plugin was redeployed
                 resp.setStatus(304);
                 return;
             }
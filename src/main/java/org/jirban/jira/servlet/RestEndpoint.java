@@ -21,10 +21,14 @@ import static org.jirban.jira.impl.Constants.CURRENT_BOARD_LAST_LOGGED_ACCESS;
 import static org.jirban.jira.impl.Constants.HELP;
 import static org.jirban.jira.impl.Constants.ISSUES;
 import static org.jirban.jira.impl.Constants.JIRBAN_VERSION;
+import static org.jirban.jira.impl.Constants.RETENTION;
 import static org.jirban.jira.impl.Constants.UPDATES;
 import static org.jirban.jira.impl.Constants.VERSION;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
@@ -42,12 +46,15 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.jboss.dmr.ModelNode;
 import org.jirban.jira.JirbanValidationException;
+import org.jirban.jira.api.BoardPayload;
 import org.jirban.jira.api.JiraFacade;
 import org.jirban.jira.impl.Constants;
 import org.jirban.jira.impl.board.RawSqlLoader;
+import org.jirban.jira.impl.util.CborEncoder;
 
 import com.atlassian.jira.component.ComponentAccessor;
 import com.atlassian.jira.issue.search.SearchException;
@@ -68,6 +75,9 @@ public class RestEndpoint {
      */
     private static final int API_VERSION = 2;
 
+    //Responses smaller than this are not worth compressing
+    private static final int GZIP_MIN_BYTES = Integer.getInteger("jirban.board.gzip.min.bytes", 1024);
+
     private final JiraFacade jiraFacade;
 
     @Inject
@@ -105,9 +115,13 @@ public class RestEndpoint {
 
     @GET
     @Path(ISSUES + "/{boardCode}")
+    @Produces({MediaType.APPLICATION_JSON, CborEncoder.MEDIA_TYPE})
     public Response getBoard(
             @Context HttpServletRequest req,
             @HeaderParam("user-agent") String userAgent,
+            @HeaderParam("accept") String accept,
+            @HeaderParam("accept-encoding") String acceptEncoding,
+            @HeaderParam("if-none-match") String ifNoneMatch,
             @PathParam("boardCode") String boardCode,
             @QueryParam("backlog") Boolean backlog) throws SearchException {
 
@@ -127,24 +141,38 @@ public class RestEndpoint {
         }
 
         //TODO figure out if a permission violation becomes a search exception
-        return createResponse(
-                jiraFacade.getBoardJson(
+        final boolean cbor = acceptsCbor(accept);
+        return createPayloadResponse(
+                jiraFacade.getBoardPayload(
                         getUser(),
                         backlog != null && backlog.booleanValue(),
-                        boardCode));
+                        boardCode,
+                        cbor,
+                        ifNoneMatch),
+                cbor,
+                acceptEncoding);
     }
 
     @GET
     @Path(ISSUES + "/{boardCode}/" + UPDATES + "/{viewId}")
-    public Response getBoard(@PathParam("boardCode") String boardCode,
+    @Produces({MediaType.APPLICATION_JSON, CborEncoder.MEDIA_TYPE})
+    public Response getBoard(@HeaderParam("accept") String accept,
+                              @HeaderParam("accept-encoding") String acceptEncoding,
+                              @HeaderParam("if-none-match") String ifNoneMatch,
+                              @PathParam("boardCode") String boardCode,
                               @PathParam("viewId") int viewId,
                               @QueryParam("backlog") Boolean backlog) throws SearchException {
         //TODO figure out if a permission violation becomes a search exception
-        return createResponse(
-                jiraFacade.getChangesJson(getUser(),
+        final boolean cbor = acceptsCbor(accept);
+        return createPayloadResponse(
+                jiraFacade.getChangesPayload(getUser(),
                         backlog != null && backlog.booleanValue(),
                         boardCode,
-                        viewId));
+                        viewId,
+                        cbor,
+                        ifNoneMatch),
+                cbor,
+                acceptEncoding);
     }
 
     @GET
@@ -156,6 +184,14 @@ public class RestEndpoint {
                 jiraFacade.getStateHelpTexts(getUser(), boardCode));
     }
 
+    @GET
+    @Path(ISSUES + "/{boardCode}/" + RETENTION)
+    public Response getChangeRetention(
+            @PathParam("boardCode") String boardCode) {
+        return createResponse(
+                jiraFacade.getChangeRetentionJson(getUser(), boardCode));
+    }
+
     //issues/' + boardName + "/parallel/" + issueKey ;
 
     @PUT
@@ -268,6 +304,60 @@ public class RestEndpoint {
         return Response.ok(json).build();
     }
 
+    //The board and its changes are tagged with the view they are for. The browser keeps them but has to check with
+    //us before using them, so reloading an unchanged board only costs a 304
+    private Response createPayloadResponse(BoardPayload<byte[]> payload, boolean cbor, String acceptEncoding) {
+        final Response.ResponseBuilder builder;
+        if (!payload.isModified()) {
+            builder = Response.notModified();
+        } else {
+            final byte[] bytes = payload.getValue();
+            final String mediaType = cbor ? CborEncoder.MEDIA_TYPE : MediaType.APPLICATION_JSON + ";charset=utf-8";
+            if (bytes.length >= GZIP_MIN_BYTES && acceptsGzip(acceptEncoding)) {
+                builder = Response.ok(createGzipOutput(bytes), mediaType).header("Content-Encoding", "gzip");
+            } else {
+                builder = Response.ok(bytes, mediaType);
+            }
+        }
+        return builder
+                .header("ETag", payload.getEntityTag())
+                .header("Cache-Control", "private, no-cache")
+                .header("Vary", "Accept, Accept-Encoding")
+                .build();
+    }
+
+    //Compress straight into the response, so there is no compressed copy of the payload
+    private StreamingOutput createGzipOutput(byte[] bytes) {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                GZIPOutputStream gzip = new GZIPOutputStream(output, 8192);
+                gzip.write(bytes);
+                //Don't close the response stream, that is up to the container
+                gzip.finish();
+            }
+        };
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            encoding = encoding.trim();
+            if (encoding.startsWith("gzip")) {
+                //Only a quality value of zero rules it out
+                return !encoding.replace(" ", "").matches("gzip;q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    //Json is the default, so only use CBOR if the client explicitly asks for it
+    private boolean acceptsCbor(String accept) {
+        return accept != null && accept.contains(CborEncoder.MEDIA_TYPE);
+    }
+
     private ApplicationUser getUser() {
         //Jira doesn't seem to like injection of this
         JiraAuthenticationContext authenticationContext = ComponentAccessor.getJiraAuthenticationContext();
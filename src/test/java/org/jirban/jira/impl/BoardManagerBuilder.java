@@ -15,6 +15,8 @@
  */
 package org.jirban.jira.impl;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 import org.jirban.jira.api.BoardConfigurationManager;
 import org.jirban.jira.api.BoardManager;
 import org.jirban.jira.api.NextRankedIssueUtil;
@@ -40,6 +42,9 @@ import com.atlassian.jira.user.util.UserManager;
 import com.atlassian.sal.api.ApplicationProperties;
 
 import ut.org.jirban.jira.mock.AvatarServiceBuilder;
+import ut.org.jirban.jira.mock.CustomFieldManagerBuilder;
+import ut.org.jirban.jira.mock.IssueRegistry;
+import ut.org.jirban.jira.mock.MockCustomField;
 import ut.org.jirban.jira.mock.PermissionManagerBuilder;
 import ut.org.jirban.jira.mock.ProjectManagerBuilder;
 
@@ -57,6 +62,13 @@ public class BoardManagerBuilder {
     private PermissionManager permissionManager = PermissionManagerBuilder.getAllowsAll();
     private NextRankedIssueUtil nextRankedIssueUtil;
     private ProjectParallelTaskOptionsLoader projectParallelTaskOptionsLoader = new ProjectParallelTaskOptionsLoaderBuilder().build();
+    //Used to look up the rank field when loading the board
+    private CustomFieldManager customFieldManager = new CustomFieldManagerBuilder()
+            .addCustomField(new MockCustomField(IssueRegistry.RANK_CUSTOM_FIELD_ID, "Rank"))
+            .build();
+    //Apply the events on the thread calling handleEvent() unless a test wants to control this
+    private ScheduledExecutorService eventExecutor = TestEventExecutor.callingThread();
+    private int eventCoalesceMs;
 
     public BoardManagerBuilder() {
     }
@@ -106,11 +118,30 @@ public class BoardManagerBuilder {
         return this;
     }
 
+    public BoardManagerBuilder setCustomFieldManager(CustomFieldManager customFieldManager) {
+        this.customFieldManager = customFieldManager;
+        return this;
+    }
+
+    public BoardManagerBuilder setEventExecutor(ScheduledExecutorService eventExecutor) {
+        this.eventExecutor = eventExecutor;
+        return this;
+    }
+
+    public BoardManagerBuilder setEventCoalesceMs(int eventCoalesceMs) {
+        this.eventCoalesceMs = eventCoalesceMs;
+        return this;
+    }
+
     public BoardManager build() {
+        return new BoardManagerImpl(buildJiraInjectables(), boardConfigurationManager, projectParallelTaskOptionsLoader,
+                eventExecutor, eventCoalesceMs);
+    }
+
+    public JiraInjectables buildJiraInjectables() {
         //These are not needed for this code path at the moment
         final ActiveObjects activeObjects = null;
         final ApplicationProperties applicationProperties = null;
-        final CustomFieldManager customFieldManager = null;
         final GlobalPermissionManager globalPermissionManager = null;
         final IssueService issueService = null;
         final IssueTypeManager issueTypeManager = null;
@@ -120,7 +151,7 @@ public class BoardManagerBuilder {
         final UserService userService = null;
         final VersionManager versionManager = null;
 
-        JiraInjectables jiraInjectables = new JiraInjectables(
+        return new JiraInjectables(
                 activeObjects,
                 applicationProperties,
                 avatarService,
@@ -137,7 +168,5 @@ public class BoardManagerBuilder {
                 searchService,
                 userService,
                 versionManager);
-
-        return new BoardManagerImpl(jiraInjectables, boardConfigurationManager, projectParallelTaskOptionsLoader);
     }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.jira.permission.ProjectPermissions;
+import com.atlassian.jira.user.ApplicationUser;
+
+import ut.org.jirban.jira.mock.GlobalPermissionManagerBuilder;
+import ut.org.jirban.jira.mock.PermissionManagerBuilder;
+import ut.org.jirban.jira.mock.ProjectManagerBuilder;
+
+/**
+ * The test constructor of {@link PermissionCache} is package protected, so this test lives in the same package.
+ *
+ * @author Kabir Khan
+ */
+public class PermissionCacheTest {
+
+    private static final long TTL_MS = 1000;
+
+    private final AtomicLong time = new AtomicLong(10000);
+    private final AtomicInteger projectChecks = new AtomicInteger();
+    private final AtomicInteger globalChecks = new AtomicInteger();
+    //Run in the middle of the next project permission check
+    private Runnable duringCheck;
+    private volatile boolean allowed = true;
+
+    private PermissionCache cache;
+
+    @Before
+    public void createCache() {
+        cache = createCache(100);
+    }
+
+    @Test
+    public void testCached() {
+        final ApplicationUser kabir = user("kabir");
+        Assert.assertTrue(hasPermission(kabir, "TDP"));
+        Assert.assertTrue(hasPermission(kabir, "TDP"));
+        Assert.assertEquals(1, projectChecks.get());
+
+        //Each user, project and permission is remembered separately
+        Assert.assertTrue(hasPermission(user("brian"), "TDP"));
+        Assert.assertTrue(hasPermission(kabir, "TBG"));
+        Assert.assertTrue(cache.hasPermission(kabir, "TDP", ProjectPermissions.SCHEDULE_ISSUES));
+        Assert.assertEquals(4, projectChecks.get());
+        Assert.assertTrue(hasPermission(user("kabir"), "TDP"));
+        Assert.assertEquals(4, projectChecks.get());
+
+        Assert.assertTrue(cache.isJiraAdministrator(kabir));
+        Assert.assertTrue(cache.isJiraAdministrator(kabir));
+        Assert.assertEquals(1, globalChecks.get());
+        Assert.assertEquals(4, projectChecks.get());
+    }
+
+    @Test
+    public void testNullUserNotCached() {
+        Assert.assertTrue(hasPermission(null, "TDP"));
+        Assert.assertTrue(hasPermission(null, "TDP"));
+        Assert.assertEquals(2, projectChecks.get());
+    }
+
+    @Test
+    public void testExpiry() {
+        final ApplicationUser kabir = user("kabir");
+        Assert.assertTrue(hasPermission(kabir, "TDP"));
+        allowed = false;
+
+        time.addAndGet(TTL_MS - 1);
+        Assert.assertTrue(hasPermission(kabir, "TDP"));
+        Assert.assertEquals(1, projectChecks.get());
+
+        //The permission has changed without us getting an event, which gets picked up once the decision expires
+        time.incrementAndGet();
+        Assert.assertFalse(hasPermission(kabir, "TDP"));
+        Assert.assertEquals(2, projectChecks.get());
+        Assert.assertFalse(hasPermission(kabir, "TDP"));
+        Assert.assertEquals(2, projectChecks.get());
+    }
+
+    @Test
+    public void testNoTtlDisablesCache() {
+        cache = new PermissionCache(
+                GlobalPermissionManagerBuilder.getAllowsAll(),
+                PermissionManagerBuilder.getForCallback((permission, project, user) -> {
+                    projectChecks.incrementAndGet();
+                    return true;
+                }),
+                ProjectManagerBuilder.getAnyProjectManager(),
+                0, 100, time::get);
+        final ApplicationUser kabir = user("kabir");
+        Assert.assertTrue(hasPermission(kabir, "TDP"));
+        Assert.assertTrue(hasPermission(kabir, "TDP"));
+        Assert.assertEquals(2, projectChecks.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final ApplicationUser kabir = user("kabir");
+        Assert.assertTrue(hasPermission(kabir, "TDP"));
+        Assert.assertTrue(cache.isJiraAdministrator(kabir));
+        allowed = false;
+
+        cache.invalidate();
+        Assert.assertFalse(hasPermission(kabir, "TDP"));
+        Assert.assertFalse(cache.isJiraAdministrator(kabir));
+        Assert.assertEquals(2, projectChecks.get());
+        Assert.assertEquals(2, globalChecks.get());
+    }
+
+    @Test
+    public void testInvalidatedDuringCheck() {
+        final ApplicationUser kabir = user("kabir");
+        //The permissions change while we are checking them, so the decision we get was made from the old permissions
+        duringCheck = () -> {
+            allowed = false;
+            cache.invalidate();
+        };
+        Assert.assertTrue(hasPermission(kabir, "TDP"));
+
+        //It must not be served from the cache after the invalidation
+        Assert.assertFalse(hasPermission(kabir, "TDP"));
+        Assert.assertEquals(2, projectChecks.get());
+        //The new decision is cached as normal
+        Assert.assertFalse(hasPermission(kabir, "TDP"));
+        Assert.assertEquals(2, projectChecks.get());
+    }
+
+    @Test
+    public void testClearedWhenFull() {
+        cache = createCache(3);
+        final ApplicationUser kabir = user("kabir");
+        hasPermission(kabir, "P1");
+        hasPermission(kabir, "P2");
+        hasPermission(kabir, "P3");
+        Assert.assertEquals(3, projectChecks.get());
+        hasPermission(kabir, "P1");
+        hasPermission(kabir, "P2");
+        hasPermission(kabir, "P3");
+        Assert.assertEquals(3, projectChecks.get());
+
+        //Adding one more starts again, so only the newest decision is still there
+        hasPermission(kabir, "P4");
+        Assert.assertEquals(4, projectChecks.get());
+        hasPermission(kabir, "P4");
+        Assert.assertEquals(4, projectChecks.get());
+        hasPermission(kabir, "P1");
+        Assert.assertEquals(5, projectChecks.get());
+    }
+
+    private PermissionCache createCache(int maxEntries) {
+        return new PermissionCache(
+                GlobalPermissionManagerBuilder.getForCallback((key, user) -> {
+                    globalChecks.incrementAndGet();
+                    return allowed;
+                }),
+                PermissionManagerBuilder.getForCallback((permission, project, user) -> {
+                    projectChecks.incrementAndGet();
+                    final Runnable task = duringCheck;
+                    if (task != null) {
+                        duringCheck = null;
+                        task.run();
+                        //What we were told before the permissions changed
+                        return true;
+                    }
+                    return allowed;
+                }),
+                ProjectManagerBuilder.getAnyProjectManager(),
+                TTL_MS, maxEntries, time::get);
+    }
+
+    private boolean hasPermission(ApplicationUser user, String projectCode) {
+        return cache.hasPermission(user, projectCode, ProjectPermissions.TRANSITION_ISSUES);
+    }
+
+    private static ApplicationUser user(String key) {
+        final ApplicationUser user = mock(ApplicationUser.class);
+        when(user.getKey()).thenReturn(key);
+        return user;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor for applying the events to the boards in the tests. It either runs the tasks on the calling thread, or
+ * holds on to them until the test runs them, so that the tests don't need to wait for other threads.
+ *
+ * @author Kabir Khan
+ */
+public class TestEventExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+    private final boolean queue;
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private volatile boolean shutdown;
+
+    private TestEventExecutor(boolean queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Gets an executor running the tasks on the calling thread. It can't delay tasks, so the events must not be
+     * coalesced.
+     */
+    public static TestEventExecutor callingThread() {
+        return new TestEventExecutor(false);
+    }
+
+    /**
+     * Gets an executor holding on to the tasks until {@link #runNext()} is called
+     */
+    public static TestEventExecutor queueing() {
+        return new TestEventExecutor(true);
+    }
+
+    public int getTaskCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Gets the delay in milliseconds the next task was scheduled with
+     */
+    public long getNextDelayMs() {
+        return delays.get(0);
+    }
+
+    public void runNext() {
+        delays.remove(0);
+        tasks.remove(0).run();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (queue) {
+            tasks.add(command);
+            delays.add(0L);
+        } else {
+            command.run();
+        }
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (!queue) {
+            throw new UnsupportedOperationException("Can't delay tasks on the calling thread");
+        }
+        tasks.add(command);
+        delays.add(unit.toMillis(delay));
+        //BoardManagerImpl does not use the future
+        return null;
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        final List<Runnable> notRun = new ArrayList<>(tasks);
+        tasks.clear();
+        delays.clear();
+        return notRun;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return true;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jirban.jira.impl.board;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jirban.jira.impl.JirbanIssueEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The {@link BoardChangeLog} is package protected, so this test lives in the same package.
+ *
+ * @author Kabir Khan
+ */
+public class BoardChangeLogTest {
+
+    private final List<List<Integer>> compacted = new ArrayList<>();
+
+    @Test
+    public void testEmpty() {
+        BoardChangeLog log = createLog(8, 2, 5);
+        Assert.assertEquals(0, log.size());
+        Assert.assertEquals(5, log.getStartView());
+        Assert.assertEquals(5, log.getEndView());
+        checkChanges(log, 5);
+        //A client older than the board needs a full refresh
+        Assert.assertNull(log.getChangesSince(4));
+    }
+
+    @Test
+    public void testAppendAndRead() {
+        BoardChangeLog log = createLog(8, 2, 0);
+        for (int view = 1 ; view <= 5 ; view++) {
+            log.append(change(view));
+        }
+        Assert.assertEquals(5, log.size());
+        Assert.assertEquals(0, log.getStartView());
+        Assert.assertEquals(5, log.getEndView());
+
+        checkChanges(log, 0, 1, 2, 3, 4, 5);
+        checkChanges(log, 2, 3, 4, 5);
+        checkChanges(log, 4, 5);
+        checkChanges(log, 5);
+        Assert.assertTrue(compacted.isEmpty());
+    }
+
+    @Test
+    public void testBinarySearchWithGapsInTheViews() {
+        //The changes the registry holds don't always have consecutive views
+        BoardChangeLog log = createLog(16, 4, 0);
+        final int[] views = {2, 3, 7, 10, 11, 12, 20};
+        for (int view : views) {
+            log.append(change(view));
+        }
+        checkChanges(log, 0, 2, 3, 7, 10, 11, 12, 20);
+        checkChanges(log, 1, 2, 3, 7, 10, 11, 12, 20);
+        checkChanges(log, 3, 7, 10, 11, 12, 20);
+        checkChanges(log, 5, 7, 10, 11, 12, 20);
+        checkChanges(log, 9, 10, 11, 12, 20);
+        checkChanges(log, 12, 20);
+        checkChanges(log, 19, 20);
+        checkChanges(log, 20);
+    }
+
+    @Test
+    public void testCapacityAndChunkSize() {
+        //The capacity is rounded up to 8, and the chunk size is capped at half of that
+        BoardChangeLog log = createLog(5, 100, 0);
+        for (int view = 1 ; view <= 8 ; view++) {
+            log.append(change(view));
+        }
+        Assert.assertEquals(8, log.size());
+        Assert.assertTrue(compacted.isEmpty());
+
+        log.append(change(9));
+        Assert.assertEquals(5, log.size());
+        Assert.assertEquals(1, compacted.size());
+        Assert.assertEquals(views(1, 2, 3, 4), compacted.get(0));
+        Assert.assertEquals(4, log.getStartView());
+    }
+
+    @Test
+    public void testWrapAround() {
+        BoardChangeLog log = createLog(8, 2, 0);
+        for (int view = 1 ; view <= 30 ; view++) {
+            log.append(change(view));
+            Assert.assertTrue(log.size() <= 8);
+            Assert.assertEquals(view, log.getEndView());
+
+            //Everything from the start view onwards can be read, and anything older needs a full refresh
+            final int startView = log.getStartView();
+            Assert.assertEquals(view - log.size(), startView);
+            for (int since = startView ; since <= view ; since++) {
+                final List<BoardChange> changes = log.getChangesSince(since);
+                Assert.assertNotNull(changes);
+                Assert.assertEquals(view - since, changes.size());
+                for (int i = 0 ; i < changes.size() ; i++) {
+                    Assert.assertEquals(since + i + 1, changes.get(i).getView());
+                }
+            }
+            if (startView > 0) {
+                Assert.assertNull(log.getChangesSince(startView - 1));
+                Assert.assertNull(log.getChangesSince(0));
+            }
+        }
+
+        //The dropped changes were handed over in order, a chunk at a time
+        int expectedView = 1;
+        for (List<Integer> chunk : compacted) {
+            Assert.assertEquals(2, chunk.size());
+            for (Integer view : chunk) {
+                Assert.assertEquals(expectedView++, view.intValue());
+            }
+        }
+        Assert.assertEquals(log.getStartView() + 1, expectedView);
+    }
+
+    @Test
+    public void testChangesStillReadableWhenCompacted() {
+        final BoardChangeLog[] holder = new BoardChangeLog[1];
+        final List<Integer> seenWhenCompacting = new ArrayList<>();
+        holder[0] = new BoardChangeLog(4, 2, 0, chunk -> {
+            //The chunk has not been dropped yet, so a reader still finds it in the log
+            final List<BoardChange> changes = holder[0].getChangesSince(chunk.get(0).getView() - 1);
+            Assert.assertNotNull(changes);
+            changes.forEach(change -> seenWhenCompacting.add(change.getView()));
+        });
+        for (int view = 1 ; view <= 5 ; view++) {
+            holder[0].append(change(view));
+        }
+        Assert.assertEquals(views(1, 2, 3, 4), seenWhenCompacting);
+        Assert.assertEquals(2, holder[0].getStartView());
+        Assert.assertNull(holder[0].getChangesSince(1));
+        checkChanges(holder[0], 2, 3, 4, 5);
+    }
+
+    @Test
+    public void testExpire() {
+        BoardChangeLog log = createLog(16, 2, 0);
+        for (int view = 1 ; view <= 7 ; view++) {
+            log.append(change(view));
+        }
+
+        //Nothing is old enough
+        log.expire(0, Integer.MAX_VALUE);
+        Assert.assertEquals(7, log.size());
+        Assert.assertTrue(compacted.isEmpty());
+
+        //Only the chunks which the clients have all seen are dropped
+        log.expire(Long.MAX_VALUE, 4);
+        Assert.assertEquals(3, log.size());
+        Assert.assertEquals(4, log.getStartView());
+        Assert.assertEquals(2, compacted.size());
+        Assert.assertEquals(views(1, 2), compacted.get(0));
+        Assert.assertEquals(views(3, 4), compacted.get(1));
+        //A chunk is only dropped once the client has seen all of it
+        log.expire(Long.MAX_VALUE, 5);
+        Assert.assertEquals(3, log.size());
+
+        //The last change does not make up a whole chunk, so it stays
+        log.expire(Long.MAX_VALUE, Integer.MAX_VALUE);
+        Assert.assertEquals(1, log.size());
+        Assert.assertEquals(6, log.getStartView());
+        Assert.assertEquals(views(5, 6), compacted.get(2));
+        checkChanges(log, 6, 7);
+        Assert.assertNull(log.getChangesSince(5));
+    }
+
+    private BoardChangeLog createLog(int capacity, int chunkSize, int view) {
+        return new BoardChangeLog(capacity, chunkSize, view, chunk -> {
+            final List<Integer> views = new ArrayList<>();
+            chunk.forEach(change -> views.add(change.getView()));
+            compacted.add(views);
+        });
+    }
+
+    private static BoardChange change(int view) {
+        return new BoardChange.Builder(null, view, JirbanIssueEvent.createDeleteEvent("TDP-" + view, "TDP")).build();
+    }
+
+    private static void checkChanges(BoardChangeLog log, int sinceView, int... expectedViews) {
+        final List<BoardChange> changes = log.getChangesSince(sinceView);
+        Assert.assertNotNull(changes);
+        final List<Integer> views = new ArrayList<>();
+        changes.forEach(change -> views.add(change.getView()));
+        Assert.assertEquals(views(expectedViews), views);
+    }
+
+    private static List<Integer> views(int... views) {
+        final List<Integer> list = new ArrayList<>();
+        for (int view : views) {
+            list.add(view);
+        }
+        return list;
+    }
+}
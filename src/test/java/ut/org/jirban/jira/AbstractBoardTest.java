@@ -17,6 +17,7 @@ package ut.org.jirban.jira;
 
 import static org.jirban.jira.impl.Constants.RANK_CUSTOM_FIELD_ID;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
@@ -24,6 +25,7 @@ import java.util.Set;
 import org.jboss.dmr.ModelNode;
 import org.jirban.jira.api.BoardConfigurationManager;
 import org.jirban.jira.api.BoardManager;
+import org.jirban.jira.api.BoardPayload;
 import org.jirban.jira.api.NextRankedIssueUtil;
 import org.jirban.jira.impl.BoardConfigurationManagerBuilder;
 import org.jirban.jira.impl.BoardManagerBuilder;
@@ -37,6 +39,7 @@ import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.label.Label;
 import com.atlassian.jira.issue.link.IssueLinkManager;
+import com.atlassian.jira.issue.search.SearchException;
 import com.atlassian.jira.junit.rules.MockitoContainer;
 import com.atlassian.jira.junit.rules.MockitoMocksInContainer;
 import com.atlassian.jira.mock.component.MockComponentWorker;
@@ -96,7 +99,9 @@ public abstract class AbstractBoardTest {
                 .setIssueRegistry(issueRegistry)
                 .setSearchCallback(searchCallback)
                 .build();
-        IssueLinkManager issueLinkManager = new IssueLinkManagerBuilder().build();
+        IssueLinkManager issueLinkManager = new IssueLinkManagerBuilder()
+                .setIssueRegistry(issueRegistry)
+                .build();
         worker.init();
 
         BoardManagerBuilder boardManagerBuilder = new BoardManagerBuilder()
@@ -112,6 +117,12 @@ public abstract class AbstractBoardTest {
         boardManager = boardManagerBuilder.build();
     }
 
+    protected String getBoardJson(String userKey, boolean backlog) throws SearchException {
+        final BoardPayload<byte[]> payload =
+                boardManager.getBoardPayload(userManager.getUserByKey(userKey), backlog, "TST", false, null);
+        return new String(payload.getValue(), StandardCharsets.UTF_8);
+    }
+
     protected CreateEventBuilder createEventBuilder(String issueKey, IssueType issueType, Priority priority, String summary) {
         return new CreateEventBuilder(issueKey, issueType == null ? null : issueType.name, priority == null ? null : priority.name, summary);
     }
@@ -257,19 +268,6 @@ public abstract class AbstractBoardTest {
         }
 
         JirbanIssueEvent buildAndRegister() {
-            JirbanIssueEvent create = JirbanIssueEvent.createCreateEvent(
-                    delegate.issueKey,
-                    delegate.projectCode,
-                    delegate.issueType,
-                    delegate.priority,
-                    delegate.summary,
-                    delegate.user,
-                    delegate.components,
-                    delegate.labels,
-                    delegate.fixVersions,
-                    delegate.state,
-                    delegate.customFieldValues);
-
             IssueRegistry.CreateIssueBuilder builder = issueRegistry.issueBuilder(delegate.projectCode, delegate.issueType, delegate.priority, delegate.summary, delegate.state);
             if (delegate.username != null) {
                 builder.assignee(delegate.user);
@@ -283,7 +281,21 @@ public abstract class AbstractBoardTest {
             if (delegate.fixVersions != null) {
                 builder.fixVersions(delegate.fixVersions);
             }
-            builder.buildAndRegister();
+            Issue issue = builder.buildAndRegister();
+
+            JirbanIssueEvent create = JirbanIssueEvent.createCreateEvent(
+                    delegate.issueKey,
+                    issue.getId(),
+                    delegate.projectCode,
+                    delegate.issueType,
+                    delegate.priority,
+                    delegate.summary,
+                    delegate.user,
+                    delegate.components,
+                    delegate.labels,
+                    delegate.fixVersions,
+                    delegate.state,
+                    delegate.customFieldValues);
 
             if (delegate.customFieldValues != null) {
                 for (Map.Entry<Long, String> entry : delegate.customFieldValues.entrySet()) {
@@ -34,6 +34,7 @@ import static org.jirban.jira.impl.Constants.ISSUES;
 import static org.jirban.jira.impl.Constants.ISSUE_TYPES;
 import static org.jirban.jira.impl.Constants.KEY;
 import static org.jirban.jira.impl.Constants.LABELS;
+import static org.jirban.jira.impl.Constants.LINKED_ISSUES;
 import static org.jirban.jira.impl.Constants.NAME;
 import static org.jirban.jira.impl.Constants.NEW;
 import static org.jirban.jira.impl.Constants.PARALLEL_TASKS;
@@ -49,6 +50,7 @@ import static org.jirban.jira.impl.Constants.UNASSIGNED;
 import static org.jirban.jira.impl.Constants.VALUE;
 import static org.jirban.jira.impl.Constants.VIEW;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -59,7 +61,9 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.jboss.dmr.ModelNode;
+import org.jirban.jira.api.BoardPayload;
 import org.jirban.jira.impl.BoardManagerBuilder;
+import org.jirban.jira.impl.BoardManagerImpl;
 import org.jirban.jira.impl.JirbanIssueEvent;
 import org.jirban.jira.impl.board.ProjectParallelTaskOptionsLoaderBuilder;
 import org.junit.Assert;
@@ -67,6 +71,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.atlassian.jira.issue.search.SearchException;
+import com.atlassian.jira.user.ApplicationUser;
 
 /**
  * Tests the output of what happens when changes are made to the board issues.
@@ -168,6 +173,75 @@ public class BoardChangeRegistryTest extends AbstractBoardTest {
         checkDeletes(changesNode, "TBG-1");
     }
 
+    @Test
+    public void testChangesSharedBetweenPolls() throws Exception {
+        JirbanIssueEvent delete = JirbanIssueEvent.createDeleteEvent("TDP-3", "TDP");
+        boardManager.handleEvent(delete, nextRankedIssueUtil);
+
+        //Polls from the same view get the same delta until the board changes
+        String json = boardManager.getChangesJson(userManager.getUserByKey("kabir"), false, "TST", 0);
+        Assert.assertSame(json, boardManager.getChangesJson(userManager.getUserByKey("brian"), false, "TST", 0));
+        Assert.assertNotSame(json, boardManager.getChangesJson(userManager.getUserByKey("kabir"), true, "TST", 0));
+
+        delete = JirbanIssueEvent.createDeleteEvent("TDP-7", "TDP");
+        boardManager.handleEvent(delete, nextRankedIssueUtil);
+        String newJson = boardManager.getChangesJson(userManager.getUserByKey("kabir"), false, "TST", 0);
+        Assert.assertNotSame(json, newJson);
+        checkDeletes(ModelNode.fromJSONString(newJson), "TDP-3", "TDP-7");
+    }
+
+    @Test
+    public void testEntityTags() throws Exception {
+        final ApplicationUser kabir = userManager.getUserByKey("kabir");
+
+        //Asking again with the tag of the current view of the board gets nothing
+        BoardPayload<byte[]> board = boardManager.getBoardPayload(kabir, false, "TST", false, null);
+        Assert.assertTrue(board.isModified());
+        Assert.assertEquals(0, ModelNode.fromJSONString(new String(board.getValue(), StandardCharsets.UTF_8)).get("view").asInt());
+        Assert.assertFalse(boardManager.getBoardPayload(kabir, false, "TST", false, board.getEntityTag()).isModified());
+        //The backlog and the format give different entities
+        Assert.assertTrue(boardManager.getBoardPayload(kabir, true, "TST", false, board.getEntityTag()).isModified());
+        Assert.assertTrue(boardManager.getBoardPayload(kabir, false, "TST", true, board.getEntityTag()).isModified());
+
+        BoardPayload<byte[]> changes = boardManager.getChangesPayload(kabir, false, "TST", 0, false, null);
+        Assert.assertTrue(changes.isModified());
+        Assert.assertFalse(boardManager.getChangesPayload(kabir, false, "TST", 0, false, changes.getEntityTag()).isModified());
+
+        //Once the board changes, the old tags no longer match
+        JirbanIssueEvent delete = JirbanIssueEvent.createDeleteEvent("TDP-3", "TDP");
+        boardManager.handleEvent(delete, nextRankedIssueUtil);
+        Assert.assertTrue(boardManager.getBoardPayload(kabir, false, "TST", false, board.getEntityTag()).isModified());
+        changes = boardManager.getChangesPayload(kabir, false, "TST", 0, false, changes.getEntityTag());
+        Assert.assertTrue(changes.isModified());
+        checkDeletes(ModelNode.fromJSONString(new String(changes.getValue(), StandardCharsets.UTF_8)), "TDP-3");
+
+        //The tags are weak, so they match whether the client sends them weak or not
+        Assert.assertFalse(BoardPayload.matches(null, changes.getEntityTag()));
+        Assert.assertTrue(BoardPayload.matches("\"x\", " + changes.getEntityTag().substring(2), changes.getEntityTag()));
+        Assert.assertTrue(BoardPayload.matches("*", changes.getEntityTag()));
+    }
+
+    @Test
+    public void testChangeRetention() throws Exception {
+        JirbanIssueEvent delete = JirbanIssueEvent.createDeleteEvent("TDP-3", "TDP");
+        boardManager.handleEvent(delete, nextRankedIssueUtil);
+        delete = JirbanIssueEvent.createDeleteEvent("TDP-7", "TDP");
+        boardManager.handleEvent(delete, nextRankedIssueUtil);
+        boardManager.getChangesJson(userManager.getUserByKey("kabir"), false, "TST", 1);
+
+        ModelNode retention = ModelNode.fromJSONString(
+                boardManager.getChangeRetentionJson(userManager.getUserByKey("kabir"), "TST"));
+        Assert.assertEquals(2, retention.get(VIEW).asInt());
+        Assert.assertEquals(0, retention.get("log", "start-view").asInt());
+        Assert.assertEquals(2, retention.get("log", "end-view").asInt());
+        Assert.assertEquals(2, retention.get("log", "size").asInt());
+        Assert.assertEquals(0, retention.get("checkpoints", "count").asInt());
+        //The oldest view polled with recently
+        Assert.assertEquals(1, retention.get("watermark").asInt());
+        Assert.assertEquals(0, retention.get("compacted-changes").asLong());
+        Assert.assertEquals(0, retention.get("full-refreshes").asLong());
+    }
+
     @Test
     public void testCreateIssuesAssignees() throws Exception {
         //Add an issue which does not bring in new expectedAssignees
@@ -1566,13 +1640,22 @@ public class BoardChangeRegistryTest extends AbstractBoardTest {
         checkUpdates(changes);
         checkDeletes(changes, "TDP-1");
 
-        //Move an issue from a done state into a normal state will force a full refresh
+        //Move an issue from a done state into a normal state will resync it, i.e. delete it and add it with its
+        //current data
         update = updateEventBuilder("TDP-4").state("TDP-A").buildAndRegister();
         searchCallback.searched = false;
         boardManager.handleEvent(update, nextRankedIssueUtil);
         Assert.assertTrue(searchCallback.searched);
 
-        getChangesEnsuringFullRefresh(0);
+        changes = getChangesJson(0, 2, new NewAssigneesChecker("brian"), new NewRankChecker().rank(1, "TDP-4"));
+        checkAdds(changes, new AddIssueData("TDP-4", IssueType.TASK, Priority.LOWEST, "Four", "TDP-A", "brian"));
+        checkUpdates(changes);
+        checkDeletes(changes, "TDP-1", "TDP-4");
+
+        changes = getChangesJson(1, 2, new NewAssigneesChecker("brian"), new NewRankChecker().rank(1, "TDP-4"));
+        checkAdds(changes, new AddIssueData("TDP-4", IssueType.TASK, Priority.LOWEST, "Four", "TDP-A", "brian"));
+        checkUpdates(changes);
+        checkDeletes(changes, "TDP-4");
     }
 
     @Test
@@ -1598,23 +1681,37 @@ public class BoardChangeRegistryTest extends AbstractBoardTest {
         //Override the default configuration set up by the @Before method to one with done states set up
         setupInitialBoard("config/board-tdp-done.json");
 
-        //Moving a done issue to a non-done state should cause a full refresh
+        //Moving a done issue to a non-done state should resync it
         JirbanIssueEvent update = updateEventBuilder("TDP-3").state("TDP-A").buildAndRegister();
         boardManager.handleEvent(update, nextRankedIssueUtil);
-        getChangesEnsuringFullRefresh(0);
+        ModelNode changes = getChangesJson(0, 1, new NewRankChecker().rank(2, "TDP-3"));
+        checkAdds(changes, new AddIssueData("TDP-3", IssueType.TASK, Priority.LOW, "Three", "TDP-A", "kabir"));
+        checkUpdates(changes);
+        checkDeletes(changes, "TDP-3");
 
         //Moving the issue back to a done state should appear as a delete
         update = updateEventBuilder("TDP-3").state("TDP-D").buildAndRegister();
         boardManager.handleEvent(update, nextRankedIssueUtil);
-        ModelNode changes = getChangesJson(0, 1);
+        changes = getChangesJson(0, 2);
+        checkAdds(changes);
+        checkUpdates(changes);
+        checkDeletes(changes, "TDP-3");
+        changes = getChangesJson(1, 2);
         checkAdds(changes);
         checkUpdates(changes);
         checkDeletes(changes, "TDP-3");
 
-        //Moving the issue back to a non-done state should cause a full refresh
+        //Moving the issue back to a non-done state should resync it again
         update = updateEventBuilder("TDP-3").state("TDP-A").buildAndRegister();
         boardManager.handleEvent(update, nextRankedIssueUtil);
-        getChangesEnsuringFullRefresh(0);
+        changes = getChangesJson(0, 3, new NewRankChecker().rank(2, "TDP-3"));
+        checkAdds(changes, new AddIssueData("TDP-3", IssueType.TASK, Priority.LOW, "Three", "TDP-A", "kabir"));
+        checkUpdates(changes);
+        checkDeletes(changes, "TDP-3");
+        changes = getChangesJson(2, 3, new NewRankChecker().rank(2, "TDP-3"));
+        checkAdds(changes, new AddIssueData("TDP-3", IssueType.TASK, Priority.LOW, "Three", "TDP-A", "kabir"));
+        checkUpdates(changes);
+        checkDeletes(changes, "TDP-3");
     }
 
     @Test
@@ -1630,21 +1727,61 @@ public class BoardChangeRegistryTest extends AbstractBoardTest {
         checkUpdates(changes);
         checkDeletes(changes, "TDP-2");
 
-        //Moving the issue back to a non-done state should cause a full refresh
+        //Moving the issue back to a non-done state should resync it
         update = updateEventBuilder("TDP-2").state("TDP-A").buildAndRegister();
         boardManager.handleEvent(update, nextRankedIssueUtil);
-        getChangesEnsuringFullRefresh(0);
-
+        changes = getChangesJson(0, 2, new NewRankChecker().rank(1, "TDP-2"));
+        checkAdds(changes, new AddIssueData("TDP-2", IssueType.TASK, Priority.HIGH, "Two", "TDP-A", "kabir")
+                .components("C2").labels("L2").fixVersions("F2"));
+        checkUpdates(changes);
+        checkDeletes(changes, "TDP-2");
 
         //Moving the issue back to a done state should appear as a delete
         update = updateEventBuilder("TDP-2").state("TDP-C").buildAndRegister();
         boardManager.handleEvent(update, nextRankedIssueUtil);
-        changes = getChangesJson(0, 1);
+        changes = getChangesJson(0, 3);
         checkAdds(changes);
         checkUpdates(changes);
         checkDeletes(changes, "TDP-2");
     }
 
+    @Test
+    public void testReloadBoard() throws Exception {
+        //Make some changes we get no events for
+        issueRegistry.updateIssue("TDP-1", null, null, "One Changed", null, null, null, null, null);
+        issueRegistry.rerankIssue("TDP-7", "TDP-1");
+        issueRegistry.deleteIssue("TDP-3");
+        issueRegistry.issueBuilder("TDP", "bug", "high", "Eight", "TDP-D")
+                .assignee("jason").buildAndRegister();
+
+        //Reloading the board should pick them up as changes rather than needing a full refresh
+        ((BoardManagerImpl) boardManager).forceRefresh("TST");
+        checkViewId(4);
+
+        //TDP-1, TDP-3 and TDP-8 get resynced, and TDP-7 gets reranked
+        ModelNode changes = getChangesJson(0, 4, new NewAssigneesChecker("jason"),
+                new NewRankChecker().rank(0, "TDP-7").rank(1, "TDP-1").rank(6, "TDP-8"));
+        checkAdds(changes,
+                new AddIssueData("TDP-1", IssueType.TASK, Priority.HIGHEST, "One Changed", "TDP-A", "kabir")
+                        .components("C1").labels("L1").fixVersions("F1"),
+                new AddIssueData("TDP-8", IssueType.BUG, Priority.HIGH, "Eight", "TDP-D", "jason"));
+        checkUpdates(changes);
+        checkDeletes(changes, "TDP-1", "TDP-3", "TDP-8");
+
+        //Nothing changed, so reloading again leaves the board as it is
+        ((BoardManagerImpl) boardManager).forceRefresh("TST");
+        checkViewId(4);
+        checkNoIssueChanges(4, 4);
+
+        //Events carry on from the reloaded board
+        JirbanIssueEvent update = updateEventBuilder("TDP-2").summary("Two Changed").buildAndRegister();
+        boardManager.handleEvent(update, nextRankedIssueUtil);
+        changes = getChangesJson(4, 5);
+        checkAdds(changes);
+        checkUpdates(changes, new UpdateIssueData("TDP-2").summary("Two Changed"));
+        checkDeletes(changes);
+    }
+
     @Test
     public void testDeleteAndRankIssues() throws Exception {
         issueRegistry.deleteIssue("TDP-3");
@@ -1708,6 +1845,108 @@ public class BoardChangeRegistryTest extends AbstractBoardTest {
         checkDeletes(changesNode, "TDP-1");
     }
 
+    @Test
+    public void testLinkedIssues() throws Exception {
+        JirbanIssueEvent event = JirbanIssueEvent.createLinkCreateEvent("TDP-1", "TUP-1", "TUP", "Linked One", "TUP-A");
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        ModelNode changesNode = getChangesJson(0, 1);
+        checkUpdates(changesNode, new UpdateIssueData("TDP-1"));
+        checkLinkedIssues(changesNode, "TDP-1", linkedIssue("TUP-1", 0, "Linked One"));
+
+        event = JirbanIssueEvent.createLinkCreateEvent("TDP-2", "TUP-1", "TUP", "Linked One", "TUP-A");
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        checkViewId(2);
+
+        //Both issues linking to the linked issue get updated, one view each
+        event = JirbanIssueEvent.createLinkedIssueUpdateEvent("TUP-1", "TUP", "Linked One-1", "TUP-B");
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        changesNode = getChangesJson(2, 4);
+        checkUpdates(changesNode, new UpdateIssueData("TDP-1"), new UpdateIssueData("TDP-2"));
+        checkLinkedIssues(changesNode, "TDP-1", linkedIssue("TUP-1", 1, "Linked One-1"));
+        checkLinkedIssues(changesNode, "TDP-2", linkedIssue("TUP-1", 1, "Linked One-1"));
+
+        //Nothing links to this one
+        event = JirbanIssueEvent.createLinkedIssueUpdateEvent("TUP-2", "TUP", "Linked Two", "TUP-C");
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        checkViewId(4);
+
+        event = JirbanIssueEvent.createLinkDeleteEvent("TDP-1", "TUP-1", "TUP");
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        changesNode = getChangesJson(4, 5);
+        checkUpdates(changesNode, new UpdateIssueData("TDP-1"));
+        checkLinkedIssues(changesNode, "TDP-1");
+
+        //Only TDP-2 links to it now
+        event = JirbanIssueEvent.createLinkedIssueDeleteEvent("TUP-1", "TUP");
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        changesNode = getChangesJson(5, 6);
+        checkUpdates(changesNode, new UpdateIssueData("TDP-2"));
+        checkLinkedIssues(changesNode, "TDP-2");
+
+        changesNode = getChangesJson(0, 6);
+        checkUpdates(changesNode, new UpdateIssueData("TDP-1"), new UpdateIssueData("TDP-2"));
+        checkLinkedIssues(changesNode, "TDP-1");
+        checkLinkedIssues(changesNode, "TDP-2");
+    }
+
+    @Test
+    public void testLinkedIssuesOfCreatedIssue() throws Exception {
+        issueRegistry.issueBuilder("TUP", "task", "high", "Linked One", "TUP-A").buildAndRegister();
+        issueRegistry.issueBuilder("TUP", "task", "high", "Linked Two", "TUP-B").buildAndRegister();
+
+        JirbanIssueEvent event = createEventBuilder("TDP-8", IssueType.BUG, Priority.HIGH, "Eight")
+                .assignee("kabir")
+                .state("TDP-D")
+                .buildAndRegister();
+        issueRegistry.linkIssue("TDP-8", "TUP-1");
+        issueRegistry.linkIssue("TUP-2", "TDP-8");
+
+        //Jira sends the events for the links created along with the issue before the create event, so the board
+        //does not have the issue yet
+        boardManager.handleEvent(
+                JirbanIssueEvent.createLinkCreateEvent("TDP-8", "TUP-1", "TUP", "Linked One", "TUP-A"), nextRankedIssueUtil);
+        boardManager.handleEvent(
+                JirbanIssueEvent.createLinkCreateEvent("TDP-8", "TUP-2", "TUP", "Linked Two", "TUP-B"), nextRankedIssueUtil);
+        checkViewId(0);
+
+        //The links are loaded when the issue is created
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        ModelNode changesNode = getChangesJson(0, 1, new NewRankChecker().rank(7, "TDP-8"));
+        checkAdds(changesNode, new AddIssueData("TDP-8", IssueType.BUG, Priority.HIGH, "Eight", "TDP-D", "kabir"));
+        checkLinkedIssues(changesNode, NEW, "TDP-8",
+                linkedIssue("TUP-1", 0, "Linked One"), linkedIssue("TUP-2", 1, "Linked Two"));
+
+        //The board knows that the created issue links to them
+        event = JirbanIssueEvent.createLinkedIssueUpdateEvent("TUP-1", "TUP", "Linked One-1", "TUP-C");
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        changesNode = getChangesJson(1, 2);
+        checkUpdates(changesNode, new UpdateIssueData("TDP-8"));
+        checkLinkedIssues(changesNode, "TDP-8",
+                linkedIssue("TUP-1", 2, "Linked One-1"), linkedIssue("TUP-2", 1, "Linked Two"));
+    }
+
+    private ModelNode linkedIssue(String key, int state, String summary) {
+        ModelNode linkedIssue = new ModelNode();
+        linkedIssue.get(KEY).set(key);
+        linkedIssue.get("state").set(state);
+        linkedIssue.get(SUMMARY).set(summary);
+        return linkedIssue;
+    }
+
+    private void checkLinkedIssues(ModelNode changesNode, String issueKey, ModelNode...expectedLinkedIssues) {
+        checkLinkedIssues(changesNode, "update", issueKey, expectedLinkedIssues);
+    }
+
+    private void checkLinkedIssues(ModelNode changesNode, String changeType, String issueKey, ModelNode...expectedLinkedIssues) {
+        for (ModelNode issue : changesNode.get(CHANGES, ISSUES, changeType).asList()) {
+            if (issue.get(KEY).asString().equals(issueKey)) {
+                Assert.assertEquals(Arrays.asList(expectedLinkedIssues), issue.get(LINKED_ISSUES).asList());
+                return;
+            }
+        }
+        Assert.fail("No " + changeType + " for " + issueKey);
+    }
+
     private ModelNode checkNoIssueChanges(int fromView, int expectedView, NewChecker...checkers) throws SearchException {
         return checkNoIssueChanges(fromView, expectedView, false, checkers);
     }
@@ -1881,7 +2120,7 @@ public class BoardChangeRegistryTest extends AbstractBoardTest {
     }
 
     private void checkViewId(int expectedViewId) throws SearchException {
-        String json = boardManager.getBoardJson(userManager.getUserByKey("kabir"), false, "TST");
+        String json = getBoardJson("kabir", false);
         Assert.assertNotNull(json);
         ModelNode boardNode = ModelNode.fromJSONString(json);
         Assert.assertEquals(expectedViewId, boardNode.get(VIEW).asInt());
@@ -48,23 +48,29 @@ import static org.jirban.jira.impl.Constants.VALUE;
 import static org.jirban.jira.impl.Constants.WIP;
 import static org.jirban.jira.impl.board.CustomFieldValue.UNSET_VALUE;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 import org.jirban.jira.impl.BoardManagerBuilder;
+import org.jirban.jira.impl.BoardManagerImpl;
 import org.jirban.jira.impl.JirbanIssueEvent;
+import org.jirban.jira.impl.TestEventExecutor;
 import org.jirban.jira.impl.board.ProjectParallelTaskOptionsLoaderBuilder;
+import org.jirban.jira.impl.util.CborEncoder;
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.atlassian.jira.issue.search.SearchException;
 
+import ut.org.jirban.jira.mock.CustomFieldManagerBuilder;
 import ut.org.jirban.jira.mock.PermissionManagerBuilder;
 
 /**
@@ -1440,8 +1446,101 @@ public class BoardManagerTest extends AbstractBoardTest {
         checkRankIssuesPermissions(false);
     }
 
+    @Test
+    public void testRankIssuesPermissionsWithCachedBoard() throws Exception {
+        initializeMocks("config/board-tdp.json", new AdditionalBuilderInit() {
+            @Override
+            public void initialise(BoardManagerBuilder boardManagerBuilder) {
+                boardManagerBuilder.setPermissionManager(
+                        PermissionManagerBuilder.getForCallback((permission, project, user) -> user.getKey().equals("kabir")));
+            }
+        });
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
+                .assignee("kabir").buildAndRegister();
+
+        //The same view of the board should be rendered once and shared by users with the same permissions
+        byte[] json = getBoardBytes("kabir", false);
+        Assert.assertSame(json, getBoardBytes("kabir", false));
+        checkRankIssuesPermissions(ModelNode.fromJSONString(new String(json, StandardCharsets.UTF_8)), true);
+
+        //A user with different permissions gets a different rendering of the same view
+        byte[] otherJson = getBoardBytes("brian", false);
+        Assert.assertNotSame(json, otherJson);
+        checkRankIssuesPermissions(ModelNode.fromJSONString(new String(otherJson, StandardCharsets.UTF_8)), false);
+
+        //The same goes for the CBOR
+        byte[] cbor = getBoardBytes("kabir", true);
+        Assert.assertSame(cbor, getBoardBytes("kabir", true));
+        Assert.assertNotSame(cbor, getBoardBytes("brian", true));
+
+        //A new view of the board is rendered again
+        JirbanIssueEvent update = updateEventBuilder("TDP-1").summary("Uno").buildAndRegister();
+        boardManager.handleEvent(update, nextRankedIssueUtil);
+        byte[] updatedJson = getBoardBytes("kabir", false);
+        Assert.assertNotSame(json, updatedJson);
+        Assert.assertEquals(1, ModelNode.fromJSONString(new String(updatedJson, StandardCharsets.UTF_8)).get("view").asInt());
+        Assert.assertNotSame(cbor, getBoardBytes("kabir", true));
+    }
+
+    @Test
+    public void testCborMatchesJson() throws Exception {
+        initializeMocks("config/board-tdp-backlog.json");
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
+                .assignee("kabir").components("C1").labels("L1").fixVersions("F1").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "bug", "high", "Two \u00fc", "TDP-B")
+                .assignee("brian").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "feature", "low", "Three", "TDP-C")
+                .labels("L1", "L2").buildAndRegister();
+
+        //The board is streamed separately for each format, but should have the same content in the same order
+        for (boolean backlog : new boolean[]{false, true}) {
+            final String json = getBoardJson("kabir", backlog);
+            final byte[] cbor = boardManager.getBoardPayload(
+                    userManager.getUserByKey("kabir"), backlog, "TST", true, null).getValue();
+            Assert.assertArrayEquals(CborEncoder.encode(ModelNode.fromJSONString(json)), cbor);
+        }
+    }
+
+    private byte[] getBoardBytes(String user, boolean cbor) throws SearchException {
+        return boardManager.getBoardPayload(userManager.getUserByKey(user), false, "TST", cbor, null).getValue();
+    }
+
+    @Test
+    public void testRankIssuesPermissionsCached() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+        initializeMocks("config/board-tdp.json", new AdditionalBuilderInit() {
+            @Override
+            public void initialise(BoardManagerBuilder boardManagerBuilder) {
+                boardManagerBuilder.setPermissionManager(
+                        PermissionManagerBuilder.getForCallback((permission, project, user) -> {
+                            checks.incrementAndGet();
+                            return user.getKey().equals("kabir");
+                        }));
+            }
+        });
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
+                .assignee("kabir").buildAndRegister();
+
+        checkRankIssuesPermissions(ModelNode.fromJSONString(getBoardJson("kabir", false)), true);
+        final int checked = checks.get();
+        Assert.assertTrue(checked > 0);
+
+        //A new view of the board for a user we just checked does not need the permissions checking again
+        JirbanIssueEvent update = updateEventBuilder("TDP-1").summary("Uno").buildAndRegister();
+        boardManager.handleEvent(update, nextRankedIssueUtil);
+        checkRankIssuesPermissions(ModelNode.fromJSONString(getBoardJson("kabir", false)), true);
+        Assert.assertEquals(checked, checks.get());
+
+        //Other users still get checked
+        checkRankIssuesPermissions(ModelNode.fromJSONString(getBoardJson("brian", false)), false);
+        Assert.assertTrue(checks.get() > checked);
+    }
+
     private void checkRankIssuesPermissions(boolean allow) throws Exception {
-        ModelNode boardNode = getJson(0);
+        checkRankIssuesPermissions(getJson(0), allow);
+    }
+
+    private void checkRankIssuesPermissions(ModelNode boardNode, boolean allow) throws Exception {
         ModelNode projectParent = boardNode.get(PROJECTS, MAIN);
         for (String projectName : projectParent.keys()) {
             ModelNode rank = projectParent.get(projectName).get(RANK);
@@ -2071,8 +2170,191 @@ public class BoardManagerTest extends AbstractBoardTest {
 
     }
 
+    @Test
+    public void testEventsAppliedOnEventExecutor() throws Exception {
+        final TestEventExecutor executor = TestEventExecutor.queueing();
+        initializeMocks("config/board-tdp.json", new AdditionalBuilderInit() {
+            @Override
+            public void initialise(BoardManagerBuilder boardManagerBuilder) {
+                boardManagerBuilder.setEventExecutor(executor);
+            }
+        });
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A").assignee("kabir").buildAndRegister();
+        issueRegistry.issueBuilder("TBG", "task", "highest", "One", "TBG-X").assignee("kabir").buildAndRegister();
+        getJson(0);
+
+        //The events are only queued on the calling thread, and one task applies all the queued events in order
+        boardManager.handleEvent(updateEventBuilder("TDP-1").summary("Uno").buildAndRegister(), nextRankedIssueUtil);
+        boardManager.handleEvent(updateEventBuilder("TBG-1").summary("Uno").buildAndRegister(), nextRankedIssueUtil);
+        boardManager.handleEvent(updateEventBuilder("TDP-1").priority("low").buildAndRegister(), nextRankedIssueUtil);
+        boardManager.handleEvent(updateEventBuilder("TDP-1").summary("Ein").buildAndRegister(), nextRankedIssueUtil);
+        Assert.assertEquals(1, executor.getTaskCount());
+        getJson(0);
+
+        //The events for TDP-1 get merged, so we only get one new view for that issue
+        executor.runNext();
+        Assert.assertEquals(0, executor.getTaskCount());
+        ModelNode boardNode = getJson(2);
+        ModelNode allIssues = getIssuesCheckingSize(boardNode, 2);
+        checkIssue(allIssues, "TDP-1", IssueType.TASK, Priority.LOW, "Ein", 0, new AssigneeChecker(0));
+        checkIssue(allIssues, "TBG-1", IssueType.TASK, Priority.HIGHEST, "Uno", 0, new AssigneeChecker(0));
+
+        ModelNode events = ModelNode.fromJSONString(
+                boardManager.getChangeRetentionJson(userManager.getUserByKey("kabir"), "TST")).get("events");
+        Assert.assertEquals(0, events.get("queued").asInt());
+        Assert.assertEquals(2, events.get("applied").asLong());
+        Assert.assertEquals(2, events.get("coalesced").asLong());
+        Assert.assertEquals(0, events.get("overflows").asLong());
+        Assert.assertTrue(events.hasDefined("max-apply-ms"));
+
+        //An issue created and deleted before the events are applied never makes it to the board
+        boardManager.handleEvent(createEventBuilder("TDP-2", IssueType.BUG, Priority.HIGH, "Two")
+                .state("TDP-B").buildAndRegister(), nextRankedIssueUtil);
+        boardManager.handleEvent(JirbanIssueEvent.createDeleteEvent("TDP-2", "TDP"), nextRankedIssueUtil);
+        executor.runNext();
+        getIssuesCheckingSize(getJson(2), 2);
+
+        //Once the queue has been drained, the next event gets a new task
+        boardManager.handleEvent(updateEventBuilder("TDP-1").summary("Un").buildAndRegister(), nextRankedIssueUtil);
+        Assert.assertEquals(1, executor.getTaskCount());
+        executor.runNext();
+        getJson(3);
+    }
+
+    @Test
+    public void testEventsCoalescedOnEventExecutor() throws Exception {
+        final TestEventExecutor executor = TestEventExecutor.queueing();
+        initializeMocks("config/board-tdp.json", new AdditionalBuilderInit() {
+            @Override
+            public void initialise(BoardManagerBuilder boardManagerBuilder) {
+                boardManagerBuilder.setEventExecutor(executor).setEventCoalesceMs(50);
+            }
+        });
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A").assignee("kabir").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "task", "high", "Two", "TDP-B").assignee("kabir").buildAndRegister();
+        getJson(0);
+
+        //The task applying the events is scheduled to run once the events have had a chance to build up
+        boardManager.handleEvent(updateEventBuilder("TDP-1").summary("Uno").buildAndRegister(), nextRankedIssueUtil);
+        Assert.assertEquals(1, executor.getTaskCount());
+        Assert.assertEquals(50, executor.getNextDelayMs());
+        boardManager.handleEvent(updateEventBuilder("TDP-2").summary("Dos").buildAndRegister(), nextRankedIssueUtil);
+        boardManager.handleEvent(updateEventBuilder("TDP-1").priority("low").buildAndRegister(), nextRankedIssueUtil);
+        boardManager.handleEvent(updateEventBuilder("TDP-2").assignee("brian").buildAndRegister(), nextRankedIssueUtil);
+        boardManager.handleEvent(updateEventBuilder("TDP-1").summary("Ein").buildAndRegister(), nextRankedIssueUtil);
+        Assert.assertEquals(1, executor.getTaskCount());
+        getJson(0);
+
+        //Each issue gets one new view
+        executor.runNext();
+        Assert.assertEquals(0, executor.getTaskCount());
+        ModelNode boardNode = getJson(2, new BoardAssigneeChecker("brian", "kabir"));
+        ModelNode allIssues = getIssuesCheckingSize(boardNode, 2);
+        checkIssue(allIssues, "TDP-1", IssueType.TASK, Priority.LOW, "Ein", 0, new AssigneeChecker(1));
+        checkIssue(allIssues, "TDP-2", IssueType.TASK, Priority.HIGH, "Dos", 1, new AssigneeChecker(0));
+
+        ModelNode events = ModelNode.fromJSONString(
+                boardManager.getChangeRetentionJson(userManager.getUserByKey("kabir"), "TST")).get("events");
+        Assert.assertEquals(0, events.get("queued").asInt());
+        Assert.assertEquals(2, events.get("applied").asLong());
+        Assert.assertEquals(3, events.get("coalesced").asLong());
+
+        //The next event after the queue was drained gets delayed again
+        boardManager.handleEvent(updateEventBuilder("TDP-1").summary("Un").buildAndRegister(), nextRankedIssueUtil);
+        Assert.assertEquals(1, executor.getTaskCount());
+        Assert.assertEquals(50, executor.getNextDelayMs());
+        executor.runNext();
+        getJson(3);
+    }
+
+    @Test
+    public void testReloadBoardSwappedOnEventExecutor() throws Exception {
+        final TestEventExecutor executor = TestEventExecutor.queueing();
+        initializeMocks("config/board-tdp.json", new AdditionalBuilderInit() {
+            @Override
+            public void initialise(BoardManagerBuilder boardManagerBuilder) {
+                boardManagerBuilder.setEventExecutor(executor);
+            }
+        });
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A").assignee("kabir").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "task", "high", "Two", "TDP-B").assignee("kabir").buildAndRegister();
+        getJson(0);
+
+        //A change we get no event for
+        issueRegistry.updateIssue("TDP-1", null, null, "One Changed", null, null, null, null, null);
+
+        //The reloaded board is handed to the event task to swap in, rather than being swapped in by the thread
+        //doing the reload
+        ((BoardManagerImpl) boardManager).forceRefresh("TST");
+        Assert.assertEquals(1, executor.getTaskCount());
+        getJson(0);
+
+        //Events queued in the meantime are applied by the same task, after the swap
+        boardManager.handleEvent(updateEventBuilder("TDP-2").summary("Dos").buildAndRegister(), nextRankedIssueUtil);
+        Assert.assertEquals(1, executor.getTaskCount());
+        executor.runNext();
+        Assert.assertEquals(0, executor.getTaskCount());
+        ModelNode boardNode = getJson(2);
+        ModelNode allIssues = getIssuesCheckingSize(boardNode, 2);
+        checkIssue(allIssues, "TDP-1", IssueType.TASK, Priority.HIGHEST, "One Changed", 0, new AssigneeChecker(0));
+        checkIssue(allIssues, "TDP-2", IssueType.TASK, Priority.HIGH, "Dos", 1, new AssigneeChecker(0));
+
+        //The reload is done with, so the board can be reloaded again
+        ((BoardManagerImpl) boardManager).forceRefresh("TST");
+        Assert.assertEquals(1, executor.getTaskCount());
+        executor.runNext();
+        getJson(2);
+    }
+
     @Test
     public void testRankIssue() throws Exception {
+        checkRankIssue();
+        //The board knows the ranks of all its issues, so it never needs to search for the next one
+        Assert.assertEquals(0, issueRegistry.getRankSearches());
+    }
+
+    @Test
+    public void testRankIssueWithoutLoadedRanks() throws Exception {
+        initializeMocks("config/board-tdp.json", new AdditionalBuilderInit() {
+            @Override
+            public void initialise(BoardManagerBuilder boardManagerBuilder) {
+                //Without the rank field, the board does not get the ranks of the issues it loads
+                boardManagerBuilder.setCustomFieldManager(CustomFieldManagerBuilder.getDefaultCustomFieldManager());
+            }
+        });
+        checkRankIssue();
+        Assert.assertEquals(4, issueRegistry.getRankSearches());
+    }
+
+    @Test
+    public void testRankIssueWithoutRank() throws Exception {
+        issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
+                .assignee("kabir").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "task", "high", "Two", "TDP-B")
+                .assignee("kabir").buildAndRegister();
+        issueRegistry.issueBuilder("TDP", "task", "low", "Three", "TDP-C")
+                .assignee("kabir").buildAndRegister();
+        getJson(0, new BoardAssigneeChecker("kabir"));
+
+        //An issue without a rank has nowhere to go, so it is no longer ranked
+        issueRegistry.rerankIssue("TDP-1", null);
+        issueRegistry.clearRank("TDP-1");
+        JirbanIssueEvent event = updateEventBuilder("TDP-1").rank().buildAndRegister();
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        ModelNode boardNode = getJson(1, new BoardAssigneeChecker("kabir"));
+        checkProjectRankedIssues(boardNode, "TDP", 2, 3);
+        Assert.assertEquals(0, issueRegistry.getRankSearches());
+
+        //The other issues can still be ranked from the ranks the board holds
+        issueRegistry.rerankIssue("TDP-3", "TDP-2");
+        event = updateEventBuilder("TDP-3").rank().buildAndRegister();
+        boardManager.handleEvent(event, nextRankedIssueUtil);
+        boardNode = getJson(2, new BoardAssigneeChecker("kabir"));
+        checkProjectRankedIssues(boardNode, "TDP", 3, 2);
+        Assert.assertEquals(0, issueRegistry.getRankSearches());
+    }
+
+    private void checkRankIssue() throws Exception {
         issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
                 .assignee("kabir").buildAndRegister();
         issueRegistry.issueBuilder("TDP", "task", "high", "Two", "TDP-B")
@@ -2146,6 +2428,24 @@ public class BoardManagerTest extends AbstractBoardTest {
 
     @Test
     public void testRankIssueBeforeBlacklistedIssue() throws Exception {
+        checkRankIssueBeforeBlacklistedIssue();
+        Assert.assertEquals(0, issueRegistry.getRankSearches());
+    }
+
+    @Test
+    public void testRankIssueBeforeBlacklistedIssueWithoutLoadedRanks() throws Exception {
+        initializeMocks("config/board-tdp.json", new AdditionalBuilderInit() {
+            @Override
+            public void initialise(BoardManagerBuilder boardManagerBuilder) {
+                boardManagerBuilder.setCustomFieldManager(CustomFieldManagerBuilder.getDefaultCustomFieldManager());
+            }
+        });
+        checkRankIssueBeforeBlacklistedIssue();
+        //Ranking before a blacklisted issue needs another search for each blacklisted issue
+        Assert.assertEquals(3 + 3 + 1, issueRegistry.getRankSearches());
+    }
+
+    private void checkRankIssueBeforeBlacklistedIssue() throws Exception {
         issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
                 .assignee("kabir").buildAndRegister();
         issueRegistry.issueBuilder("TDP", "task", "high", "Two", "TDP-B")
@@ -2199,6 +2499,23 @@ public class BoardManagerTest extends AbstractBoardTest {
 
     @Test
     public void testRankIssueBeforeBlacklistedIssueEnd() throws Exception {
+        checkRankIssueBeforeBlacklistedIssueEnd();
+        Assert.assertEquals(0, issueRegistry.getRankSearches());
+    }
+
+    @Test
+    public void testRankIssueBeforeBlacklistedIssueEndWithoutLoadedRanks() throws Exception {
+        initializeMocks("config/board-tdp.json", new AdditionalBuilderInit() {
+            @Override
+            public void initialise(BoardManagerBuilder boardManagerBuilder) {
+                boardManagerBuilder.setCustomFieldManager(CustomFieldManagerBuilder.getDefaultCustomFieldManager());
+            }
+        });
+        checkRankIssueBeforeBlacklistedIssueEnd();
+        Assert.assertEquals(5, issueRegistry.getRankSearches());
+    }
+
+    private void checkRankIssueBeforeBlacklistedIssueEnd() throws Exception {
         issueRegistry.issueBuilder("TDP", "task", "highest", "One", "TDP-A")
                 .assignee("kabir").buildAndRegister();
         issueRegistry.issueBuilder("TDP", "task", "high", "Two", "TDP-B")
@@ -2237,7 +2554,7 @@ public class BoardManagerTest extends AbstractBoardTest {
     }
 
     private ModelNode getJson(int expectedViewId, boolean backlog, BoardDataChecker... checkers) throws SearchException {
-        String json = boardManager.getBoardJson(userManager.getUserByKey("kabir"), backlog, "TST");
+        String json = getBoardJson("kabir", backlog);
         Assert.assertNotNull(json);
         ModelNode boardNode = ModelNode.fromJSONString(json);
         Assert.assertEquals(expectedViewId, boardNode.get("view").asInt());
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.benchmark;
+
+import static org.jirban.jira.impl.Constants.RANK_CUSTOM_FIELD_ID;
+
+import org.jirban.jira.api.BoardConfigurationManager;
+import org.jirban.jira.api.BoardManager;
+import org.jirban.jira.api.ProjectParallelTaskOptionsLoader;
+import org.jirban.jira.impl.BoardConfigurationManagerBuilder;
+import org.jirban.jira.impl.BoardManagerBuilder;
+import org.jirban.jira.impl.JiraInjectables;
+import org.jirban.jira.impl.JirbanIssueEvent;
+import org.jirban.jira.impl.board.ProjectParallelTaskOptionsLoaderBuilder;
+import org.jirban.jira.impl.config.BoardConfig;
+
+import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.link.IssueLinkManager;
+import com.atlassian.jira.mock.component.MockComponentWorker;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.user.util.UserManager;
+
+import ut.org.jirban.jira.mock.CustomFieldManagerBuilder;
+import ut.org.jirban.jira.mock.IssueLinkManagerBuilder;
+import ut.org.jirban.jira.mock.IssueRegistry;
+import ut.org.jirban.jira.mock.SearchServiceBuilder;
+import ut.org.jirban.jira.mock.UserManagerBuilder;
+
+/**
+ * Sets up the same mocks as the unit tests, with the 'TST' board from config/board-tdp.json populated with a
+ * synthetic set of issues spread over its projects, states, issue types, priorities, assignees, components,
+ * labels and fix versions.
+ *
+ * @author Kabir Khan
+ */
+public class BenchmarkBoard {
+
+    static final String BOARD_CODE = "TST";
+    private static final String CONFIG = "config/board-tdp.json";
+
+    private static final String[] TDP_STATES = new String[]{"TDP-A", "TDP-B", "TDP-C", "TDP-D"};
+    private static final String[] TBG_STATES = new String[]{"TBG-X", "TBG-Y"};
+    private static final String[] ISSUE_TYPES = new String[]{"task", "bug", "feature"};
+    private static final String[] PRIORITIES = new String[]{"highest", "high", "low", "lowest"};
+    private static final String[] USERS = new String[]{"kabir", "brian", "jason", "stuart", "james"};
+
+    private final BoardConfigurationManager boardConfigurationManager;
+    private final UserManager userManager;
+    private final IssueRegistry issueRegistry;
+    private final BoardManager boardManager;
+    private final JiraInjectables jiraInjectables;
+    private final ProjectParallelTaskOptionsLoader projectParallelTaskOptionsLoader;
+
+    private BenchmarkBoard(BoardConfigurationManager boardConfigurationManager, UserManager userManager,
+                           IssueRegistry issueRegistry, BoardManager boardManager, JiraInjectables jiraInjectables,
+                           ProjectParallelTaskOptionsLoader projectParallelTaskOptionsLoader) {
+        this.boardConfigurationManager = boardConfigurationManager;
+        this.userManager = userManager;
+        this.issueRegistry = issueRegistry;
+        this.boardManager = boardManager;
+        this.jiraInjectables = jiraInjectables;
+        this.projectParallelTaskOptionsLoader = projectParallelTaskOptionsLoader;
+    }
+
+    /**
+     * Creates the mocks and registers the issues. Two thirds of the issues go in the TDP project, and the rest in
+     * the TBG project.
+     *
+     * @param issues the number of issues
+     * @return the benchmark board
+     */
+    static BenchmarkBoard create(int issues) throws Exception {
+        BoardConfigurationManager cfgManager = new BoardConfigurationManagerBuilder()
+                .addConfigActiveObjectsFromFile(CONFIG)
+                .addSettingActiveObject(RANK_CUSTOM_FIELD_ID, "10000")
+                .setCustomFieldManager(CustomFieldManagerBuilder.loadFromResource(CONFIG))
+                .build();
+
+        MockComponentWorker worker = new MockComponentWorker();
+        UserManager userManager = new UserManagerBuilder()
+                .addDefaultUsers()
+                .build(worker);
+
+        IssueRegistry issueRegistry = new IssueRegistry(userManager);
+        SearchService searchService = new SearchServiceBuilder(worker)
+                .setIssueRegistry(issueRegistry)
+                .build();
+        IssueLinkManager issueLinkManager = new IssueLinkManagerBuilder().build();
+        worker.init();
+
+        BoardManagerBuilder boardManagerBuilder = new BoardManagerBuilder()
+                .setBoardConfigurationManager(cfgManager)
+                .setUserManager(userManager)
+                .setSearchService(searchService)
+                .setIssueLinkManager(issueLinkManager)
+                .setNextRankedIssueUtil(issueRegistry);
+
+        BenchmarkBoard board = new BenchmarkBoard(cfgManager, userManager, issueRegistry,
+                boardManagerBuilder.build(), boardManagerBuilder.buildJiraInjectables(),
+                new ProjectParallelTaskOptionsLoaderBuilder().build());
+        for (int i = 0 ; i < issues ; i++) {
+            board.registerIssue(i);
+        }
+        return board;
+    }
+
+    private Issue registerIssue(int i) {
+        final boolean tdp = i % 3 != 2;
+        final String[] states = tdp ? TDP_STATES : TBG_STATES;
+        IssueRegistry.CreateIssueBuilder builder = issueRegistry.issueBuilder(
+                tdp ? "TDP" : "TBG",
+                ISSUE_TYPES[i % ISSUE_TYPES.length],
+                PRIORITIES[i % PRIORITIES.length],
+                "Issue " + i,
+                states[i % states.length]);
+        if (i % 7 != 0) {
+            builder.assignee(USERS[i % USERS.length]);
+        }
+        if (i % 2 == 0) {
+            builder.components("C" + (i % 20));
+        }
+        if (i % 3 == 0) {
+            builder.labels("L" + (i % 30));
+        }
+        if (i % 5 == 0) {
+            builder.fixVersions("F" + (i % 10));
+        }
+        return builder.buildAndRegister();
+    }
+
+    /**
+     * Registers a new issue in the TDP project, and creates the event for it
+     *
+     * @return the create event
+     */
+    JirbanIssueEvent createIssue() {
+        final Issue issue = issueRegistry.issueBuilder("TDP", "bug", "high", "New issue", "TDP-A")
+                .assignee("kabir")
+                .buildAndRegister();
+        return JirbanIssueEvent.createCreateEvent(issue.getKey(), issue.getId(), "TDP", "bug", "high", "New issue",
+                issue.getAssignee(), null, null, null, "TDP-A", null);
+    }
+
+    /**
+     * Changes the summary of an issue, and creates the event for it
+     *
+     * @param issueKey the issue key
+     * @param summary the new summary
+     * @return the update event
+     */
+    JirbanIssueEvent updateIssueSummary(String issueKey, String summary) {
+        issueRegistry.updateIssue(issueKey, null, null, summary, null, null, null, null, null);
+        final Issue issue = issueRegistry.getIssue(issueKey);
+        return JirbanIssueEvent.createUpdateEvent(issueKey, projectCode(issueKey), null, null, summary,
+                null, null, null, null, issue.getStatusObject().getName(), null, false, null);
+    }
+
+    /**
+     * Reranks an issue, and creates the event for it
+     *
+     * @param issueKey the issue to rerank
+     * @param beforeIssueKey the issue it should be ranked before
+     * @return the update event
+     */
+    JirbanIssueEvent rerankIssue(String issueKey, String beforeIssueKey) {
+        issueRegistry.rerankIssue(issueKey, beforeIssueKey);
+        final Issue issue = issueRegistry.getIssue(issueKey);
+        return JirbanIssueEvent.createUpdateEvent(issueKey, projectCode(issueKey), null, null, null,
+                null, null, null, null, issue.getStatusObject().getName(), null, true, null);
+    }
+
+    /**
+     * Deletes an issue, and creates the event for it
+     *
+     * @param issueKey the issue key
+     * @return the delete event
+     */
+    JirbanIssueEvent deleteIssue(String issueKey) {
+        issueRegistry.deleteIssue(issueKey);
+        return JirbanIssueEvent.createDeleteEvent(issueKey, projectCode(issueKey));
+    }
+
+    BoardManager getBoardManager() {
+        return boardManager;
+    }
+
+    IssueRegistry getIssueRegistry() {
+        return issueRegistry;
+    }
+
+    JiraInjectables getJiraInjectables() {
+        return jiraInjectables;
+    }
+
+    ProjectParallelTaskOptionsLoader getProjectParallelTaskOptionsLoader() {
+        return projectParallelTaskOptionsLoader;
+    }
+
+    BoardConfig getBoardConfig() {
+        return boardConfigurationManager.getBoardConfig(BOARD_CODE);
+    }
+
+    ApplicationUser getUser() {
+        return userManager.getUserByKey("kabir");
+    }
+
+    ApplicationUser getBoardOwner() {
+        return userManager.getUserByKey(getBoardConfig().getOwningUserKey());
+    }
+
+    private static String projectCode(String issueKey) {
+        return issueKey.substring(0, issueKey.indexOf("-"));
+    }
+}
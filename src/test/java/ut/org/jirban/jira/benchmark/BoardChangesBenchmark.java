@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jirban.jira.api.BoardManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks getting the changes a client has not seen yet via {@link BoardManager#getChangesJson}, for a varying
+ * number of changes since the client's view. The changes are recorded again before each iteration, so that none
+ * of them get cleaned up by the change registry while measuring.
+ *
+ * @author Kabir Khan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardChangesBenchmark {
+
+    @Param({"10000"})
+    public int issues;
+
+    @Param({"10", "100", "1000"})
+    public int changes;
+
+    private BenchmarkBoard benchmarkBoard;
+    private BoardManager boardManager;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        benchmarkBoard = BenchmarkBoard.create(issues);
+        boardManager = benchmarkBoard.getBoardManager();
+        boardManager.getBoardPayload(benchmarkBoard.getUser(), false, BenchmarkBoard.BOARD_CODE, false, null);
+        for (int i = 0 ; i < changes ; i++) {
+            //Spread the updates over the first 100 TDP issues, so that some issues have more than one change
+            final String issueKey = "TDP-" + (i % 100 + 1);
+            boardManager.handleEvent(
+                    benchmarkBoard.updateIssueSummary(issueKey, "Summary " + i), benchmarkBoard.getIssueRegistry());
+        }
+    }
+
+    @Benchmark
+    public String getChanges() throws Exception {
+        return boardManager.getChangesJson(benchmarkBoard.getUser(), false, BenchmarkBoard.BOARD_CODE, 0);
+    }
+
+    @Benchmark
+    public String getBacklogChanges() throws Exception {
+        return boardManager.getChangesJson(benchmarkBoard.getUser(), true, BenchmarkBoard.BOARD_CODE, 0);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jirban.jira.api.BoardManager;
+import org.jirban.jira.impl.JirbanIssueEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks applying issue events to a loaded board via {@link BoardManager#handleEvent}. The issues and the board
+ * are set up again before each iteration, so that the issues created and the changes recorded by one iteration do
+ * not pile up into the next.
+ * <p/>
+ * Note that a rerank asks the mock {@code NextRankedIssueUtil} for the next issue, which walks the issues of the
+ * project, so its cost is included in the rerank numbers.
+ *
+ * @author Kabir Khan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardEventBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int issues;
+
+    private BenchmarkBoard benchmarkBoard;
+    private BoardManager boardManager;
+    private int counter;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        benchmarkBoard = BenchmarkBoard.create(issues);
+        boardManager = benchmarkBoard.getBoardManager();
+        boardManager.getBoardPayload(benchmarkBoard.getUser(), false, BenchmarkBoard.BOARD_CODE, false, null);
+    }
+
+    @Benchmark
+    public void createIssue() {
+        boardManager.handleEvent(benchmarkBoard.createIssue(), benchmarkBoard.getIssueRegistry());
+    }
+
+    @Benchmark
+    public void updateIssue() {
+        boardManager.handleEvent(
+                benchmarkBoard.updateIssueSummary("TDP-1", "Summary " + counter++), benchmarkBoard.getIssueRegistry());
+    }
+
+    @Benchmark
+    public void rerankIssue(RerankState rerankState) {
+        boardManager.handleEvent(rerankState.event, benchmarkBoard.getIssueRegistry());
+    }
+
+    @Benchmark
+    public void createAndDeleteIssue() {
+        //Deleting needs an issue which is not needed afterwards, so create it first to keep the board size stable
+        final JirbanIssueEvent create = benchmarkBoard.createIssue();
+        boardManager.handleEvent(create, benchmarkBoard.getIssueRegistry());
+        boardManager.handleEvent(benchmarkBoard.deleteIssue(create.getIssueKey()), benchmarkBoard.getIssueRegistry());
+    }
+
+    /**
+     * Reranks the issue in the mock registry before each invocation, so that only the handling of the event is measured
+     */
+    @State(Scope.Benchmark)
+    public static class RerankState {
+        private int counter;
+        private JirbanIssueEvent event;
+
+        @Setup(Level.Invocation)
+        public void rerankInRegistry(BoardEventBenchmark benchmark) {
+            //Alternate between moving TDP-1 to the end, and back to the start
+            event = counter++ % 2 == 0 ?
+                    benchmark.benchmarkBoard.rerankIssue("TDP-1", null) :
+                    benchmark.benchmarkBoard.rerankIssue("TDP-1", "TDP-2");
+        }
+    }
+}
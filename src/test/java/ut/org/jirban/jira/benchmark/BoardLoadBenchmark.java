@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.dmr.ModelNode;
+import org.jirban.jira.impl.board.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks loading a full board from the (mocked) Jira search results, and serializing it for the client.
+ *
+ * @author Kabir Khan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardLoadBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int issues;
+
+    private BenchmarkBoard benchmarkBoard;
+    private Board board;
+
+    @Setup
+    public void setup() throws Exception {
+        benchmarkBoard = BenchmarkBoard.create(issues);
+        board = load();
+    }
+
+    @Benchmark
+    public Board loadBoard() throws Exception {
+        return load();
+    }
+
+    @Benchmark
+    public ModelNode serializeBoard() throws Exception {
+        return board.serialize(benchmarkBoard.getJiraInjectables(), false, benchmarkBoard.getUser());
+    }
+
+    @Benchmark
+    public ModelNode serializeBacklogBoard() throws Exception {
+        return board.serialize(benchmarkBoard.getJiraInjectables(), true, benchmarkBoard.getUser());
+    }
+
+    private Board load() throws Exception {
+        return Board.builder(
+                benchmarkBoard.getJiraInjectables(),
+                benchmarkBoard.getProjectParallelTaskOptionsLoader(),
+                benchmarkBoard.getBoardConfig(),
+                benchmarkBoard.getBoardOwner())
+                .load()
+                .build();
+    }
+}
@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.link.IssueLink;
 import com.atlassian.jira.issue.link.IssueLinkManager;
 
 /**
@@ -31,13 +33,41 @@ import com.atlassian.jira.issue.link.IssueLinkManager;
 public class IssueLinkManagerBuilder {
     private final IssueLinkManager issueLinkManager = mock(IssueLinkManager.class);
 
-    private List<String> outwardLinks = new ArrayList<>();
-    private List<String> inwardLinks = new ArrayList<>();
+    private IssueRegistry issueRegistry;
+
+    /**
+     * Sets the registry holding the links between the issues. If not set, the issues have no links.
+     *
+     * @param issueRegistry the issue registry
+     * @return this builder
+     */
+    public IssueLinkManagerBuilder setIssueRegistry(IssueRegistry issueRegistry) {
+        this.issueRegistry = issueRegistry;
+        return this;
+    }
 
     public IssueLinkManager build() {
-        //TODO configure some links
-        when(issueLinkManager.getInwardLinks(anyLong())).thenReturn(Collections.emptyList());
-        when(issueLinkManager.getOutwardLinks(anyLong())).thenReturn(Collections.emptyList());
+        if (issueRegistry == null) {
+            when(issueLinkManager.getInwardLinks(anyLong())).thenReturn(Collections.emptyList());
+            when(issueLinkManager.getOutwardLinks(anyLong())).thenReturn(Collections.emptyList());
+        } else {
+            when(issueLinkManager.getInwardLinks(anyLong())).then(
+                    invocation -> createLinks((Long) invocation.getArguments()[0], false));
+            when(issueLinkManager.getOutwardLinks(anyLong())).then(
+                    invocation -> createLinks((Long) invocation.getArguments()[0], true));
+        }
         return issueLinkManager;
     }
+
+    private List<IssueLink> createLinks(Long issueId, boolean outward) {
+        final List<IssueLink> links = new ArrayList<>();
+        for (Issue linkedIssue : issueRegistry.getLinkedIssues(issueId, outward)) {
+            final Issue issue = issueRegistry.getIssue(issueRegistry.getIssueKey(issueId));
+            final IssueLink link = mock(IssueLink.class);
+            when(link.getSourceObject()).thenReturn(outward ? issue : linkedIssue);
+            when(link.getDestinationObject()).thenReturn(outward ? linkedIssue : issue);
+            links.add(link);
+        }
+        return links;
+    }
 }
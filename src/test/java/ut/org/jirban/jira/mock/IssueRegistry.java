@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,6 +30,7 @@ import org.jirban.jira.api.NextRankedIssueUtil;
 import org.jirban.jira.impl.config.BoardProjectConfig;
 import org.junit.Assert;
 
+import com.atlassian.greenhopper.model.lexorank.LexoRank;
 import com.atlassian.jira.bc.project.component.ProjectComponent;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.issuetype.IssueType;
@@ -43,8 +45,19 @@ import com.atlassian.jira.user.util.UserManager;
  * @author Kabir Khan
  */
 public class IssueRegistry implements NextRankedIssueUtil {
+    //The id of the rank custom field, as set up in the board configuration manager by the tests
+    public static final long RANK_CUSTOM_FIELD_ID = 10000;
+    //The gap between the ranks of the issues as they get created, leaving room to rank other issues in between
+    private static final long RANK_GAP = 1 << 20;
+
     private final UserManager userManager;
     private final Map<String, Map<String, MockIssue>> issuesByProject = new HashMap<>();
+    //The issues of each project are held in rank order, and these ranks follow that order
+    private final Map<String, Long> ranks = new HashMap<>();
+    private int rankSearches;
+    private final Map<Long, String> issueKeysById = new HashMap<>();
+    //The keys of the issues each issue links to
+    private final Map<String, Set<String>> links = new HashMap<>();
 
     public IssueRegistry(UserManager userManager) {
         this.userManager = userManager;
@@ -90,6 +103,8 @@ public class IssueRegistry implements NextRankedIssueUtil {
 
         MockIssue newIssue = new MockIssue(issueKey, issueType, priority, summ,
                 assigneeUser, comps, labelz, fixVersionz, status);
+        newIssue.setId(issue.getId());
+        setRank(newIssue, ranks.get(issueKey));
         issues.put(issueKey, newIssue);
     }
 
@@ -134,6 +149,47 @@ public class IssueRegistry implements NextRankedIssueUtil {
         return issues.get(issueKey);
     }
 
+    /**
+     * Adds a link from one issue to another
+     *
+     * @param issueKey the key of the issue the link goes out from
+     * @param linkedIssueKey the key of the issue the link goes in to
+     */
+    public void linkIssue(String issueKey, String linkedIssueKey) {
+        Assert.assertNotNull(getIssue(issueKey));
+        Assert.assertNotNull(getIssue(linkedIssueKey));
+        links.computeIfAbsent(issueKey, x -> new LinkedHashSet<>()).add(linkedIssueKey);
+    }
+
+    String getIssueKey(Long issueId) {
+        return issueKeysById.get(issueId);
+    }
+
+    /**
+     * Gets the issues at the other end of the links going out from, or in to, an issue
+     *
+     * @param issueId the id of the issue
+     * @param outward {@code true} for the links going out from the issue, {@code false} for the links going in to it
+     * @return the linked issues
+     */
+    List<Issue> getLinkedIssues(Long issueId, boolean outward) {
+        final String issueKey = issueKeysById.get(issueId);
+        if (issueKey == null) {
+            return Collections.emptyList();
+        }
+        final List<Issue> linkedIssues = new ArrayList<>();
+        if (outward) {
+            links.getOrDefault(issueKey, Collections.emptySet()).forEach(key -> linkedIssues.add(getIssue(key)));
+        } else {
+            links.forEach((key, linkedKeys) -> {
+                if (linkedKeys.contains(issueKey)) {
+                    linkedIssues.add(getIssue(key));
+                }
+            });
+        }
+        return linkedIssues;
+    }
+
     public void rerankIssue(String issueKey, String beforeIssueKey) {
         String projectCode = getProjectCode(issueKey);
         Map<String, MockIssue> issues = issuesByProject.get(projectCode);
@@ -151,27 +207,73 @@ public class IssueRegistry implements NextRankedIssueUtil {
             newIssues.put(key, issues.get(key));
         }
 
+        //Give the issue a rank between the ones either side of it, leaving all the other ranks as they are
+        final int index = issueList.indexOf(issueKey);
+        final long previous = index > 0 ? ranks.getOrDefault(issueList.get(index - 1), 0L) : 0;
+        final long next = index < issueList.size() - 1 ?
+                ranks.getOrDefault(issueList.get(index + 1), previous + 2 * RANK_GAP) : previous + 2 * RANK_GAP;
+        Assert.assertTrue("No room to rank " + issueKey, next - previous > 1);
+        setRank(issues.get(issueKey), (previous + next) / 2);
+
         issuesByProject.put(projectCode, newIssues);
     }
 
+    /**
+     * Removes the rank of an issue
+     *
+     * @param issueKey the issue key
+     */
+    public void clearRank(String issueKey) {
+        setRank((MockIssue) getIssue(issueKey), null);
+    }
+
+    /**
+     * Gets the number of times the board had to search for the next ranked issue, rather than finding it from the
+     * ranks it holds
+     */
+    public int getRankSearches() {
+        return rankSearches;
+    }
+
+    private void setRank(MockIssue issue, Long rank) {
+        if (rank == null) {
+            ranks.remove(issue.getKey());
+            issue.setCustomField(RANK_CUSTOM_FIELD_ID, null);
+        } else {
+            ranks.put(issue.getKey(), rank);
+            issue.setCustomField(RANK_CUSTOM_FIELD_ID, LexoRank.parse(formatRank(rank)));
+        }
+    }
+
+    private static String formatRank(long rank) {
+        //Fixed width, so that the ranks sort as strings in the same order as the numbers
+        final StringBuilder sb = new StringBuilder(Long.toString(rank, 36));
+        while (sb.length() < 8) {
+            sb.insert(0, '0');
+        }
+        return "0|" + sb + ":";
+    }
+
     @Override
-    public String findNextRankedIssue(BoardProjectConfig projectConfig, ApplicationUser boardOwner, String issueKey) {
-        int index = issueKey.indexOf("-");
-        String projectCode = issueKey.substring(0, index);
-        Map<String, MockIssue> issues = issuesByProject.get(projectCode);
-        boolean found = false;
+    public String findNextRankedIssue(BoardProjectConfig projectConfig, ApplicationUser boardOwner, String rank) {
+        rankSearches++;
+        Map<String, MockIssue> issues = issuesByProject.get(projectConfig.getCode());
         for (MockIssue issue : issues.values()) {
-            if (found) {
+            final Long issueRank = ranks.get(issue.getKey());
+            if (issueRank != null && formatRank(issueRank).compareTo(rank) > 0) {
                 return issue.getKey();
             }
-            if (issue.getKey().equals(issueKey)) {
-                found = true;
-            }
         }
         return null;
     }
 
 
+    @Override
+    public String getRank(ApplicationUser boardOwner, String issueKey) {
+        final Long rank = ranks.get(issueKey);
+        return rank == null ? null : formatRank(rank);
+    }
+
     public void deleteIssue(String issueKey) {
         Map<String, MockIssue> issues = issuesByProject.get(getProjectCode(issueKey));
         issues.remove(issueKey);
@@ -252,6 +354,15 @@ public class IssueRegistry implements NextRankedIssueUtil {
             String issueKey = projectCode + "-" + (issues.size() + 1);
             MockIssue issue =
                     new MockIssue(issueKey, issueType, priority, summary, assignee, components, labels, fixVersions, state);
+            final long id = issueKeysById.size() + 1;
+            issue.setId(id);
+            issueKeysById.put(id, issueKey);
+            //New issues go to the end of the ranking
+            long rank = RANK_GAP;
+            for (String key : issues.keySet()) {
+                rank = Math.max(rank, ranks.getOrDefault(key, 0L) + RANK_GAP);
+            }
+            setRank(issue, rank);
             issues.put(issueKey, issue);
             return issue;
         }
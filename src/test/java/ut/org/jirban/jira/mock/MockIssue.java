@@ -57,6 +57,7 @@ public class MockIssue implements Issue {
     private final Status state;
 
     private final Map<Long, Object> customFields = new HashMap<>();
+    private Long id;
 
     public MockIssue(String key, IssueType issueType, Priority priority, String summary, ApplicationUser assignee,
                      Set<ProjectComponent> components, Set<Label> labels, Set<Version> fixVersions, Status state) {
@@ -73,7 +74,7 @@ public class MockIssue implements Issue {
 
     @Override
     public Long getId() {
-        return null;
+        return id;
     }
 
     @Override
@@ -83,7 +84,7 @@ public class MockIssue implements Issue {
 
     @Override
     public Project getProjectObject() {
-        return null;
+        return new MockProject(key.substring(0, key.indexOf('-')));
     }
 
     @Override
@@ -383,6 +384,10 @@ public class MockIssue implements Issue {
         return state;
     }
 
+    void setId(Long id) {
+        this.id = id;
+    }
+
     void setCustomField(Long customFieldId, Object value) {
         if (value == null) {
             customFields.remove(customFieldId);
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.util;
+
+import java.util.Arrays;
+
+import org.jboss.dmr.ModelNode;
+import org.jirban.jira.impl.util.CborEncoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the encoding against the examples in appendix A of RFC 7049, and the boundaries where the size of the
+ * header changes.
+ *
+ * @author Kabir Khan
+ */
+public class CborEncoderTest {
+
+    @Test
+    public void testUnsignedIntegers() {
+        check("00", new ModelNode(0));
+        check("01", new ModelNode(1));
+        check("0a", new ModelNode(10));
+        check("17", new ModelNode(23));
+        check("1818", new ModelNode(24));
+        check("1819", new ModelNode(25));
+        check("1864", new ModelNode(100));
+        check("18ff", new ModelNode(255));
+        check("190100", new ModelNode(256));
+        check("1903e8", new ModelNode(1000));
+        check("19ffff", new ModelNode(65535));
+        check("1a00010000", new ModelNode(65536));
+        check("1a000f4240", new ModelNode(1000000));
+        check("1a7fffffff", new ModelNode(Integer.MAX_VALUE));
+        check("1affffffff", new ModelNode(4294967295L));
+        check("1b0000000100000000", new ModelNode(4294967296L));
+        check("1b000000e8d4a51000", new ModelNode(1000000000000L));
+        check("1b7fffffffffffffff", new ModelNode(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testNegativeIntegers() {
+        check("20", new ModelNode(-1));
+        check("29", new ModelNode(-10));
+        check("37", new ModelNode(-24));
+        check("3818", new ModelNode(-25));
+        check("3863", new ModelNode(-100));
+        check("38ff", new ModelNode(-256));
+        check("390100", new ModelNode(-257));
+        check("3903e7", new ModelNode(-1000));
+        check("39ffff", new ModelNode(-65536));
+        check("3a00010000", new ModelNode(-65537));
+        check("3a7fffffff", new ModelNode(Integer.MIN_VALUE));
+        check("3b0000000100000000", new ModelNode(-4294967297L));
+        check("3b7fffffffffffffff", new ModelNode(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testDoubles() {
+        check("fb0000000000000000", new ModelNode(0.0d));
+        check("fb8000000000000000", new ModelNode(-0.0d));
+        check("fb3ff199999999999a", new ModelNode(1.1d));
+        check("fb7e37e43c8800759c", new ModelNode(1.0e300d));
+        check("fbc010666666666666", new ModelNode(-4.1d));
+        check("fb7ff0000000000000", new ModelNode(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testSimpleValues() {
+        check("f4", new ModelNode(false));
+        check("f5", new ModelNode(true));
+        check("f6", new ModelNode());
+    }
+
+    @Test
+    public void testText() {
+        check("60", new ModelNode(""));
+        check("6161", new ModelNode("a"));
+        check("6449455446", new ModelNode("IETF"));
+        check("62225c", new ModelNode("\"\\"));
+        check("62c3bc", new ModelNode("\u00fc"));
+        check("63e6b0b4", new ModelNode("\u6c34"));
+        //A surrogate pair is one four byte utf-8 sequence
+        check("64f0908591", new ModelNode("\ud800\udd51"));
+    }
+
+    @Test
+    public void testTextLengths() {
+        //The length in the header is the number of utf-8 bytes, not the number of characters
+        checkTextLength(23, "77");
+        checkTextLength(24, "7818");
+        checkTextLength(255, "78ff");
+        checkTextLength(256, "790100");
+        checkTextLength(65535, "79ffff");
+        checkTextLength(65536, "7a00010000");
+
+        //12 two byte characters take 24 bytes
+        final char[] chars = new char[12];
+        Arrays.fill(chars, '\u00fc');
+        final byte[] encoded = CborEncoder.encode(new ModelNode(new String(chars)));
+        Assert.assertEquals(2 + 24, encoded.length);
+        Assert.assertArrayEquals(bytes("7818"), Arrays.copyOf(encoded, 2));
+    }
+
+    @Test
+    public void testBytes() {
+        check("40", new ModelNode(new byte[0]));
+        check("4401020304", new ModelNode(new byte[]{1, 2, 3, 4}));
+    }
+
+    @Test
+    public void testArrays() {
+        check("80", new ModelNode().setEmptyList());
+        check("83010203", new ModelNode().add(1).add(2).add(3));
+        //[1, [2, 3], [4, 5]]
+        check("8301820203820405",
+                new ModelNode().add(1)
+                        .add(new ModelNode().add(2).add(3))
+                        .add(new ModelNode().add(4).add(5)));
+
+        //[1, 2, ..., 25] needs a one byte length
+        ModelNode list = new ModelNode().setEmptyList();
+        StringBuilder expected = new StringBuilder("9819");
+        for (int i = 1 ; i <= 25 ; i++) {
+            list.add(i);
+            expected.append(i < 24 ? String.format("%02x", i) : String.format("18%02x", i));
+        }
+        check(expected.toString(), list);
+    }
+
+    @Test
+    public void testMaps() {
+        check("a0", new ModelNode().setEmptyObject());
+
+        //{"a": 1, "b": [2, 3]}
+        ModelNode map = new ModelNode();
+        map.get("a").set(1);
+        map.get("b").add(2).add(3);
+        check("a26161016162820203", map);
+
+        //{"a": "A", "b": "B", "c": "C", "d": "D", "e": "E"}
+        map = new ModelNode();
+        for (char c = 'a' ; c <= 'e' ; c++) {
+            map.get(String.valueOf(c)).set(String.valueOf(Character.toUpperCase(c)));
+        }
+        check("a56161614161626142616361436164614461656145", map);
+
+        //A map with 24 entries needs a one byte length
+        map = new ModelNode();
+        for (int i = 0 ; i < 24 ; i++) {
+            map.get("k" + (char) ('a' + i)).set(true);
+        }
+        final byte[] encoded = CborEncoder.encode(map);
+        Assert.assertArrayEquals(bytes("b818"), Arrays.copyOf(encoded, 2));
+        Assert.assertEquals(2 + 24 * 4, encoded.length);
+    }
+
+    @Test
+    public void testProperty() {
+        //A property is written like the json, as an object with one entry
+        check("a1616101", new ModelNode().set("a", 1));
+    }
+
+    @Test
+    public void testLargeDocument() {
+        //Bigger than the initial buffer, so that it needs to grow
+        ModelNode list = new ModelNode().setEmptyList();
+        for (int i = 0 ; i < 5000 ; i++) {
+            list.add("value");
+        }
+        final byte[] encoded = CborEncoder.encode(list);
+        Assert.assertEquals(3 + 5000 * 6, encoded.length);
+        Assert.assertArrayEquals(bytes("991388"), Arrays.copyOf(encoded, 3));
+        Assert.assertArrayEquals(bytes("6576616c7565"), Arrays.copyOfRange(encoded, encoded.length - 6, encoded.length));
+    }
+
+    private static void checkTextLength(int length, String expectedHeader) {
+        final char[] chars = new char[length];
+        Arrays.fill(chars, 'x');
+        final byte[] encoded = CborEncoder.encode(new ModelNode(new String(chars)));
+        final byte[] header = bytes(expectedHeader);
+        Assert.assertEquals(header.length + length, encoded.length);
+        Assert.assertArrayEquals(header, Arrays.copyOf(encoded, header.length));
+        for (int i = header.length ; i < encoded.length ; i++) {
+            Assert.assertEquals('x', encoded[i]);
+        }
+    }
+
+    private static void check(String expectedHex, ModelNode node) {
+        Assert.assertArrayEquals(node.toJSONString(true), bytes(expectedHex), CborEncoder.encode(node));
+    }
+
+    private static byte[] bytes(String hex) {
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0 ; i < bytes.length ; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
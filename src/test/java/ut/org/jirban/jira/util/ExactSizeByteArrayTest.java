@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.jirban.jira.impl.util.ExactSizeByteArray;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kabir Khan
+ */
+public class ExactSizeByteArrayTest {
+
+    @Test
+    public void testEmpty() {
+        Assert.assertEquals(0, ExactSizeByteArray.write(out -> {}).length);
+    }
+
+    @Test
+    public void testWrite() {
+        final Consumer<OutputStream> content = out -> {
+            try {
+                out.write(1);
+                out.write(new byte[]{2, 3, 4, 5}, 1, 2);
+                for (int i = 0; i < 10000; i++) {
+                    out.write(i);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        content.accept(expected);
+
+        final byte[] bytes = ExactSizeByteArray.write(content);
+        Assert.assertEquals(10003, bytes.length);
+        Assert.assertArrayEquals(expected.toByteArray(), bytes);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMoreWrittenSecondTime() {
+        final AtomicInteger calls = new AtomicInteger();
+        ExactSizeByteArray.write(out -> writeBytes(out, calls.incrementAndGet()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLessWrittenSecondTime() {
+        final AtomicInteger calls = new AtomicInteger();
+        ExactSizeByteArray.write(out -> writeBytes(out, 3 - calls.incrementAndGet()));
+    }
+
+    private static void writeBytes(OutputStream out, int count) {
+        try {
+            for (int i = 0; i < count; i++) {
+                out.write(i);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
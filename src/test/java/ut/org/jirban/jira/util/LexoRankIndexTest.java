@@ -0,0 +1,228 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.jirban.jira.impl.util.LexoRankIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kabir Khan
+ */
+public class LexoRankIndexTest {
+
+    @Test
+    public void testEmpty() {
+        LexoRankIndex<String> index = LexoRankIndex.empty();
+        Assert.assertEquals(0, index.size());
+        Assert.assertFalse(index.contains("A"));
+        Assert.assertNull(index.getRank("A"));
+        Assert.assertNull(index.higher(rank(1)));
+        Assert.assertSame(index, index.without("A"));
+        //Anything can be compared with an empty index
+        Assert.assertTrue(index.isSameBucket("1|hzzzzz:"));
+    }
+
+    @Test
+    public void testInsert() {
+        LexoRankIndex<String> index = LexoRankIndex.empty();
+        index = index.with("C", rank(30)).with("A", rank(10)).with("B", rank(20));
+        Assert.assertEquals(3, index.size());
+        Assert.assertTrue(index.contains("B"));
+        Assert.assertEquals(rank(20), index.getRank("B"));
+
+        Assert.assertEquals("A", index.higher(rank(5)));
+        Assert.assertEquals("B", index.higher(rank(10)));
+        Assert.assertEquals("B", index.higher(rank(15)));
+        Assert.assertEquals("C", index.higher(rank(20)));
+        Assert.assertNull(index.higher(rank(30)));
+        Assert.assertNull(index.higher(rank(35)));
+    }
+
+    @Test
+    public void testMove() {
+        final LexoRankIndex<String> original = LexoRankIndex.<String>empty()
+                .with("A", rank(10)).with("B", rank(20)).with("C", rank(30));
+
+        //Giving a key a new rank moves it
+        final LexoRankIndex<String> moved = original.with("A", rank(25));
+        Assert.assertEquals(3, moved.size());
+        Assert.assertEquals(rank(25), moved.getRank("A"));
+        Assert.assertEquals("B", moved.higher(rank(5)));
+        Assert.assertEquals("A", moved.higher(rank(20)));
+        Assert.assertEquals("C", moved.higher(rank(25)));
+
+        //The original is untouched
+        Assert.assertEquals(rank(10), original.getRank("A"));
+        Assert.assertEquals("A", original.higher(rank(5)));
+        Assert.assertEquals("C", original.higher(rank(20)));
+    }
+
+    @Test
+    public void testDelete() {
+        final LexoRankIndex<String> original = LexoRankIndex.<String>empty()
+                .with("A", rank(10)).with("B", rank(20)).with("C", rank(30)).with("D", rank(40));
+
+        LexoRankIndex<String> index = original.without("B");
+        Assert.assertEquals(3, index.size());
+        Assert.assertFalse(index.contains("B"));
+        Assert.assertNull(index.getRank("B"));
+        Assert.assertEquals("C", index.higher(rank(10)));
+        Assert.assertSame(index, index.without("B"));
+
+        //Removing the root, which has children on both sides
+        index = original.without("B").without("C");
+        Assert.assertEquals("D", index.higher(rank(10)));
+        index = index.without("A").without("D");
+        Assert.assertEquals(0, index.size());
+        Assert.assertNull(index.higher(rank(0)));
+
+        Assert.assertEquals(4, original.size());
+        Assert.assertEquals("B", original.higher(rank(10)));
+    }
+
+    @Test
+    public void testWithDuplicateRank() {
+        final LexoRankIndex<String> original = LexoRankIndex.<String>empty()
+                .with("A", rank(10)).with("B", rank(20)).with("C", rank(30));
+
+        //Jira's ranks are unique, so the other key must have moved without us being told. Its rank is dropped, which
+        //leaves the index with fewer keys than the board has ranked issues
+        final LexoRankIndex<String> index = original.with("D", rank(20));
+        Assert.assertEquals(3, index.size());
+        Assert.assertFalse(index.contains("B"));
+        Assert.assertEquals(rank(20), index.getRank("D"));
+        Assert.assertEquals("D", index.higher(rank(10)));
+        Assert.assertEquals("C", index.higher(rank(20)));
+
+        //Giving a key the rank it already has does not drop it
+        final LexoRankIndex<String> same = original.with("B", rank(20));
+        Assert.assertEquals(3, same.size());
+        Assert.assertEquals("B", same.higher(rank(10)));
+    }
+
+    @Test
+    public void testIsSameBucket() {
+        LexoRankIndex<String> index = LexoRankIndex.<String>empty()
+                .with("A", "0|hzzzzz:").with("B", "0|i00007:");
+        Assert.assertTrue(index.isSameBucket("0|i0000f:"));
+        Assert.assertTrue(index.isSameBucket("0|000000:"));
+        Assert.assertFalse(index.isSameBucket("1|hzzzzr:"));
+        Assert.assertFalse(index.isSameBucket("2|i0000f:"));
+
+        //Jira is part way through moving the ranks to the next bucket
+        index = index.with("C", "1|hzzzzr:");
+        Assert.assertFalse(index.isSameBucket("0|i0000f:"));
+        Assert.assertFalse(index.isSameBucket("1|i0000f:"));
+
+        //Once all the ranks we hold are in the new bucket, they can be compared again
+        index = index.with("A", "1|hzzzzz:").with("B", "1|i00007:");
+        Assert.assertTrue(index.isSameBucket("1|i0000f:"));
+        Assert.assertFalse(index.isSameBucket("0|i0000f:"));
+    }
+
+    @Test
+    public void testRebalance() {
+        //Insert in order, which keeps unbalancing the tree to the right
+        LexoRankIndex<Integer> index = LexoRankIndex.empty();
+        for (int i = 0; i < 1000; i++) {
+            index = index.with(i, rank(i * 10));
+        }
+        checkHigher(index, 1000);
+
+        //And in reverse order, which unbalances it to the left
+        index = LexoRankIndex.empty();
+        for (int i = 999; i >= 0; i--) {
+            index = index.with(i, rank(i * 10));
+        }
+        checkHigher(index, 1000);
+
+        //Deleting every other key rebalances on the way back up
+        for (int i = 0; i < 1000; i += 2) {
+            index = index.without(i);
+        }
+        Assert.assertEquals(500, index.size());
+        for (int i = 0; i < 1000; i++) {
+            final Integer expected = i % 2 == 0 ? Integer.valueOf(i + 1) : i + 2 < 1000 ? Integer.valueOf(i + 2) : null;
+            Assert.assertEquals(expected, index.higher(rank(i * 10)));
+        }
+    }
+
+    @Test
+    public void testRandomAgainstTreeMap() {
+        final Random random = new Random(12345);
+        final TreeMap<String, Integer> expected = new TreeMap<>();
+        final Map<Integer, String> expectedRanks = new TreeMap<>();
+        LexoRankIndex<Integer> index = LexoRankIndex.empty();
+        for (int i = 0; i < 5000; i++) {
+            final Integer key = random.nextInt(300);
+            final String oldRank = expectedRanks.remove(key);
+            if (oldRank != null) {
+                expected.remove(oldRank);
+            }
+            if (random.nextInt(4) == 0) {
+                index = index.without(key);
+            } else {
+                //Spread the ranks out, so that they rarely clash
+                String rank = rank(random.nextInt(1000000));
+                while (expected.containsKey(rank)) {
+                    rank = rank(random.nextInt(1000000));
+                }
+                index = index.with(key, rank);
+                expected.put(rank, key);
+                expectedRanks.put(key, rank);
+            }
+            Assert.assertEquals(expected.size(), index.size());
+        }
+        for (Map.Entry<Integer, String> entry : expectedRanks.entrySet()) {
+            Assert.assertEquals(entry.getValue(), index.getRank(entry.getKey()));
+            final Map.Entry<String, Integer> higher = expected.higherEntry(entry.getValue());
+            Assert.assertEquals(higher == null ? null : higher.getValue(), index.higher(entry.getValue()));
+        }
+        final List<String> probes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            probes.add(rank(random.nextInt(1000000)));
+        }
+        for (String probe : probes) {
+            final Map.Entry<String, Integer> higher = expected.higherEntry(probe);
+            Assert.assertEquals(higher == null ? null : higher.getValue(), index.higher(probe));
+        }
+    }
+
+    private static void checkHigher(LexoRankIndex<Integer> index, int size) {
+        Assert.assertEquals(size, index.size());
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(rank(i * 10), index.getRank(i));
+            Assert.assertEquals(Integer.valueOf(i), index.higher(rank(i * 10 - 1)));
+            Assert.assertEquals(i + 1 < size ? Integer.valueOf(i + 1) : null, index.higher(rank(i * 10)));
+        }
+    }
+
+    //A formatted rank in the first bucket, which sorts as a string in the same order as the number
+    private static String rank(int value) {
+        final StringBuilder sb = new StringBuilder(Integer.toString(value, 36));
+        while (sb.length() < 6) {
+            sb.insert(0, '0');
+        }
+        return "0|" + sb + ":";
+    }
+}
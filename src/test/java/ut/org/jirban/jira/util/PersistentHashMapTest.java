@@ -0,0 +1,309 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.jirban.jira.impl.util.PersistentHashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kabir Khan
+ */
+public class PersistentHashMapTest {
+
+    @Test
+    public void testEmpty() {
+        PersistentHashMap<String, String> map = PersistentHashMap.empty();
+        Assert.assertEquals(0, map.size());
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get("a"));
+        Assert.assertFalse(map.containsKey("a"));
+        Assert.assertFalse(map.entrySet().iterator().hasNext());
+        Assert.assertSame(map, map.minus("a"));
+        Assert.assertNull(map.get(null));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKey() {
+        PersistentHashMap.<String, String>empty().plus(null, "a");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMutatorsNotSupported() {
+        PersistentHashMap.<String, String>empty().plus("a", "A").put("b", "B");
+    }
+
+    @Test
+    public void testPlusAndMinus() {
+        PersistentHashMap<String, String> map = PersistentHashMap.empty();
+        map = map.plus("a", "A").plus("b", "B").plus("c", "C");
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals("A", map.get("a"));
+        Assert.assertEquals("B", map.get("b"));
+        Assert.assertEquals("C", map.get("c"));
+
+        //Replacing a value does not change the size
+        map = map.plus("b", "B1");
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals("B1", map.get("b"));
+
+        map = map.minus("a");
+        Assert.assertEquals(2, map.size());
+        Assert.assertNull(map.get("a"));
+        Assert.assertFalse(map.containsKey("a"));
+        Assert.assertEquals("B1", map.get("b"));
+
+        //Removing everything gives the empty map
+        Assert.assertSame(PersistentHashMap.empty(), map.minus("b").minus("c"));
+    }
+
+    @Test
+    public void testNoChangeReturnsSameMap() {
+        final String value = "A";
+        PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty().plus("a", value);
+        Assert.assertSame(map, map.plus("a", value));
+        Assert.assertSame(map, map.minus("b"));
+    }
+
+    @Test
+    public void testOldVersionsUnchanged() {
+        PersistentHashMap<Integer, String> original = PersistentHashMap.empty();
+        for (int i = 0; i < 100; i++) {
+            original = original.plus(i, "v" + i);
+        }
+        final PersistentHashMap<Integer, String> added = original.plus(100, "v100");
+        final PersistentHashMap<Integer, String> replaced = original.plus(50, "changed");
+        final PersistentHashMap<Integer, String> removed = original.minus(50);
+
+        checkRange(original, 0, 100);
+        Assert.assertEquals("v50", original.get(50));
+        Assert.assertFalse(original.containsKey(100));
+
+        Assert.assertEquals(101, added.size());
+        Assert.assertEquals("v100", added.get(100));
+
+        Assert.assertEquals(100, replaced.size());
+        Assert.assertEquals("changed", replaced.get(50));
+
+        Assert.assertEquals(99, removed.size());
+        Assert.assertFalse(removed.containsKey(50));
+        Assert.assertEquals("v49", removed.get(49));
+        Assert.assertEquals("v51", removed.get(51));
+    }
+
+    @Test
+    public void testCollidingHashes() {
+        final Key a = new Key("a", 7);
+        final Key b = new Key("b", 7);
+        final Key c = new Key("c", 7);
+        final Key d = new Key("d", 8);
+
+        PersistentHashMap<Key, String> map = PersistentHashMap.empty();
+        map = map.plus(a, "A").plus(b, "B").plus(c, "C").plus(d, "D");
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals("A", map.get(a));
+        Assert.assertEquals("B", map.get(b));
+        Assert.assertEquals("C", map.get(c));
+        Assert.assertEquals("D", map.get(d));
+        Assert.assertNull(map.get(new Key("e", 7)));
+        Assert.assertEquals(entries(a, "A", b, "B", c, "C", d, "D"), toHashMap(map));
+
+        final PersistentHashMap<Key, String> replaced = map.plus(b, "B1");
+        Assert.assertEquals(4, replaced.size());
+        Assert.assertEquals("B1", replaced.get(b));
+        Assert.assertEquals("B", map.get(b));
+
+        PersistentHashMap<Key, String> removed = map.minus(b);
+        Assert.assertEquals(3, removed.size());
+        Assert.assertNull(removed.get(b));
+        Assert.assertEquals("A", removed.get(a));
+        Assert.assertEquals("C", removed.get(c));
+        Assert.assertSame(removed, removed.minus(new Key("e", 7)));
+
+        removed = removed.minus(a).minus(c);
+        Assert.assertEquals(1, removed.size());
+        Assert.assertEquals(entries(d, "D"), toHashMap(removed));
+        Assert.assertSame(PersistentHashMap.empty(), removed.minus(d));
+
+        //The original still has everything
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals(entries(a, "A", b, "B", c, "C", d, "D"), toHashMap(map));
+    }
+
+    @Test
+    public void testCollisionNodePushedDown() {
+        //Both colliding keys share the lowest five bits with the third key, so the collision node needs to move
+        //down a level when the third key is added
+        final Key a = new Key("a", 1);
+        final Key b = new Key("b", 1);
+        final Key c = new Key("c", 1 | (1 << 5));
+
+        PersistentHashMap<Key, String> map = PersistentHashMap.<Key, String>empty().plus(a, "A").plus(b, "B");
+        map = map.plus(c, "C");
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(entries(a, "A", b, "B", c, "C"), toHashMap(map));
+
+        map = map.minus(a);
+        Assert.assertEquals(entries(b, "B", c, "C"), toHashMap(map));
+        map = map.minus(b);
+        Assert.assertEquals(entries(c, "C"), toHashMap(map));
+    }
+
+    @Test
+    public void testRemovalsCollapseNodes() {
+        //Keys sharing the lowest bits end up in sub-nodes several levels down
+        final Key[] keys = new Key[6];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new Key("k" + i, 3 | (i << 26));
+        }
+        PersistentHashMap<Key, String> map = PersistentHashMap.empty();
+        for (Key key : keys) {
+            map = map.plus(key, key.name);
+        }
+        Assert.assertEquals(keys.length, map.size());
+
+        for (int i = 0; i < keys.length; i++) {
+            map = map.minus(keys[i]);
+            Assert.assertEquals(keys.length - i - 1, map.size());
+            Assert.assertFalse(map.containsKey(keys[i]));
+            int count = 0;
+            for (Map.Entry<Key, String> entry : map.entrySet()) {
+                Assert.assertEquals(entry.getKey().name, entry.getValue());
+                count++;
+            }
+            Assert.assertEquals(map.size(), count);
+            for (int j = i + 1; j < keys.length; j++) {
+                Assert.assertEquals(keys[j].name, map.get(keys[j]));
+            }
+        }
+        Assert.assertSame(PersistentHashMap.empty(), map);
+
+        //Adding them back works from the collapsed map
+        for (Key key : keys) {
+            map = map.plus(key, key.name);
+        }
+        Assert.assertEquals(keys.length, map.size());
+    }
+
+    @Test
+    public void testCopyOf() {
+        final Map<String, Integer> source = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            source.put("k" + i, i);
+        }
+        final PersistentHashMap<String, Integer> copy = PersistentHashMap.copyOf(source);
+        Assert.assertEquals(source, copy);
+        Assert.assertEquals(copy, source);
+        Assert.assertEquals(source.hashCode(), copy.hashCode());
+
+        //The copy does not see changes to the source
+        source.put("k0", -1);
+        Assert.assertEquals(Integer.valueOf(0), copy.get("k0"));
+
+        //Copying a persistent map returns it as it is
+        Assert.assertSame(copy, PersistentHashMap.copyOf(copy));
+
+        Assert.assertSame(PersistentHashMap.empty(), PersistentHashMap.copyOf(new HashMap<String, String>()));
+    }
+
+    @Test
+    public void testRandomAgainstHashMap() {
+        final Random random = new Random(12345);
+        final Map<Key, Integer> expected = new HashMap<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            //A small hash range gives plenty of collisions
+            final int id = random.nextInt(500);
+            final Key key = new Key("k" + id, id % 97);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        Assert.assertEquals(expected, toHashMap(map));
+        for (Map.Entry<Key, Integer> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    private static void checkRange(PersistentHashMap<Integer, String> map, int from, int to) {
+        Assert.assertEquals(to - from, map.size());
+        for (int i = from; i < to; i++) {
+            Assert.assertEquals("v" + i, map.get(i));
+        }
+    }
+
+    private static <K, V> Map<K, V> toHashMap(PersistentHashMap<K, V> map) {
+        final Map<K, V> result = new HashMap<>();
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            Assert.assertNull("Duplicate key " + entry.getKey(), result.put(entry.getKey(), entry.getValue()));
+        }
+        //forEach should visit the same entries as the iterator
+        final Map<K, V> forEach = new HashMap<>();
+        map.forEach(forEach::put);
+        Assert.assertEquals(result, forEach);
+        return result;
+    }
+
+    private static Map<Key, String> entries(Object... keysAndValues) {
+        final Map<Key, String> map = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((Key) keysAndValues[i], (String) keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    //A key where the test picks the hash code
+    private static class Key {
+        private final String name;
+        private final int hash;
+
+        Key(String name, int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            return name.equals(((Key) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
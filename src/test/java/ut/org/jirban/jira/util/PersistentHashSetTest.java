@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jirban.jira.impl.util.PersistentHashSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kabir Khan
+ */
+public class PersistentHashSetTest {
+
+    @Test
+    public void testPlusAndMinus() {
+        PersistentHashSet<String> set = PersistentHashSet.empty();
+        Assert.assertTrue(set.isEmpty());
+        set = set.plus("a").plus("b").plus("c");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), set);
+        Assert.assertSame(set, set.plus("a"));
+        Assert.assertSame(set, set.minus("d"));
+
+        set = set.minus("b");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "c")), set);
+        Assert.assertFalse(set.contains("b"));
+        Assert.assertTrue(set.minus("a").minus("c").isEmpty());
+    }
+
+    @Test
+    public void testOldVersionsUnchanged() {
+        final PersistentHashSet<String> original = PersistentHashSet.<String>empty().plus("a").plus("b");
+        final PersistentHashSet<String> added = original.plus("c");
+        final PersistentHashSet<String> removed = original.minus("a");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b")), original);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), added);
+        Assert.assertEquals(Collections.singleton("b"), removed);
+    }
+
+    @Test
+    public void testCopyOf() {
+        final List<String> source = Arrays.asList("c", "a", "b", "a");
+        final PersistentHashSet<String> copy = PersistentHashSet.copyOf(source);
+        Assert.assertEquals(3, copy.size());
+        Assert.assertEquals(new TreeSet<>(source), new TreeSet<>(copy));
+        Assert.assertSame(copy, PersistentHashSet.copyOf(copy));
+        Assert.assertSame(PersistentHashSet.empty(), PersistentHashSet.copyOf(Collections.<String>emptySet()));
+
+        final Set<String> iterated = new HashSet<>();
+        for (String s : copy) {
+            Assert.assertTrue(iterated.add(s));
+        }
+        Assert.assertEquals(copy, iterated);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMutatorsNotSupported() {
+        PersistentHashSet.<String>empty().plus("a").add("b");
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.jirban.jira.impl.util.PersistentTreeMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kabir Khan
+ */
+public class PersistentTreeMapTest {
+
+    @Test
+    public void testEmpty() {
+        PersistentTreeMap<String, String> map = PersistentTreeMap.empty();
+        Assert.assertEquals(0, map.size());
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get("a"));
+        Assert.assertNull(map.get(null));
+        Assert.assertFalse(map.containsKey("a"));
+        Assert.assertFalse(map.entrySet().iterator().hasNext());
+        Assert.assertSame(map, map.minus("a"));
+        Assert.assertNull(map.firstEntry());
+        Assert.assertNull(map.lastEntry());
+        Assert.assertNull(map.higherEntry("a"));
+        Assert.assertEquals(-1, map.indexOfKey("a"));
+        Assert.assertSame(map,
+                PersistentTreeMap.ofSorted(Collections.<String>emptyList(), Collections.<String>emptyList()));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullKey() {
+        PersistentTreeMap.<String, String>empty().plus(null, "a");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMutatorsNotSupported() {
+        PersistentTreeMap.<String, String>empty().plus("a", "A").put("b", "B");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testEntryAtOutOfBounds() {
+        PersistentTreeMap.<String, String>empty().plus("a", "A").entryAt(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfSortedNotSorted() {
+        PersistentTreeMap.ofSorted(Arrays.asList("a", "c", "b"), Arrays.asList("A", "C", "B"));
+    }
+
+    @Test
+    public void testPlusAndMinus() {
+        PersistentTreeMap<String, String> map = PersistentTreeMap.empty();
+        map = map.plus("c", "C").plus("a", "A").plus("b", "B");
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals("A", map.get("a"));
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(map.keySet()));
+
+        //Replacing a value does not change the size
+        map = map.plus("b", "B1");
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals("B1", map.get("b"));
+
+        map = map.minus("a");
+        Assert.assertEquals(2, map.size());
+        Assert.assertFalse(map.containsKey("a"));
+        Assert.assertEquals(Arrays.asList("B1", "C"), new ArrayList<>(map.values()));
+
+        //Removing everything gives the empty map
+        Assert.assertSame(PersistentTreeMap.empty(), map.minus("b").minus("c"));
+    }
+
+    @Test
+    public void testNoChangeReturnsSameMap() {
+        final String value = "A";
+        final PersistentTreeMap<String, String> map = PersistentTreeMap.<String, String>empty().plus("a", value);
+        Assert.assertSame(map, map.plus("a", value));
+        Assert.assertSame(map, map.minus("b"));
+    }
+
+    @Test
+    public void testNavigation() {
+        final PersistentTreeMap<Integer, String> map =
+                PersistentTreeMap.ofSorted(Arrays.asList(10, 20, 30, 40), Arrays.asList("a", "b", "c", "d"));
+        Assert.assertEquals(Integer.valueOf(10), map.firstEntry().getKey());
+        Assert.assertEquals("d", map.lastEntry().getValue());
+        Assert.assertEquals(Integer.valueOf(10), map.higherEntry(5).getKey());
+        Assert.assertEquals(Integer.valueOf(30), map.higherEntry(20).getKey());
+        Assert.assertEquals(Integer.valueOf(30), map.higherEntry(25).getKey());
+        Assert.assertNull(map.higherEntry(40));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(Integer.valueOf((i + 1) * 10), map.entryAt(i).getKey());
+            Assert.assertEquals(i, map.indexOfKey((i + 1) * 10));
+        }
+        Assert.assertEquals(-1, map.indexOfKey(25));
+    }
+
+    @Test
+    public void testOldVersionsUnchanged() {
+        PersistentTreeMap<Integer, String> original = PersistentTreeMap.empty();
+        for (int i = 0; i < 100; i++) {
+            original = original.plus(i, "v" + i);
+        }
+        final PersistentTreeMap<Integer, String> added = original.plus(100, "v100");
+        final PersistentTreeMap<Integer, String> replaced = original.plus(50, "changed");
+        final PersistentTreeMap<Integer, String> removed = original.minus(50);
+
+        Assert.assertEquals(100, original.size());
+        Assert.assertEquals("v50", original.get(50));
+        Assert.assertFalse(original.containsKey(100));
+
+        Assert.assertEquals(101, added.size());
+        Assert.assertEquals("v100", added.lastEntry().getValue());
+
+        Assert.assertEquals("changed", replaced.get(50));
+
+        Assert.assertEquals(99, removed.size());
+        Assert.assertEquals(Integer.valueOf(51), removed.entryAt(50).getKey());
+        Assert.assertEquals(Integer.valueOf(51), original.entryAt(51).getKey());
+    }
+
+    @Test
+    public void testRandomAgainstTreeMap() {
+        final Random random = new Random(12345);
+        final TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentTreeMap<Integer, Integer> map = PersistentTreeMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            final int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+            Assert.assertEquals(expected.size(), map.size());
+            final Map.Entry<Integer, Integer> higher = expected.higherEntry(key);
+            Assert.assertEquals(higher, map.higherEntry(key));
+        }
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        final List<Integer> keys = new ArrayList<>(expected.keySet());
+        for (int i = 0; i < keys.size(); i++) {
+            Assert.assertEquals(keys.get(i), map.entryAt(i).getKey());
+            Assert.assertEquals(i, map.indexOfKey(keys.get(i)));
+        }
+        Assert.assertEquals(expected.firstEntry(), map.firstEntry());
+        Assert.assertEquals(expected.lastEntry(), map.lastEntry());
+    }
+}
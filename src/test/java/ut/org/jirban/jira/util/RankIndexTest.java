@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ut.org.jirban.jira.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.jirban.jira.impl.util.RankIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Kabir Khan
+ */
+public class RankIndexTest {
+
+    @Test
+    public void testEmpty() {
+        RankIndex<String> index = RankIndex.empty();
+        Assert.assertEquals(0, index.size());
+        Assert.assertEquals(-1, index.indexOf("a"));
+        Assert.assertFalse(index.iterator().hasNext());
+        Assert.assertSame(index, index.without("a"));
+        Assert.assertSame(RankIndex.empty(), RankIndex.copyOf(Collections.<String>emptyList()));
+
+        index = index.moveBefore("a", null);
+        Assert.assertEquals(Collections.singletonList("a"), index);
+    }
+
+    @Test
+    public void testCopyOf() {
+        final List<String> keys = Arrays.asList("a", "b", "c", "d", "e");
+        final RankIndex<String> index = RankIndex.copyOf(keys);
+        check(keys, index);
+        Assert.assertSame(index, RankIndex.copyOf(index));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyOfDuplicates() {
+        RankIndex.copyOf(Arrays.asList("a", "b", "a"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        RankIndex.copyOf(Arrays.asList("a", "b")).get(2);
+    }
+
+    @Test
+    public void testIndexOf() {
+        final RankIndex<String> index = RankIndex.copyOf(Arrays.asList("a", "b", "c", "d", "e"));
+        Assert.assertEquals(0, index.indexOf("a"));
+        Assert.assertEquals(2, index.indexOf("c"));
+        Assert.assertEquals(4, index.indexOf("e"));
+        Assert.assertEquals(4, index.lastIndexOf("e"));
+        Assert.assertEquals(-1, index.indexOf("x"));
+        Assert.assertTrue(index.contains("b"));
+        Assert.assertFalse(index.contains("x"));
+    }
+
+    @Test
+    public void testMoveBefore() {
+        final RankIndex<String> original = RankIndex.copyOf(Arrays.asList("a", "b", "c", "d", "e"));
+
+        //Move forwards and backwards
+        check(Arrays.asList("a", "e", "b", "c", "d"), original.moveBefore("e", "b"));
+        check(Arrays.asList("b", "c", "a", "d", "e"), original.moveBefore("a", "d"));
+        //To the front and the end
+        check(Arrays.asList("c", "a", "b", "d", "e"), original.moveBefore("c", "a"));
+        check(Arrays.asList("a", "c", "d", "e", "b"), original.moveBefore("b", null));
+        //Moving a key to where it already is
+        check(Arrays.asList("a", "b", "c", "d", "e"), original.moveBefore("b", "c"));
+        //Inserting new keys
+        check(Arrays.asList("a", "b", "x", "c", "d", "e"), original.moveBefore("x", "c"));
+        check(Arrays.asList("x", "a", "b", "c", "d", "e"), original.moveBefore("x", "a"));
+        check(Arrays.asList("a", "b", "c", "d", "e", "x"), original.moveBefore("x", null));
+
+        //The original is untouched
+        check(Arrays.asList("a", "b", "c", "d", "e"), original);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMoveBeforeItself() {
+        RankIndex.copyOf(Arrays.asList("a", "b")).moveBefore("a", "a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMoveBeforeMissingKey() {
+        RankIndex.copyOf(Arrays.asList("a", "b")).moveBefore("a", "x");
+    }
+
+    @Test
+    public void testWithout() {
+        final RankIndex<String> original = RankIndex.copyOf(Arrays.asList("a", "b", "c", "d", "e"));
+        check(Arrays.asList("b", "c", "d", "e"), original.without("a"));
+        check(Arrays.asList("a", "b", "d", "e"), original.without("c"));
+        check(Arrays.asList("a", "b", "c", "d"), original.without("e"));
+        Assert.assertSame(original, original.without("x"));
+
+        RankIndex<String> index = original;
+        for (String key : Arrays.asList("c", "a", "e", "b", "d")) {
+            index = index.without(key);
+        }
+        Assert.assertEquals(0, index.size());
+        check(Arrays.asList("a", "b", "c", "d", "e"), original);
+    }
+
+    @Test
+    public void testManyMovesIntoOneGap() {
+        //Each move halves the gap between the ordinals either side, so this runs out of room and respaces the
+        //ordinals several times
+        final List<String> expected = new ArrayList<>(Arrays.asList("a", "b"));
+        RankIndex<String> index = RankIndex.copyOf(expected);
+        for (int i = 0; i < 200; i++) {
+            final String key = "x" + i;
+            index = index.moveBefore(key, "b");
+            expected.add(expected.size() - 1, key);
+            check(expected, index);
+        }
+
+        //Keep moving the same key in front of the one before it, which keeps the gap shrinking from the other side
+        for (int i = 0; i < 200; i++) {
+            final int current = expected.indexOf("a");
+            final String before = expected.get((current + 1) % expected.size());
+            index = index.moveBefore("a", before);
+            expected.remove("a");
+            expected.add(expected.indexOf(before), "a");
+            check(expected, index);
+        }
+    }
+
+    @Test
+    public void testManyMovesToTheFront() {
+        final List<String> expected = new ArrayList<>(Collections.singletonList("a"));
+        RankIndex<String> index = RankIndex.copyOf(expected);
+        for (int i = 0; i < 200; i++) {
+            final String key = "x" + i;
+            index = index.moveBefore(key, expected.get(0));
+            expected.add(0, key);
+        }
+        check(expected, index);
+    }
+
+    @Test
+    public void testRandomAgainstList() {
+        final Random random = new Random(12345);
+        final List<Integer> expected = new ArrayList<>();
+        RankIndex<Integer> index = RankIndex.empty();
+        for (int i = 0; i < 5000; i++) {
+            final Integer key = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                expected.remove(key);
+                index = index.without(key);
+            } else {
+                expected.remove(key);
+                //Favour a few positions so that the same gaps get used again and again
+                final Integer before = expected.isEmpty() || random.nextInt(10) == 0 ?
+                        null : expected.get(Math.min(expected.size() - 1, random.nextInt(3)));
+                index = index.moveBefore(key, before);
+                expected.add(before == null ? expected.size() : expected.indexOf(before), key);
+            }
+            Assert.assertEquals(expected.size(), index.size());
+        }
+        check(expected, index);
+    }
+
+    private static <K> void check(List<K> expected, RankIndex<K> index) {
+        Assert.assertEquals(expected.size(), index.size());
+        Assert.assertEquals(expected, new ArrayList<>(index));
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i), index.get(i));
+            Assert.assertEquals(i, index.indexOf(expected.get(i)));
+        }
+    }
+}
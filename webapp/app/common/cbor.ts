@@ -0,0 +1,183 @@
+/**
+ * Decodes the CBOR (RFC 7049) the server sends instead of json when asked to, into the same objects JSON.parse()
+ * would have given for the json. Only the items the server writes are supported, and all lengths are definite.
+ */
+export class Cbor {
+    static MEDIA_TYPE:string = "application/cbor";
+
+    private _view:DataView;
+    private _bytes:Uint8Array;
+    private _offset:number = 0;
+
+    private constructor(buffer:ArrayBuffer) {
+        this._view = new DataView(buffer);
+        this._bytes = new Uint8Array(buffer);
+    }
+
+    static decode(buffer:ArrayBuffer):any {
+        let cbor:Cbor = new Cbor(buffer);
+        let value:any = cbor.readItem();
+        if (cbor._offset !== buffer.byteLength) {
+            throw new Error("Unexpected data at the end of the CBOR, offset " + cbor._offset);
+        }
+        return value;
+    }
+
+    /**
+     * Decodes the utf-8 bytes of a CBOR text item. Done by hand since TextDecoder is not available in all the browsers
+     * we support.
+     */
+    private static decodeUtf8(bytes:Uint8Array, start:number, end:number):string {
+        let chars:string[] = [];
+        let codes:number[] = [];
+        let i:number = start;
+        while (i < end) {
+            let b:number = bytes[i++];
+            let code:number;
+            let continuation:number = b < 0x80 ? 0 : b < 0xe0 ? 1 : b < 0xf0 ? 2 : 3;
+            if (i + continuation > end) {
+                throw new Error("Truncated utf-8 sequence at offset " + (i - 1));
+            }
+            if (b < 0x80) {
+                code = b;
+            } else if (b < 0xe0) {
+                code = ((b & 0x1f) << 6) | (bytes[i++] & 0x3f);
+            } else if (b < 0xf0) {
+                code = ((b & 0x0f) << 12) | ((bytes[i++] & 0x3f) << 6) | (bytes[i++] & 0x3f);
+            } else {
+                code = ((b & 0x07) << 18) | ((bytes[i++] & 0x3f) << 12) | ((bytes[i++] & 0x3f) << 6) | (bytes[i++] & 0x3f);
+                //Outside the basic multilingual plane, so we need a surrogate pair
+                code -= 0x10000;
+                codes.push(0xd800 + (code >> 10));
+                code = 0xdc00 + (code & 0x3ff);
+            }
+            codes.push(code);
+            if (codes.length >= 4096) {
+                //Avoid blowing the stack with too many arguments
+                chars.push(String.fromCharCode.apply(null, codes));
+                codes = [];
+            }
+        }
+        chars.push(String.fromCharCode.apply(null, codes));
+        return chars.join("");
+    }
+
+    private readItem():any {
+        let initial:number = this._bytes[this._offset++];
+        let major:number = initial >> 5;
+        let info:number = initial & 0x1f;
+
+        if (major === 7) {
+            switch (info) {
+                case 20:
+                    return false;
+                case 21:
+                    return true;
+                case 22:
+                case 23:
+                    return null;
+                case 25:
+                    return this.readHalf();
+                case 26:
+                    return this.readFloat(4);
+                case 27:
+                    return this.readFloat(8);
+                default:
+                    throw new Error("Unsupported CBOR simple value " + info + " at offset " + (this._offset - 1));
+            }
+        }
+
+        let length:number = this.readLength(info);
+        switch (major) {
+            case 0:
+                return length;
+            case 1:
+                return -1 - length;
+            case 2: {
+                this.checkAvailable(length);
+                let bytes:Uint8Array = this._bytes.subarray(this._offset, this._offset + length);
+                this._offset += length;
+                return bytes;
+            }
+            case 3: {
+                this.checkAvailable(length);
+                let text:string = Cbor.decodeUtf8(this._bytes, this._offset, this._offset + length);
+                this._offset += length;
+                return text;
+            }
+            case 4: {
+                let array:any[] = new Array(length);
+                for (let i:number = 0 ; i < length ; i++) {
+                    array[i] = this.readItem();
+                }
+                return array;
+            }
+            case 5: {
+                let object:any = {};
+                for (let i:number = 0 ; i < length ; i++) {
+                    let key:any = this.readItem();
+                    object[key] = this.readItem();
+                }
+                return object;
+            }
+            default:
+                throw new Error("Unsupported CBOR major type " + major + " at offset " + (this._offset - 1));
+        }
+    }
+
+    private checkAvailable(length:number) {
+        if (this._offset + length > this._bytes.length) {
+            throw new Error("CBOR item of length " + length + " at offset " + this._offset + " runs past the end");
+        }
+    }
+
+    private readLength(info:number):number {
+        let value:number;
+        switch (info) {
+            case 24:
+                value = this._view.getUint8(this._offset);
+                this._offset += 1;
+                return value;
+            case 25:
+                value = this._view.getUint16(this._offset);
+                this._offset += 2;
+                return value;
+            case 26:
+                value = this._view.getUint32(this._offset);
+                this._offset += 4;
+                return value;
+            case 27:
+                //Javascript numbers lose precision above 2^53, but json would have given us the same
+                value = this._view.getUint32(this._offset) * 0x100000000 + this._view.getUint32(this._offset + 4);
+                this._offset += 8;
+                return value;
+            default:
+                if (info < 24) {
+                    return info;
+                }
+                throw new Error("Unsupported CBOR length " + info + " at offset " + (this._offset - 1));
+        }
+    }
+
+    private readHalf():number {
+        let half:number = this._view.getUint16(this._offset);
+        this._offset += 2;
+        let exponent:number = (half >> 10) & 0x1f;
+        let mantissa:number = half & 0x3ff;
+        let value:number;
+        if (exponent === 0) {
+            value = mantissa * Math.pow(2, -24);
+        } else if (exponent === 31) {
+            value = mantissa === 0 ? Infinity : NaN;
+        } else {
+            value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+        }
+        return half & 0x8000 ? -value : value;
+    }
+
+    private readFloat(size:number):number {
+        let value:number = size === 4 ? this._view.getFloat32(this._offset) : this._view.getFloat64(this._offset);
+        this._offset += size;
+        return value;
+    }
+}
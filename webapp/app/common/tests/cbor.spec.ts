@@ -0,0 +1,55 @@
+import {Cbor} from "../cbor";
+describe('Cbor tests', () => {
+
+    function decode(bytes:number[]):any {
+        return Cbor.decode(new Uint8Array(bytes).buffer);
+    }
+
+    it('Simple values', () => {
+        expect(decode([0xf4])).toBe(false);
+        expect(decode([0xf5])).toBe(true);
+        expect(decode([0xf6])).toBe(null);
+    });
+
+    it('Integers', () => {
+        expect(decode([0x17])).toBe(23);
+        expect(decode([0x18, 0x64])).toBe(100);
+        expect(decode([0x19, 0x03, 0xe8])).toBe(1000);
+        expect(decode([0x1a, 0x00, 0x0f, 0x42, 0x40])).toBe(1000000);
+        expect(decode([0x1b, 0x00, 0x00, 0x00, 0xe8, 0xd4, 0xa5, 0x10, 0x00])).toBe(1000000000000);
+        expect(decode([0x20])).toBe(-1);
+        expect(decode([0x39, 0x03, 0xe7])).toBe(-1000);
+    });
+
+    it('Floats', () => {
+        expect(decode([0xf9, 0x3e, 0x00])).toBe(1.5);
+        expect(decode([0xfb, 0x3f, 0xf1, 0x99, 0x99, 0x99, 0x99, 0x99, 0x9a])).toBe(1.1);
+    });
+
+    it('Text', () => {
+        expect(decode([0x60])).toEqual("");
+        expect(decode([0x64, 0x49, 0x45, 0x54, 0x46])).toEqual("IETF");
+        expect(decode([0x62, 0xc3, 0xbc])).toEqual("ü");
+        expect(decode([0x64, 0xf0, 0x9f, 0x98, 0x80])).toEqual("😀");
+    });
+
+    it('Truncated text', () => {
+        //The text item says it is longer than the data
+        expect(() => decode([0x64, 0x49, 0x45])).toThrow();
+        //The last character needs more bytes than the text item has
+        expect(() => decode([0x62, 0x61, 0xc3, 0xbc])).toThrow();
+        expect(() => decode([0x63, 0xf0, 0x9f, 0x98, 0x80])).toThrow();
+        expect(() => decode([0x82, 0x61, 0xe6, 0x61, 0x61])).toThrow();
+    });
+
+    it('Arrays and maps', () => {
+        expect(decode([0x80])).toEqual([]);
+        expect(decode([0x83, 0x01, 0x02, 0x03])).toEqual([1, 2, 3]);
+        expect(decode([0xa0])).toEqual({});
+        expect(decode([0xa2, 0x61, 0x61, 0x01, 0x61, 0x62, 0x82, 0x02, 0x03])).toEqual({a: 1, b: [2, 3]});
+    });
+
+    it('Trailing data', () => {
+        expect(() => decode([0x01, 0x02])).toThrow();
+    });
+});
@@ -174,9 +174,12 @@ export class IssueChange {
     private _labels:string[];
     private _fixVersions:string[];
     private _customFieldValues:IMap<string>;
+    //The full list of linked issues, only set if they changed
+    private _linkedIssues:any[];
 
     constructor(key:string, type:string, priority:string, summary:string, state:string, assignee:string,
-                components:string[], labels:string[], fixVersions:string[], customFieldValues:IMap<string>) {
+                components:string[], labels:string[], fixVersions:string[], customFieldValues:IMap<string>,
+                linkedIssues:any[]) {
         this._key = key;
         this._type = type;
         this._priority = priority;
@@ -187,6 +190,7 @@ export class IssueChange {
         this._labels = labels;
         this._fixVersions = fixVersions;
         this._customFieldValues = customFieldValues;
+        this._linkedIssues = linkedIssues;
     }
 
     get key():string {
@@ -228,6 +232,10 @@ export class IssueChange {
     get customFieldValues():IMap<string> {
         return this._customFieldValues;
     }
+
+    get linkedIssues():any[] {
+        return this._linkedIssues;
+    }
 }
 
 export class IssueAdd extends IssueChange {
@@ -236,14 +244,15 @@ export class IssueAdd extends IssueChange {
 
     constructor(key: string, type: string, priority: string, summary: string, state: string,
                 assignee: string, components: string[], labels:string[], fixVersions:string[], customFieldValues: IMap<string>,
-                parallelTaskValues:number[]) {
-        super(key, type, priority, summary, state, assignee, components, labels, fixVersions, customFieldValues);
+                parallelTaskValues:number[], linkedIssues:any[]) {
+        super(key, type, priority, summary, state, assignee, components, labels, fixVersions, customFieldValues, linkedIssues);
         this._parallelTaskValues = parallelTaskValues;
     }
 
     static deserialize(input:any) : IssueAdd {
         return new IssueAdd(input.key, input.type, input.priority, input.summary,
-            input.state, input.assignee, input.components, input.labels, input["fix-versions"], input.custom, input["parallel-tasks"]);
+            input.state, input.assignee, input.components, input.labels, input["fix-versions"], input.custom, input["parallel-tasks"],
+            input["linked-issues"]);
     }
 
 
@@ -263,8 +272,8 @@ export class IssueUpdate extends IssueChange {
 
     constructor(key: string, type: string, priority: string, summary: string, state: string, assignee: string, unassigned: boolean,
                 components: string[], labels:string[], fixVersions:string[], clearedComponents: boolean, clearedLabels:boolean, clearedFixVersions:boolean,
-                customFieldValues: IMap<string>, parallelTaskValueUpdates:IMap<number>) {
-        super(key, type, priority, summary, state, assignee, components, labels, fixVersions, customFieldValues);
+                customFieldValues: IMap<string>, parallelTaskValueUpdates:IMap<number>, linkedIssues:any[]) {
+        super(key, type, priority, summary, state, assignee, components, labels, fixVersions, customFieldValues, linkedIssues);
         this._unassigned = unassigned;
         this._clearedComponents = clearedComponents;
         this._clearedLabels = clearedLabels;
@@ -305,7 +314,7 @@ export class IssueUpdate extends IssueChange {
                 input.state, input.assignee, unassigned,
                 input.components, input.labels, input["fix-versions"],
                 clearedComponents, clearedLabels, clearedFixVersions,
-                input.custom, parallelTasks);
+                input.custom, parallelTasks, input["linked-issues"]);
 
         return change;
     }
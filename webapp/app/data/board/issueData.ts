@@ -323,13 +323,7 @@ class BoardIssueDeserializer extends IssueDeserializer {
             }
         }
 
-        let linkedIssues = input["linked-issues"];
-        if (!!linkedIssues && linkedIssues.length > 0) {
-            this._linked = [];
-            for (let i:number = 0; i < linkedIssues.length; i++) {
-                this._linked.push(new LinkedIssueDeserializer(this._boardData).deserialize(linkedIssues[i]));
-            }
-        }
+        this._linked = this.deserializeLinkedIssues(input["linked-issues"]);
         if (input["custom"]) {
             let customFields:any[] = input["custom"];
             for (let name in customFields) {
@@ -389,6 +383,7 @@ class BoardIssueDeserializer extends IssueDeserializer {
         }
 
         this._parallelTaskOptions = this.deserializeParallelTasksArray(this._project, add.parallelTaskValues);
+        this._linked = this.deserializeLinkedIssues(add.linkedIssues);
 
         return this.build();
     }
@@ -409,6 +404,7 @@ class BoardIssueDeserializer extends IssueDeserializer {
         this._fixVersions = existing.fixVersions;
         this._customFields = existing.customFields;
         this._parallelTaskOptions = existing.parallelTaskOptions;
+        this._linked = existing.linkedIssues;
 
         //Apply the changes
         if (update.type) {
@@ -473,6 +469,10 @@ class BoardIssueDeserializer extends IssueDeserializer {
                 this._parallelTaskOptions.array[taskIndex] = option;
             }
         }
+        if (update.linkedIssues) {
+            //The update contains all the linked issues
+            this._linked = this.deserializeLinkedIssues(update.linkedIssues);
+        }
 
         let newIssue:IssueData = this.build();
         return newIssue;
@@ -486,6 +486,17 @@ class BoardIssueDeserializer extends IssueDeserializer {
 
     }
 
+    private deserializeLinkedIssues(linkedIssues:any[]):LinkedIssueData[] {
+        let linked:LinkedIssueData[];
+        if (!!linkedIssues && linkedIssues.length > 0) {
+            linked = [];
+            for (let i:number = 0; i < linkedIssues.length; i++) {
+                linked.push(new LinkedIssueDeserializer(this._boardData).deserialize(linkedIssues[i]));
+            }
+        }
+        return linked;
+    }
+
     private deserializeParallelTasksArray(project:BoardProject, parallelTasksInput: number[]):Indexed<string> {
         let parallelTaskOptions: Indexed<string>;
         let projectParallelTasks = project.parallelTasks;
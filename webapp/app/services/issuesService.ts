@@ -1,10 +1,11 @@
 //a simple service
 import {Injectable} from "@angular/core";
-import {Headers, Http, Response} from "@angular/http";
+import {Headers, Http, Response, ResponseContentType} from "@angular/http";
 import {Observable, Subject} from "rxjs/Rx";
 import "rxjs/add/operator/map";
 import {BoardData} from "../data/board/boardData";
 import {RestUrlUtil} from "../common/RestUrlUtil";
+import {Cbor} from "../common/cbor";
 import {IssueData} from "../data/board/issueData";
 import {BoardProject} from "../data/board/project";
 import {ProgressErrorService} from "./progressErrorService";
@@ -24,9 +25,15 @@ export class IssuesService {
     private _maxPollFailureCount = 3;
 
     private _destroyed:boolean = false;
+    //Whether the server sends us CBOR when we ask for it
+    private _cbor:boolean = true;
 
     private _defaultPollInterval:number = 30000/3;
 
+    //While the polls bring no changes, each one waits a bit longer than the last, up to this
+    private _maxPollInterval:number = 30000;
+    private _pollInterval:number = this._defaultPollInterval;
+
     private _visible:boolean = true;
 
     constructor(http:Http, progressError:ProgressErrorService, boardData:BoardData) {
@@ -50,6 +57,7 @@ export class IssuesService {
             if (this._missedPolls) {
                 //If we lost some polls while not visible, poll immediately
                 this._missedPolls = false;
+                this._pollInterval = this._defaultPollInterval;
                 clearTimeout(this._pollHandle);
                 this.doPoll();
             }
@@ -82,9 +90,7 @@ export class IssuesService {
         }
         let path:string = RestUrlUtil.caclulateRestUrl(url);
         console.log("Poll " + path);
-        return this._http.get(path)
-            .timeout(this._bigTimeout)
-            .map(res => (<Response>res).json());
+        return this.getPayload(path);
     }
 
     moveIssue(boardData:BoardData, issue:IssueData, toBoardState:string):Observable<any>{
@@ -202,13 +208,40 @@ export class IssuesService {
         }
         let path:string = RestUrlUtil.caclulateRestUrl(url);
         console.log("Populate " + path);
+        return this.getPayload(path);
+    }
+
+    /**
+     * The board and changes are big, so ask the server for the more compact CBOR encoding, which needs the raw bytes.
+     * If the server sends json instead it does not support CBOR, so from then on we ask it for json, which Http
+     * parses for us.
+     */
+    private getPayload(path:string):Observable<any> {
+        if (!this._cbor) {
+            return this.getJsonPayload(path);
+        }
+        let headers:Headers = new Headers();
+        headers.append("Accept", Cbor.MEDIA_TYPE + ", application/json");
+        return this._http.get(path, {headers: headers, responseType: ResponseContentType.ArrayBuffer})
+            .timeout(this._bigTimeout)
+            .flatMap(res => {
+                let contentType:string = res.headers ? res.headers.get("Content-Type") : null;
+                if (contentType && contentType.indexOf(Cbor.MEDIA_TYPE) >= 0) {
+                    return Observable.of(Cbor.decode((<Response>res).arrayBuffer()));
+                }
+                this._cbor = false;
+                return this.getJsonPayload(path);
+            });
+    }
+
+    private getJsonPayload(path:string):Observable<any> {
         return this._http.get(path)
             .timeout(this._bigTimeout)
             .map(res => (<Response>res).json());
     }
 
     private pollIssues() {
-        this._pollHandle = setTimeout(()=>{this.doPoll()}, this._defaultPollInterval);
+        this._pollHandle = setTimeout(()=>{this.doPoll()}, this._pollInterval);
     }
 
     private doPoll() {
@@ -232,12 +265,19 @@ export class IssuesService {
 
         //Don't use the progress monitor for this background task.
         //Simply set the error in it if one happened
+        let view:number = this._boardData.view;
         this.pollBoard(this._boardData)
             .subscribe(
                 data => {
                     console.log("----> Received changes: " + JSON.stringify(data));
                     this._boardData.processChanges(data);
                     if (!this._destroyed) {
+                        //Poll less often while the board is quiet, and go back to the normal interval once it changes
+                        if (this._boardData.view !== view) {
+                            this._pollInterval = this._defaultPollInterval;
+                        } else {
+                            this._pollInterval = Math.min(this._maxPollInterval, this._pollInterval * 3 / 2);
+                        }
                         this.pollIssues();
                     }
                 },